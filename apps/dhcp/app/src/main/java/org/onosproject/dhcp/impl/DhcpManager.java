@@ -178,7 +178,10 @@ public class DhcpManager implements DhcpService {
         factories.forEach(cfgService::registerConfigFactory);
         cfgListener.reconfigureNetwork(cfgService.getConfig(appId, DhcpConfig.class));
         hostProviderService = hostProviderRegistry.register(hostProvider);
-        packetService.addProcessor(processor, PacketProcessor.director(1));
+        packetService.addProcessor(processor, PacketProcessor.director(1), ImmutableSet.of(
+                DefaultTrafficSelector.builder().matchEthType(Ethernet.TYPE_IPV4)
+                        .matchIPProtocol(IPv4.PROTOCOL_UDP).build(),
+                DefaultTrafficSelector.builder().matchEthType(Ethernet.TYPE_ARP).build()));
         requestPackets();
         timeout = SharedScheduledExecutors.newTimeout(new PurgeListTask(), timerDelay, TimeUnit.MINUTES);
         log.info("Started");
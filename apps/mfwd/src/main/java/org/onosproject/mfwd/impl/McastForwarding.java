@@ -15,6 +15,7 @@
  */
 package org.onosproject.mfwd.impl;
 
+import com.google.common.collect.ImmutableSet;
 import org.onosproject.net.FilteredConnectPoint;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
@@ -96,7 +97,8 @@ public class McastForwarding {
         mcastIntentManager = new McastIntentManager();
         mcastRouteManager.addListener(mcastIntentManager);
 
-        packetService.addProcessor(processor, PacketProcessor.director(2));
+        packetService.addProcessor(processor, PacketProcessor.director(2), ImmutableSet.of(
+                DefaultTrafficSelector.builder().matchEthType(Ethernet.TYPE_IPV4).build()));
 
         // Build a traffic selector for all multicast traffic
         TrafficSelector.Builder selector = DefaultTrafficSelector.builder();
@@ -15,6 +15,7 @@
  */
 package org.onosproject.pim.impl;
 
+import com.google.common.collect.ImmutableSet;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.Deactivate;
@@ -80,7 +81,7 @@ public class PimApplication {
         selector.matchIPProtocol(IPv4.PROTOCOL_PIM);
 
         // Use the traffic selector to tell the packet service which packets we want.
-        packetService.addProcessor(processor, PacketProcessor.director(5));
+        packetService.addProcessor(processor, PacketProcessor.director(5), ImmutableSet.of(selector.build()));
 
         packetService.requestPackets(selector.build(), PacketPriority.CONTROL,
                 appId, Optional.empty());
@@ -17,6 +17,7 @@
 package org.onosproject.ra;
 
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import org.onlab.packet.EthType;
 import org.onlab.packet.Ethernet;
 import org.onlab.packet.ICMP6;
@@ -44,6 +45,7 @@ import org.onosproject.net.config.basics.SubjectFactories;
 import org.onosproject.net.device.DeviceEvent;
 import org.onosproject.net.device.DeviceListener;
 import org.onosproject.net.device.DeviceService;
+import org.onosproject.net.flow.DefaultTrafficSelector;
 import org.onosproject.net.flow.DefaultTrafficTreatment;
 import org.onosproject.net.flow.TrafficTreatment;
 import org.onosproject.net.host.InterfaceIpAddress;
@@ -407,7 +409,12 @@ public class RouterAdvertisementManager implements RoutingAdvertisementService {
 
         // Packet processor for handling Router Solicitations
         processor = new InternalPacketProcessor();
-        packetService.addProcessor(processor, PacketProcessor.director(3));
+        packetService.addProcessor(processor, PacketProcessor.director(3),
+                                   ImmutableSet.of(DefaultTrafficSelector.builder()
+                                                           .matchEthType(Ethernet.TYPE_IPV6)
+                                                           .matchIPProtocol(IPv6.PROTOCOL_ICMP6)
+                                                           .matchIcmpv6Type(ICMP6.ROUTER_SOLICITATION)
+                                                           .build()));
 
         // Setup global prefix loading components
         networkConfigRegistry.addListener(networkConfigListener);
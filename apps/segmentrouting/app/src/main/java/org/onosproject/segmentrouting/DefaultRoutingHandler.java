@@ -48,6 +48,7 @@ import org.slf4j.LoggerFactory;
 
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -101,6 +102,8 @@ public class DefaultRoutingHandler {
     // Route populators - 0 will leverage available processors
     private static final int DEFAULT_THREADS = 0;
     private ExecutorService routePopulators;
+    // ECMP shortest path graph calculator - 0 will leverage available processors
+    private final EcmpSpgCalculator ecmpSpgCalculator = new EcmpSpgCalculator(DEFAULT_THREADS);
 
     private Instant lastRoutingChange = Instant.EPOCH;
     private Instant lastFullReroute = Instant.EPOCH;
@@ -213,6 +216,7 @@ public class DefaultRoutingHandler {
         executorServiceMstChg.shutdown();
         executorServiceFRR.shutdown();
         routePopulators.shutdown();
+        ecmpSpgCalculator.shutdown();
     }
 
     //////////////////////////////////////
@@ -246,18 +250,14 @@ public class DefaultRoutingHandler {
             log.debug("populateAllRoutingRules: populationStatus is STARTED");
 
             // take a snapshot of the topology
-            updatedEcmpSpgMap = new HashMap<>();
+            Collection<DeviceId> routers = srManager.deviceConfiguration.getRouters();
+            updatedEcmpSpgMap = computeEcmpSpgs(routers);
             Set<EdgePair> edgePairs = new HashSet<>();
             Set<ArrayList<DeviceId>> routeChanges = new HashSet<>();
-            for (DeviceId dstSw : srManager.deviceConfiguration.getRouters()) {
-                EcmpShortestPathGraph ecmpSpgUpdated =
-                        new EcmpShortestPathGraph(dstSw, srManager);
-                updatedEcmpSpgMap.put(dstSw, ecmpSpgUpdated);
+            for (DeviceId dstSw : routers) {
                 Optional<DeviceId> pairDev = srManager.getPairDeviceId(dstSw);
                 if (pairDev.isPresent()) {
                     // pairDev may not be available yet, but we still need to add
-                    ecmpSpgUpdated = new EcmpShortestPathGraph(pairDev.get(), srManager);
-                    updatedEcmpSpgMap.put(pairDev.get(), ecmpSpgUpdated);
                     edgePairs.add(new EdgePair(dstSw, pairDev.get()));
                 }
 
@@ -471,18 +471,16 @@ public class DefaultRoutingHandler {
             }
 
             // Take snapshots of the topology
-            updatedEcmpSpgMap = new HashMap<>();
+            Set<DeviceId> devices = Streams.stream(srManager.deviceService.getDevices())
+                    .map(Device::id)
+                    .collect(Collectors.toSet());
+            updatedEcmpSpgMap = computeEcmpSpgs(devices);
             Set<EdgePair> edgePairs = new HashSet<>();
-            for (Device sw : srManager.deviceService.getDevices()) {
-                EcmpShortestPathGraph ecmpSpgUpdated =
-                        new EcmpShortestPathGraph(sw.id(), srManager);
-                updatedEcmpSpgMap.put(sw.id(), ecmpSpgUpdated);
-                Optional<DeviceId> pairDev = srManager.getPairDeviceId(sw.id());
+            for (DeviceId sw : devices) {
+                Optional<DeviceId> pairDev = srManager.getPairDeviceId(sw);
                 if (pairDev.isPresent()) {
                     // pairDev may not be available yet, but we still need to add
-                    ecmpSpgUpdated = new EcmpShortestPathGraph(pairDev.get(), srManager);
-                    updatedEcmpSpgMap.put(pairDev.get(), ecmpSpgUpdated);
-                    edgePairs.add(new EdgePair(sw.id(), pairDev.get()));
+                    edgePairs.add(new EdgePair(sw, pairDev.get()));
                 }
             }
 
@@ -1965,6 +1963,20 @@ public class DefaultRoutingHandler {
         return ret;
     }
 
+    /**
+     * Computes the ECMP shortest path graphs rooted at the given devices and
+     * at their pair devices over a single snapshot of the topology.
+     *
+     * @param devices root devices
+     * @return map of root devices to their ECMP shortest path graphs
+     */
+    private HashMap<DeviceId, EcmpShortestPathGraph> computeEcmpSpgs(Collection<DeviceId> devices) {
+        Set<DeviceId> roots = new HashSet<>();
+        // pair devices may not be available yet, but we still need to add them
+        devices.forEach(deviceId -> roots.addAll(deviceAndItsPair(deviceId)));
+        return new HashMap<>(ecmpSpgCalculator.calculate(roots, EcmpTopologySnapshot.of(srManager)));
+    }
+
     /**
      * Returns the set of deviceIds which are the next hops from the targetSw
      * to the dstSw according to the latest ECMP spg.
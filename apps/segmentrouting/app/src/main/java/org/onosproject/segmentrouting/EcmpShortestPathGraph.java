@@ -18,9 +18,9 @@ package org.onosproject.segmentrouting;
 import org.onlab.graph.ScalarWeight;
 import org.onosproject.net.DefaultLink;
 import org.onosproject.net.DefaultPath;
-import org.onosproject.net.Device;
 import org.onosproject.net.DeviceId;
 import org.onosproject.net.Link;
+import org.onosproject.net.LinkKey;
 import org.onosproject.net.Path;
 import org.onosproject.net.provider.ProviderId;
 import org.slf4j.Logger;
@@ -46,7 +46,7 @@ public class EcmpShortestPathGraph {
     HashMap<DeviceId, ArrayList<Path>> paths = new HashMap<>();
     HashMap<Integer, ArrayList<DeviceId>> distanceDeviceMap = new HashMap<>();
     DeviceId rootDevice;
-    private SegmentRoutingManager srManager;
+    private final EcmpTopologySnapshot topology;
     private static final Logger log = LoggerFactory.getLogger(EcmpShortestPathGraph.class);
 
     /**
@@ -56,8 +56,18 @@ public class EcmpShortestPathGraph {
      * @param srManager SegmentRoutingManager object
      */
     public EcmpShortestPathGraph(DeviceId rootDevice, SegmentRoutingManager srManager) {
+        this(rootDevice, EcmpTopologySnapshot.of(srManager));
+    }
+
+    /**
+     * Creates the BFS tree for the given root device over a topology snapshot.
+     *
+     * @param rootDevice root of the BFS tree
+     * @param topology topology snapshot
+     */
+    EcmpShortestPathGraph(DeviceId rootDevice, EcmpTopologySnapshot topology) {
         this.rootDevice = rootDevice;
-        this.srManager = srManager;
+        this.topology = topology;
         calcECMPShortestPathGraph();
     }
 
@@ -74,10 +84,7 @@ public class EcmpShortestPathGraph {
             Set<DeviceId> prevSw = Sets.newHashSet();
             currDistance = distanceQueue.poll();
 
-            for (Link link : srManager.linkHandler.getDeviceEgressLinks(sw)) {
-                if (srManager.linkHandler.avoidLink(link)) {
-                    continue;
-                }
+            for (Link link : topology.egressLinks(sw)) {
                 DeviceId reachedDevice = link.dst().deviceId();
                 if (prevSw.contains(reachedDevice)) {
                     // Ignore LAG links between the same set of Devices
@@ -122,6 +129,42 @@ public class EcmpShortestPathGraph {
         }
     }
 
+    /**
+     * Returns whether the BFS tree would remain the same if the given links
+     * were removed from and added to the topology it was computed over.
+     * <p>
+     * Removing a link affects the tree only if the link is one of the equal
+     * cost upstream links; adding a link affects it only if the link leaves a
+     * device in the tree and reaches a device that is not yet in the tree or
+     * that is not closer to the root than the link's source.
+     *
+     * @param removed keys of the removed links
+     * @param added keys of the added links
+     * @return true if the tree is not affected by the changes
+     */
+    boolean isUnaffectedBy(Set<LinkKey> removed, Set<LinkKey> added) {
+        if (!removed.isEmpty()) {
+            for (ArrayList<Link> links : upstreamLinks.values()) {
+                for (Link link : links) {
+                    if (removed.contains(LinkKey.linkKey(link))) {
+                        return false;
+                    }
+                }
+            }
+        }
+        for (LinkKey link : added) {
+            Integer srcDistance = deviceSearched.get(link.src().deviceId());
+            if (srcDistance == null) {
+                continue;
+            }
+            Integer dstDistance = deviceSearched.get(link.dst().deviceId());
+            if (dstDistance == null || dstDistance >= srcDistance + 1) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     private void getDFSPaths(DeviceId dstDeviceDeviceId, Path path, ArrayList<Path> paths) {
         DeviceId rootDeviceDeviceId = rootDevice;
         for (Link upstreamLink : upstreamLinks.get(dstDeviceDeviceId)) {
@@ -252,11 +295,11 @@ public class EcmpShortestPathGraph {
     @Override
     public String toString() {
         StringBuilder sBuilder = new StringBuilder();
-        for (Device device: srManager.deviceService.getDevices()) {
-            if (!device.id().equals(rootDevice)) {
+        for (DeviceId deviceId : topology.devices()) {
+            if (!deviceId.equals(rootDevice)) {
                 sBuilder.append("\r\n  Paths from " + rootDevice + " to "
-                                + device.id());
-                ArrayList<Path> paths = getECMPPaths(device.id());
+                                + deviceId);
+                ArrayList<Path> paths = getECMPPaths(deviceId);
                 if (paths != null) {
                     for (Path path : paths) {
                         sBuilder.append("\r\n       == "); // equal cost paths delimiter
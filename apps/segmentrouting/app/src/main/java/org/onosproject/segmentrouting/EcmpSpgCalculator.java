@@ -0,0 +1,100 @@
+/*
+ * Copyright 2020-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.segmentrouting;
+
+import com.google.common.collect.ImmutableMap;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.LinkKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Computes the ECMP shortest path graphs of a set of root devices in parallel.
+ * <p>
+ * All graphs of a round are computed over the same topology snapshot. The
+ * graphs of the previous round are kept so that, when only links have changed
+ * since then, the graphs that are not affected by the changed links are
+ * reused rather than recomputed.
+ */
+final class EcmpSpgCalculator {
+
+    private static final Logger log = LoggerFactory.getLogger(EcmpSpgCalculator.class);
+
+    private final ForkJoinPool pool;
+
+    private EcmpTopologySnapshot lastSnapshot;
+    private Map<DeviceId, EcmpShortestPathGraph> lastGraphs = Collections.emptyMap();
+
+    /**
+     * Creates a calculator using a pool with the given parallelism.
+     *
+     * @param parallelism number of worker threads; 0 to use the number of available processors
+     */
+    EcmpSpgCalculator(int parallelism) {
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Computes the ECMP shortest path graphs rooted at the given devices.
+     *
+     * @param roots root devices
+     * @param snapshot topology snapshot to compute the graphs over
+     * @return map of root devices to their ECMP shortest path graphs
+     */
+    synchronized Map<DeviceId, EcmpShortestPathGraph> calculate(Set<DeviceId> roots,
+                                                                EcmpTopologySnapshot snapshot) {
+        long start = System.nanoTime();
+        Set<LinkKey> removed = Collections.emptySet();
+        Set<LinkKey> added = Collections.emptySet();
+        boolean reusable = lastSnapshot != null && lastSnapshot.devices().equals(snapshot.devices());
+        if (reusable) {
+            removed = lastSnapshot.linksNotIn(snapshot);
+            added = snapshot.linksNotIn(lastSnapshot);
+        }
+
+        Map<DeviceId, EcmpShortestPathGraph> graphs = new HashMap<>();
+        Map<DeviceId, ForkJoinTask<EcmpShortestPathGraph>> tasks = new HashMap<>();
+        for (DeviceId root : roots) {
+            EcmpShortestPathGraph last = lastGraphs.get(root);
+            if (reusable && last != null && last.isUnaffectedBy(removed, added)) {
+                graphs.put(root, last);
+            } else {
+                tasks.put(root, pool.submit(() -> new EcmpShortestPathGraph(root, snapshot)));
+            }
+        }
+        tasks.forEach((root, task) -> graphs.put(root, task.join()));
+
+        lastSnapshot = snapshot;
+        lastGraphs = ImmutableMap.copyOf(graphs);
+        log.debug("Computed {} ECMP shortest path graphs ({} reused) in {} ms",
+                  graphs.size(), graphs.size() - tasks.size(), (System.nanoTime() - start) / 1_000_000);
+        return graphs;
+    }
+
+    /**
+     * Shuts down the calculator's worker pool.
+     */
+    void shutdown() {
+        pool.shutdown();
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2020-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.segmentrouting;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Streams;
+import org.onosproject.net.Device;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.Link;
+import org.onosproject.net.LinkKey;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.onosproject.net.LinkKey.linkKey;
+
+/**
+ * Immutable view of the links used for ECMP shortest path computation.
+ * <p>
+ * The snapshot is taken once per routing change and shared by all the
+ * {@link EcmpShortestPathGraph}s computed for that change, so that they see
+ * the same topology and do not scan the link store for every visited device.
+ */
+final class EcmpTopologySnapshot {
+
+    private final Set<DeviceId> devices;
+    private final Map<DeviceId, List<Link>> egressLinks;
+    private final Map<LinkKey, Link> links;
+
+    /**
+     * Creates a snapshot of the given devices and links.
+     *
+     * @param devices devices in the topology
+     * @param links links to be used for path computation
+     */
+    EcmpTopologySnapshot(Set<DeviceId> devices, Collection<Link> links) {
+        this.devices = ImmutableSet.copyOf(devices);
+        Map<DeviceId, List<Link>> grouped = links.stream()
+                .collect(Collectors.groupingBy(link -> link.src().deviceId()));
+        ImmutableMap.Builder<DeviceId, List<Link>> egressBuilder = ImmutableMap.builder();
+        grouped.forEach((deviceId, deviceLinks) -> egressBuilder.put(deviceId, ImmutableList.copyOf(deviceLinks)));
+        this.egressLinks = egressBuilder.build();
+        Map<LinkKey, Link> keyed = new HashMap<>();
+        links.forEach(link -> keyed.putIfAbsent(linkKey(link), link));
+        this.links = ImmutableMap.copyOf(keyed);
+    }
+
+    /**
+     * Takes a snapshot of the devices and of the bidirectional links that are
+     * up and not to be avoided, as seen by the given segment routing manager.
+     *
+     * @param srManager segment routing manager
+     * @return topology snapshot
+     */
+    static EcmpTopologySnapshot of(SegmentRoutingManager srManager) {
+        Set<DeviceId> devices = Streams.stream(srManager.deviceService.getDevices())
+                .map(Device::id)
+                .collect(Collectors.toSet());
+        List<Link> links = srManager.linkHandler.getEgressLinks().values().stream()
+                .flatMap(Set::stream)
+                .filter(link -> !srManager.linkHandler.avoidLink(link))
+                .collect(Collectors.toList());
+        return new EcmpTopologySnapshot(devices, links);
+    }
+
+    /**
+     * Returns the devices in the snapshot.
+     *
+     * @return set of device identifiers
+     */
+    Set<DeviceId> devices() {
+        return devices;
+    }
+
+    /**
+     * Returns the links egressing from the given device.
+     *
+     * @param deviceId device identifier
+     * @return list of egress links; empty if there are none
+     */
+    List<Link> egressLinks(DeviceId deviceId) {
+        return egressLinks.getOrDefault(deviceId, ImmutableList.of());
+    }
+
+    /**
+     * Returns the keys of the links that are in this snapshot but not in the given one.
+     *
+     * @param other snapshot to compare with
+     * @return set of link keys
+     */
+    Set<LinkKey> linksNotIn(EcmpTopologySnapshot other) {
+        return links.keySet().stream()
+                .filter(key -> !other.links.containsKey(key))
+                .collect(Collectors.toSet());
+    }
+}
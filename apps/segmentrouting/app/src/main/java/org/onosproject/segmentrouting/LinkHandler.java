@@ -709,4 +709,19 @@ public class LinkHandler {
                 .collect(Collectors.toSet());
     }
 
+    /**
+     * Returns all links that are UP in the seenLinks store, grouped by the
+     * device they egress from. The returned links are also confirmed to be
+     * bidirectional.
+     *
+     * @return map of device identifiers to the set of egress links from the device
+     */
+    Map<DeviceId, Set<Link>> getEgressLinks() {
+        return seenLinks.entrySet().stream()
+                .filter(Map.Entry::getValue)
+                .map(Map.Entry::getKey)
+                .filter(link -> isBidirectionalLinkUp(link))
+                .collect(Collectors.groupingBy(link -> link.src().deviceId(), Collectors.toSet()));
+    }
+
 }
@@ -0,0 +1,176 @@
+/*
+ * Copyright 2020-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.segmentrouting;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.onosproject.net.ConnectPoint;
+import org.onosproject.net.DefaultLink;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.Link;
+import org.onosproject.net.PortNumber;
+import org.onosproject.net.provider.ProviderId;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Tests for the parallel ECMP shortest path graph calculator.
+ */
+public class EcmpSpgCalculatorTest {
+
+    private static final ProviderId PID = new ProviderId("of", "foo");
+    private static final int SPINES = 4;
+
+    private EcmpSpgCalculator calculator;
+
+    @Before
+    public void setUp() {
+        calculator = new EcmpSpgCalculator(4);
+    }
+
+    @After
+    public void tearDown() {
+        calculator.shutdown();
+    }
+
+    private static DeviceId leaf(int i) {
+        return DeviceId.deviceId("of:leaf" + i);
+    }
+
+    private static DeviceId spine(int i) {
+        return DeviceId.deviceId("of:spine" + i);
+    }
+
+    private static Link link(DeviceId src, int srcPort, DeviceId dst, int dstPort) {
+        return DefaultLink.builder()
+                .providerId(PID)
+                .src(new ConnectPoint(src, PortNumber.portNumber(srcPort)))
+                .dst(new ConnectPoint(dst, PortNumber.portNumber(dstPort)))
+                .type(Link.Type.DIRECT)
+                .build();
+    }
+
+    private static Set<DeviceId> devices(int leaves) {
+        Set<DeviceId> devices = new HashSet<>();
+        for (int l = 0; l < leaves; l++) {
+            devices.add(leaf(l));
+        }
+        for (int s = 0; s < SPINES; s++) {
+            devices.add(spine(s));
+        }
+        return devices;
+    }
+
+    private static List<Link> links(int leaves) {
+        List<Link> links = new ArrayList<>();
+        for (int l = 0; l < leaves; l++) {
+            for (int s = 0; s < SPINES; s++) {
+                links.add(link(leaf(l), s + 1, spine(s), l + 1));
+                links.add(link(spine(s), l + 1, leaf(l), s + 1));
+            }
+        }
+        return links;
+    }
+
+    private static Set<DeviceId> leaves(int leaves) {
+        return devices(leaves).stream()
+                .filter(deviceId -> deviceId.toString().contains("leaf"))
+                .collect(Collectors.toSet());
+    }
+
+    private static void assertSameGraph(EcmpShortestPathGraph expected, EcmpShortestPathGraph actual) {
+        assertEquals(expected.getRootDevice(), actual.getRootDevice());
+        assertEquals(expected.getAllLearnedSwitchesAndVia(), actual.getAllLearnedSwitchesAndVia());
+    }
+
+    /**
+     * Tests that graphs computed in parallel match the graphs computed sequentially.
+     */
+    @Test
+    public void parallelMatchesSequential() {
+        for (int leaves : new int[]{16, 64, 256}) {
+            EcmpTopologySnapshot snapshot = new EcmpTopologySnapshot(devices(leaves), links(leaves));
+            Map<DeviceId, EcmpShortestPathGraph> graphs = calculator.calculate(devices(leaves), snapshot);
+            assertEquals(leaves + SPINES, graphs.size());
+            for (DeviceId root : devices(leaves)) {
+                assertSameGraph(new EcmpShortestPathGraph(root, snapshot), graphs.get(root));
+            }
+            // leaf to leaf paths go through every spine
+            assertEquals(SPINES, graphs.get(leaf(0)).getECMPPaths(leaf(leaves - 1)).size());
+        }
+    }
+
+    /**
+     * Tests that only the graphs affected by a link change are recomputed.
+     */
+    @Test
+    public void reuseUnaffectedGraphs() {
+        Set<DeviceId> roots = leaves(16);
+        List<Link> links = links(16);
+        Map<DeviceId, EcmpShortestPathGraph> first =
+                calculator.calculate(roots, new EcmpTopologySnapshot(devices(16), links));
+
+        // a spine to spine link is not on any shortest path between leaves
+        Link spineLink = link(spine(0), 100, spine(1), 100);
+        links.add(spineLink);
+        Map<DeviceId, EcmpShortestPathGraph> second =
+                calculator.calculate(roots, new EcmpTopologySnapshot(devices(16), links));
+        roots.forEach(root -> assertSame(first.get(root), second.get(root)));
+
+        // removing it again leaves the graphs untouched as well
+        links.remove(spineLink);
+        Map<DeviceId, EcmpShortestPathGraph> third =
+                calculator.calculate(roots, new EcmpTopologySnapshot(devices(16), links));
+        roots.forEach(root -> assertSame(first.get(root), third.get(root)));
+
+        // the link from spine 0 down to leaf 0 is used by every other leaf
+        links.remove(link(spine(0), 1, leaf(0), 1));
+        EcmpTopologySnapshot snapshot = new EcmpTopologySnapshot(devices(16), links);
+        Map<DeviceId, EcmpShortestPathGraph> fourth = calculator.calculate(roots, snapshot);
+        assertSame(first.get(leaf(0)), fourth.get(leaf(0)));
+        roots.stream().filter(root -> !root.equals(leaf(0))).forEach(root -> {
+            assertNotSame(first.get(root), fourth.get(root));
+            assertSameGraph(new EcmpShortestPathGraph(root, snapshot), fourth.get(root));
+        });
+        assertEquals(SPINES, fourth.get(leaf(0)).getECMPPaths(leaf(1)).size());
+        assertEquals(SPINES - 1, fourth.get(leaf(1)).getECMPPaths(leaf(0)).size());
+    }
+
+    /**
+     * Tests that all graphs are recomputed when the set of devices changes.
+     */
+    @Test
+    public void recomputeOnDeviceChange() {
+        Set<DeviceId> roots = leaves(16);
+        Map<DeviceId, EcmpShortestPathGraph> first =
+                calculator.calculate(roots, new EcmpTopologySnapshot(devices(16), links(16)));
+        Set<DeviceId> devices = devices(16);
+        devices.add(DeviceId.deviceId("of:other"));
+        Map<DeviceId, EcmpShortestPathGraph> second =
+                calculator.calculate(roots, new EcmpTopologySnapshot(devices, links(16)));
+        roots.forEach(root -> assertNotSame(first.get(root), second.get(root)));
+    }
+}
@@ -68,6 +68,8 @@ import static org.slf4j.LoggerFactory.getLogger;
  * <p>
  * This application installs a bunch of flows, validates that all those flows have
  * been successfully added and immediately proceeds to remove all the added flows.
+ * The heap used with all flows installed is logged as well, which allows comparing
+ * the memory footprint of the flow rule store configurations.
  */
 @Component(
     immediate = true,
@@ -81,6 +83,8 @@ import static org.slf4j.LoggerFactory.getLogger;
 public class FlowPerfApp {
     private final Logger log = getLogger(getClass());
 
+    private static final long MB = 1024 * 1024;
+
     @Reference(cardinality = MANDATORY)
     protected DeviceService deviceService;
 
@@ -143,6 +147,7 @@ public class FlowPerfApp {
                 + "Batch Size: {}", totalFlows, totalThreads, batchSize);
 
         macIndex = new AtomicLong(0);
+        long baselineHeap = usedHeap();
         FlowRuleListener addMonitor = event -> {
             if (event.type() == FlowRuleEvent.Type.RULE_ADDED) {
                 installationLatch.countDown();
@@ -170,6 +175,10 @@ public class FlowPerfApp {
         log.info("Time to install {} flows: {} ms", totalFlows, System.currentTimeMillis() - addStartTime);
         flowRuleService.removeListener(addMonitor);
 
+        long installedHeap = usedHeap();
+        log.info("Heap used with {} flows installed: {} MB ({} bytes per flow)",
+                 totalFlows, installedHeap / MB, (installedHeap - baselineHeap) / Math.max(totalFlows, 1));
+
 
         uninstallationLatch = new CountDownLatch(totalFlows);
         FlowRuleListener removeListener = event -> {
@@ -198,6 +207,17 @@ public class FlowPerfApp {
         flowRuleService.removeListener(removeListener);
     }
 
+    /**
+     * Returns the heap used after requesting a garbage collection.
+     *
+     * @return used heap in bytes
+     */
+    private long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
     private List<FlowRule> nextBatch(int size) {
         List<FlowRule> rules = Lists.newArrayList();
         for (int i = 0; i < size; ++i) {
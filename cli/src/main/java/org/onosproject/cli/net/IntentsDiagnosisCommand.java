@@ -17,7 +17,6 @@ package org.onosproject.cli.net;
 
 import com.google.common.base.MoreObjects;
 import com.google.common.collect.ImmutableSet;
-import com.google.common.collect.SetMultimap;
 import com.google.common.collect.Streams;
 import org.apache.karaf.shell.api.action.Argument;
 import org.apache.karaf.shell.api.action.Command;
@@ -48,6 +47,8 @@ import org.onosproject.net.intent.WorkPartitionService;
 import org.onosproject.net.statistic.FlowStatisticService;
 
 import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
@@ -79,6 +80,7 @@ public class IntentsDiagnosisCommand extends AbstractShellCommand {
 
     private static final int MAX_INTENT_PATH = 100;
     private static final String FIELD_INTENTS_BY_LINK = "intentsByLink";
+    private static final String METHOD_ENTRIES = "entries";
 
     @Override
     protected void doExecute() {
@@ -136,10 +138,13 @@ public class IntentsDiagnosisCommand extends AbstractShellCommand {
             // Utilizing reflection instead of adding new interface for getting intentsByLink
             Field f = objTracker.getClass().getDeclaredField(FIELD_INTENTS_BY_LINK);
             f.setAccessible(true);
-            SetMultimap<LinkKey, Key> intentsByLink = (SetMultimap<LinkKey, Key>) f.get(objTracker);
+            Object intentsByLink = f.get(objTracker);
+            Method entries = intentsByLink.getClass().getDeclaredMethod(METHOD_ENTRIES);
+            entries.setAccessible(true);
 
-            return ImmutableSet.copyOf(intentsByLink.entries());
-        } catch (NoSuchFieldException | IllegalAccessException ex) {
+            return ImmutableSet.copyOf((Set<Map.Entry<LinkKey, Key>>) entries.invoke(intentsByLink));
+        } catch (NoSuchFieldException | NoSuchMethodException | IllegalAccessException
+                | InvocationTargetException ex) {
             error("error: " + ex);
             return ImmutableSet.of();
         }
@@ -35,4 +35,16 @@ public interface EventDeliveryService extends EventDispatcher, EventSinkRegistry
      */
     long getDispatchTimeLimit();
 
+    /**
+     * Sets the number of ordered lanes over which each class of events is
+     * dispatched and the capacity of each lane's queue. Events are assigned
+     * to lanes by subject, so events for the same subject are still
+     * delivered in order.
+     *
+     * @param lanes     number of lanes per class of events
+     * @param queueSize capacity of each lane's queue; 0 for unbounded
+     */
+    default void setDispatchLanes(int lanes, int queueSize) {
+    }
+
 }
@@ -34,6 +34,7 @@ public final class LinkKey {
 
     private final ConnectPoint src;
     private final ConnectPoint dst;
+    private final int hash;
 
     /**
      * Creates a link identifier with source and destination connection point.
@@ -44,6 +45,7 @@ public final class LinkKey {
     private LinkKey(ConnectPoint src, ConnectPoint dst) {
         this.src = checkNotNull(src);
         this.dst = checkNotNull(dst);
+        this.hash = Objects.hash(src, dst);
     }
 
     /**
@@ -75,7 +77,7 @@ public final class LinkKey {
 
     @Override
     public int hashCode() {
-        return Objects.hash(src, dst);
+        return hash;
     }
 
     @Override
@@ -85,7 +87,8 @@ public final class LinkKey {
         }
         if (obj instanceof LinkKey) {
             final LinkKey other = (LinkKey) obj;
-            return Objects.equals(this.src, other.src) &&
+            return this.hash == other.hash &&
+                    Objects.equals(this.src, other.src) &&
                     Objects.equals(this.dst, other.dst);
         }
         return false;
@@ -144,6 +144,37 @@ public class DefaultFlowEntry extends DefaultFlowRule
         this.lastSeen = System.currentTimeMillis();
     }
 
+    /**
+     * Creates a flow entry restoring the complete state of a previously
+     * stored flow entry, including its creation and last seen times.
+     *
+     * @param rule the flow rule
+     * @param state the flow state
+     * @param life the duration of the flow
+     * @param lifeTimeUnit life time unit
+     * @param liveType the flow live type, i.e., IMMEDIATE, SHORT, MID, LONG
+     * @param packets the number of packets of this flow
+     * @param bytes the number of bytes of this flow
+     * @param errType the error type
+     * @param errCode the error code
+     * @param lastSeen the last seen time in milliseconds since epoch
+     * @param created the creation time in milliseconds since epoch
+     */
+    public DefaultFlowEntry(FlowRule rule, FlowEntryState state,
+                            long life, TimeUnit lifeTimeUnit, FlowLiveType liveType,
+                            long packets, long bytes, int errType, int errCode,
+                            long lastSeen, long created) {
+        super(rule, created);
+        this.state = state;
+        this.life = lifeTimeUnit.toNanos(life);
+        this.liveType = liveType;
+        this.packets = packets;
+        this.bytes = bytes;
+        this.errType = errType;
+        this.errCode = errCode;
+        this.lastSeen = lastSeen;
+    }
+
     @Override
     public long life() {
         return life(SECONDS);
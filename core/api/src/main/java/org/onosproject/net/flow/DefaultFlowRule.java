@@ -59,6 +59,17 @@ public class DefaultFlowRule implements FlowRule {
      * @param rule new flow rule
      */
     public DefaultFlowRule(FlowRule rule) {
+        this(rule, System.currentTimeMillis());
+    }
+
+    /**
+     * Creates a new flow rule from an existing rule, preserving the given
+     * creation time.
+     *
+     * @param rule    existing flow rule
+     * @param created creation time in milliseconds since epoch
+     */
+    protected DefaultFlowRule(FlowRule rule, long created) {
         this.deviceId = rule.deviceId();
         this.priority = rule.priority();
         this.selector = rule.selector();
@@ -70,7 +81,7 @@ public class DefaultFlowRule implements FlowRule {
         this.hardTimeout = rule.hardTimeout();
         this.reason = rule.reason();
         this.permanent = rule.isPermanent();
-        this.created = System.currentTimeMillis();
+        this.created = created;
         this.tableId = rule.table();
     }
 
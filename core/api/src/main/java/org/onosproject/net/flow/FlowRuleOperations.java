@@ -32,19 +32,44 @@ import static org.onosproject.net.flow.FlowRuleOperation.Type.*;
  */
 public class FlowRuleOperations {
 
+    /**
+     * Priority class of a batch of flow rule operations. Queued operations of
+     * a higher class are sent to a device ahead of those of lower classes.
+     */
+    public enum Priority {
+        /**
+         * Time critical operations, such as fast failover rules.
+         */
+        URGENT,
+
+        /**
+         * Regular operations.
+         */
+        NORMAL,
+
+        /**
+         * Bulk operations, which may be deferred and rate limited.
+         */
+        BULK
+    }
+
     private final List<Set<FlowRuleOperation>> stages;
     private final FlowRuleOperationsContext callback;
+    private final Priority priority;
 
     private FlowRuleOperations(List<Set<FlowRuleOperation>> stages,
-                               FlowRuleOperationsContext cb) {
+                               FlowRuleOperationsContext cb,
+                               Priority priority) {
         this.stages = stages;
         this.callback = cb;
+        this.priority = priority;
     }
 
     // kryo-constructor
     protected FlowRuleOperations() {
         this.stages = Lists.newArrayList();
         this.callback = null;
+        this.priority = Priority.NORMAL;
     }
 
     /**
@@ -66,6 +91,15 @@ public class FlowRuleOperations {
         return callback;
     }
 
+    /**
+     * Returns the priority class of this batch of operations.
+     *
+     * @return priority class
+     */
+    public Priority priority() {
+        return priority;
+    }
+
     /**
      * Returns a new builder.
      *
@@ -79,6 +113,7 @@ public class FlowRuleOperations {
     public String toString() {
         return MoreObjects.toStringHelper(this)
                 .add("stages", stages)
+                .add("priority", priority)
                 .toString();
     }
 
@@ -89,6 +124,7 @@ public class FlowRuleOperations {
 
         private final ImmutableList.Builder<Set<FlowRuleOperation>> listBuilder = ImmutableList.builder();
         private ImmutableSet.Builder<FlowRuleOperation> currentStage = ImmutableSet.builder();
+        private Priority priority = Priority.NORMAL;
 
         // prevent use of the default constructor outside of this file; use the above method
         private Builder() {}
@@ -104,6 +140,17 @@ public class FlowRuleOperations {
             return this;
         }
 
+        /**
+         * Sets the priority class of the operations; {@link Priority#NORMAL} by default.
+         *
+         * @param priority priority class
+         * @return this
+         */
+        public Builder priority(Priority priority) {
+            this.priority = checkNotNull(priority);
+            return this;
+        }
+
         /**
          * Appends an existing flow rule to the current stage.
          *
@@ -178,7 +225,7 @@ public class FlowRuleOperations {
             checkNotNull(cb);
 
             closeStage();
-            return new FlowRuleOperations(listBuilder.build(), cb);
+            return new FlowRuleOperations(listBuilder.build(), cb, priority);
         }
     }
 }
@@ -51,6 +51,33 @@ public interface FlowRuleProviderService extends ProviderService<FlowRuleProvide
      */
     void pushFlowMetricsWithoutFlowMissing(DeviceId deviceId, Iterable<FlowEntry> flowEntries);
 
+    /**
+     * Pushes one segment of the flow entries currently applied on the given
+     * device, e.g. one part of a multipart statistics reply. Entries are
+     * merged as the segments arrive; flows missing from the device are
+     * detected once {@link #pushFlowMetricsComplete(DeviceId, long)} is
+     * called for the same reply. A segment of a new reply discards whatever
+     * was pushed for an earlier, incomplete reply of the device.
+     *
+     * @param deviceId device identifier
+     * @param replyId identifier of the reply the segment belongs to, e.g.
+     *                the transaction id of a multipart reply
+     * @param flowEntries segment of flow rules
+     */
+    default void pushFlowMetricsSegment(DeviceId deviceId, long replyId, Iterable<FlowEntry> flowEntries) {
+        pushFlowMetricsWithoutFlowMissing(deviceId, flowEntries);
+    }
+
+    /**
+     * Signals that all segments of the given reply have been pushed, so that
+     * the flows present only in the store can be reconciled.
+     *
+     * @param deviceId device identifier
+     * @param replyId identifier of the completed reply
+     */
+    default void pushFlowMetricsComplete(DeviceId deviceId, long replyId) {
+    }
+
     /**
      * Pushes the collection of table statistics entries currently extracted
      * from the given device.
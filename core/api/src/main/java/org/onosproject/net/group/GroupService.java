@@ -19,6 +19,8 @@ import org.onosproject.core.ApplicationId;
 import org.onosproject.event.ListenerService;
 import org.onosproject.net.DeviceId;
 
+import java.util.Collection;
+
 /**
  * Service for create/update/delete "group" in the devices.
  * Flow entries can point to a "group" defined in the devices that enables
@@ -55,6 +57,19 @@ public interface GroupService
      */
     void addGroup(GroupDescription groupDesc);
 
+    /**
+     * Creates a batch of groups, possibly spanning several devices.
+     * Requests for the same device are submitted to the store together,
+     * and forwarded in a single message when the device is mastered
+     * by a remote controller instance. Notifications are the same as
+     * for {@link #addGroup(GroupDescription)}.
+     *
+     * @param groupDescs group creation parameters
+     */
+    default void addGroups(Collection<GroupDescription> groupDescs) {
+        groupDescs.forEach(this::addGroup);
+    }
+
     /**
      * Returns a group object associated to an application cookie.
      *
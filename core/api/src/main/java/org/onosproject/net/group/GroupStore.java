@@ -83,6 +83,16 @@ public interface GroupStore extends Store<GroupEvent, GroupStoreDelegate> {
      */
     void storeGroupDescription(GroupDescription groupDesc);
 
+    /**
+     * Stores new group entries using the information from a batch of
+     * group descriptions, possibly spanning several devices.
+     *
+     * @param groupDescs group descriptions to be used to store group entries
+     */
+    default void storeGroupDescriptions(Collection<GroupDescription> groupDescs) {
+        groupDescs.forEach(this::storeGroupDescription);
+    }
+
     /**
      * Updates the existing group entry with the information
      * from group description.
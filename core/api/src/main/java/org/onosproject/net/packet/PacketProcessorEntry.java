@@ -15,6 +15,10 @@
  */
 package org.onosproject.net.packet;
 
+import com.google.common.collect.ImmutableSortedMap;
+
+import java.util.SortedMap;
+
 /**
  * Packet processor entry tracking the processor, its priority and
  * time consumption.
@@ -55,4 +59,16 @@ public interface PacketProcessorEntry {
      * @return average time in nanos
      */
     long averageNanos();
+
+    /**
+     * Returns the distribution of the time spent processing packets. Each
+     * bucket is keyed by its inclusive upper bound in nanoseconds, the last
+     * one by {@link Long#MAX_VALUE}, and holds the number of invocations
+     * falling into it.
+     *
+     * @return processing time histogram; empty if not tracked
+     */
+    default SortedMap<Long, Long> latencyHistogram() {
+        return ImmutableSortedMap.of();
+    }
 }
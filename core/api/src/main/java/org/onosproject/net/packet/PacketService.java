@@ -15,6 +15,7 @@
  */
 package org.onosproject.net.packet;
 
+import com.google.common.collect.ImmutableSet;
 import org.onosproject.core.ApplicationId;
 import org.onosproject.net.DeviceId;
 import org.onosproject.net.flow.TrafficSelector;
@@ -22,6 +23,7 @@ import org.onosproject.net.flow.TrafficSelector;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * Service for intercepting data plane packets and for emitting synthetic
@@ -43,7 +45,38 @@ public interface PacketService {
      */
     void addProcessor(PacketProcessor processor, int priority);
 
-    // TODO allow processors to register for particular types of packets
+    /**
+     * Adds the specified processor to the list of packet processors, to be
+     * invoked only for the packets matching the given selector. Only the
+     * in-port, ethernet type and IP protocol criteria are used to filter
+     * packets; any other criterion is considered matching, so the processor
+     * must still check the packets it is given.
+     *
+     * @param processor processor to be added
+     * @param priority  priority in the reverse natural order
+     * @param selector  selector of the packets of interest
+     * @throws java.lang.IllegalArgumentException if a processor with the
+     *                                            given priority already exists
+     */
+    default void addProcessor(PacketProcessor processor, int priority, TrafficSelector selector) {
+        addProcessor(processor, priority, ImmutableSet.of(selector));
+    }
+
+    /**
+     * Adds the specified processor to the list of packet processors, to be
+     * invoked only for the packets matching any of the given selectors.
+     * Selectors are matched as for
+     * {@link #addProcessor(PacketProcessor, int, TrafficSelector)}.
+     *
+     * @param processor processor to be added
+     * @param priority  priority in the reverse natural order
+     * @param selectors selectors of the packets of interest
+     * @throws java.lang.IllegalArgumentException if a processor with the
+     *                                            given priority already exists
+     */
+    default void addProcessor(PacketProcessor processor, int priority, Set<TrafficSelector> selectors) {
+        addProcessor(processor, priority);
+    }
 
     /**
      * Removes the specified processor from the processing pipeline.
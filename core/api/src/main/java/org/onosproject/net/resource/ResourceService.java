@@ -19,8 +19,11 @@ import com.google.common.annotations.Beta;
 import com.google.common.collect.ImmutableList;
 import org.onosproject.event.ListenerService;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -81,6 +84,32 @@ public interface ResourceService extends ResourceQueryService, ListenerService<R
         return allocate(consumer, Arrays.asList(resources));
     }
 
+    /**
+     * Transactionally allocates the specified resources to the specified users.
+     * All allocations are made when this method succeeds, or no allocation is made when this method fails.
+     * Implementations are expected to make the allocations of all the users at once; the default
+     * implementation allocates the resources of each user in turn and releases them again on failure.
+     *
+     * @param requests resources to be allocated, keyed by the user which they are allocated to
+     * @return list of allocation information if succeeded, otherwise empty list
+     */
+    default List<ResourceAllocation> allocateAll(
+            Map<? extends ResourceConsumer, ? extends List<? extends Resource>> requests) {
+        checkNotNull(requests);
+
+        List<ResourceAllocation> allocations = new ArrayList<>();
+        for (Map.Entry<? extends ResourceConsumer, ? extends List<? extends Resource>> request
+                : requests.entrySet()) {
+            List<ResourceAllocation> allocated = allocate(request.getKey(), request.getValue());
+            if (allocated.size() != request.getValue().size()) {
+                release(allocations);
+                return ImmutableList.of();
+            }
+            allocations.addAll(allocated);
+        }
+        return allocations;
+    }
+
     /**
      * Releases the specified resource allocation.
      *
@@ -124,5 +153,20 @@ public interface ResourceService extends ResourceQueryService, ListenerService<R
      */
     boolean release(ResourceConsumer consumer);
 
+    /**
+     * Transactionally releases the resources allocated to the specified consumers.
+     * All allocations are released when this method succeeded, or no allocation is released when this method fails.
+     *
+     * @param consumers consumers whose allocated resources are to be released
+     * @return true if succeeded, otherwise false
+     */
+    default boolean releaseAll(Collection<? extends ResourceConsumer> consumers) {
+        checkNotNull(consumers);
+
+        List<ResourceAllocation> allocations = new ArrayList<>();
+        consumers.forEach(consumer -> allocations.addAll(getResourceAllocations(consumer)));
+        return release(allocations);
+    }
+
     // TODO: listener and event mechanism need to be considered
 }
@@ -20,6 +20,7 @@ import org.onosproject.store.Store;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -62,6 +63,17 @@ public interface ResourceStore extends Store<ResourceEvent, ResourceStoreDelegat
      */
     boolean allocate(List<? extends Resource> resources, ResourceConsumer consumer);
 
+    /**
+     * Allocates the specified resources to the specified consumers in transactional way.
+     * The state after completion of this method is all the resources are allocated to their consumers,
+     * or no resource is allocated to any of the consumers. The whole allocation fails when any one of
+     * the resource can't be allocated.
+     *
+     * @param requests resources to be allocated, keyed by the consumer which they are allocated to
+     * @return true if the allocation succeeds, false otherwise.
+     */
+    boolean allocateAll(Map<? extends ResourceConsumer, ? extends List<? extends Resource>> requests);
+
     /**
      * Releases the specified allocated resources in transactional way.
      * The state after completion of this method is all the resources
@@ -75,6 +87,16 @@ public interface ResourceStore extends Store<ResourceEvent, ResourceStoreDelegat
      */
     boolean release(List<ResourceAllocation> allocations);
 
+    /**
+     * Releases all the resources allocated to the specified consumers in transactional way.
+     * The state after completion of this method is all the resources are released from the consumers,
+     * or no resource is released.
+     *
+     * @param consumers consumers whose allocated resources are to be released
+     * @return true if succeeds, otherwise false
+     */
+    boolean releaseAll(Collection<? extends ResourceConsumer> consumers);
+
     /**
      * Returns the resource consumers to whom the specified resource is allocated.
      * The return value is a list having only one element when the given resource is discrete type.
@@ -93,7 +93,7 @@ public abstract class AbstractPathService
         // Otherwise get all paths between the source and destination edge
         // devices.
         Topology topology = topologyService.currentTopology();
-        Set<Path> paths = topologyService.getPaths(topology, srcDevice,
+        Set<Path> paths = getInfrastructurePaths(topology, srcDevice,
                 dstDevice, internalWeigher);
 
         return edgeToEdgePaths(srcEdge, dstEdge, paths, internalWeigher);
@@ -161,7 +161,7 @@ public abstract class AbstractPathService
         // Otherwise get all paths between the source and destination edge
         // devices.
         Topology topology = topologyService.currentTopology();
-        Set<DisjointPath> paths = topologyService.getDisjointPaths(topology,
+        Set<DisjointPath> paths = getInfrastructureDisjointPaths(topology,
                 srcDevice, dstDevice, internalWeigher);
 
         return edgeToEdgePathsDisjoint(srcEdge, dstEdge, paths, internalWeigher);
@@ -202,6 +202,40 @@ public abstract class AbstractPathService
         return edgeToEdgePathsDisjoint(srcEdge, dstEdge, paths, internalWeigher);
     }
 
+    /**
+     * Returns the set of all shortest paths between the specified
+     * infrastructure devices in the given topology.
+     * <p>
+     * Subclasses may override this to reuse previously computed paths.
+     *
+     * @param topology topology descriptor
+     * @param src      source device
+     * @param dst      destination device
+     * @param weigher  edge-weight entity
+     * @return set of all shortest paths between the two devices
+     */
+    protected Set<Path> getInfrastructurePaths(Topology topology, DeviceId src,
+                                               DeviceId dst, LinkWeigher weigher) {
+        return topologyService.getPaths(topology, src, dst, weigher);
+    }
+
+    /**
+     * Returns the set of all shortest disjoint path pairs between the
+     * specified infrastructure devices in the given topology.
+     * <p>
+     * Subclasses may override this to reuse previously computed paths.
+     *
+     * @param topology topology descriptor
+     * @param src      source device
+     * @param dst      destination device
+     * @param weigher  edge-weight entity
+     * @return set of all shortest disjoint path pairs between the two devices
+     */
+    protected Set<DisjointPath> getInfrastructureDisjointPaths(Topology topology, DeviceId src,
+                                                               DeviceId dst, LinkWeigher weigher) {
+        return topologyService.getDisjointPaths(topology, src, dst, weigher);
+    }
+
     // Finds the host edge link if the element ID is a host id of an existing
     // host. Otherwise, if the host does not exist, it returns null and if
     // the element ID is not a host ID, returns NOT_HOST edge link.
@@ -121,16 +121,29 @@ public class ClusterMessage {
      * @return bytes
      */
     public byte[] getBytes() {
+        return getBytes(sender, subject, ByteBuffer.wrap(payload));
+    }
+
+    /**
+     * Serializes a cluster message with the given payload, copying the
+     * remaining bytes of the payload buffer exactly once.
+     *
+     * @param sender  message sender
+     * @param subject message subject
+     * @param payload message payload
+     * @return bytes
+     */
+    public static byte[] getBytes(NodeId sender, MessageSubject subject, ByteBuffer payload) {
         byte[] senderBytes = sender.toString().getBytes(Charsets.UTF_8);
         byte[] subjectBytes = subject.value().getBytes(Charsets.UTF_8);
-        int capacity = 12 + senderBytes.length + subjectBytes.length + payload.length;
+        int capacity = 12 + senderBytes.length + subjectBytes.length + payload.remaining();
         ByteBuffer buffer = ByteBuffer.allocate(capacity);
         buffer.putInt(senderBytes.length);
         buffer.put(senderBytes);
         buffer.putInt(subjectBytes.length);
         buffer.put(subjectBytes);
-        buffer.putInt(payload.length);
-        buffer.put(payload);
+        buffer.putInt(payload.remaining());
+        buffer.put(payload.duplicate());
         return buffer.array();
     }
 
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2020-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.cluster.messaging;
+
+import java.nio.ByteBuffer;
+import java.util.function.Function;
+
+/**
+ * Message encoder that hands the encoded bytes to a function instead of
+ * returning a copy of them.
+ * <p>
+ * {@link ClusterCommunicationService} recognizes encoders of this type and
+ * writes the encoded message straight into the outgoing cluster message.
+ *
+ * @param <M> message type
+ */
+@FunctionalInterface
+public interface MessageEncoder<M> extends Function<M, byte[]> {
+
+    /**
+     * Encodes the specified message and applies the given function to the
+     * encoded bytes. The buffer is only valid for the duration of the call.
+     *
+     * @param message message to encode
+     * @param function function to apply to the encoded bytes
+     * @param <T> function result type
+     * @return function result
+     */
+    <T> T encode(M message, Function<ByteBuffer, T> function);
+
+    @Override
+    default byte[] apply(M message) {
+        return encode(message, buffer -> {
+            byte[] bytes = new byte[buffer.remaining()];
+            buffer.get(bytes);
+            return bytes;
+        });
+    }
+}
@@ -16,10 +16,13 @@
 
 package org.onosproject.store.service;
 
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.List;
+import java.util.function.Function;
 
 import org.onlab.util.KryoNamespace;
+import org.onosproject.store.cluster.messaging.MessageEncoder;
 
 import com.google.common.collect.Lists;
 
@@ -35,6 +38,28 @@ public interface Serializer {
      */
     <T> byte[] encode(T object);
 
+    /**
+     * Serialize the specified object and apply the given function to the
+     * serialized bytes. The buffer is only valid for the duration of the call.
+     * @param object object to serialize.
+     * @param function function to apply to the serialized bytes.
+     * @return function result.
+     * @param <T> function result type
+     */
+    default <T> T encode(Object object, Function<ByteBuffer, T> function) {
+        return function.apply(ByteBuffer.wrap(encode(object)));
+    }
+
+    /**
+     * Returns a message encoder backed by this serializer, for use with the
+     * cluster communication service.
+     * @return message encoder.
+     * @param <M> message type
+     */
+    default <M> MessageEncoder<M> encoder() {
+        return this::encode;
+    }
+
     /**
      * Deserialize the specified bytes.
      * @param bytes byte array to deserialize.
@@ -65,6 +90,11 @@ public interface Serializer {
                 return kryo.serialize(object);
             }
 
+            @Override
+            public <T> T encode(Object object, Function<ByteBuffer, T> function) {
+                return kryo.serialize(object, function);
+            }
+
             @Override
             public <T> T decode(byte[] bytes) {
                 return kryo.deserialize(bytes);
@@ -106,6 +136,11 @@ public interface Serializer {
                 return namespace.serialize(object);
             }
 
+            @Override
+            public <T> T encode(Object object, Function<ByteBuffer, T> function) {
+                return namespace.serialize(object, function);
+            }
+
             @Override
             public <T> T decode(byte[] bytes) {
                 return namespace.deserialize(bytes);
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2020-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.net.resource;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.junit.Test;
+import org.onlab.packet.VlanId;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.PortNumber;
+import org.onosproject.net.intent.IntentId;
+
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Unit tests for the default bulk operations of the resource service.
+ */
+public class ResourceServiceTest {
+
+    private static final DeviceId D1 = DeviceId.deviceId("of:001");
+    private static final PortNumber P1 = PortNumber.portNumber(1);
+    private static final IntentId C1 = IntentId.valueOf(1);
+    private static final IntentId C2 = IntentId.valueOf(2);
+    private static final IntentId FAILING = IntentId.valueOf(3);
+
+    private static final Resource VLAN1 = Resources.discrete(D1, P1, VlanId.vlanId((short) 100)).resource();
+    private static final Resource VLAN2 = Resources.discrete(D1, P1, VlanId.vlanId((short) 200)).resource();
+    private static final Resource VLAN3 = Resources.discrete(D1, P1, VlanId.vlanId((short) 300)).resource();
+
+    // Refuses any allocation to the failing consumer
+    private final ResourceService service = new MockResourceService() {
+        @Override
+        public List<ResourceAllocation> allocate(ResourceConsumer consumer, List<? extends Resource> resources) {
+            if (consumer.equals(FAILING)) {
+                return ImmutableList.of();
+            }
+            return super.allocate(consumer, resources);
+        }
+    };
+
+    /**
+     * Tests allocating to and releasing from several consumers at once.
+     */
+    @Test
+    public void allocateAndReleaseAll() {
+        List<ResourceAllocation> allocations = service.allocateAll(ImmutableMap.of(
+                C1, ImmutableList.of(VLAN1),
+                C2, ImmutableList.of(VLAN2, VLAN3)));
+        assertThat(allocations, hasSize(3));
+        assertThat(service.getResourceAllocations(C2), hasSize(2));
+
+        assertThat(service.releaseAll(ImmutableList.of(C1, C2)), is(true));
+        assertThat(service.getResourceAllocations(C1), is(empty()));
+        assertThat(service.getResourceAllocations(C2), is(empty()));
+    }
+
+    /**
+     * Tests that a failed bulk allocation leaves no allocation behind.
+     */
+    @Test
+    public void allocateAllFailure() {
+        List<ResourceAllocation> allocations = service.allocateAll(ImmutableMap.of(
+                C1, ImmutableList.of(VLAN1),
+                FAILING, ImmutableList.of(VLAN2)));
+        assertThat(allocations, is(empty()));
+        assertThat(service.getResourceAllocations(C1), is(empty()));
+    }
+}
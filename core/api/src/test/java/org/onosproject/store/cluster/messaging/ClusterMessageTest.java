@@ -15,6 +15,8 @@
  */
 package org.onosproject.store.cluster.messaging;
 
+import java.nio.ByteBuffer;
+
 import org.junit.Test;
 import org.onosproject.cluster.NodeId;
 
@@ -79,4 +81,20 @@ public class ClusterMessageTest {
         ClusterMessage message = ClusterMessage.fromBytes(fromBytes);
         assertThat(message, is(message3));
     }
+
+    /**
+     * Tests serializing a message from a payload buffer.
+     */
+    @Test
+    public void testPayloadBuffer() {
+        ByteBuffer buffer = ByteBuffer.allocate(payload1.length + 4);
+        buffer.putShort((short) 7);
+        buffer.put(payload1);
+        buffer.putShort((short) 7);
+        buffer.position(2).limit(2 + payload1.length);
+
+        byte[] bytes = ClusterMessage.getBytes(nodeId, subject2, buffer);
+        assertThat(ClusterMessage.fromBytes(bytes), is(message3));
+        assertThat(buffer.remaining(), is(payload1.length));
+    }
 }
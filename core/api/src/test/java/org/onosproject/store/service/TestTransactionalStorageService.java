@@ -0,0 +1,243 @@
+/*
+ * Copyright 2020-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.service;
+
+import org.onosproject.store.primitives.TransactionId;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Storage service backing consistent maps by name and providing optimistic
+ * transactions over them.
+ */
+public class TestTransactionalStorageService extends TestStorageService {
+    private final Map<String, ConsistentMap<?, ?>> maps = new ConcurrentHashMap<>();
+    private Runnable beforeNextCommit;
+    private int commits;
+    private int failedCommits;
+
+    /**
+     * Registers an action to run right before the next commit is validated.
+     *
+     * @param action action to run
+     */
+    public void beforeNextCommit(Runnable action) {
+        beforeNextCommit = action;
+    }
+
+    /**
+     * Returns the number of transactions committed successfully.
+     *
+     * @return number of successful commits
+     */
+    public int commits() {
+        return commits;
+    }
+
+    /**
+     * Returns the number of transactions rejected because of a conflicting update.
+     *
+     * @return number of failed commits
+     */
+    public int failedCommits() {
+        return failedCommits;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <K, V> ConsistentMap<K, V> map(String name) {
+        return (ConsistentMap<K, V>) maps.get(name);
+    }
+
+    @Override
+    public <K, V> ConsistentMapBuilder<K, V> consistentMapBuilder() {
+        return new TestConsistentMap.Builder<K, V>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public ConsistentMap<K, V> build() {
+                return (ConsistentMap<K, V>) maps.computeIfAbsent(name(), n -> super.build());
+            }
+        };
+    }
+
+    @Override
+    public TransactionContextBuilder transactionContextBuilder() {
+        return new TransactionContextBuilder() {
+            @Override
+            public TransactionContext build() {
+                return new TestTransactionContext(TestTransactionalStorageService.this);
+            }
+        };
+    }
+
+    /**
+     * Transaction context buffering writes until commit.
+     */
+    private static class TestTransactionContext implements TransactionContext {
+        private final TestTransactionalStorageService storage;
+        private final List<TestTransactionalMap<?, ?>> txMaps = new ArrayList<>();
+        private boolean open;
+
+        TestTransactionContext(TestTransactionalStorageService storage) {
+            this.storage = storage;
+        }
+
+        @Override
+        public String name() {
+            return "test-transaction";
+        }
+
+        @Override
+        public TransactionId transactionId() {
+            return TransactionId.from(name());
+        }
+
+        @Override
+        public boolean isOpen() {
+            return open;
+        }
+
+        @Override
+        public void begin() {
+            open = true;
+        }
+
+        @Override
+        public CompletableFuture<CommitStatus> commit() {
+            open = false;
+            Runnable action = storage.beforeNextCommit;
+            storage.beforeNextCommit = null;
+            if (action != null) {
+                action.run();
+            }
+            if (!txMaps.stream().allMatch(TestTransactionalMap::isValid)) {
+                storage.failedCommits++;
+                return CompletableFuture.completedFuture(CommitStatus.FAILURE);
+            }
+            txMaps.forEach(TestTransactionalMap::apply);
+            storage.commits++;
+            return CompletableFuture.completedFuture(CommitStatus.SUCCESS);
+        }
+
+        @Override
+        public void abort() {
+            open = false;
+            txMaps.clear();
+        }
+
+        @Override
+        public <K, V> TransactionalMap<K, V> getTransactionalMap(String mapName, Serializer serializer) {
+            TestTransactionalMap<K, V> txMap = new TestTransactionalMap<>(storage.map(mapName));
+            txMaps.add(txMap);
+            return txMap;
+        }
+    }
+
+    /**
+     * Transactional map recording the versions it read and the values it wrote.
+     */
+    private static class TestTransactionalMap<K, V> implements TransactionalMap<K, V> {
+        private final ConsistentMap<K, V> backing;
+        private final Map<K, Long> readVersions = new HashMap<>();
+        private final Map<K, Optional<V>> writes = new HashMap<>();
+
+        TestTransactionalMap(ConsistentMap<K, V> backing) {
+            this.backing = backing;
+        }
+
+        boolean isValid() {
+            return readVersions.entrySet().stream()
+                    .allMatch(e -> version(e.getKey()) == e.getValue());
+        }
+
+        void apply() {
+            writes.forEach((key, value) -> {
+                if (value.isPresent()) {
+                    backing.put(key, value.get());
+                } else {
+                    backing.remove(key);
+                }
+            });
+        }
+
+        private long version(K key) {
+            Versioned<V> value = backing.get(key);
+            return value == null ? 0 : value.version();
+        }
+
+        @Override
+        public V get(K key) {
+            Optional<V> written = writes.get(key);
+            if (written != null) {
+                return written.orElse(null);
+            }
+            Versioned<V> value = backing.get(key);
+            readVersions.putIfAbsent(key, value == null ? 0 : value.version());
+            return Versioned.valueOrNull(value);
+        }
+
+        @Override
+        public boolean containsKey(K key) {
+            return get(key) != null;
+        }
+
+        @Override
+        public V put(K key, V value) {
+            V old = get(key);
+            writes.put(key, Optional.of(value));
+            return old;
+        }
+
+        @Override
+        public V remove(K key) {
+            V old = get(key);
+            writes.put(key, Optional.empty());
+            return old;
+        }
+
+        @Override
+        public V putIfAbsent(K key, V value) {
+            V old = get(key);
+            if (old == null) {
+                writes.put(key, Optional.of(value));
+            }
+            return old;
+        }
+
+        @Override
+        public boolean remove(K key, V value) {
+            if (!value.equals(get(key))) {
+                return false;
+            }
+            writes.put(key, Optional.empty());
+            return true;
+        }
+
+        @Override
+        public boolean replace(K key, V oldValue, V newValue) {
+            if (!oldValue.equals(get(key))) {
+                return false;
+            }
+            writes.put(key, Optional.of(newValue));
+            return true;
+        }
+    }
+}
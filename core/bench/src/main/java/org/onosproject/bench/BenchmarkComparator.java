@@ -0,0 +1,109 @@
+/*
+ * Copyright 2020-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.bench;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Compares two JSON benchmark reports, e.g. produced at two commits.
+ * <p>
+ * For every benchmark present in both reports, the scores are printed
+ * along with the relative change. Changes for the worse beyond the
+ * threshold, given as a percentage and defaulting to 10%, are flagged
+ * and cause a non-zero exit status.
+ */
+public final class BenchmarkComparator {
+
+    private static final double DEFAULT_THRESHOLD = 10.0;
+    private static final String FORMAT = "%-72s %14s %14s %-10s %9s %s%n";
+
+    private BenchmarkComparator() {
+    }
+
+    /**
+     * Compares the given reports.
+     *
+     * @param args baseline report, current report and optional threshold
+     * @throws IOException if a report cannot be read
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("usage: onos-bench-compare <baseline.json> <current.json> [threshold-percent]");
+            System.exit(2);
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : DEFAULT_THRESHOLD;
+        Map<String, JsonNode> baseline = load(args[0]);
+        Map<String, JsonNode> current = load(args[1]);
+
+        int regressions = 0;
+        System.out.printf(FORMAT, "Benchmark", "Baseline", "Current", "Unit", "Change", "");
+        for (Map.Entry<String, JsonNode> entry : current.entrySet()) {
+            JsonNode before = baseline.get(entry.getKey());
+            if (before == null) {
+                continue;
+            }
+            JsonNode after = entry.getValue();
+            double base = score(before);
+            double now = score(after);
+            double change = base == 0 ? 0 : (now - base) * 100.0 / base;
+
+            // Higher is better for throughput; lower is better for times
+            boolean higherIsBetter = "thrpt".equals(after.path("mode").asText());
+            double worse = higherIsBetter ? -change : change;
+            boolean regressed = worse > threshold;
+            if (regressed) {
+                regressions++;
+            }
+            System.out.printf(FORMAT, entry.getKey(),
+                              String.format("%.3f", base), String.format("%.3f", now),
+                              after.path("primaryMetric").path("scoreUnit").asText(),
+                              String.format("%+.1f%%", change), regressed ? "REGRESSION" : "");
+        }
+
+        if (regressions > 0) {
+            System.out.printf("%d benchmark(s) regressed by more than %.1f%%%n", regressions, threshold);
+            System.exit(1);
+        }
+    }
+
+    // Indexes the report entries by benchmark name, mode and parameters
+    private static Map<String, JsonNode> load(String path) throws IOException {
+        Map<String, JsonNode> results = new LinkedHashMap<>();
+        for (JsonNode result : new ObjectMapper().readTree(new File(path))) {
+            StringBuilder key = new StringBuilder(result.path("benchmark").asText()
+                    .replace(BenchmarkComparator.class.getPackage().getName() + ".", ""));
+            key.append(" [").append(result.path("mode").asText());
+            Iterator<Map.Entry<String, JsonNode>> params = result.path("params").fields();
+            while (params.hasNext()) {
+                Map.Entry<String, JsonNode> param = params.next();
+                key.append(' ').append(param.getKey()).append('=').append(param.getValue().asText());
+            }
+            results.put(key.append(']').toString(), result);
+        }
+        return results;
+    }
+
+    private static double score(JsonNode result) {
+        return result.path("primaryMetric").path("score").asDouble();
+    }
+}
@@ -0,0 +1,267 @@
+/*
+ * Copyright 2020-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.bench;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.ByteStreams;
+import org.onlab.packet.ChassisId;
+import org.onlab.packet.Data;
+import org.onlab.packet.Ethernet;
+import org.onlab.packet.IPv4;
+import org.onlab.packet.MacAddress;
+import org.onlab.packet.ONOSLLDP;
+import org.onlab.packet.TCP;
+import org.onosproject.core.DefaultApplicationId;
+import org.onosproject.net.ConnectPoint;
+import org.onosproject.net.DefaultDevice;
+import org.onosproject.net.DefaultLink;
+import org.onosproject.net.Device;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.Link;
+import org.onosproject.net.flow.DefaultFlowEntry;
+import org.onosproject.net.flow.DefaultFlowRule;
+import org.onosproject.net.flow.DefaultTrafficSelector;
+import org.onosproject.net.flow.DefaultTrafficTreatment;
+import org.onosproject.net.flow.FlowEntry;
+import org.onosproject.net.flow.FlowRule;
+import org.onosproject.net.provider.ProviderId;
+import org.onosproject.net.topology.DefaultGraphDescription;
+import org.onosproject.net.topology.GraphDescription;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.onosproject.net.DeviceId.deviceId;
+import static org.onosproject.net.PortNumber.portNumber;
+
+/**
+ * Realistic fixtures shared by the benchmarks.
+ */
+public final class BenchmarkFixtures {
+
+    public static final ProviderId PID = new ProviderId("of", "org.onosproject.bench");
+
+    private static final DefaultApplicationId APP_ID = new DefaultApplicationId(1, "org.onosproject.bench");
+
+    // Captured frames bundled with the benchmarks
+    private static final String[] CAPTURES = {"dhcp_discover.bin", "dhcp6_solicit.bin"};
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * Fat-tree data center topology built from k-port switches.
+     * <p>
+     * The topology has (k/2)^2 core switches and k pods, each with k/2
+     * aggregation and k/2 edge switches. Every edge switch connects to all
+     * aggregation switches of its pod and every aggregation switch connects
+     * to k/2 core switches. All links are bidirectional.
+     */
+    public static final class FatTree {
+        private final List<Device> devices = new ArrayList<>();
+        private final List<Link> links = new ArrayList<>();
+        private final List<DeviceId> edges = new ArrayList<>();
+
+        /**
+         * Creates a fat-tree of k-port switches.
+         *
+         * @param k number of ports per switch; must be even
+         */
+        public FatTree(int k) {
+            if (k < 2 || k % 2 != 0) {
+                throw new IllegalArgumentException("Fat-tree arity must be a positive even number");
+            }
+            int half = k / 2;
+            long id = 1;
+
+            List<DeviceId> cores = new ArrayList<>();
+            for (int i = 0; i < half * half; i++) {
+                cores.add(addDevice(id++));
+            }
+            for (int pod = 0; pod < k; pod++) {
+                List<DeviceId> aggs = new ArrayList<>();
+                for (int a = 0; a < half; a++) {
+                    DeviceId agg = addDevice(id++);
+                    aggs.add(agg);
+                    for (int c = 0; c < half; c++) {
+                        addLinks(agg, half + 1 + c, cores.get(a * half + c), pod + 1);
+                    }
+                }
+                for (int e = 0; e < half; e++) {
+                    DeviceId edge = addDevice(id++);
+                    edges.add(edge);
+                    for (int a = 0; a < half; a++) {
+                        addLinks(edge, half + 1 + a, aggs.get(a), e + 1);
+                    }
+                }
+            }
+        }
+
+        private DeviceId addDevice(long id) {
+            DeviceId deviceId = deviceId(String.format("of:%016x", id));
+            devices.add(new DefaultDevice(PID, deviceId, Device.Type.SWITCH, "ON.Lab", "0.0.1", "0.0.1",
+                                          Long.toString(id), new ChassisId(id)));
+            return deviceId;
+        }
+
+        private void addLinks(DeviceId src, int srcPort, DeviceId dst, int dstPort) {
+            ConnectPoint one = new ConnectPoint(src, portNumber(srcPort));
+            ConnectPoint two = new ConnectPoint(dst, portNumber(dstPort));
+            links.add(link(one, two));
+            links.add(link(two, one));
+        }
+
+        private static Link link(ConnectPoint src, ConnectPoint dst) {
+            return DefaultLink.builder()
+                    .providerId(PID)
+                    .src(src)
+                    .dst(dst)
+                    .type(Link.Type.DIRECT)
+                    .state(Link.State.ACTIVE)
+                    .build();
+        }
+
+        /**
+         * Returns all switches of the topology.
+         *
+         * @return list of devices
+         */
+        public List<Device> devices() {
+            return ImmutableList.copyOf(devices);
+        }
+
+        /**
+         * Returns all unidirectional links of the topology.
+         *
+         * @return list of links
+         */
+        public List<Link> links() {
+            return ImmutableList.copyOf(links);
+        }
+
+        /**
+         * Returns the edge switches in pod order.
+         *
+         * @return list of edge switch identifiers
+         */
+        public List<DeviceId> edges() {
+            return ImmutableList.copyOf(edges);
+        }
+
+        /**
+         * Returns a graph description of the topology.
+         *
+         * @return graph description
+         */
+        public GraphDescription description() {
+            return new DefaultGraphDescription(System.nanoTime(), System.currentTimeMillis(), devices, links);
+        }
+    }
+
+    /**
+     * Returns a flow rule typical of a reactive forwarding table.
+     *
+     * @param deviceId device identifier
+     * @param index index of the rule; distinct indexes yield distinct rules
+     * @return flow rule
+     */
+    public static FlowRule flowRule(DeviceId deviceId, int index) {
+        return DefaultFlowRule.builder()
+                .forDevice(deviceId)
+                .withSelector(DefaultTrafficSelector.builder()
+                                      .matchInPort(portNumber(1 + index % 48))
+                                      .matchEthType(Ethernet.TYPE_IPV4)
+                                      .matchEthSrc(MacAddress.valueOf(0x020000000000L + index))
+                                      .matchEthDst(MacAddress.valueOf(0x040000000000L + index))
+                                      .build())
+                .withTreatment(DefaultTrafficTreatment.builder()
+                                       .setOutput(portNumber(1 + (index + 1) % 48))
+                                       .build())
+                .withPriority(10)
+                .fromApp(APP_ID)
+                .makeTemporary(10)
+                .build();
+    }
+
+    /**
+     * Returns a table of installed flow entries.
+     *
+     * @param deviceId device identifier
+     * @param size number of entries
+     * @return list of flow entries
+     */
+    public static List<FlowEntry> flowTable(DeviceId deviceId, int size) {
+        List<FlowEntry> entries = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            entries.add(new DefaultFlowEntry(flowRule(deviceId, i), FlowEntry.FlowEntryState.ADDED,
+                                             i % 3600, i * 64L, i));
+        }
+        return entries;
+    }
+
+    /**
+     * Returns a mix of frames as seen on the wire: captured DHCP and DHCPv6
+     * requests, an ONOS LLDP probe and a TCP segment.
+     *
+     * @return list of raw frames
+     */
+    public static List<byte[]> frames() {
+        List<byte[]> frames = new ArrayList<>();
+        for (String capture : CAPTURES) {
+            frames.add(resource(capture));
+        }
+
+        ONOSLLDP lldp = ONOSLLDP.onosSecureLLDP("of:0000000000000001", new ChassisId(1), 1, "onos");
+        frames.add(new Ethernet()
+                           .setEtherType(Ethernet.TYPE_LLDP)
+                           .setSourceMACAddress(MacAddress.valueOf("02:00:00:00:00:01"))
+                           .setDestinationMACAddress(MacAddress.ONOS_LLDP)
+                           .setPayload(lldp)
+                           .serialize());
+
+        TCP tcp = new TCP();
+        tcp.setSourcePort(43210);
+        tcp.setDestinationPort(80);
+        tcp.setPayload(new Data(new byte[512]));
+        IPv4 ip = new IPv4();
+        ip.setSourceAddress("10.0.0.1");
+        ip.setDestinationAddress("10.0.1.1");
+        ip.setProtocol(IPv4.PROTOCOL_TCP);
+        ip.setTtl((byte) 64);
+        ip.setPayload(tcp);
+        frames.add(new Ethernet()
+                           .setEtherType(Ethernet.TYPE_IPV4)
+                           .setSourceMACAddress(MacAddress.valueOf("02:00:00:00:00:01"))
+                           .setDestinationMACAddress(MacAddress.valueOf("02:00:00:00:00:02"))
+                           .setPayload(ip)
+                           .serialize());
+        return frames;
+    }
+
+    private static byte[] resource(String name) {
+        try (InputStream stream = BenchmarkFixtures.class.getResourceAsStream(name)) {
+            if (stream == null) {
+                throw new IllegalStateException("Missing benchmark resource " + name);
+            }
+            return ByteStreams.toByteArray(stream);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2020-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.bench;
+
+import org.onlab.packet.DeserializationException;
+import org.onlab.packet.Deserializer;
+import org.onlab.packet.Ethernet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of Ethernet frame decoding and encoding.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EthernetBenchmark {
+
+    private final Deserializer<Ethernet> deserializer = Ethernet.deserializer();
+
+    private byte[][] frames;
+    private Ethernet[] packets;
+    private int next;
+
+    @Setup
+    public void setup() throws DeserializationException {
+        List<byte[]> captured = BenchmarkFixtures.frames();
+        frames = captured.toArray(new byte[0][]);
+        packets = new Ethernet[frames.length];
+        for (int i = 0; i < frames.length; i++) {
+            packets[i] = deserializer.deserialize(frames[i], 0, frames[i].length);
+        }
+    }
+
+    private int nextIndex() {
+        next = (next + 1) % frames.length;
+        return next;
+    }
+
+    @Benchmark
+    public Ethernet deserialize() throws DeserializationException {
+        byte[] frame = frames[nextIndex()];
+        return deserializer.deserialize(frame, 0, frame.length);
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        Ethernet packet = packets[nextIndex()];
+        packet.resetChecksum();
+        return packet.serialize();
+    }
+}
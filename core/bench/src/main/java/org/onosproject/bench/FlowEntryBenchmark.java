@@ -0,0 +1,92 @@
+/*
+ * Copyright 2020-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.bench;
+
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.flow.FlowEntry;
+import org.onosproject.net.flow.FlowRule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.onosproject.net.DeviceId.deviceId;
+
+/**
+ * Benchmarks of flow entry equality and hashing against large flow tables.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FlowEntryBenchmark {
+
+    @Param({"100000"})
+    private int tableSize;
+
+    private final Map<FlowRule, FlowEntry> table = new HashMap<>();
+    private FlowRule[] probes;
+    private int next;
+
+    @Setup
+    public void setup() {
+        DeviceId deviceId = deviceId("of:0000000000000001");
+        List<FlowEntry> entries = BenchmarkFixtures.flowTable(deviceId, tableSize);
+        entries.forEach(entry -> table.put(entry, entry));
+
+        // Lookups use equal but distinct rule instances, as the store does
+        // when a device reports its flow table
+        probes = new FlowRule[1024];
+        for (int i = 0; i < probes.length; i++) {
+            probes[i] = BenchmarkFixtures.flowRule(deviceId, (int) ((long) i * tableSize / probes.length));
+        }
+    }
+
+    private FlowRule nextProbe() {
+        next = (next + 1) & (probes.length - 1);
+        return probes[next];
+    }
+
+    @Benchmark
+    public int hashCodeOfRule() {
+        return nextProbe().hashCode();
+    }
+
+    @Benchmark
+    public boolean equalsEntry() {
+        FlowRule probe = nextProbe();
+        return table.get(probe).equals(probe);
+    }
+
+    @Benchmark
+    public FlowEntry lookupEntry() {
+        return table.get(nextProbe());
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2020-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.bench;
+
+import org.onlab.graph.DijkstraGraphSearch;
+import org.onlab.graph.GraphPathSearch;
+import org.onosproject.common.DefaultTopologyGraph;
+import org.onosproject.net.Link;
+import org.onosproject.net.topology.DefaultTopologyEdge;
+import org.onosproject.net.topology.DefaultTopologyVertex;
+import org.onosproject.net.topology.TopologyEdge;
+import org.onosproject.net.topology.TopologyVertex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.onlab.graph.GraphPathSearch.ALL_PATHS;
+import static org.onosproject.net.topology.HopCountLinkWeigher.DEFAULT_HOP_COUNT_WEIGHER;
+
+/**
+ * Benchmarks of Dijkstra graph search over fat-tree topology graphs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GraphSearchBenchmark {
+
+    @Param({"4", "8", "16"})
+    private int arity;
+
+    private final DijkstraGraphSearch<TopologyVertex, TopologyEdge> dijkstra = new DijkstraGraphSearch<>();
+
+    private DefaultTopologyGraph graph;
+    private TopologyVertex src;
+    private TopologyVertex dst;
+
+    @Setup
+    public void setup() {
+        BenchmarkFixtures.FatTree fatTree = new BenchmarkFixtures.FatTree(arity);
+        Map<Object, TopologyVertex> vertexes = new HashMap<>();
+        fatTree.devices().forEach(d -> vertexes.put(d.id(), new DefaultTopologyVertex(d.id())));
+        Set<TopologyEdge> edges = new HashSet<>();
+        for (Link link : fatTree.links()) {
+            edges.add(new DefaultTopologyEdge(vertexes.get(link.src().deviceId()),
+                                              vertexes.get(link.dst().deviceId()), link));
+        }
+        graph = new DefaultTopologyGraph(new HashSet<>(vertexes.values()), edges);
+        src = vertexes.get(fatTree.edges().get(0));
+        dst = vertexes.get(fatTree.edges().get(fatTree.edges().size() - 1));
+    }
+
+    @Benchmark
+    public GraphPathSearch.Result<TopologyVertex, TopologyEdge> searchAllPaths() {
+        return dijkstra.search(graph, src, dst, DEFAULT_HOP_COUNT_WEIGHER, ALL_PATHS);
+    }
+
+    @Benchmark
+    public GraphPathSearch.Result<TopologyVertex, TopologyEdge> searchSinglePath() {
+        return dijkstra.search(graph, src, dst, DEFAULT_HOP_COUNT_WEIGHER, 1);
+    }
+
+    @Benchmark
+    public GraphPathSearch.Result<TopologyVertex, TopologyEdge> searchAllDestinations() {
+        return dijkstra.search(graph, src, null, DEFAULT_HOP_COUNT_WEIGHER, ALL_PATHS);
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2020-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.bench;
+
+import org.onlab.util.KryoNamespace;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.Link;
+import org.onosproject.net.flow.FlowEntry;
+import org.onosproject.store.serializers.KryoNamespaces;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import static org.onosproject.net.DeviceId.deviceId;
+
+/**
+ * Benchmarks of Kryo serialization of frequently replicated store objects.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class KryoNamespaceBenchmark {
+
+    private final KryoNamespace namespace = KryoNamespaces.API;
+
+    private FlowEntry flowEntry;
+    private Link link;
+    private byte[] flowEntryBytes;
+    private byte[] linkBytes;
+
+    @Setup
+    public void setup() {
+        DeviceId deviceId = deviceId("of:0000000000000001");
+        flowEntry = BenchmarkFixtures.flowTable(deviceId, 1).get(0);
+        link = new BenchmarkFixtures.FatTree(4).links().get(0);
+        flowEntryBytes = namespace.serialize(flowEntry);
+        linkBytes = namespace.serialize(link);
+    }
+
+    @Benchmark
+    public byte[] serializeFlowEntry() {
+        return namespace.serialize(flowEntry);
+    }
+
+    @Benchmark
+    public int serializeFlowEntryInPlace() {
+        return namespace.serialize(flowEntry, ByteBuffer::remaining);
+    }
+
+    @Benchmark
+    public FlowEntry deserializeFlowEntry() {
+        return namespace.deserialize(flowEntryBytes);
+    }
+
+    @Benchmark
+    public byte[] serializeLink() {
+        return namespace.serialize(link);
+    }
+
+    @Benchmark
+    public Link deserializeLink() {
+        return namespace.deserialize(linkBytes);
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2020-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.bench;
+
+import org.onosproject.common.DefaultTopology;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.Path;
+import org.onosproject.net.topology.GraphDescription;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.onosproject.bench.BenchmarkFixtures.PID;
+
+/**
+ * Benchmarks of path computation over fat-tree topologies.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TopologyBenchmark {
+
+    @Param({"4", "8", "16"})
+    private int arity;
+
+    private GraphDescription description;
+    private DefaultTopology topology;
+    private DeviceId src;
+    private DeviceId dst;
+
+    @Setup
+    public void setup() {
+        BenchmarkFixtures.FatTree fatTree = new BenchmarkFixtures.FatTree(arity);
+        description = fatTree.description();
+        topology = new DefaultTopology(PID, description);
+
+        // Edge switches in the first and last pods are the furthest apart
+        List<DeviceId> edges = fatTree.edges();
+        src = edges.get(0);
+        dst = edges.get(edges.size() - 1);
+    }
+
+    @Benchmark
+    public Set<Path> getPaths() {
+        return topology.getPaths(src, dst);
+    }
+
+    @Benchmark
+    public Set<Path> getKShortestPaths() {
+        return topology.getKShortestPaths(src, dst, 4);
+    }
+
+    @Benchmark
+    public int computeClusters() {
+        return new DefaultTopology(PID, description).clusterCount();
+    }
+}
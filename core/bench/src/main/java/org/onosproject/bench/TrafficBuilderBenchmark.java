@@ -0,0 +1,93 @@
+/*
+ * Copyright 2020-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.bench;
+
+import org.onlab.packet.Ethernet;
+import org.onlab.packet.IPv4;
+import org.onlab.packet.IpPrefix;
+import org.onlab.packet.MacAddress;
+import org.onlab.packet.TpPort;
+import org.onlab.packet.VlanId;
+import org.onosproject.net.PortNumber;
+import org.onosproject.net.flow.DefaultTrafficSelector;
+import org.onosproject.net.flow.DefaultTrafficTreatment;
+import org.onosproject.net.flow.TrafficSelector;
+import org.onosproject.net.flow.TrafficTreatment;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of traffic selector and treatment construction.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TrafficBuilderBenchmark {
+
+    private static final MacAddress SRC_MAC = MacAddress.valueOf("02:00:00:00:00:01");
+    private static final MacAddress DST_MAC = MacAddress.valueOf("02:00:00:00:00:02");
+    private static final IpPrefix DST_PREFIX = IpPrefix.valueOf("10.0.1.0/24");
+
+    private TrafficSelector selector;
+
+    @Setup
+    public void setup() {
+        selector = buildSelector();
+    }
+
+    @Benchmark
+    public TrafficSelector buildSelector() {
+        return DefaultTrafficSelector.builder()
+                .matchInPort(PortNumber.portNumber(1))
+                .matchEthType(Ethernet.TYPE_IPV4)
+                .matchEthSrc(SRC_MAC)
+                .matchEthDst(DST_MAC)
+                .matchVlanId(VlanId.vlanId((short) 100))
+                .matchIPProtocol(IPv4.PROTOCOL_TCP)
+                .matchIPDst(DST_PREFIX)
+                .matchTcpDst(TpPort.tpPort(80))
+                .build();
+    }
+
+    @Benchmark
+    public TrafficSelector copySelector() {
+        return DefaultTrafficSelector.builder(selector).build();
+    }
+
+    @Benchmark
+    public TrafficTreatment buildTreatment() {
+        return DefaultTrafficTreatment.builder()
+                .popVlan()
+                .setEthSrc(DST_MAC)
+                .setEthDst(SRC_MAC)
+                .decNwTtl()
+                .setOutput(PortNumber.portNumber(2))
+                .build();
+    }
+}
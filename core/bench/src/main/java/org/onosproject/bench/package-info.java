@@ -0,0 +1,26 @@
+/*
+ * Copyright 2020-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * JMH micro-benchmarks of core hot paths.
+ * <p>
+ * Benchmarks are run with {@code bazel run //core/bench:onos-bench}, which
+ * accepts the usual JMH options and by default writes a JSON report named
+ * after the {@code onos.bench.label} system property, e.g. a commit hash.
+ * Two reports can be compared with
+ * {@code bazel run //core/bench:onos-bench-compare -- base.json new.json}.
+ */
+package org.onosproject.bench;
@@ -32,8 +32,6 @@ import org.onlab.graph.LazyKShortestPathsSearch;
 import org.onlab.graph.ScalarWeight;
 import org.onlab.graph.SrlgGraphSearch;
 import org.onlab.graph.SuurballeGraphSearch;
-import org.onlab.graph.TarjanGraphSearch;
-import org.onlab.graph.TarjanGraphSearch.SccResult;
 import org.onlab.graph.Weight;
 import org.onosproject.net.AbstractModel;
 import org.onosproject.net.ConnectPoint;
@@ -84,8 +82,10 @@ public class DefaultTopology extends AbstractModel implements Topology {
 
     private static final DijkstraGraphSearch<TopologyVertex, TopologyEdge> DIJKSTRA =
             new DijkstraGraphSearch<>();
-    private static final TarjanGraphSearch<TopologyVertex, TopologyEdge> TARJAN =
-            new TarjanGraphSearch<>();
+    // Beyond this fraction of affected devices, clusters are searched from scratch
+    private static final double MAX_AFFECTED_FRACTION = 0.5;
+    private static final IncrementalClusterSearch CLUSTER_SEARCH =
+            new IncrementalClusterSearch(new NoIndirectLinksWeigher(), MAX_AFFECTED_FRACTION);
     private static final SuurballeGraphSearch<TopologyVertex, TopologyEdge> SUURBALLE =
             new SuurballeGraphSearch<>();
     private static final KShortestPathsSearch<TopologyVertex, TopologyEdge> KSHORTEST =
@@ -96,6 +96,7 @@ public class DefaultTopology extends AbstractModel implements Topology {
 
     private static LinkWeigher defaultLinkWeigher = null;
     private static GraphPathSearch<TopologyVertex, TopologyEdge> defaultGraphPathSearch = null;
+    private static volatile boolean verifyIncrementalClusters = false;
 
     private final long time;
     private final long creationTime;
@@ -104,7 +105,7 @@ public class DefaultTopology extends AbstractModel implements Topology {
 
     private final LinkWeigher hopCountWeigher;
 
-    private final Supplier<SccResult<TopologyVertex, TopologyEdge>> clusterResults;
+    private final Supplier<IncrementalClusterSearch.Result> clusterResults;
     private final Supplier<ImmutableMap<ClusterId, TopologyCluster>> clusters;
     private final Supplier<ImmutableSet<ConnectPoint>> infrastructurePoints;
     private final Supplier<ImmutableSetMultimap<ClusterId, ConnectPoint>> broadcastSets;
@@ -135,6 +136,18 @@ public class DefaultTopology extends AbstractModel implements Topology {
         defaultGraphPathSearch = graphPathSearch;
     }
 
+    /**
+     * Sets whether clusters computed incrementally from a previous topology
+     * should be verified against a search of the whole graph. On mismatch,
+     * the results of the full search are used.
+     *
+     * @param verify true to verify incremental cluster computation
+     */
+    public static void setVerifyIncrementalClusters(boolean verify) {
+        log.info("Setting incremental cluster verification to {}", verify);
+        verifyIncrementalClusters = verify;
+    }
+
 
     /**
      * Creates a topology descriptor attributed to the specified provider.
@@ -145,6 +158,26 @@ public class DefaultTopology extends AbstractModel implements Topology {
      */
     public DefaultTopology(ProviderId providerId, GraphDescription description,
                            Function<ConnectPoint, Boolean> broadcastFunction) {
+        this(providerId, description, broadcastFunction, null);
+    }
+
+    /**
+     * Creates a topology descriptor attributed to the specified provider,
+     * deriving its clusters and broadcast sets from the given previous
+     * topology where they are not affected by the changes between the two.
+     * <p>
+     * Unlike for topologies computed from scratch, clusters and broadcast
+     * sets are computed eagerly so that no reference to the previous
+     * topology is retained.
+     *
+     * @param providerId        identity of the provider
+     * @param description       data describing the new topology
+     * @param broadcastFunction broadcast point function
+     * @param previous          previous topology; null to compute from scratch
+     */
+    public DefaultTopology(ProviderId providerId, GraphDescription description,
+                           Function<ConnectPoint, Boolean> broadcastFunction,
+                           DefaultTopology previous) {
         super(providerId);
         this.broadcastFunction = broadcastFunction;
         this.time = description.timestamp();
@@ -154,13 +187,21 @@ public class DefaultTopology extends AbstractModel implements Topology {
         this.graph = new DefaultTopologyGraph(description.vertexes(),
                 description.edges());
 
-        this.clusterResults = Suppliers.memoize(this::searchForClusters);
+        this.hopCountWeigher = new HopCountLinkWeigher(graph.getVertexes().size());
+        if (previous == null) {
+            this.clusterResults = Suppliers.memoize(this::searchForClusters);
+        } else {
+            this.clusterResults = Suppliers.ofInstance(searchForClusters(previous));
+        }
         this.clusters = Suppliers.memoize(this::buildTopologyClusters);
 
         this.clusterIndexes = Suppliers.memoize(this::buildIndexes);
 
-        this.hopCountWeigher = new HopCountLinkWeigher(graph.getVertexes().size());
-        this.broadcastSets = Suppliers.memoize(this::buildBroadcastSets);
+        if (previous == null || !clusterResults.get().isIncremental()) {
+            this.broadcastSets = Suppliers.memoize(this::buildBroadcastSets);
+        } else {
+            this.broadcastSets = Suppliers.ofInstance(buildBroadcastSets(previous));
+        }
         this.infrastructurePoints = Suppliers.memoize(this::findInfrastructurePoints);
         this.computeCost = Math.max(0, System.nanoTime() - time);
     }
@@ -629,15 +670,34 @@ public class DefaultTopology extends AbstractModel implements Topology {
 
     // Searches for SCC clusters in the network topology graph using Tarjan
     // algorithm.
-    private SccResult<TopologyVertex, TopologyEdge> searchForClusters() {
-        return TARJAN.search(graph, new NoIndirectLinksWeigher());
+    private IncrementalClusterSearch.Result searchForClusters() {
+        return CLUSTER_SEARCH.search(graph);
+    }
+
+    // Searches for SCC clusters affected by changes since the previous
+    // topology, falling back on a search of the whole graph.
+    private IncrementalClusterSearch.Result searchForClusters(DefaultTopology previous) {
+        IncrementalClusterSearch.Result results =
+                CLUSTER_SEARCH.search(graph, previous.graph, previous.clusterResults.get());
+        if (results == null) {
+            return searchForClusters();
+        }
+        if (verifyIncrementalClusters) {
+            IncrementalClusterSearch.Result full = searchForClusters();
+            if (!full.sameClusters(results)) {
+                log.warn("Incrementally computed clusters {} differ from {}; using the latter",
+                         results.clusterVertexes(), full.clusterVertexes());
+                return full;
+            }
+        }
+        return results;
     }
 
     // Builds the topology clusters and returns the id-cluster bindings.
     private ImmutableMap<ClusterId, TopologyCluster> buildTopologyClusters() {
         ImmutableMap.Builder<ClusterId, TopologyCluster> clusterBuilder =
                 ImmutableMap.builder();
-        SccResult<TopologyVertex, TopologyEdge> results = clusterResults.get();
+        IncrementalClusterSearch.Result results = clusterResults.get();
 
         // Extract both vertexes and edges from the results; the lists form
         // pairs along the same index.
@@ -681,6 +741,35 @@ public class DefaultTopology extends AbstractModel implements Topology {
         return builder.build();
     }
 
+    // Processes a map of broadcast sets for each cluster, reusing the
+    // broadcast sets of unchanged clusters of the previous topology.
+    private ImmutableSetMultimap<ClusterId, ConnectPoint> buildBroadcastSets(DefaultTopology previous) {
+        IncrementalClusterSearch.Result results = clusterResults.get();
+        Builder<ClusterId, ConnectPoint> builder = ImmutableSetMultimap.builder();
+        for (TopologyCluster cluster : clusters.get().values()) {
+            int index = results.previousIndex(cluster.id().index());
+            Set<ConnectPoint> points = index < 0 ? null :
+                    previous.broadcastSets.get().get(ClusterId.clusterId(index));
+            if (isNullOrEmpty(points) || isBroken(points, results.changedEdges())) {
+                addClusterBroadcastSet(cluster, builder);
+            } else {
+                builder.putAll(cluster.id(), points);
+            }
+        }
+        return builder.build();
+    }
+
+    // Indicates whether any of the given removed or changed links may have
+    // been part of the broadcast tree with the given points.
+    private static boolean isBroken(Set<ConnectPoint> points, Set<TopologyEdge> changedEdges) {
+        for (TopologyEdge edge : changedEdges) {
+            if (points.contains(edge.link().src()) && points.contains(edge.link().dst())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     // Finds all broadcast points for the cluster. These are those connection
     // points which lie along the shortest paths between the cluster root and
     // all other devices within the cluster.
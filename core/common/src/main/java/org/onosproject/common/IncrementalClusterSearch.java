@@ -0,0 +1,404 @@
+/*
+ * Copyright 2020-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.common;
+
+import org.onlab.graph.EdgeWeigher;
+import org.onlab.graph.TarjanGraphSearch;
+import org.onlab.graph.TarjanGraphSearch.SccResult;
+import org.onosproject.net.topology.TopologyEdge;
+import org.onosproject.net.topology.TopologyGraph;
+import org.onosproject.net.topology.TopologyVertex;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Search for strongly connected clusters of a topology graph which, given
+ * the clusters of a previous graph, only re-examines the part of the graph
+ * affected by the differences between the two graphs.
+ * <p>
+ * Clusters are affected when devices are added or removed, when removal of
+ * a link leaves its destination unreachable from its source within the
+ * cluster, and when added links close a cycle across clusters. Only the
+ * devices of affected clusters are searched again; all other clusters carry
+ * over unchanged.
+ */
+final class IncrementalClusterSearch {
+
+    // Maximum number of removed links checked for reachability one by one
+    private static final int MAX_REACHABILITY_CHECKS = 32;
+
+    private final TarjanGraphSearch<TopologyVertex, TopologyEdge> tarjan = new TarjanGraphSearch<>();
+    private final EdgeWeigher<TopologyVertex, TopologyEdge> weigher;
+    private final double maxAffectedFraction;
+
+    /**
+     * Creates a new incremental cluster search.
+     *
+     * @param weigher             weigher used to exclude non-viable links
+     * @param maxAffectedFraction fraction of devices beyond which the whole
+     *                            graph is searched instead
+     */
+    IncrementalClusterSearch(EdgeWeigher<TopologyVertex, TopologyEdge> weigher,
+                             double maxAffectedFraction) {
+        this.weigher = weigher;
+        this.maxAffectedFraction = maxAffectedFraction;
+    }
+
+    /**
+     * Searches the whole graph for clusters.
+     *
+     * @param graph topology graph
+     * @return cluster results
+     */
+    Result search(TopologyGraph graph) {
+        SccResult<TopologyVertex, TopologyEdge> scc = tarjan.search(graph, weigher);
+        int[] previous = new int[scc.clusterCount()];
+        Arrays.fill(previous, -1);
+        return new Result(scc.clusterVertexes(), scc.clusterEdges(), previous,
+                          Collections.emptySet(), false);
+    }
+
+    /**
+     * Searches the graph for clusters, reusing the clusters of the previous
+     * graph where they are not affected by the changes.
+     *
+     * @param graph          topology graph
+     * @param previousGraph  previous topology graph
+     * @param previousResult clusters of the previous graph
+     * @return cluster results
+     */
+    Result search(TopologyGraph graph, TopologyGraph previousGraph, Result previousResult) {
+        Map<TopologyVertex, Integer> previousIndex = new HashMap<>();
+        for (int i = 0; i < previousResult.clusterCount(); i++) {
+            for (TopologyVertex vertex : previousResult.clusterVertexes().get(i)) {
+                previousIndex.put(vertex, i);
+            }
+        }
+
+        // Clusters which must be searched again, by previous index
+        Set<Integer> affected = new HashSet<>();
+        Set<TopologyVertex> vertexes = graph.getVertexes();
+        for (TopologyVertex vertex : previousGraph.getVertexes()) {
+            if (!vertexes.contains(vertex)) {
+                affected.add(previousIndex.get(vertex));
+            }
+        }
+
+        // Assign provisional keys to devices: previous cluster index for
+        // known devices and a unique negative key for each new device
+        Map<TopologyVertex, Integer> keys = new HashMap<>(previousIndex);
+        Set<Integer> newKeys = new HashSet<>();
+        for (TopologyVertex vertex : vertexes) {
+            if (!previousIndex.containsKey(vertex)) {
+                int key = -1 - newKeys.size();
+                keys.put(vertex, key);
+                newKeys.add(key);
+            }
+        }
+
+        // Sort out links which became viable or ceased to be viable, and
+        // links which were removed or changed state
+        Map<TopologyEdge, TopologyEdge> previousEdges = new HashMap<>();
+        previousGraph.getEdges().forEach(e -> previousEdges.put(e, e));
+        List<TopologyEdge> added = new ArrayList<>();
+        List<TopologyEdge> removed = new ArrayList<>();
+        Set<TopologyEdge> changed = new HashSet<>();
+        for (TopologyEdge edge : graph.getEdges()) {
+            TopologyEdge old = previousEdges.remove(edge);
+            boolean wasViable = old != null && isViable(old);
+            boolean viable = isViable(edge);
+            if (viable && !wasViable) {
+                added.add(edge);
+            } else if (!viable && wasViable) {
+                removed.add(old);
+            }
+            if (old != null && old.link().state() != edge.link().state()) {
+                changed.add(old);
+            }
+        }
+        for (TopologyEdge old : previousEdges.values()) {
+            if (isViable(old)) {
+                removed.add(old);
+            }
+            changed.add(old);
+        }
+
+        // A cluster may only split if the destination of a removed link is no
+        // longer reachable from its source within the cluster
+        int checks = 0;
+        for (TopologyEdge edge : removed) {
+            Integer src = keys.get(edge.src());
+            Integer dst = keys.get(edge.dst());
+            if (src == null || !src.equals(dst) || affected.contains(src)) {
+                continue;
+            }
+            if (!vertexes.contains(edge.src()) || !vertexes.contains(edge.dst()) ||
+                    ++checks > MAX_REACHABILITY_CHECKS ||
+                    !reaches(graph, edge.src(), edge.dst(), keys, src)) {
+                affected.add(src);
+            }
+        }
+
+        // Clusters may merge if added links close cycles across clusters;
+        // any such cycle runs through clusters which are both reachable from
+        // the destination and reach the source of some added link.
+        List<TopologyEdge> crossing = new ArrayList<>();
+        for (TopologyEdge edge : added) {
+            if (!keys.get(edge.src()).equals(keys.get(edge.dst()))) {
+                crossing.add(edge);
+            }
+        }
+        if (!crossing.isEmpty()) {
+            affected.addAll(mergeCandidates(graph, keys, crossing));
+        }
+        affected.addAll(newKeys);
+
+        Set<TopologyVertex> region = new HashSet<>();
+        for (TopologyVertex vertex : vertexes) {
+            if (affected.contains(keys.get(vertex))) {
+                region.add(vertex);
+            }
+        }
+        if (region.size() > maxAffectedFraction * vertexes.size()) {
+            return null;
+        }
+
+        // Carry over unaffected clusters and search only the affected region
+        List<Set<TopologyVertex>> clusterVertexes = new ArrayList<>();
+        List<Integer> previous = new ArrayList<>();
+        for (int i = 0; i < previousResult.clusterCount(); i++) {
+            if (!affected.contains(i)) {
+                clusterVertexes.add(previousResult.clusterVertexes().get(i));
+                previous.add(i);
+            }
+        }
+        if (!region.isEmpty()) {
+            Set<TopologyEdge> regionEdges = new HashSet<>();
+            for (TopologyVertex vertex : region) {
+                for (TopologyEdge edge : graph.getEdgesFrom(vertex)) {
+                    if (region.contains(edge.dst())) {
+                        regionEdges.add(edge);
+                    }
+                }
+            }
+            SccResult<TopologyVertex, TopologyEdge> scc =
+                    tarjan.search(new DefaultTopologyGraph(region, regionEdges), weigher);
+            for (Set<TopologyVertex> cluster : scc.clusterVertexes()) {
+                // A searched cluster may still match its previous incarnation
+                Integer index = previousIndex.get(cluster.iterator().next());
+                boolean same = index != null &&
+                        previousResult.clusterVertexes().get(index).equals(cluster);
+                clusterVertexes.add(cluster);
+                previous.add(same ? index : -1);
+            }
+        }
+
+        return new Result(clusterVertexes, clusterEdges(graph, clusterVertexes),
+                          previous.stream().mapToInt(Integer::intValue).toArray(),
+                          changed, true);
+    }
+
+    // Indicates whether the given link may be traversed
+    private boolean isViable(TopologyEdge edge) {
+        return weigher.weight(edge).isViable();
+    }
+
+    // Indicates whether dst is reachable from src over viable links without
+    // leaving the cluster with the given key
+    private boolean reaches(TopologyGraph graph, TopologyVertex src, TopologyVertex dst,
+                            Map<TopologyVertex, Integer> keys, Integer key) {
+        Set<TopologyVertex> seen = new HashSet<>();
+        Deque<TopologyVertex> queue = new ArrayDeque<>();
+        seen.add(src);
+        queue.add(src);
+        while (!queue.isEmpty()) {
+            for (TopologyEdge edge : graph.getEdgesFrom(queue.remove())) {
+                TopologyVertex next = edge.dst();
+                if (!isViable(edge) || !key.equals(keys.get(next)) || !seen.add(next)) {
+                    continue;
+                }
+                if (next.equals(dst)) {
+                    return true;
+                }
+                queue.add(next);
+            }
+        }
+        return false;
+    }
+
+    // Returns keys of clusters lying on a cycle formed with the crossing links
+    private Set<Integer> mergeCandidates(TopologyGraph graph, Map<TopologyVertex, Integer> keys,
+                                         List<TopologyEdge> crossing) {
+        Set<Integer> sources = new HashSet<>();
+        Set<Integer> destinations = new HashSet<>();
+        for (TopologyEdge edge : crossing) {
+            sources.add(keys.get(edge.src()));
+            destinations.add(keys.get(edge.dst()));
+        }
+
+        // Condensed graph of links between clusters in both directions
+        Map<Integer, Set<Integer>> forward = new HashMap<>();
+        Map<Integer, Set<Integer>> backward = new HashMap<>();
+        for (TopologyEdge edge : graph.getEdges()) {
+            Integer src = keys.get(edge.src());
+            Integer dst = keys.get(edge.dst());
+            if (!src.equals(dst) && isViable(edge)) {
+                forward.computeIfAbsent(src, k -> new HashSet<>()).add(dst);
+                backward.computeIfAbsent(dst, k -> new HashSet<>()).add(src);
+            }
+        }
+
+        Set<Integer> candidates = reachable(destinations, forward);
+        candidates.retainAll(reachable(sources, backward));
+        return candidates;
+    }
+
+    private static Set<Integer> reachable(Set<Integer> from, Map<Integer, Set<Integer>> adjacency) {
+        Set<Integer> seen = new HashSet<>(from);
+        Deque<Integer> queue = new ArrayDeque<>(from);
+        while (!queue.isEmpty()) {
+            for (Integer next : adjacency.getOrDefault(queue.remove(), Collections.emptySet())) {
+                if (seen.add(next)) {
+                    queue.add(next);
+                }
+            }
+        }
+        return seen;
+    }
+
+    // Collects the links within each cluster
+    private static List<Set<TopologyEdge>> clusterEdges(TopologyGraph graph,
+                                                        List<Set<TopologyVertex>> clusterVertexes) {
+        List<Set<TopologyEdge>> clusterEdges = new ArrayList<>(clusterVertexes.size());
+        for (Set<TopologyVertex> cluster : clusterVertexes) {
+            Set<TopologyEdge> edges = new HashSet<>();
+            for (TopologyVertex vertex : cluster) {
+                for (TopologyEdge edge : graph.getEdgesFrom(vertex)) {
+                    if (cluster.contains(edge.dst())) {
+                        edges.add(edge);
+                    }
+                }
+            }
+            clusterEdges.add(Collections.unmodifiableSet(edges));
+        }
+        return clusterEdges;
+    }
+
+    /**
+     * Strongly connected clusters of a topology graph; the vertex and edge
+     * lists form pairs along the same index.
+     */
+    static final class Result {
+        private final List<Set<TopologyVertex>> clusterVertexes;
+        private final List<Set<TopologyEdge>> clusterEdges;
+        private final int[] previousIndexes;
+        private final Set<TopologyEdge> changedEdges;
+        private final boolean incremental;
+
+        private Result(List<Set<TopologyVertex>> clusterVertexes,
+                       List<Set<TopologyEdge>> clusterEdges,
+                       int[] previousIndexes, Set<TopologyEdge> changedEdges,
+                       boolean incremental) {
+            this.clusterVertexes = Collections.unmodifiableList(clusterVertexes);
+            this.clusterEdges = Collections.unmodifiableList(clusterEdges);
+            this.previousIndexes = previousIndexes;
+            this.changedEdges = changedEdges;
+            this.incremental = incremental;
+        }
+
+        /**
+         * Returns the number of clusters.
+         *
+         * @return number of clusters
+         */
+        int clusterCount() {
+            return clusterVertexes.size();
+        }
+
+        /**
+         * Returns the list of cluster vertex sets.
+         *
+         * @return list of vertex sets
+         */
+        List<Set<TopologyVertex>> clusterVertexes() {
+            return clusterVertexes;
+        }
+
+        /**
+         * Returns the list of cluster edge sets.
+         *
+         * @return list of edge sets
+         */
+        List<Set<TopologyEdge>> clusterEdges() {
+            return clusterEdges;
+        }
+
+        /**
+         * Returns the index of the cluster with the same devices in the
+         * previous results.
+         *
+         * @param index cluster index
+         * @return previous cluster index or -1 if the cluster is new
+         */
+        int previousIndex(int index) {
+            return previousIndexes[index];
+        }
+
+        /**
+         * Returns links which were removed or changed state since the
+         * previous results.
+         *
+         * @return set of changed links
+         */
+        Set<TopologyEdge> changedEdges() {
+            return changedEdges;
+        }
+
+        /**
+         * Indicates whether the results were computed incrementally.
+         *
+         * @return true if incremental
+         */
+        boolean isIncremental() {
+            return incremental;
+        }
+
+        /**
+         * Indicates whether the given results partition the devices into
+         * the same clusters, regardless of cluster order.
+         *
+         * @param other other results
+         * @return true if the clusters are the same
+         */
+        boolean sameClusters(Result other) {
+            return clusterCount() == other.clusterCount() &&
+                    partition(this).equals(partition(other));
+        }
+
+        private static Set<Set<TopologyVertex>> partition(Result result) {
+            return new HashSet<>(result.clusterVertexes);
+        }
+    }
+}
@@ -148,6 +148,26 @@ public class DefaultTopologyTest {
         assertFalse("cluster should not contain D5", devs.contains(D5));
     }
 
+    @Test
+    public void incrementalClusters() {
+        Set<Device> devices = of(device("1"), device("2"), device("3"),
+                                 device("4"), device("5"), device("6"));
+        Set<Link> links = of(link("1", 1, "2", 1), link("2", 1, "1", 1),
+                             link("3", 2, "2", 2), link("2", 2, "3", 2),
+                             link("1", 3, "4", 3), link("4", 3, "1", 3),
+                             link("3", 4, "4", 4), link("4", 4, "3", 4));
+        GraphDescription graphDescription =
+                new DefaultGraphDescription(System.nanoTime(), System.currentTimeMillis(), devices, links);
+
+        DefaultTopology next = new DefaultTopology(PID, graphDescription, null, dt);
+        assertEquals("incorrect cluster count", 3, next.clusterCount());
+        assertEquals("incorrect root node", V1, next.getCluster(C0).root());
+        assertEquals("incorrect broadcast set", dt.broadcastPoints(C0), next.broadcastPoints(C0));
+        assertEquals("incorrect cluster", dt.getCluster(D5).deviceCount(), next.getCluster(D5).deviceCount());
+        assertTrue("incorrect cluster", next.getClusterDevices(next.getCluster(deviceId("of:6")))
+                .contains(deviceId("of:6")));
+    }
+
     // Short-hand for creating a link.
     public static Link link(String src, int sp, String dst, int dp) {
         return DefaultLink.builder().providerId(PID)
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2020-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.common;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
+import org.junit.Test;
+import org.onlab.graph.DefaultEdgeWeigher;
+import org.onosproject.net.Device;
+import org.onosproject.net.Link;
+import org.onosproject.net.topology.DefaultGraphDescription;
+import org.onosproject.net.topology.GraphDescription;
+import org.onosproject.net.topology.TopologyEdge;
+import org.onosproject.net.topology.TopologyGraph;
+import org.onosproject.net.topology.TopologyVertex;
+
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.onosproject.common.DefaultTopologyTest.PID;
+import static org.onosproject.common.DefaultTopologyTest.device;
+import static org.onosproject.common.DefaultTopologyTest.link;
+
+/**
+ * Test of the incremental cluster search.
+ */
+public class IncrementalClusterSearchTest {
+
+    private static final Set<Device> DEVICES =
+            ImmutableSet.of(device("1"), device("2"), device("3"), device("4"), device("5"));
+
+    // Cluster of 1, 2, 3 and 4 in a ring and a singleton cluster of 5
+    private static final Set<Link> LINKS =
+            ImmutableSet.of(link("1", 1, "2", 1), link("2", 1, "1", 1),
+                            link("3", 2, "2", 2), link("2", 2, "3", 2),
+                            link("1", 3, "4", 3), link("4", 3, "1", 3),
+                            link("3", 4, "4", 4), link("4", 4, "3", 4));
+
+    private final IncrementalClusterSearch search =
+            new IncrementalClusterSearch(new DefaultEdgeWeigher<TopologyVertex, TopologyEdge>(), 1.0);
+
+    private static TopologyGraph graph(Set<Device> devices, Set<Link> links) {
+        GraphDescription description =
+                new DefaultGraphDescription(0L, System.currentTimeMillis(), devices, links);
+        return new DefaultTopologyGraph(description.vertexes(), description.edges());
+    }
+
+    // Searches the new graph incrementally and validates the result against a full search
+    private IncrementalClusterSearch.Result validate(Set<Device> devices, Set<Link> links) {
+        TopologyGraph previousGraph = graph(DEVICES, LINKS);
+        IncrementalClusterSearch.Result previous = search.search(previousGraph);
+        TopologyGraph graph = graph(devices, links);
+
+        IncrementalClusterSearch.Result result = search.search(graph, previousGraph, previous);
+        assertNotNull("search should be incremental", result);
+        assertTrue("search should be incremental", result.isIncremental());
+        assertTrue("incorrect clusters", result.sameClusters(search.search(graph)));
+        return result;
+    }
+
+    @Test
+    public void unchanged() {
+        IncrementalClusterSearch.Result result = validate(DEVICES, LINKS);
+        assertEquals("incorrect cluster count", 2, result.clusterCount());
+        assertEquals("incorrect previous index", 0, result.previousIndex(0));
+        assertEquals("incorrect previous index", 1, result.previousIndex(1));
+        assertTrue("no changed links expected", result.changedEdges().isEmpty());
+    }
+
+    @Test
+    public void linkRemovedWithinCluster() {
+        Set<Link> links = Sets.difference(LINKS, ImmutableSet.of(link("1", 1, "2", 1)));
+        IncrementalClusterSearch.Result result = validate(DEVICES, links);
+        assertEquals("incorrect cluster count", 2, result.clusterCount());
+        assertEquals("incorrect previous index", 0, result.previousIndex(0));
+        assertEquals("incorrect changed link count", 1, result.changedEdges().size());
+    }
+
+    @Test
+    public void linksRemovedSplittingCluster() {
+        Set<Link> links = Sets.difference(LINKS, ImmutableSet.of(link("1", 3, "4", 3),
+                                                                 link("3", 4, "4", 4)));
+        IncrementalClusterSearch.Result result = validate(DEVICES, links);
+        assertEquals("incorrect cluster count", 3, result.clusterCount());
+        assertEquals("incorrect previous index", 1, result.previousIndex(0));
+    }
+
+    @Test
+    public void linksAddedMergingClusters() {
+        Set<Link> links = Sets.union(LINKS, ImmutableSet.of(link("4", 5, "5", 5),
+                                                            link("5", 5, "4", 5)));
+        IncrementalClusterSearch.Result result = validate(DEVICES, links);
+        assertEquals("incorrect cluster count", 1, result.clusterCount());
+    }
+
+    @Test
+    public void linkAddedAcrossClusters() {
+        Set<Link> links = Sets.union(LINKS, ImmutableSet.of(link("4", 5, "5", 5)));
+        IncrementalClusterSearch.Result result = validate(DEVICES, links);
+        assertEquals("incorrect cluster count", 2, result.clusterCount());
+        assertEquals("incorrect previous index", 0, result.previousIndex(0));
+        assertEquals("incorrect previous index", 1, result.previousIndex(1));
+    }
+
+    @Test
+    public void devicesAddedAndRemoved() {
+        Set<Device> devices = Sets.union(Sets.difference(DEVICES, ImmutableSet.of(device("5"))),
+                                         ImmutableSet.of(device("6")));
+        IncrementalClusterSearch.Result result = validate(devices, LINKS);
+        assertEquals("incorrect cluster count", 2, result.clusterCount());
+        assertEquals("incorrect previous index", 0, result.previousIndex(0));
+        assertEquals("incorrect previous index", -1, result.previousIndex(1));
+    }
+
+    @Test
+    public void fallback() {
+        IncrementalClusterSearch limited =
+                new IncrementalClusterSearch(new DefaultEdgeWeigher<TopologyVertex, TopologyEdge>(), 0.5);
+        TopologyGraph previousGraph = graph(DEVICES, LINKS);
+        Set<Link> links = Sets.difference(LINKS, ImmutableSet.of(link("1", 3, "4", 3),
+                                                                 link("3", 4, "4", 4)));
+        assertNull("search should fall back",
+                   limited.search(graph(DEVICES, links), previousGraph, limited.search(previousGraph)));
+    }
+}
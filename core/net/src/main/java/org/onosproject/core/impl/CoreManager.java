@@ -45,6 +45,10 @@ import java.util.Set;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static org.onosproject.net.OsgiPropertyConstants.CALCULATE_PERFORMANCE_CHECK;
 import static org.onosproject.net.OsgiPropertyConstants.CALCULATE_PERFORMANCE_CHECK_DEFAULT;
+import static org.onosproject.net.OsgiPropertyConstants.EVENT_DISPATCH_LANES;
+import static org.onosproject.net.OsgiPropertyConstants.EVENT_DISPATCH_LANES_DEFAULT;
+import static org.onosproject.net.OsgiPropertyConstants.EVENT_DISPATCH_QUEUE_SIZE;
+import static org.onosproject.net.OsgiPropertyConstants.EVENT_DISPATCH_QUEUE_SIZE_DEFAULT;
 import static org.onosproject.net.OsgiPropertyConstants.MAX_EVENT_TIME_LIMIT;
 import static org.onosproject.net.OsgiPropertyConstants.MAX_EVENT_TIME_LIMIT_DEFAULT;
 import static org.onosproject.net.OsgiPropertyConstants.SHARED_THREAD_POOL_SIZE;
@@ -62,7 +66,9 @@ import static org.onosproject.security.AppPermission.Type.APP_WRITE;
         property = {
                 SHARED_THREAD_POOL_SIZE + ":Integer=" + SHARED_THREAD_POOL_SIZE_DEFAULT,
                 MAX_EVENT_TIME_LIMIT + ":Integer=" + MAX_EVENT_TIME_LIMIT_DEFAULT,
-                CALCULATE_PERFORMANCE_CHECK + ":Boolean=" + CALCULATE_PERFORMANCE_CHECK_DEFAULT
+                CALCULATE_PERFORMANCE_CHECK + ":Boolean=" + CALCULATE_PERFORMANCE_CHECK_DEFAULT,
+                EVENT_DISPATCH_LANES + ":Integer=" + EVENT_DISPATCH_LANES_DEFAULT,
+                EVENT_DISPATCH_QUEUE_SIZE + ":Integer=" + EVENT_DISPATCH_QUEUE_SIZE_DEFAULT
         }
 )
 public class CoreManager implements CoreService {
@@ -99,6 +105,12 @@ public class CoreManager implements CoreService {
     /** Enable queue performance check on shared pool. */
     private boolean sharedThreadPerformanceCheck = CALCULATE_PERFORMANCE_CHECK_DEFAULT;
 
+    /** Number of ordered lanes per class of events; events are partitioned across lanes by subject. */
+    private int eventDispatchLanes = EVENT_DISPATCH_LANES_DEFAULT;
+
+    /** Capacity of each event dispatch lane; 0 for unbounded. */
+    private int eventDispatchQueueSize = EVENT_DISPATCH_QUEUE_SIZE_DEFAULT;
+
 
     @Activate
     protected void activate() {
@@ -188,7 +200,24 @@ public class CoreManager implements CoreService {
             SharedExecutors.setMetricsService(sharedThreadPerformanceCheck ? metricsService : null);
         }
 
-        log.info("Settings: sharedThreadPoolSize={}, maxEventTimeLimit={}, sharedThreadPerformanceCheck={}",
-                 sharedThreadPoolSize, maxEventTimeLimit, sharedThreadPerformanceCheck);
+        Integer lanes = Tools.getIntegerProperty(properties, EVENT_DISPATCH_LANES);
+        if (lanes != null && lanes > 0) {
+            eventDispatchLanes = lanes;
+        } else if (lanes != null) {
+            log.warn("eventDispatchLanes must be greater than 0");
+        }
+
+        Integer queueSize = Tools.getIntegerProperty(properties, EVENT_DISPATCH_QUEUE_SIZE);
+        if (queueSize != null && queueSize >= 0) {
+            eventDispatchQueueSize = queueSize;
+        } else if (queueSize != null) {
+            log.warn("eventDispatchQueueSize must be greater than or equal to 0");
+        }
+        eventDeliveryService.setDispatchLanes(eventDispatchLanes, eventDispatchQueueSize);
+
+        log.info("Settings: sharedThreadPoolSize={}, maxEventTimeLimit={}, sharedThreadPerformanceCheck={}, " +
+                         "eventDispatchLanes={}, eventDispatchQueueSize={}",
+                 sharedThreadPoolSize, maxEventTimeLimit, sharedThreadPerformanceCheck,
+                 eventDispatchLanes, eventDispatchQueueSize);
     }
 }
@@ -25,8 +25,10 @@ import org.onosproject.event.Event;
 import org.onosproject.event.EventDeliveryService;
 import org.onosproject.event.EventSink;
 import org.onosproject.net.device.DeviceEvent;
+import org.onosproject.net.flow.FlowRule;
 import org.onosproject.net.flow.FlowRuleEvent;
 import org.onosproject.net.host.HostEvent;
+import org.onosproject.net.intent.Intent;
 import org.onosproject.net.intent.IntentEvent;
 import org.onosproject.net.link.LinkEvent;
 import org.onosproject.net.topology.TopologyEvent;
@@ -43,6 +45,7 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static java.util.concurrent.Executors.newSingleThreadExecutor;
@@ -53,6 +56,15 @@ import static org.onosproject.security.AppPermission.Type.EVENT_WRITE;
 import static org.slf4j.LoggerFactory.getLogger;
 /**
  * Simple implementation of an event dispatching service.
+ * <p>
+ * Events are dispatched by class of event (topology, programming and
+ * everything else). Topology events, i.e. topology, device, link and host
+ * events, are always delivered in order by a single lane, since they are
+ * causally related to one another. The other classes may be served by
+ * several ordered lanes, in which case events are partitioned across them
+ * by subject, e.g. by device or intent key, so that events for the same
+ * subject are delivered in order while events for distinct subjects are
+ * delivered in parallel.
  */
 @Component(immediate = true, service = EventDeliveryService.class)
 public class CoreEventDispatcher extends DefaultEventSinkRegistry
@@ -60,30 +72,11 @@ public class CoreEventDispatcher extends DefaultEventSinkRegistry
 
     private final Logger log = getLogger(getClass());
 
-
-    private DispatchLoop topologyDispatcher = new DispatchLoop("topology");
-    private DispatchLoop programmingDispatcher = new DispatchLoop("programming");
-    private DispatchLoop defaultDispatcher = new DispatchLoop("default");
-
-    private Map<Class, DispatchLoop> dispatcherMap =
-            new ImmutableMap.Builder<Class, DispatchLoop>()
-                .put(TopologyEvent.class, topologyDispatcher)
-                .put(DeviceEvent.class, topologyDispatcher)
-                .put(LinkEvent.class, topologyDispatcher)
-                .put(HostEvent.class, topologyDispatcher)
-                .put(FlowRuleEvent.class, programmingDispatcher)
-                .put(IntentEvent.class, programmingDispatcher)
-                .build();
-
-    private Set<DispatchLoop> dispatchers =
-            new ImmutableSet.Builder<DispatchLoop>()
-                .addAll(dispatcherMap.values())
-                .add(defaultDispatcher)
-                .build();
-
     // Default number of millis a sink can take to process an event.
     private static final long DEFAULT_EXECUTE_MS = 5_000; // ms
     private static final long WATCHDOG_MS = 250; // ms
+    // Number of millis between lane statistics reports
+    private static final long REPORT_MS = 60_000; // ms
 
     @SuppressWarnings("unchecked")
     private static final Event KILL_PILL = new AbstractEvent(null, 0) {
@@ -91,35 +84,45 @@ public class CoreEventDispatcher extends DefaultEventSinkRegistry
 
     private long maxProcessMillis = DEFAULT_EXECUTE_MS;
 
-    private DispatchLoop getDispatcher(Event event) {
-        DispatchLoop dispatcher = dispatcherMap.get(event.getClass());
+    private int numLanes = 1;
+    private int laneQueueSize = 0;
+    private boolean started = false;
+
+    private volatile Dispatchers dispatchers = new Dispatchers(numLanes, laneQueueSize);
+
+    private Dispatcher getDispatcher(Event event) {
+        Dispatchers current = dispatchers;
+        Dispatcher dispatcher = current.dispatcherMap.get(event.getClass());
         if (dispatcher == null) {
-            dispatcher = defaultDispatcher;
+            dispatcher = current.defaultDispatcher;
         }
         return dispatcher;
     }
 
     @Override
     public void post(Event event) {
-
-        if (!getDispatcher(event).add(event)) {
-            log.error("Unable to post event {}", event);
+        // A lane being retired turns away new events; the retry then picks
+        // up the lanes that replaced it.
+        while (!getDispatcher(event).add(event)) {
+            log.trace("Re-posting event {} to the current lanes", event);
         }
     }
 
     @Activate
-    public void activate() {
+    public synchronized void activate() {
 
         if (maxProcessMillis != 0) {
-            dispatchers.forEach(DispatchLoop::start);
+            dispatchers.start();
+            started = true;
         }
 
         log.info("Started");
     }
 
     @Deactivate
-    public void deactivate() {
-        dispatchers.forEach(DispatchLoop::stop);
+    public synchronized void deactivate() {
+        dispatchers.stop();
+        started = false;
 
         log.info("Stopped");
     }
@@ -133,9 +136,9 @@ public class CoreEventDispatcher extends DefaultEventSinkRegistry
         maxProcessMillis = millis;
 
         if (millis == 0 && oldMillis != 0) {
-            dispatchers.forEach(DispatchLoop::stopWatchdog);
+            dispatchers.loops.forEach(DispatchLoop::stopWatchdog);
         } else if (millis != 0 && oldMillis == 0) {
-            dispatchers.forEach(DispatchLoop::startWatchdog);
+            dispatchers.loops.forEach(DispatchLoop::startWatchdog);
         }
     }
 
@@ -145,28 +148,177 @@ public class CoreEventDispatcher extends DefaultEventSinkRegistry
         return maxProcessMillis;
     }
 
+    @Override
+    public synchronized void setDispatchLanes(int lanes, int queueSize) {
+        checkPermission(EVENT_WRITE);
+        checkArgument(lanes > 0, "Number of lanes must be positive");
+        checkArgument(queueSize >= 0, "Queue size must not be negative");
+        if (lanes == numLanes && queueSize == laneQueueSize) {
+            return;
+        }
+
+        // New events go to the new lanes right away, while the old lanes
+        // finish delivering whatever they have already accepted.
+        Dispatchers oldDispatchers = dispatchers;
+        Dispatchers newDispatchers = new Dispatchers(lanes, queueSize);
+        numLanes = lanes;
+        laneQueueSize = queueSize;
+        if (started) {
+            newDispatchers.start();
+        }
+        dispatchers = newDispatchers;
+        if (started) {
+            oldDispatchers.retire();
+        }
+        log.info("Dispatching events over {} lane(s) per dispatcher with {} queues",
+                 lanes, queueSize == 0 ? "unbounded" : "bounded " + queueSize + "-event");
+    }
+
+    /**
+     * Returns the key by which the given event is assigned to a lane.
+     * Events with the same key are always delivered in order.
+     *
+     * @param event event to be dispatched
+     * @return partition key
+     */
+    private static Object partitionKey(Event event) {
+        Object subject = event.subject();
+        if (subject instanceof FlowRule) {
+            return ((FlowRule) subject).deviceId();
+        } else if (subject instanceof Intent) {
+            return ((Intent) subject).key();
+        }
+        return subject;
+    }
+
+    // Set of dispatchers serving all event classes with the same lane layout.
+    private class Dispatchers {
+        private final Dispatcher topologyDispatcher;
+        private final Dispatcher programmingDispatcher;
+        private final Dispatcher defaultDispatcher;
+        private final Map<Class, Dispatcher> dispatcherMap;
+        private final Set<DispatchLoop> loops;
+
+        Dispatchers(int lanes, int queueSize) {
+            // Topology events are causally related and thus never partitioned
+            topologyDispatcher = new Dispatcher("topology", 1, queueSize);
+            programmingDispatcher = new Dispatcher("programming", lanes, queueSize);
+            defaultDispatcher = new Dispatcher("default", lanes, queueSize);
+
+            dispatcherMap = new ImmutableMap.Builder<Class, Dispatcher>()
+                    .put(TopologyEvent.class, topologyDispatcher)
+                    .put(DeviceEvent.class, topologyDispatcher)
+                    .put(LinkEvent.class, topologyDispatcher)
+                    .put(HostEvent.class, topologyDispatcher)
+                    .put(FlowRuleEvent.class, programmingDispatcher)
+                    .put(IntentEvent.class, programmingDispatcher)
+                    .build();
+
+            ImmutableSet.Builder<DispatchLoop> builder = ImmutableSet.builder();
+            for (Dispatcher dispatcher : ImmutableSet.of(topologyDispatcher, programmingDispatcher,
+                                                         defaultDispatcher)) {
+                builder.add(dispatcher.lanes);
+            }
+            loops = builder.build();
+        }
+
+        void start() {
+            loops.forEach(DispatchLoop::start);
+        }
+
+        void stop() {
+            loops.forEach(DispatchLoop::stop);
+        }
+
+        void retire() {
+            loops.forEach(DispatchLoop::retire);
+        }
+    }
+
+    // Group of ordered lanes serving one class of events.
+    private class Dispatcher {
+        private final DispatchLoop[] lanes;
+
+        Dispatcher(String name, int lanes, int queueSize) {
+            this.lanes = new DispatchLoop[lanes];
+            for (int i = 0; i < lanes; i++) {
+                this.lanes[i] = new DispatchLoop(lanes == 1 ? name : name + "-" + i, queueSize);
+            }
+        }
+
+        boolean add(Event event) {
+            if (lanes.length == 1) {
+                return lanes[0].add(event);
+            }
+            Object key = partitionKey(event);
+            int hash = key == null ? 0 : key.hashCode();
+            hash ^= hash >>> 16;
+            return lanes[Math.floorMod(hash, lanes.length)].add(event);
+        }
+    }
+
     // Auxiliary event dispatching loop that feeds off the events queue.
     private class DispatchLoop implements Runnable {
         private final String name;
         private volatile boolean stopped;
+        private volatile boolean retiring;
+        // Posts currently adding an event to this loop
+        private final AtomicInteger pendingAdds = new AtomicInteger();
         private volatile EventSink lastSink;
         // Means to detect long-running sinks
         private final Stopwatch stopwatch = Stopwatch.createUnstarted();
         private TimerTask watchdog;
         private volatile Future<?> dispatchFuture;
+        // Exactly one of the two queues is used, depending on whether the
+        // lane is bounded or not
         private final BlockingQueue<Event> eventsQueue;
+        private final EventRingBuffer<Event> eventsRing;
         private final ExecutorService executor;
+        // Lane statistics reported by the watchdog
+        private final LatencyHistogram deliveryLatency = new LatencyHistogram();
+        private final LatencyHistogram processLatency = new LatencyHistogram();
 
-        DispatchLoop(String name) {
+        DispatchLoop(String name, int queueSize) {
             this.name = name;
             executor = newSingleThreadExecutor(
                     groupedThreads("onos/event",
                     "dispatch-" + name + "%d", log));
-            eventsQueue = new LinkedBlockingQueue<>();
+            eventsQueue = queueSize == 0 ? new LinkedBlockingQueue<>() : null;
+            eventsRing = queueSize == 0 ? null : new EventRingBuffer<>(queueSize);
         }
 
+        // Accepts the event unless the loop is being retired; a bounded lane
+        // never turns away events, but spills them beyond its ring capacity.
         public boolean add(Event event) {
-            return eventsQueue.add(event);
+            pendingAdds.incrementAndGet();
+            try {
+                if (retiring) {
+                    return false;
+                }
+                enqueue(event);
+                return true;
+            } finally {
+                // Wake up a retiring loop that may be waiting for this post
+                if (pendingAdds.decrementAndGet() == 0 && retiring) {
+                    enqueue(KILL_PILL);
+                }
+            }
+        }
+
+        private void enqueue(Event event) {
+            if (eventsRing != null) {
+                eventsRing.offer(event);
+            } else {
+                eventsQueue.add(event);
+            }
+        }
+
+        private Event take() throws InterruptedException {
+            return eventsRing != null ? eventsRing.take() : eventsQueue.take();
+        }
+
+        int backlog() {
+            return eventsRing != null ? eventsRing.size() : eventsQueue.size();
         }
 
         @Override
@@ -175,10 +327,15 @@ public class CoreEventDispatcher extends DefaultEventSinkRegistry
             while (!stopped) {
                 try {
                     // Fetch the next event and if it is the kill-pill, bail
-                    Event event = eventsQueue.take();
+                    Event event = take();
                     if (event != KILL_PILL) {
                         process(event);
                     }
+                    // A retired loop exits once it has delivered its backlog
+                    // and no post may still add to it
+                    if (retiring && pendingAdds.get() == 0 && backlog() == 0) {
+                        break;
+                    }
                 } catch (InterruptedException e) {
                     log.warn("Dispatch loop interrupted");
                 } catch (Exception | Error e) {
@@ -193,10 +350,15 @@ public class CoreEventDispatcher extends DefaultEventSinkRegistry
         private void process(Event event) {
             EventSink sink = getSink(event.getClass());
             if (sink != null) {
+                deliveryLatency.record(System.currentTimeMillis() - event.time());
                 lastSink = sink;
                 stopwatch.start();
-                sink.process(event);
-                stopwatch.reset();
+                try {
+                    sink.process(event);
+                } finally {
+                    processLatency.record(stopwatch.elapsed(TimeUnit.MILLISECONDS));
+                    stopwatch.reset();
+                }
             } else {
                 log.warn("No sink registered for event class {}",
                          event.getClass().getName());
@@ -205,7 +367,7 @@ public class CoreEventDispatcher extends DefaultEventSinkRegistry
 
         void stop() {
             stopped = true;
-            add(KILL_PILL);
+            enqueue(KILL_PILL);
             if (null != dispatchFuture) {
                 dispatchFuture.cancel(true);
             }
@@ -215,11 +377,24 @@ public class CoreEventDispatcher extends DefaultEventSinkRegistry
         void start() {
             stopped = false;
             dispatchFuture = executor.submit(this);
-            startWatchdog();
+            if (maxProcessMillis != 0) {
+                startWatchdog();
+            }
+        }
+
+        // Lets the loop deliver its remaining events and then shuts it down.
+        void retire() {
+            retiring = true;
+            enqueue(KILL_PILL);
+            stopWatchdog();
+            executor.shutdown();
         }
 
-        // Monitors event sinks to make sure none take too long to execute.
+        // Monitors event sinks to make sure none take too long to execute
+        // and periodically reports the lane backlog and latencies.
         private class Watchdog extends TimerTask {
+            private long lastReport = System.currentTimeMillis();
+
             @Override
             public void run() {
                 long elapsedTimeMillis = stopwatch.elapsed(TimeUnit.MILLISECONDS);
@@ -237,6 +412,23 @@ public class CoreEventDispatcher extends DefaultEventSinkRegistry
                     stop();
                     start();
                 }
+
+                long now = System.currentTimeMillis();
+                if (now - lastReport >= REPORT_MS) {
+                    lastReport = now;
+                    report();
+                }
+            }
+        }
+
+        private void report() {
+            int backlog = backlog();
+            if (eventsRing != null && backlog > eventsRing.capacity() / 2) {
+                log.warn("Dispatch loop({}) backlog at {} of {} events ({} spilled); delivery latency {}",
+                         name, backlog, eventsRing.capacity(), eventsRing.spilled(), deliveryLatency);
+            } else {
+                log.debug("Dispatch loop({}) backlog {}; delivery latency {}; process latency {}",
+                          name, backlog, deliveryLatency, processLatency);
             }
         }
 
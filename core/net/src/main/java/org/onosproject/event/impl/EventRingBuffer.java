@@ -0,0 +1,206 @@
+/*
+ * Copyright 2020-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.event.impl;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Lock-free, multi-producer single-consumer ring buffer of events.
+ * <p>
+ * Producers claim slots by advancing a shared tail sequence; each slot carries its own sequence number so that
+ * the consumer only observes a slot once the producer has published it. The single consumer parks when the
+ * buffer is empty and is unparked by the next producer.
+ * <p>
+ * Events are never dropped: once the ring is full, further events spill into an unbounded overflow queue, and
+ * keep doing so until the consumer has drained it, so that events from any one producer are consumed in the
+ * order in which they were offered.
+ */
+final class EventRingBuffer<E> {
+
+    private final int mask;
+    private final AtomicReferenceArray<E> buffer;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head;
+
+    // Events that did not fit into the ring; only consumed once the ring is empty
+    private final Queue<E> overflow = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger spilled = new AtomicInteger();
+
+    private volatile Thread consumer;
+    private volatile boolean waiting;
+
+    /**
+     * Creates a ring buffer with at least the given capacity.
+     *
+     * @param capacity minimum number of events the buffer can hold; rounded up to a power of two
+     */
+    EventRingBuffer(int capacity) {
+        checkArgument(capacity > 0, "Capacity must be positive");
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        mask = size - 1;
+        buffer = new AtomicReferenceArray<>(size);
+        sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Returns the number of events the buffer can hold.
+     *
+     * @return buffer capacity
+     */
+    int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * Returns the number of events currently in the buffer, including any that spilled into the overflow queue.
+     *
+     * @return number of buffered events
+     */
+    int size() {
+        long size = tail.get() - head;
+        return (int) Math.max(0, Math.min(size, capacity())) + spilled.get();
+    }
+
+    /**
+     * Returns the number of events currently held in the overflow queue.
+     *
+     * @return number of spilled events
+     */
+    int spilled() {
+        return spilled.get();
+    }
+
+    /**
+     * Adds the given event to the buffer, spilling it into the overflow queue if the ring is full or if earlier
+     * events are still waiting in the overflow queue.
+     *
+     * @param event event to add
+     * @return true if the event was added to the ring; false if it spilled into the overflow queue
+     */
+    boolean offer(E event) {
+        boolean added = spilled.get() == 0 && offerRing(event);
+        if (!added) {
+            synchronized (overflow) {
+                added = spilled.get() == 0 && offerRing(event);
+                if (!added) {
+                    overflow.add(event);
+                    spilled.incrementAndGet();
+                }
+            }
+        }
+
+        if (waiting) {
+            waiting = false;
+            LockSupport.unpark(consumer);
+        }
+        return added;
+    }
+
+    // Claims and publishes a ring slot for the event unless the ring is full
+    private boolean offerRing(E event) {
+        long position;
+        int index;
+        while (true) {
+            position = tail.get();
+            index = (int) (position & mask);
+            long delta = sequences.get(index) - position;
+            if (delta == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    break;
+                }
+            } else if (delta < 0) {
+                return false;
+            }
+        }
+        buffer.lazySet(index, event);
+        sequences.set(index, position + 1);
+        return true;
+    }
+
+    /**
+     * Removes and returns the next event, if any. Must only be called by the consumer.
+     *
+     * @return next event or null if the buffer is empty
+     */
+    E poll() {
+        long position = head;
+        int index = (int) (position & mask);
+        if (sequences.get(index) != position + 1) {
+            // Slots claimed but not yet published still precede any spilled events
+            return tail.get() == position ? pollOverflow() : null;
+        }
+        E event = buffer.get(index);
+        buffer.lazySet(index, null);
+        sequences.set(index, position + mask + 1);
+        head = position + 1;
+        return event;
+    }
+
+    // Events only spill while the ring is full, so they are next in line once the ring is empty
+    private E pollOverflow() {
+        if (spilled.get() == 0) {
+            return null;
+        }
+        E event = overflow.poll();
+        if (event != null) {
+            spilled.decrementAndGet();
+        }
+        return event;
+    }
+
+    /**
+     * Removes and returns the next event, waiting for one to become available if necessary. Must only be called
+     * by the consumer.
+     *
+     * @return next event
+     * @throws InterruptedException if interrupted while waiting
+     */
+    E take() throws InterruptedException {
+        consumer = Thread.currentThread();
+        while (true) {
+            E event = poll();
+            if (event != null) {
+                return event;
+            }
+            waiting = true;
+            event = poll();
+            if (event != null) {
+                waiting = false;
+                return event;
+            }
+            LockSupport.park(this);
+            if (Thread.interrupted()) {
+                waiting = false;
+                throw new InterruptedException();
+            }
+        }
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2020-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.event.impl;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-bucket histogram of event latencies in milliseconds.
+ */
+final class LatencyHistogram {
+
+    // Upper bounds (inclusive) of each bucket in ms; the last bucket is unbounded
+    private static final long[] BOUNDS = {1, 5, 10, 50, 100, 500, 1_000};
+
+    private final AtomicLongArray counts = new AtomicLongArray(BOUNDS.length + 1);
+
+    /**
+     * Records the given latency.
+     *
+     * @param millis latency in milliseconds
+     */
+    void record(long millis) {
+        int i = 0;
+        while (i < BOUNDS.length && millis > BOUNDS[i]) {
+            i++;
+        }
+        counts.incrementAndGet(i);
+    }
+
+    /**
+     * Returns the total number of recorded latencies.
+     *
+     * @return number of samples
+     */
+    long count() {
+        long count = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            count += counts.get(i);
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of samples recorded in the given bucket.
+     *
+     * @param bucket bucket index
+     * @return number of samples in the bucket
+     */
+    long count(int bucket) {
+        return counts.get(bucket);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("{");
+        for (int i = 0; i < counts.length(); i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(i < BOUNDS.length ? "<=" + BOUNDS[i] : ">" + BOUNDS[BOUNDS.length - 1])
+                    .append("ms=").append(counts.get(i));
+        }
+        return sb.append('}').toString();
+    }
+}
@@ -35,6 +35,12 @@ public final class OsgiPropertyConstants {
     public static final String CALCULATE_PERFORMANCE_CHECK = "sharedThreadPerformanceCheck";
     public static final boolean CALCULATE_PERFORMANCE_CHECK_DEFAULT = false;
 
+    public static final String EVENT_DISPATCH_LANES = "eventDispatchLanes";
+    public static final int EVENT_DISPATCH_LANES_DEFAULT = 1;
+
+    public static final String EVENT_DISPATCH_QUEUE_SIZE = "eventDispatchQueueSize";
+    public static final int EVENT_DISPATCH_QUEUE_SIZE_DEFAULT = 0;
+
     public static final String ALLOW_EXTRANEOUS_RULES = "allowExtraneousRules";
     public static final boolean ALLOW_EXTRANEOUS_RULES_DEFAULT = false;
 
@@ -47,6 +53,15 @@ public final class OsgiPropertyConstants {
     public static final String POLL_FREQUENCY = "fallbackFlowPollFrequency";
     public static final int POLL_FREQUENCY_DEFAULT = 30;
 
+    public static final String BULK_RATE_LIMIT = "bulkRateLimit";
+    public static final int BULK_RATE_LIMIT_DEFAULT = 0;
+
+    public static final String COALESCE_FLOW_RULES = "coalesceFlowRules";
+    public static final boolean COALESCE_FLOW_RULES_DEFAULT = true;
+
+    public static final String COALESCE_WINDOW = "coalesceWindow";
+    public static final int COALESCE_WINDOW_DEFAULT = 0;
+
     public static final String FOM_NUM_THREADS = "numThreads";
     public static final int FOM_NUM_THREADS_DEFAULT = 4;
 
@@ -116,6 +131,9 @@ public final class OsgiPropertyConstants {
     public static final String IM_NUM_THREADS = "numThreads";
     public static final int IM_NUM_THREADS_DEFAULT = 12;
 
+    public static final String IM_MAX_IN_FLIGHT_BATCHES = "maxInFlightBatches";
+    public static final int IM_MAX_IN_FLIGHT_BATCHES_DEFAULT = 4;
+
     public static final String MM_NUM_THREADS = "numThreads";
     public static final int MM_NUM_THREADS_DEFAULT = 12;
 
@@ -161,4 +179,19 @@ public final class OsgiPropertyConstants {
     public static final String FOM_ACCUMULATOR_MAX_BATCH_MILLIS = "accumulatorMaxBatchMillis";
     public static final int FOM_ACCUMULATOR_MAX_BATCH_MILLIS_DEFAULT = 500;
 
+    public static final String IFOM_MAX_IN_FLIGHT_PER_DEVICE = "maxInFlightPerDevice";
+    public static final int IFOM_MAX_IN_FLIGHT_PER_DEVICE_DEFAULT = 128;
+
+    public static final String PATH_CACHE_SIZE = "pathCacheSize";
+    public static final int PATH_CACHE_SIZE_DEFAULT = 10000;
+
+    public static final String PATH_CACHE_MAX_AGE = "pathCacheMaxAge";
+    public static final int PATH_CACHE_MAX_AGE_DEFAULT = 300;
+
+    public static final String PATH_CACHE_SELECTIVE_INVALIDATION = "pathCacheSelectiveInvalidation";
+    public static final boolean PATH_CACHE_SELECTIVE_INVALIDATION_DEFAULT = false;
+
+    public static final String PM_PROCESSING_LANES = "packetProcessingLanes";
+    public static final int PM_PROCESSING_LANES_DEFAULT = 0;
+
 }
@@ -0,0 +1,511 @@
+/*
+ * Copyright 2020-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.net.flow.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.onlab.util.SharedScheduledExecutors;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.flow.FlowId;
+import org.onosproject.net.flow.FlowRuleOperations.Priority;
+import org.onosproject.net.flow.oldbatch.FlowRuleBatchEntry;
+import org.onosproject.net.flow.oldbatch.FlowRuleBatchEntry.FlowRuleOperation;
+import org.onosproject.net.flow.oldbatch.FlowRuleBatchOperation;
+import org.slf4j.Logger;
+
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Schedules flow rule batches through per-device queues, one per priority class.
+ * <p>
+ * The batches of a device are handed to the sink one at a time, in order of
+ * priority: urgent batches go first, and when both are queued, regular batches
+ * are weighted over bulk batches. Bulk batches may further be limited to a
+ * number of rules per second per device.
+ * <p>
+ * When coalescing is enabled, the batches of a priority class that are queued
+ * for a device are merged into a single batch holding the net operation on
+ * each flow, so that a rule added and then modified or removed shortly after
+ * reaches the device only once. Regular and bulk batches may be held for a
+ * short window to give later operations a chance to be coalesced. A merged
+ * batch holds at most {@value #MAX_COALESCED_OPERATIONS} operations, and
+ * never more bulk operations than the bulk rate limit allows.
+ */
+final class FlowRuleBatchScheduler {
+
+    private final Logger log = getLogger(getClass());
+
+    // Number of regular batches sent per bulk batch when both are queued
+    private static final int NORMAL_WEIGHT = 4;
+
+    // Number of batches a device sends before yielding its thread
+    private static final int MAX_BATCHES_PER_RUN = 16;
+
+    // Number of operations beyond which queued batches are no longer merged
+    static final int MAX_COALESCED_OPERATIONS = 1024;
+
+    // Time after which a merged batch that never completed is abandoned
+    private static final long COALESCED_TIMEOUT_SECONDS = 60;
+
+    private static final Priority[] PRIORITIES = Priority.values();
+
+    /**
+     * Listener for the time batches have spent in queue.
+     */
+    interface WaitTimeListener {
+        /**
+         * Notifies of the time a batch of the given priority class has been queued.
+         *
+         * @param priority priority class
+         * @param nanos    time spent in queue in nanoseconds
+         */
+        void waited(Priority priority, long nanos);
+    }
+
+    /**
+     * Listener for merged batches that will never complete.
+     */
+    interface AbandonListener {
+        /**
+         * Notifies that the given batches, which were merged into a single
+         * batch, were abandoned because the merged batch could not be sent or
+         * did not complete in time.
+         *
+         * @param batches abandoned batches
+         */
+        void abandoned(List<FlowRuleBatchOperation> batches);
+    }
+
+    private final Executor executor;
+    private final Consumer<FlowRuleBatchOperation> sink;
+    private final LongSupplier batchIds;
+    private final Map<DeviceId, Lane> lanes = Maps.newConcurrentMap();
+    private final AtomicIntegerArray depths = new AtomicIntegerArray(PRIORITIES.length);
+    private final Map<Long, Coalesced> coalescedBatches = Maps.newConcurrentMap();
+    private final AtomicLong coalescedOperations = new AtomicLong();
+
+    private volatile WaitTimeListener waitTimeListener = (priority, nanos) -> { };
+    private volatile AbandonListener abandonListener = batches -> { };
+    private volatile long coalescedTimeoutNanos = TimeUnit.SECONDS.toNanos(COALESCED_TIMEOUT_SECONDS);
+    private volatile int bulkRateLimit;
+    private volatile boolean coalesce;
+    private volatile int coalesceWindow;
+
+    /**
+     * Creates a scheduler that does not coalesce batches.
+     *
+     * @param executor executor running the per-device queues
+     * @param sink     consumer of the scheduled batches
+     */
+    FlowRuleBatchScheduler(Executor executor, Consumer<FlowRuleBatchOperation> sink) {
+        this(executor, sink, null);
+    }
+
+    /**
+     * Creates a scheduler.
+     *
+     * @param executor executor running the per-device queues
+     * @param sink     consumer of the scheduled batches
+     * @param batchIds supplier of the identifiers of coalesced batches
+     */
+    FlowRuleBatchScheduler(Executor executor, Consumer<FlowRuleBatchOperation> sink, LongSupplier batchIds) {
+        this.executor = executor;
+        this.sink = sink;
+        this.batchIds = batchIds;
+    }
+
+    /**
+     * Sets the maximum number of bulk rules sent per second to each device.
+     *
+     * @param rulesPerSecond rule rate; 0 or less to not limit bulk batches
+     */
+    void setBulkRateLimit(int rulesPerSecond) {
+        this.bulkRateLimit = Math.max(rulesPerSecond, 0);
+    }
+
+    /**
+     * Enables or disables the coalescing of queued batches.
+     *
+     * @param enabled whether batches should be coalesced
+     */
+    void setCoalescing(boolean enabled) {
+        this.coalesce = enabled && batchIds != null;
+    }
+
+    /**
+     * Sets the time regular and bulk batches are held so that later
+     * operations on the same flows can be coalesced with them.
+     *
+     * @param millis window in milliseconds; 0 or less to only coalesce
+     *               batches that are already queued
+     */
+    void setCoalesceWindow(int millis) {
+        this.coalesceWindow = Math.max(millis, 0);
+    }
+
+    /**
+     * Sets the time after which a merged batch that has not completed is
+     * abandoned.
+     *
+     * @param millis timeout in milliseconds
+     */
+    void setCoalescedTimeout(long millis) {
+        this.coalescedTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(millis, 0));
+    }
+
+    /**
+     * Returns the batches that were coalesced into the given batch, and
+     * forgets about them. Each of them completes along with the given batch.
+     * <p>
+     * Each batch identifier maps to the flows whose net operation the batch
+     * contributed to the merged batch; operations of a batch that were
+     * superseded by those of a later batch did not reach the device on its
+     * behalf.
+     *
+     * @param batchId identifier of a batch handed to the sink
+     * @return identifiers of the coalesced batches and the flows they
+     *         contributed; null if the batch was not coalesced
+     */
+    Map<Long, Set<FlowId>> coalesced(long batchId) {
+        Coalesced coalesced = coalescedBatches.remove(batchId);
+        return coalesced != null ? coalesced.contributions : null;
+    }
+
+    /**
+     * Returns the number of flow rule operations that coalescing has saved.
+     *
+     * @return number of operations not sent to devices
+     */
+    long coalescedOperations() {
+        return coalescedOperations.get();
+    }
+
+    /**
+     * Sets the listener for the time batches spend in queue.
+     *
+     * @param listener wait time listener
+     */
+    void setWaitTimeListener(WaitTimeListener listener) {
+        this.waitTimeListener = listener;
+    }
+
+    /**
+     * Sets the listener for merged batches that are abandoned.
+     *
+     * @param listener abandon listener
+     */
+    void setAbandonListener(AbandonListener listener) {
+        this.abandonListener = listener;
+    }
+
+    /**
+     * Queues the given batch for its device.
+     *
+     * @param batch    flow rule batch
+     * @param priority priority class of the batch
+     */
+    void submit(FlowRuleBatchOperation batch, Priority priority) {
+        lanes.computeIfAbsent(batch.deviceId(), Lane::new).add(new Entry(batch, priority));
+    }
+
+    /**
+     * Returns the number of batches of the given priority class that are queued.
+     *
+     * @param priority priority class
+     * @return number of queued batches
+     */
+    int queueDepth(Priority priority) {
+        return depths.get(priority.ordinal());
+    }
+
+    // Merges the given batches into one holding the net operation on each flow
+    private FlowRuleBatchOperation merge(DeviceId deviceId, List<FlowRuleBatchOperation> batches) {
+        expireCoalesced();
+        Map<FlowId, FlowRuleBatchEntry> net = Maps.newLinkedHashMap();
+        Map<FlowId, Set<FlowRuleBatchOperation>> contributors = Maps.newHashMap();
+        int total = 0;
+        for (FlowRuleBatchOperation batch : batches) {
+            for (FlowRuleBatchEntry entry : batch.getOperations()) {
+                FlowId id = entry.target().id();
+                FlowRuleBatchEntry first = net.get(id);
+                if (first == null || !isRefinement(first, entry)) {
+                    // a later operation supersedes whatever earlier batches asked for
+                    contributors.put(id, Sets.newIdentityHashSet());
+                }
+                net.put(id, first == null ? entry : netOperation(first, entry));
+                contributors.get(id).add(batch);
+                total++;
+            }
+        }
+        coalescedOperations.addAndGet(total - net.size());
+        FlowRuleBatchOperation merged =
+                new FlowRuleBatchOperation(net.values(), deviceId, batchIds.getAsLong());
+
+        ImmutableMap.Builder<Long, Set<FlowId>> contributions = ImmutableMap.builder();
+        for (FlowRuleBatchOperation batch : batches) {
+            ImmutableSet.Builder<FlowId> ids = ImmutableSet.builder();
+            batch.getOperations().stream()
+                    .map(entry -> entry.target().id())
+                    .filter(id -> contributors.get(id).contains(batch))
+                    .forEach(ids::add);
+            contributions.put(batch.id(), ids.build());
+        }
+        coalescedBatches.put(merged.id(), new Coalesced(batches, contributions.build()));
+        return merged;
+    }
+
+    // Abandons the merged batches that did not complete in time
+    private void expireCoalesced() {
+        long now = System.nanoTime();
+        Iterator<Coalesced> iterator = coalescedBatches.values().iterator();
+        while (iterator.hasNext()) {
+            Coalesced coalesced = iterator.next();
+            if (now - coalesced.mergedNanos >= coalescedTimeoutNanos) {
+                iterator.remove();
+                abandon(coalesced);
+            }
+        }
+    }
+
+    private void abandon(Coalesced coalesced) {
+        try {
+            abandonListener.abandoned(coalesced.batches);
+        } catch (Exception e) {
+            log.warn("Unable to abandon coalesced flow rule batches", e);
+        }
+    }
+
+    // Indicates whether the given operation keeps the effect of the earlier one
+    private static boolean isRefinement(FlowRuleBatchEntry first, FlowRuleBatchEntry then) {
+        return then.operator() == FlowRuleOperation.MODIFY && first.operator() == FlowRuleOperation.ADD;
+    }
+
+    // Returns the operation with the same effect as the given operations applied in order
+    private static FlowRuleBatchEntry netOperation(FlowRuleBatchEntry first, FlowRuleBatchEntry then) {
+        if (isRefinement(first, then)) {
+            // the rule may not be on the device yet, so it still needs adding
+            return new FlowRuleBatchEntry(FlowRuleOperation.ADD, then.target());
+        }
+        // adding a rule replaces it and removing it discards any earlier change
+        return then;
+    }
+
+    // Batches merged into one, along with the flows each of them contributed
+    private static final class Coalesced {
+        private final List<FlowRuleBatchOperation> batches;
+        private final Map<Long, Set<FlowId>> contributions;
+        private final long mergedNanos = System.nanoTime();
+
+        private Coalesced(List<FlowRuleBatchOperation> batches, Map<Long, Set<FlowId>> contributions) {
+            this.batches = ImmutableList.copyOf(batches);
+            this.contributions = contributions;
+        }
+    }
+
+    private static final class Entry {
+        private final FlowRuleBatchOperation batch;
+        private final Priority priority;
+        private final long queuedNanos = System.nanoTime();
+
+        private Entry(FlowRuleBatchOperation batch, Priority priority) {
+            this.batch = batch;
+            this.priority = priority;
+        }
+    }
+
+    // Queues of a single device; only one thread drains them at a time
+    private final class Lane implements Runnable {
+        private final DeviceId deviceId;
+        private final Map<Priority, Queue<Entry>> queues = new EnumMap<>(Priority.class);
+
+        // Guarded by this
+        private boolean scheduled;
+        private boolean waiting;
+        private boolean holding;
+        private int normalCredits = NORMAL_WEIGHT;
+        private double bulkTokens = Double.NaN;
+        private long lastRefill;
+        private long throttleNanos;
+
+        private Lane(DeviceId deviceId) {
+            this.deviceId = deviceId;
+            for (Priority priority : PRIORITIES) {
+                queues.put(priority, new ArrayDeque<>());
+            }
+        }
+
+        private void add(Entry entry) {
+            boolean schedule = false;
+            synchronized (this) {
+                queues.get(entry.priority).add(entry);
+                int window = coalesce && entry.priority != Priority.URGENT ? coalesceWindow : 0;
+                if (!scheduled) {
+                    scheduled = true;
+                    if (window > 0) {
+                        waiting = true;
+                        holding = true;
+                        SharedScheduledExecutors.newTimeout(this::resume, window, TimeUnit.MILLISECONDS);
+                    } else {
+                        schedule = true;
+                    }
+                } else if (waiting && (!holding || entry.priority == Priority.URGENT)) {
+                    // do not leave the new entry behind throttled bulk entries
+                    waiting = false;
+                    holding = false;
+                    schedule = true;
+                }
+            }
+            depths.incrementAndGet(entry.priority.ordinal());
+            if (schedule) {
+                executor.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            for (int i = 0; i < MAX_BATCHES_PER_RUN; i++) {
+                List<Entry> entries;
+                synchronized (this) {
+                    Entry entry = poll();
+                    if (entry == null) {
+                        if (throttleNanos > 0) {
+                            waiting = true;
+                            SharedScheduledExecutors.newTimeout(this::resume, throttleNanos, TimeUnit.NANOSECONDS);
+                        } else {
+                            scheduled = false;
+                        }
+                        return;
+                    }
+                    entries = Lists.newArrayList(entry);
+                    if (coalesce) {
+                        drainInto(entries, entry.priority);
+                    }
+                }
+                long now = System.nanoTime();
+                List<FlowRuleBatchOperation> batches = Lists.newArrayListWithCapacity(entries.size());
+                for (Entry entry : entries) {
+                    depths.decrementAndGet(entry.priority.ordinal());
+                    waitTimeListener.waited(entry.priority, now - entry.queuedNanos);
+                    batches.add(entry.batch);
+                }
+                FlowRuleBatchOperation batch = batches.size() == 1 ? batches.get(0) : merge(deviceId, batches);
+                try {
+                    sink.accept(batch);
+                } catch (Exception e) {
+                    log.warn("Unable to send flow rule batch to {}", deviceId, e);
+                    Coalesced coalesced = batches.size() == 1 ? null : coalescedBatches.remove(batch.id());
+                    if (coalesced != null) {
+                        abandon(coalesced);
+                    }
+                }
+            }
+            executor.execute(this);
+        }
+
+        private void resume() {
+            synchronized (this) {
+                if (!waiting) {
+                    return;
+                }
+                waiting = false;
+                holding = false;
+            }
+            executor.execute(this);
+        }
+
+        // Moves the other queued entries of the given priority class to the given
+        // list, as long as the merged batch stays within its size and rate limits
+        private void drainInto(List<Entry> entries, Priority priority) {
+            Queue<Entry> queue = queues.get(priority);
+            int operations = entries.get(0).batch.size();
+            boolean limited = priority == Priority.BULK && !Double.isNaN(bulkTokens);
+            while (!queue.isEmpty()) {
+                int size = queue.peek().batch.size();
+                if (operations + size > MAX_COALESCED_OPERATIONS || (limited && bulkTokens < size)) {
+                    break;
+                }
+                Entry entry = queue.poll();
+                operations += size;
+                if (limited) {
+                    bulkTokens -= size;
+                }
+                entries.add(entry);
+            }
+        }
+
+        // Returns the next entry to send, if any; sets throttleNanos when bulk entries are held back
+        private Entry poll() {
+            throttleNanos = 0;
+            Queue<Entry> urgent = queues.get(Priority.URGENT);
+            if (!urgent.isEmpty()) {
+                return urgent.poll();
+            }
+            Queue<Entry> normal = queues.get(Priority.NORMAL);
+            Queue<Entry> bulk = queues.get(Priority.BULK);
+            boolean bulkReady = !bulk.isEmpty() && bulkReady();
+            if (!normal.isEmpty() && (normalCredits > 0 || !bulkReady)) {
+                normalCredits--;
+                return normal.poll();
+            }
+            if (bulkReady) {
+                normalCredits = NORMAL_WEIGHT;
+                Entry entry = bulk.poll();
+                bulkTokens -= entry.batch.size();
+                return entry;
+            }
+            return null;
+        }
+
+        // Refills the bulk token bucket and checks whether a bulk batch may be sent
+        private boolean bulkReady() {
+            int rate = bulkRateLimit;
+            if (rate <= 0) {
+                bulkTokens = Double.NaN;
+                return true;
+            }
+            long now = System.nanoTime();
+            if (Double.isNaN(bulkTokens)) {
+                bulkTokens = rate;
+            } else {
+                bulkTokens = Math.min(rate, bulkTokens + (now - lastRefill) * rate / 1e9);
+            }
+            lastRefill = now;
+            if (bulkTokens >= 1) {
+                return true;
+            }
+            throttleNanos = (long) ((1 - bulkTokens) * 1e9 / rate);
+            return false;
+        }
+    }
+}
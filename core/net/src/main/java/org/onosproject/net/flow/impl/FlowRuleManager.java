@@ -15,12 +15,17 @@
  */
 package org.onosproject.net.flow.impl;
 
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Timer;
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.Sets;
+import org.onlab.metrics.MetricsComponent;
+import org.onlab.metrics.MetricsFeature;
+import org.onlab.metrics.MetricsService;
 import org.onlab.util.Tools;
 import org.onosproject.cfg.ComponentConfigService;
 import org.onosproject.core.ApplicationId;
@@ -36,11 +41,13 @@ import org.onosproject.net.driver.DriverService;
 import org.onosproject.net.flow.CompletedBatchOperation;
 import org.onosproject.net.flow.DefaultFlowEntry;
 import org.onosproject.net.flow.FlowEntry;
+import org.onosproject.net.flow.FlowId;
 import org.onosproject.net.flow.FlowRule;
 import org.onosproject.net.flow.FlowRuleEvent;
 import org.onosproject.net.flow.FlowRuleListener;
 import org.onosproject.net.flow.FlowRuleOperation;
 import org.onosproject.net.flow.FlowRuleOperations;
+import org.onosproject.net.flow.FlowRuleOperations.Priority;
 import org.onosproject.net.flow.FlowRuleProgrammable;
 import org.onosproject.net.flow.FlowRuleProvider;
 import org.onosproject.net.flow.FlowRuleProviderRegistry;
@@ -67,6 +74,7 @@ import org.slf4j.Logger;
 
 import java.util.Collections;
 import java.util.Dictionary;
+import java.util.EnumMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -75,6 +83,8 @@ import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Strings.isNullOrEmpty;
@@ -83,6 +93,12 @@ import static org.onlab.util.Tools.groupedThreads;
 import static org.onosproject.net.OsgiPropertyConstants.ALLOW_EXTRANEOUS_RULES;
 import static org.onosproject.net.OsgiPropertyConstants.ALLOW_EXTRANEOUS_RULES_DEFAULT;
 import static org.onosproject.net.OsgiPropertyConstants.IMPORT_EXTRANEOUS_RULES;
+import static org.onosproject.net.OsgiPropertyConstants.BULK_RATE_LIMIT;
+import static org.onosproject.net.OsgiPropertyConstants.BULK_RATE_LIMIT_DEFAULT;
+import static org.onosproject.net.OsgiPropertyConstants.COALESCE_FLOW_RULES;
+import static org.onosproject.net.OsgiPropertyConstants.COALESCE_FLOW_RULES_DEFAULT;
+import static org.onosproject.net.OsgiPropertyConstants.COALESCE_WINDOW;
+import static org.onosproject.net.OsgiPropertyConstants.COALESCE_WINDOW_DEFAULT;
 import static org.onosproject.net.OsgiPropertyConstants.IMPORT_EXTRANEOUS_RULES_DEFAULT;
 import static org.onosproject.net.OsgiPropertyConstants.POLL_FREQUENCY;
 import static org.onosproject.net.OsgiPropertyConstants.POLL_FREQUENCY_DEFAULT;
@@ -108,7 +124,10 @@ import static org.slf4j.LoggerFactory.getLogger;
                 ALLOW_EXTRANEOUS_RULES + ":Boolean=" + ALLOW_EXTRANEOUS_RULES_DEFAULT,
                 IMPORT_EXTRANEOUS_RULES + ":Boolean=" + IMPORT_EXTRANEOUS_RULES_DEFAULT,
                 PURGE_ON_DISCONNECTION + ":Boolean=" + PURGE_ON_DISCONNECTION_DEFAULT,
-                POLL_FREQUENCY + ":Integer=" + POLL_FREQUENCY_DEFAULT
+                POLL_FREQUENCY + ":Integer=" + POLL_FREQUENCY_DEFAULT,
+                BULK_RATE_LIMIT + ":Integer=" + BULK_RATE_LIMIT_DEFAULT,
+                COALESCE_FLOW_RULES + ":Boolean=" + COALESCE_FLOW_RULES_DEFAULT,
+                COALESCE_WINDOW + ":Integer=" + COALESCE_WINDOW_DEFAULT
         }
 )
 public class FlowRuleManager
@@ -133,9 +152,21 @@ public class FlowRuleManager
     /** Frequency (in seconds) for polling flow statistics via fallback provider. */
     private int fallbackFlowPollFrequency = POLL_FREQUENCY_DEFAULT;
 
+    /** Maximum number of bulk flow rules sent per second to each device; 0 for no limit. */
+    private int bulkRateLimit = BULK_RATE_LIMIT_DEFAULT;
+
+    /** Coalesce queued operations on the same flow rule into their net operation. */
+    private boolean coalesceFlowRules = COALESCE_FLOW_RULES_DEFAULT;
+
+    /** Time (in ms) regular and bulk batches are held for coalescing; 0 to only coalesce queued batches. */
+    private int coalesceWindow = COALESCE_WINDOW_DEFAULT;
+
     private final FlowRuleStoreDelegate delegate = new InternalStoreDelegate();
     private final DeviceListener deviceListener = new InternalDeviceListener();
 
+    // Progress of the flow stats reply being pushed by segments, per device
+    private final Map<DeviceId, SeenFlows> seenFlows = Maps.newConcurrentMap();
+
     private final FlowRuleDriverProvider driverProvider = new FlowRuleDriverProvider();
 
     protected ExecutorService deviceInstallers =
@@ -144,6 +175,9 @@ public class FlowRuleManager
     protected ExecutorService operationsService =
             Executors.newFixedThreadPool(32, groupedThreads("onos/flowservice", "operations-%d", log));
 
+    private MetricsComponent metricsComponent;
+    private MetricsFeature metricsFeature;
+
     private IdGenerator idGenerator;
 
     private final Map<Long, FlowOperationsProcessor> pendingFlowOperations = new ConcurrentHashMap<>();
@@ -166,12 +200,26 @@ public class FlowRuleManager
     @Reference(cardinality = ReferenceCardinality.MANDATORY)
     protected DriverService driverService;
 
+    @Reference(cardinality = ReferenceCardinality.MANDATORY)
+    protected MetricsService metricsService;
+
+    private final FlowRuleBatchScheduler batchScheduler =
+            new FlowRuleBatchScheduler(task -> deviceInstallers.execute(task), batch -> store.storeBatch(batch),
+                                       () -> idGenerator.getNewId());
+
     @Activate
     public void activate(ComponentContext context) {
         store.setDelegate(delegate);
         eventDispatcher.addSink(FlowRuleEvent.class, listenerRegistry);
         deviceService.addListener(deviceListener);
         cfgService.registerProperties(getClass());
+        registerMetrics();
+        batchScheduler.setCoalescing(coalesceFlowRules);
+        batchScheduler.setAbandonListener(batches -> batches.forEach(
+                batch -> completeBatch(batch.id(), batch.deviceId(), false,
+                                       batch.getOperations().stream()
+                                               .map(FlowRuleBatchEntry::target)
+                                               .collect(Collectors.toSet()))));
         modified(context);
         idGenerator = coreService.getIdGenerator(FLOW_OP_TOPIC);
         log.info("Started");
@@ -182,6 +230,7 @@ public class FlowRuleManager
         driverProvider.terminate();
         deviceService.removeListener(deviceListener);
         cfgService.unregisterProperties(getClass(), false);
+        unregisterMetrics();
         deviceInstallers.shutdownNow();
         operationsService.shutdownNow();
         store.unsetDelegate(delegate);
@@ -198,6 +247,36 @@ public class FlowRuleManager
                             deviceService, mastershipService, fallbackFlowPollFrequency);
     }
 
+    // Exports the queue depth and queueing time of each priority class
+    private void registerMetrics() {
+        if (metricsService == null) {
+            return;
+        }
+        metricsComponent = metricsService.registerComponent("FlowRule");
+        metricsFeature = metricsComponent.registerFeature("Queue");
+        Map<Priority, Timer> waitTimers = new EnumMap<>(Priority.class);
+        for (Priority priority : Priority.values()) {
+            String name = priority.name().toLowerCase();
+            metricsService.registerMetric(metricsComponent, metricsFeature, name + "Depth",
+                                          (Gauge<Integer>) () -> batchScheduler.queueDepth(priority));
+            waitTimers.put(priority, metricsService.createTimer(metricsComponent, metricsFeature, name + "Wait"));
+        }
+        batchScheduler.setWaitTimeListener(
+                (priority, nanos) -> waitTimers.get(priority).update(nanos, TimeUnit.NANOSECONDS));
+        metricsService.registerMetric(metricsComponent, metricsFeature, "coalesced",
+                                      (Gauge<Long>) batchScheduler::coalescedOperations);
+    }
+
+    private void unregisterMetrics() {
+        if (metricsService == null || metricsComponent == null) {
+            return;
+        }
+        for (Priority priority : Priority.values()) {
+            metricsService.removeMetric(metricsComponent, metricsFeature, priority.name().toLowerCase() + "Depth");
+        }
+        metricsService.removeMetric(metricsComponent, metricsFeature, "coalesced");
+    }
+
     @Override
     protected FlowRuleProvider defaultProvider() {
         return driverProvider;
@@ -258,6 +337,37 @@ public class FlowRuleManager
                          fallbackFlowPollFrequency);
             }
         }
+
+        Integer newBulkRateLimit = Tools.getIntegerProperty(properties, BULK_RATE_LIMIT);
+        if (newBulkRateLimit == null) {
+            log.info("BulkRateLimit is not configured, " +
+                             "using current value of {}", bulkRateLimit);
+        } else {
+            bulkRateLimit = newBulkRateLimit;
+            log.info("Configured. BulkRateLimit is {} rules per second", bulkRateLimit);
+        }
+        batchScheduler.setBulkRateLimit(bulkRateLimit);
+
+        flag = Tools.isPropertyEnabled(properties, COALESCE_FLOW_RULES);
+        if (flag == null) {
+            log.info("CoalesceFlowRules is not configured, " +
+                             "using current value of {}", coalesceFlowRules);
+        } else {
+            coalesceFlowRules = flag;
+            log.info("Configured. CoalesceFlowRules is {}",
+                     coalesceFlowRules ? "enabled" : "disabled");
+        }
+        batchScheduler.setCoalescing(coalesceFlowRules);
+
+        Integer newCoalesceWindow = Tools.getIntegerProperty(properties, COALESCE_WINDOW);
+        if (newCoalesceWindow == null) {
+            log.info("CoalesceWindow is not configured, " +
+                             "using current value of {} ms", coalesceWindow);
+        } else {
+            coalesceWindow = newCoalesceWindow;
+            log.info("Configured. CoalesceWindow is {} ms", coalesceWindow);
+        }
+        batchScheduler.setCoalesceWindow(coalesceWindow);
     }
 
     @Override
@@ -568,25 +678,7 @@ public class FlowRuleManager
 
             for (FlowEntry rule : flowEntries) {
                 try {
-                    FlowEntry storedRule = storedRules.remove(rule);
-                    if (storedRule != null) {
-                        if (storedRule.exactMatch(rule)) {
-                            // we both have the rule, let's update some info then.
-                            flowAdded(rule);
-                        } else {
-                            // the two rules are not an exact match - remove the
-                            // switch's rule and install our rule
-                            extraneousFlow(rule);
-                            flowMissing(storedRule, false);
-                        }
-                    } else {
-                        // the device has a rule the store does not have
-                        if (!allowExtraneousRules) {
-                            extraneousFlow(rule);
-                        } else if (importExtraneousRules) { // Stores the rule, if so is indicated
-                            store.addOrUpdateFlowRule(rule);
-                        }
-                    }
+                    mergeFlowEntry(rule, storedRules.remove(rule));
                 } catch (Exception e) {
                     log.warn("Can't process added or extra rule {} for device {}:{}",
                              rule, deviceId, e);
@@ -607,6 +699,75 @@ public class FlowRuleManager
             }
         }
 
+        private void mergeFlowEntry(FlowEntry rule, FlowEntry storedRule) {
+            if (storedRule != null) {
+                if (storedRule.exactMatch(rule)) {
+                    // we both have the rule, let's update some info then.
+                    flowAdded(rule);
+                } else {
+                    // the two rules are not an exact match - remove the
+                    // switch's rule and install our rule
+                    extraneousFlow(rule);
+                    flowMissing(storedRule, false);
+                }
+            } else {
+                // the device has a rule the store does not have
+                if (!allowExtraneousRules) {
+                    extraneousFlow(rule);
+                } else if (importExtraneousRules) { // Stores the rule, if so is indicated
+                    store.addOrUpdateFlowRule(rule);
+                }
+            }
+        }
+
+        @Override
+        public void pushFlowMetricsSegment(DeviceId deviceId, long replyId, Iterable<FlowEntry> flowEntries) {
+            // The first segment of a new reply discards what remains of an earlier one
+            Set<FlowEntry> seen = seenFlows.compute(deviceId, (k, flows) ->
+                    flows != null && flows.replyId == replyId ? flows : new SeenFlows(replyId)).flows;
+            for (FlowEntry rule : flowEntries) {
+                try {
+                    // Look up entries one by one as the segment is merged
+                    FlowEntry storedRule = store.getFlowEntry(rule);
+                    if (storedRule != null && !storedRule.equals(rule)) {
+                        storedRule = null;
+                    }
+                    if (storedRule != null) {
+                        seen.add(storedRule);
+                    }
+                    mergeFlowEntry(rule, storedRule);
+                } catch (Exception e) {
+                    log.warn("Can't process added or extra rule {} for device {}:{}",
+                             rule, deviceId, e);
+                }
+            }
+        }
+
+        @Override
+        public void pushFlowMetricsComplete(DeviceId deviceId, long replyId) {
+            SeenFlows seenReply = seenFlows.get(deviceId);
+            if (seenReply == null || seenReply.replyId != replyId || !seenFlows.remove(deviceId, seenReply)) {
+                // Without the segments of this reply, every stored flow would look missing
+                log.debug("No flow stats segments of reply {} from {}; skipping reconciliation",
+                          replyId, deviceId);
+                return;
+            }
+            Set<FlowEntry> seen = seenReply.flows;
+            // DO NOT reinstall
+            for (FlowEntry rule : store.getFlowEntries(deviceId)) {
+                if (seen.contains(rule)) {
+                    continue;
+                }
+                try {
+                    // there are rules in the store that aren't on the switch
+                    log.debug("Adding the rule that is present in store but not on switch : {}", rule);
+                    flowMissing(rule, true);
+                } catch (Exception e) {
+                    log.warn("Can't add missing flow rule:", e);
+                }
+            }
+        }
+
         @Override
         public void batchOperationCompleted(long batchId, CompletedBatchOperation operation) {
             store.batchOperationComplete(FlowRuleBatchEvent.completed(
@@ -664,18 +825,23 @@ public class FlowRuleManager
                     break;
 
                 case BATCH_OPERATION_COMPLETED:
-                    // Operation completed, let's retrieve the processor and trigger the callback
-                    FlowOperationsProcessor fops = pendingFlowOperations.remove(
-                            event.subject().batchId());
-                    if (fops != null) {
-                        if (event.result().isSuccess()) {
-                            fops.satisfy(event.deviceId());
-                        } else {
-                            fops.fail(event.deviceId(), event.result().failedItems());
-                        }
-                    } else {
-                        log.warn("Unable to find flow operations processor for batch: {}", event.subject().batchId());
+                    // Operation completed, let's retrieve the processors and trigger the callbacks
+                    Map<Long, Set<FlowId>> coalesced = batchScheduler.coalesced(request.batchId());
+                    if (coalesced == null) {
+                        completeBatch(request.batchId(), event.deviceId(), event.result().isSuccess(),
+                                      event.result().failedItems());
+                        break;
                     }
+                    coalesced.forEach((batchId, ids) -> {
+                        // a coalesced batch fails only with the failed rules whose operation it
+                        // contributed, unless the device did not say which rules failed
+                        Set<FlowRule> failures = event.result().failedItems().stream()
+                                .filter(rule -> ids.contains(rule.id()))
+                                .collect(Collectors.toSet());
+                        boolean success = event.result().isSuccess() ||
+                                (failures.isEmpty() && !event.result().failedItems().isEmpty());
+                        completeBatch(batchId, event.deviceId(), success, failures);
+                    });
                     break;
 
                 default:
@@ -684,6 +850,18 @@ public class FlowRuleManager
         }
     }
 
+    private void completeBatch(long batchId, DeviceId deviceId, boolean success,
+                               Set<? extends FlowRule> failures) {
+        FlowOperationsProcessor fops = pendingFlowOperations.remove(batchId);
+        if (fops == null) {
+            log.warn("Unable to find flow operations processor for batch: {}", batchId);
+        } else if (success) {
+            fops.satisfy(deviceId);
+        } else {
+            fops.fail(deviceId, failures);
+        }
+    }
+
     private static FlowRuleBatchEntry.FlowRuleOperation mapOperationType(FlowRuleOperation.Type input) {
         switch (input) {
             case ADD:
@@ -734,7 +912,7 @@ public class FlowRuleManager
                 final FlowRuleBatchOperation b = new FlowRuleBatchOperation(perDeviceBatches.get(deviceId),
                                                                             deviceId, id);
                 pendingFlowOperations.put(id, this);
-                deviceInstallers.execute(() -> store.storeBatch(b));
+                batchScheduler.submit(b, fops.priority());
             }
         }
 
@@ -772,6 +950,16 @@ public class FlowRuleManager
         return store.getActiveFlowRuleCount(deviceId);
     }
 
+    // Stored flows matched by the segments of a flow stats reply pushed so far
+    private static final class SeenFlows {
+        private final long replyId;
+        private final Set<FlowEntry> flows = Sets.newConcurrentHashSet();
+
+        private SeenFlows(long replyId) {
+            this.replyId = replyId;
+        }
+    }
+
     private class InternalDeviceListener implements DeviceListener {
         @Override
         public void event(DeviceEvent event) {
@@ -780,6 +968,7 @@ public class FlowRuleManager
                 case DEVICE_AVAILABILITY_CHANGED:
                     DeviceId deviceId = event.subject().id();
                     if (!deviceService.isAvailable(deviceId)) {
+                        seenFlows.remove(deviceId);
                         if (purgeOnDisconnection) {
                             store.purgeFlowRule(deviceId);
                         }
@@ -22,7 +22,9 @@ import com.google.common.cache.RemovalListener;
 import com.google.common.cache.RemovalListeners;
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.ListMultimap;
-import com.google.common.collect.Multimaps;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import org.onlab.util.Tools;
 import org.onlab.util.Tools.LogLevel;
 import org.onosproject.net.DeviceId;
@@ -42,15 +44,20 @@ import org.onosproject.net.flowobjective.ObjectiveQueueKey;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.Deactivate;
+import org.osgi.service.component.annotations.Modified;
 import org.osgi.service.component.ComponentContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -59,8 +66,16 @@ import java.util.concurrent.atomic.AtomicBoolean;
 import static java.util.concurrent.Executors.newSingleThreadExecutor;
 import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
 import static org.onlab.util.Tools.groupedThreads;
-
-@Component(immediate = true, service = FlowObjectiveService.class)
+import static org.onosproject.net.OsgiPropertyConstants.IFOM_MAX_IN_FLIGHT_PER_DEVICE;
+import static org.onosproject.net.OsgiPropertyConstants.IFOM_MAX_IN_FLIGHT_PER_DEVICE_DEFAULT;
+
+@Component(
+    immediate = true,
+    service = FlowObjectiveService.class,
+    property = {
+            IFOM_MAX_IN_FLIGHT_PER_DEVICE + ":Integer=" + IFOM_MAX_IN_FLIGHT_PER_DEVICE_DEFAULT,
+    }
+)
 public class InOrderFlowObjectiveManager extends FlowObjectiveManager {
     private final Logger log = LoggerFactory.getLogger(getClass());
 
@@ -76,18 +91,23 @@ public class InOrderFlowObjectiveManager extends FlowObjectiveManager {
     private ExecutorService fwdCacheEventExecutor;
     private ExecutorService nextCacheEventExecutor;
 
-    private ListMultimap<FilteringObjQueueKey, Objective> filtObjQueue =
-            Multimaps.synchronizedListMultimap(ArrayListMultimap.create());
-    private ListMultimap<ForwardingObjQueueKey, Objective> fwdObjQueue =
-            Multimaps.synchronizedListMultimap(ArrayListMultimap.create());
-    private ListMultimap<NextObjQueueKey, Objective> nextObjQueue =
-            Multimaps.synchronizedListMultimap(ArrayListMultimap.create());
+    /** Maximum number of filtering and forwarding objectives executing at once per device; 0 for no limit. */
+    volatile int maxInFlightPerDevice = IFOM_MAX_IN_FLIGHT_PER_DEVICE_DEFAULT;
+
+    // One ordered queue per objective key; queues are only modified within the map's atomic operations,
+    // so that objectives for different keys never wait on each other
+    private final Map<FilteringObjQueueKey, Deque<Objective>> filtObjQueue = Maps.newConcurrentMap();
+    private final Map<ForwardingObjQueueKey, Deque<Objective>> fwdObjQueue = Maps.newConcurrentMap();
+    private final Map<NextObjQueueKey, Deque<Objective>> nextObjQueue = Maps.newConcurrentMap();
+
+    private final Map<DeviceId, DeviceGate> deviceGates = Maps.newConcurrentMap();
 
     final FlowObjectiveStoreDelegate delegate = new InternalStoreDelegate();
 
     @Activate
     protected void activate(ComponentContext context) {
         super.activate(context);
+        cfgService.registerProperties(InOrderFlowObjectiveManager.class);
 
         filtCacheEventExecutor = newSingleThreadExecutor(groupedThreads("onos/flowobj", "cache-event-filt", log));
         fwdCacheEventExecutor = newSingleThreadExecutor(groupedThreads("onos/flowobj", "cache-event-fwd", log));
@@ -135,6 +155,7 @@ public class InOrderFlowObjectiveManager extends FlowObjectiveManager {
 
     @Deactivate
     protected void deactivate() {
+        cfgService.unregisterProperties(InOrderFlowObjectiveManager.class, false);
         cacheCleaner.shutdown();
         clearQueue();
 
@@ -145,6 +166,24 @@ public class InOrderFlowObjectiveManager extends FlowObjectiveManager {
         super.deactivate();
     }
 
+    @Modified
+    @Override
+    protected void modified(ComponentContext context) {
+        super.modified(context);
+        if (context == null) {
+            return;
+        }
+
+        Integer newMaxInFlight = Tools.getIntegerProperty(context.getProperties(), IFOM_MAX_IN_FLIGHT_PER_DEVICE);
+        if (newMaxInFlight != null && newMaxInFlight >= 0 && newMaxInFlight != maxInFlightPerDevice) {
+            maxInFlightPerDevice = newMaxInFlight;
+            // Let waiting objectives run if the devices now have room for them
+            deviceGates.values().forEach(DeviceGate::drain);
+            log.info("Reconfigured maximum number of in-flight objectives per device to {}",
+                     maxInFlightPerDevice);
+        }
+    }
+
     /**
      * Processes given objective on given device.
      * Objectives submitted through this method are guaranteed to be executed in order.
@@ -204,17 +243,23 @@ public class InOrderFlowObjectiveManager extends FlowObjectiveManager {
 
     @Override
     public ListMultimap<FilteringObjQueueKey, Objective> getFilteringObjQueue() {
-        return filtObjQueue;
+        return snapshot(filtObjQueue);
     }
 
     @Override
     public ListMultimap<ForwardingObjQueueKey, Objective> getForwardingObjQueue() {
-        return fwdObjQueue;
+        return snapshot(fwdObjQueue);
     }
 
     @Override
     public ListMultimap<NextObjQueueKey, Objective> getNextObjQueue() {
-        return nextObjQueue;
+        return snapshot(nextObjQueue);
+    }
+
+    private static <K extends ObjectiveQueueKey> ListMultimap<K, Objective> snapshot(Map<K, Deque<Objective>> queues) {
+        ListMultimap<K, Objective> snapshot = ArrayListMultimap.create();
+        queues.forEach(snapshot::putAll);
+        return snapshot;
     }
 
     @Override
@@ -245,6 +290,7 @@ public class InOrderFlowObjectiveManager extends FlowObjectiveManager {
         filtObjQueue.clear();
         fwdObjQueue.clear();
         nextObjQueue.clear();
+        deviceGates.clear();
     }
 
     /**
@@ -253,7 +299,7 @@ public class InOrderFlowObjectiveManager extends FlowObjectiveManager {
      * @param deviceId Device ID
      * @param obj Flow objective
      */
-    private synchronized void enqueue(DeviceId deviceId, Objective obj) {
+    private void enqueue(DeviceId deviceId, Objective obj) {
         int queueSize;
         int priority = obj.priority();
 
@@ -262,17 +308,14 @@ public class InOrderFlowObjectiveManager extends FlowObjectiveManager {
 
         if (obj instanceof FilteringObjective) {
             FilteringObjQueueKey k = new FilteringObjQueueKey(deviceId, priority, ((FilteringObjective) obj).key());
-            filtObjQueue.put(k, obj);
-            queueSize = filtObjQueue.get(k).size();
+            queueSize = push(filtObjQueue, k, obj);
         } else if (obj instanceof ForwardingObjective) {
             ForwardingObjQueueKey k =
                     new ForwardingObjQueueKey(deviceId, priority, ((ForwardingObjective) obj).selector());
-            fwdObjQueue.put(k, obj);
-            queueSize = fwdObjQueue.get(k).size();
+            queueSize = push(fwdObjQueue, k, obj);
         } else if (obj instanceof NextObjective) {
             NextObjQueueKey k = new NextObjQueueKey(deviceId, obj.id());
-            nextObjQueue.put(k, obj);
-            queueSize = nextObjQueue.get(k).size();
+            queueSize = push(nextObjQueue, k, obj);
         } else {
             log.error("Unknown flow objective instance: {}", obj.getClass().getName());
             return;
@@ -281,7 +324,7 @@ public class InOrderFlowObjectiveManager extends FlowObjectiveManager {
 
         // Execute immediately if there is no pending obj ahead
         if (queueSize == 1) {
-            execute(deviceId, obj);
+            admit(deviceId, obj);
         }
     }
 
@@ -292,8 +335,8 @@ public class InOrderFlowObjectiveManager extends FlowObjectiveManager {
      * @param obj Flow objective
      * @param error ObjectiveError that triggers this dequeue. Null if this is not triggered by an error.
      */
-    private synchronized void dequeue(DeviceId deviceId, Objective obj, ObjectiveError error) {
-        List<Objective> remaining;
+    private void dequeue(DeviceId deviceId, Objective obj, ObjectiveError error) {
+        Objective next;
         int priority = obj.priority();
 
         LogLevel logLevel = (obj.op() == Objective.Operation.VERIFY) ? LogLevel.TRACE : LogLevel.DEBUG;
@@ -304,16 +347,14 @@ public class InOrderFlowObjectiveManager extends FlowObjectiveManager {
             if (!Objects.equals(ObjectiveError.INSTALLATIONTIMEOUT, error)) {
                 filtObjQueueHead.invalidate(k);
             }
-            filtObjQueue.remove(k, obj);
-            remaining = filtObjQueue.get(k);
+            next = pop(filtObjQueue, k, obj);
         } else if (obj instanceof ForwardingObjective) {
             ForwardingObjQueueKey k =
                     new ForwardingObjQueueKey(deviceId, priority, ((ForwardingObjective) obj).selector());
             if (!Objects.equals(ObjectiveError.INSTALLATIONTIMEOUT, error)) {
                 fwdObjQueueHead.invalidate(k);
             }
-            fwdObjQueue.remove(k, obj);
-            remaining = fwdObjQueue.get(k);
+            next = pop(fwdObjQueue, k, obj);
         } else if (obj instanceof NextObjective) {
             if (error != null) {
                 // Remove pendingForwards and pendingNexts if next objective failed
@@ -335,17 +376,80 @@ public class InOrderFlowObjectiveManager extends FlowObjectiveManager {
             if (!Objects.equals(ObjectiveError.INSTALLATIONTIMEOUT, error)) {
                 nextObjQueueHead.invalidate(k);
             }
-            nextObjQueue.remove(k, obj);
-            remaining = nextObjQueue.get(k);
+            next = pop(nextObjQueue, k, obj);
         } else {
             log.error("Unknown flow objective instance: {}", obj.getClass().getName());
             return;
         }
-        log.trace("{} queue size {}", obj.getClass().getSimpleName(), remaining.size());
+
+        // Let the next objective of the device run before the next one in this queue
+        if (!(obj instanceof NextObjective)) {
+            DeviceGate gate = deviceGates.get(deviceId);
+            if (gate != null) {
+                gate.release(obj);
+            }
+        }
 
         // Submit the next one in the queue, if any
-        if (remaining.size() > 0) {
-            execute(deviceId, remaining.get(0));
+        if (next != null) {
+            admit(deviceId, next);
+        }
+    }
+
+    /**
+     * Appends the objective to the queue of the given key.
+     *
+     * @param queues queues of a kind of objective
+     * @param key queue key
+     * @param obj flow objective
+     * @param <K> type of queue key
+     * @return queue size including the given objective
+     */
+    private static <K extends ObjectiveQueueKey> int push(Map<K, Deque<Objective>> queues, K key, Objective obj) {
+        return queues.compute(key, (k, queue) -> {
+            Deque<Objective> q = queue != null ? queue : new ConcurrentLinkedDeque<>();
+            q.addLast(obj);
+            return q;
+        }).size();
+    }
+
+    /**
+     * Removes the objective from the queue of the given key.
+     *
+     * @param queues queues of a kind of objective
+     * @param key queue key
+     * @param obj flow objective
+     * @param <K> type of queue key
+     * @return objective that became the head of the queue; null if the queue is empty or its head did not change
+     */
+    private <K extends ObjectiveQueueKey> Objective pop(Map<K, Deque<Objective>> queues, K key, Objective obj) {
+        Objective[] next = new Objective[1];
+        int[] remaining = new int[1];
+        queues.computeIfPresent(key, (k, queue) -> {
+            boolean head = Objects.equals(queue.peekFirst(), obj);
+            queue.removeFirstOccurrence(obj);
+            if (head) {
+                next[0] = queue.peekFirst();
+            }
+            remaining[0] = queue.size();
+            return queue.isEmpty() ? null : queue;
+        });
+        log.trace("{} queue size {}", obj.getClass().getSimpleName(), remaining[0]);
+        return next[0];
+    }
+
+    /**
+     * Executes the flow objective once its device has room for it. Next objectives are never held back,
+     * since pending forwarding objectives may be waiting for them.
+     *
+     * @param deviceId Device ID
+     * @param obj Flow objective at the head of its queue
+     */
+    private void admit(DeviceId deviceId, Objective obj) {
+        if (obj instanceof NextObjective) {
+            execute(deviceId, obj);
+        } else {
+            deviceGates.computeIfAbsent(deviceId, DeviceGate::new).acquire(obj);
         }
     }
 
@@ -379,6 +483,65 @@ public class InOrderFlowObjectiveManager extends FlowObjectiveManager {
         }
     }
 
+    /**
+     * Bounds the number of objectives executing at once on a device. Objectives beyond the bound wait in
+     * arrival order; each one is the head of its own queue.
+     */
+    private final class DeviceGate {
+        private final DeviceId deviceId;
+        // Guarded by this
+        private final Queue<Objective> waiting = new ArrayDeque<>();
+        private final Set<Objective> admitted = Sets.newHashSet();
+
+        private DeviceGate(DeviceId deviceId) {
+            this.deviceId = deviceId;
+        }
+
+        private void acquire(Objective obj) {
+            synchronized (this) {
+                if (!hasRoom()) {
+                    waiting.add(obj);
+                    return;
+                }
+                admitted.add(obj);
+            }
+            execute(deviceId, obj);
+        }
+
+        /**
+         * Gives back the slot held by the given objective, if any, and lets waiting objectives use it.
+         *
+         * @param obj completed flow objective
+         */
+        private void release(Objective obj) {
+            synchronized (this) {
+                if (!admitted.remove(obj)) {
+                    // The objective never held a slot; it may still be waiting for one
+                    waiting.remove(obj);
+                    return;
+                }
+            }
+            drain();
+        }
+
+        private void drain() {
+            List<Objective> ready = Lists.newArrayList();
+            synchronized (this) {
+                while (!waiting.isEmpty() && hasRoom()) {
+                    Objective next = waiting.poll();
+                    admitted.add(next);
+                    ready.add(next);
+                }
+            }
+            ready.forEach(next -> execute(deviceId, next));
+        }
+
+        private boolean hasRoom() {
+            int max = maxInFlightPerDevice;
+            return max <= 0 || admitted.size() < max;
+        }
+    }
+
     private class InternalStoreDelegate implements FlowObjectiveStoreDelegate {
         @Override
         public void notify(ObjectiveEvent event) {
@@ -194,6 +194,17 @@ public class GroupManager
         store.storeGroupDescription(groupDesc);
     }
 
+    /**
+     * Create a batch of groups with the provided parameters.
+     *
+     * @param groupDescs group creation parameters
+     */
+    @Override
+    public void addGroups(Collection<GroupDescription> groupDescs) {
+        checkPermission(GROUP_WRITE);
+        store.storeGroupDescriptions(groupDescs);
+    }
+
     /**
      * Return a group object associated to an application cookie.
      * <p>
@@ -15,7 +15,9 @@
  */
 package org.onosproject.net.intent.impl;
 
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import org.onlab.util.AbstractAccumulator;
 import org.onosproject.net.intent.IntentBatchDelegate;
 import org.onosproject.net.intent.IntentData;
@@ -24,17 +26,23 @@ import org.onosproject.net.intent.Key;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.Timer;
 
+import static com.google.common.base.Preconditions.checkArgument;
+
 /**
- * An accumulator for building batches of intent operations. Only one batch should
- * be in process per instance at a time.
+ * An accumulator for building batches of intent operations. Up to a configurable
+ * number of batches may be in process per instance at a time; operations on an
+ * intent key that is part of a batch in process are held back until that batch
+ * completes, so that operations on the same key are processed in order.
  */
 public class IntentAccumulator extends AbstractAccumulator<IntentData> {
 
     private static final int DEFAULT_MAX_EVENTS = 1000;
     private static final int DEFAULT_MAX_IDLE_MS = 10;
     private static final int DEFAULT_MAX_BATCH_MS = 50;
+    private static final int DEFAULT_MAX_IN_FLIGHT_BATCHES = 1;
 
     // FIXME: Replace with a system-wide timer instance;
     // TODO: Convert to use HashedWheelTimer or produce a variant of that; then decide which we want to adopt
@@ -42,41 +50,104 @@ public class IntentAccumulator extends AbstractAccumulator<IntentData> {
 
     private final IntentBatchDelegate delegate;
 
-    private volatile boolean ready;
+    private volatile int maxInFlightBatches;
+
+    // Guarded by this
+    private int inFlightBatches;
+    private final Set<Key> inFlightKeys = Sets.newHashSet();
+    private final Map<Key, IntentData> deferred = Maps.newHashMap();
 
     /**
-     * Creates an intent operation accumulator.
+     * Creates an intent operation accumulator that processes one batch at a time.
      *
      * @param delegate the intent batch delegate
      */
     protected IntentAccumulator(IntentBatchDelegate delegate) {
+        this(delegate, DEFAULT_MAX_IN_FLIGHT_BATCHES);
+    }
+
+    /**
+     * Creates an intent operation accumulator.
+     *
+     * @param delegate           the intent batch delegate
+     * @param maxInFlightBatches maximum number of batches in process at a time
+     */
+    protected IntentAccumulator(IntentBatchDelegate delegate, int maxInFlightBatches) {
         super(TIMER, DEFAULT_MAX_EVENTS, DEFAULT_MAX_BATCH_MS, DEFAULT_MAX_IDLE_MS);
         this.delegate = delegate;
-        // Assume that the delegate is ready for work at the start
-        ready = true; //TODO validate the assumption that delegate is ready
+        setMaxInFlightBatches(maxInFlightBatches);
+    }
+
+    /**
+     * Sets the maximum number of batches in process at a time.
+     *
+     * @param maxInFlightBatches maximum number of batches in process
+     */
+    public void setMaxInFlightBatches(int maxInFlightBatches) {
+        checkArgument(maxInFlightBatches > 0, "Maximum number of batches must be positive");
+        this.maxInFlightBatches = maxInFlightBatches;
     }
 
     @Override
     public void processItems(List<IntentData> items) {
-        ready = false;
-        delegate.execute(reduce(items));
+        List<IntentData> batch = Lists.newArrayList();
+        synchronized (this) {
+            for (IntentData op : reduce(items)) {
+                if (inFlightKeys.add(op.key())) {
+                    batch.add(op);
+                } else {
+                    // keep the latest operation until the key's batch completes
+                    deferred.merge(op.key(), op, IntentAccumulator::latest);
+                }
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+            inFlightBatches++;
+        }
+        delegate.execute(batch);
     }
 
     private Collection<IntentData> reduce(List<IntentData> ops) {
         Map<Key, IntentData> map = Maps.newHashMap();
         for (IntentData op : ops) {
-            map.put(op.key(), op);
+            map.merge(op.key(), op, IntentAccumulator::latest);
         }
-        //TODO check the version... or maybe store will handle this.
         return map.values();
     }
 
+    // Prefers the later operation unless the earlier one has a newer version
+    private static IntentData latest(IntentData earlier, IntentData later) {
+        if (earlier.version() != null && later.version() != null
+                && earlier.version().isNewerThan(later.version())) {
+            return earlier;
+        }
+        return later;
+    }
+
     @Override
-    public boolean isReady() {
-        return ready;
+    public synchronized boolean isReady() {
+        return inFlightBatches < maxInFlightBatches;
     }
 
-    public void ready() {
-        ready = true;
+    /**
+     * Notifies the accumulator that processing of the given batch has completed.
+     * Operations held back for the keys of the batch are queued for processing.
+     *
+     * @param batch the completed batch
+     */
+    public void ready(Collection<IntentData> batch) {
+        List<IntentData> resubmit = Lists.newArrayList();
+        synchronized (this) {
+            inFlightBatches--;
+            for (IntentData op : batch) {
+                inFlightKeys.remove(op.key());
+                IntentData next = deferred.remove(op.key());
+                if (next != null) {
+                    resubmit.add(next);
+                }
+            }
+        }
+        resubmit.forEach(this::add);
     }
 }
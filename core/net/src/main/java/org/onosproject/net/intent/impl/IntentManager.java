@@ -15,6 +15,7 @@
  */
 package org.onosproject.net.intent.impl;
 
+import org.onlab.util.AbstractAccumulator;
 import org.onlab.util.Tools;
 import org.onosproject.cfg.ComponentConfigService;
 import org.onosproject.core.CoreService;
@@ -64,8 +65,9 @@ import java.util.Collection;
 import java.util.EnumSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.Timer;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.stream.Collectors;
@@ -75,6 +77,8 @@ import static com.google.common.base.Strings.isNullOrEmpty;
 import static java.util.concurrent.Executors.newFixedThreadPool;
 import static java.util.concurrent.Executors.newSingleThreadExecutor;
 import static org.onlab.util.Tools.groupedThreads;
+import static org.onosproject.net.OsgiPropertyConstants.IM_MAX_IN_FLIGHT_BATCHES;
+import static org.onosproject.net.OsgiPropertyConstants.IM_MAX_IN_FLIGHT_BATCHES_DEFAULT;
 import static org.onosproject.net.OsgiPropertyConstants.IM_NUM_THREADS;
 import static org.onosproject.net.OsgiPropertyConstants.IM_NUM_THREADS_DEFAULT;
 import static org.onosproject.net.OsgiPropertyConstants.IM_SKIP_RELEASE_RESOURCES_ON_WITHDRAWAL;
@@ -103,7 +107,8 @@ import static org.slf4j.LoggerFactory.getLogger;
     },
     property = {
         IM_SKIP_RELEASE_RESOURCES_ON_WITHDRAWAL + ":Boolean=" + IM_SKIP_RELEASE_RESOURCES_ON_WITHDRAWAL_DEFAULT,
-        IM_NUM_THREADS + ":Integer=" + IM_NUM_THREADS_DEFAULT
+        IM_NUM_THREADS + ":Integer=" + IM_NUM_THREADS_DEFAULT,
+        IM_MAX_IN_FLIGHT_BATCHES + ":Integer=" + IM_MAX_IN_FLIGHT_BATCHES_DEFAULT
     }
 )
 public class IntentManager
@@ -115,6 +120,11 @@ public class IntentManager
     private static final String INTENT_NULL = "Intent cannot be null";
     private static final String INTENT_ID_NULL = "Intent key cannot be null";
 
+    private static final int RELEASE_MAX_EVENTS = 1000;
+    private static final int RELEASE_MAX_IDLE_MS = 10;
+    private static final int RELEASE_MAX_BATCH_MS = 50;
+    private static final Timer RELEASE_TIMER = new Timer("onos-intent-resource-release");
+
     private static final EnumSet<IntentState> RECOMPILE
             = EnumSet.of(INSTALL_REQ, FAILED, WITHDRAW_REQ);
     private static final EnumSet<IntentState> WITHDRAW
@@ -126,6 +136,9 @@ public class IntentManager
     /** Number of worker threads. */
     private int numThreads = IM_NUM_THREADS_DEFAULT;
 
+    /** Maximum number of intent batches in process at a time. */
+    private int maxInFlightBatches = IM_MAX_IN_FLIGHT_BATCHES_DEFAULT;
+
     @Reference(cardinality = ReferenceCardinality.MANDATORY)
     protected CoreService coreService;
 
@@ -169,7 +182,8 @@ public class IntentManager
     private InstallCoordinator installCoordinator;
     private IdGenerator idGenerator;
 
-    private final IntentAccumulator accumulator = new IntentAccumulator(batchDelegate);
+    private final IntentAccumulator accumulator = new IntentAccumulator(batchDelegate, maxInFlightBatches);
+    private final ResourceReleaseAccumulator releaseAccumulator = new ResourceReleaseAccumulator();
 
     @Activate
     public void activate() {
@@ -197,6 +211,8 @@ public class IntentManager
         } else {
             store.unsetDelegate(delegate);
         }
+        // Release the resources of the intents withdrawn just before shutdown
+        releaseAccumulator.flush();
         configService.unregisterProperties(getClass(), false);
         trackerService.unsetDelegate(topoDelegate);
         eventDispatcher.removeSink(IntentEvent.class);
@@ -239,6 +255,14 @@ public class IntentManager
             }
             logConfig("Reconfigured number of worker threads");
         }
+
+        s = Tools.get(context.getProperties(), IM_MAX_IN_FLIGHT_BATCHES);
+        int newMaxInFlightBatches = isNullOrEmpty(s) ? maxInFlightBatches : Integer.parseInt(s.trim());
+        if (newMaxInFlightBatches > 0 && newMaxInFlightBatches != maxInFlightBatches) {
+            maxInFlightBatches = newMaxInFlightBatches;
+            accumulator.setMaxInFlightBatches(maxInFlightBatches);
+            log.info("Reconfigured maximum number of in-flight intent batches to {}", maxInFlightBatches);
+        }
     }
 
     private void logConfig(String prefix) {
@@ -442,11 +466,46 @@ public class IntentManager
             }
 
             if (removeResource) {
-                // Release resources allocated to withdrawn intent
-                if (!resourceService.release(resourceConsumer)) {
-                    log.error("Failed to release resources allocated to {}", resourceConsumer);
+                // Release resources allocated to withdrawn intent, batched with other withdrawals
+                releaseAccumulator.add(resourceConsumer);
+            }
+        }
+    }
+
+    /**
+     * Accumulates the resource consumers of withdrawn intents and releases
+     * their resources in batches, one transaction per batch.
+     */
+    private class ResourceReleaseAccumulator extends AbstractAccumulator<ResourceConsumer> {
+
+        ResourceReleaseAccumulator() {
+            super(RELEASE_TIMER, RELEASE_MAX_EVENTS, RELEASE_MAX_BATCH_MS, RELEASE_MAX_IDLE_MS);
+        }
+
+        @Override
+        public void processItems(List<ResourceConsumer> items) {
+            // Skip the intents that were submitted again since they were withdrawn
+            Set<ResourceConsumer> consumers = items.stream()
+                    .filter(this::isWithdrawn)
+                    .collect(Collectors.toSet());
+            if (consumers.isEmpty() || resourceService.releaseAll(consumers)) {
+                return;
+            }
+            // Release the consumers one by one so that one failure does not hold back the others
+            consumers.forEach(consumer -> {
+                if (!resourceService.release(consumer)) {
+                    log.error("Failed to release resources allocated to {}", consumer);
                 }
+            });
+        }
+
+        private boolean isWithdrawn(ResourceConsumer consumer) {
+            if (!(consumer instanceof Key)) {
+                return true;
             }
+            IntentData current = store.getIntentData((Key) consumer);
+            return (current == null || current.state() == WITHDRAWN)
+                    && store.getPendingData((Key) consumer) == null;
         }
     }
 
@@ -523,10 +582,11 @@ public class IntentManager
             log.debug("Execute {} operation(s).", operations.size());
             log.trace("Execute operations: {}", operations);
 
-            // batchExecutor is single-threaded, so only one batch is in flight at a time
-            CompletableFuture.runAsync(() -> {
+            // batchExecutor only starts the processing of the batch; the accumulator
+            // bounds the number of batches in flight and keeps their keys disjoint
+            CompletableFuture.supplyAsync(() -> {
                 // process intent until the phase reaches one of the final phases
-                List<CompletableFuture<IntentData>> futures = operations.stream()
+                return operations.stream()
                         .map(data -> {
                             log.debug("Start processing of {} {}@{}", data.request(), data.key(), data.version());
                             return data;
@@ -553,14 +613,16 @@ public class IntentManager
                                         default:
                                             return null;
                                     }
+                                })
+                                // write each data to the store as soon as it is processed;
+                                // a key is in one batch at a time, so writes per key stay in order
+                                .thenAccept(data -> {
+                                    if (data != null) {
+                                        store.write(data);
+                                    }
                                 }))
                         .collect(Collectors.toList());
-
-                // write multiple data to store in order
-                store.batchWrite(Tools.allOf(futures).join().stream()
-                                         .filter(Objects::nonNull)
-                                         .collect(Collectors.toList()));
-            }, batchExecutor).exceptionally(e -> {
+            }, batchExecutor).thenCompose(Tools::allOf).exceptionally(e -> {
                 log.error("Error submitting batches:", e);
                 // FIXME incomplete Intents should be cleaned up
                 //       (transition to FAILED, etc.)
@@ -569,7 +631,7 @@ public class IntentManager
                 // TODO: maybe we should do more?
                 log.error("Walk the plank, matey...");
                 return null;
-            }).thenRun(accumulator::ready);
+            }).thenRun(() -> accumulator.ready(operations));
 
         }
     }
@@ -15,9 +15,10 @@
  */
 package org.onosproject.net.intent.impl;
 
-import com.google.common.collect.HashMultimap;
-import com.google.common.collect.ImmutableSet;
-import com.google.common.collect.SetMultimap;
+import com.codahale.metrics.Histogram;
+import org.onlab.metrics.MetricsComponent;
+import org.onlab.metrics.MetricsFeature;
+import org.onlab.metrics.MetricsService;
 import org.onosproject.event.Event;
 import org.onosproject.net.DeviceId;
 import org.onosproject.net.ElementId;
@@ -68,7 +69,6 @@ import java.util.concurrent.atomic.AtomicBoolean;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
-import static com.google.common.collect.Multimaps.synchronizedSetMultimap;
 import static java.util.concurrent.Executors.newScheduledThreadPool;
 import static java.util.concurrent.Executors.newSingleThreadExecutor;
 import static org.onlab.util.Tools.groupedThreads;
@@ -89,12 +89,9 @@ public class ObjectiveTracker implements ObjectiveTrackerService {
 
     private final Logger log = getLogger(getClass());
 
-    private final SetMultimap<LinkKey, Key> intentsByLink =
-            //TODO this could be slow as a point of synchronization
-            synchronizedSetMultimap(HashMultimap.<LinkKey, Key>create());
+    private final ResourceIntentIndex<LinkKey> intentsByLink = new ResourceIntentIndex<>();
 
-    private final SetMultimap<ElementId, Key> intentsByDevice =
-            synchronizedSetMultimap(HashMultimap.<ElementId, Key>create());
+    private final ResourceIntentIndex<ElementId> intentsByDevice = new ResourceIntentIndex<>();
 
     @Reference(cardinality = ReferenceCardinality.MANDATORY)
     protected TopologyService topologyService;
@@ -117,6 +114,9 @@ public class ObjectiveTracker implements ObjectiveTrackerService {
     @Reference(cardinality = ReferenceCardinality.MANDATORY)
     protected WorkPartitionService partitionService;
 
+    @Reference(cardinality = ReferenceCardinality.MANDATORY)
+    protected MetricsService metricsService;
+
     private ExecutorService executorService =
             newSingleThreadExecutor(groupedThreads("onos/intent", "objectivetracker", log));
     private ScheduledExecutorService executor =
@@ -131,6 +131,8 @@ public class ObjectiveTracker implements ObjectiveTrackerService {
 
     protected final AtomicBoolean updateScheduled = new AtomicBoolean(false);
 
+    private Histogram affectedIntents;
+
     /**
      * Hook for wiring up optional reference to a service.
      *
@@ -161,6 +163,11 @@ public class ObjectiveTracker implements ObjectiveTrackerService {
         deviceService.addListener(deviceListener);
         hostService.addListener(hostListener);
         partitionService.addListener(partitionListener);
+        if (metricsService != null) {
+            MetricsComponent component = metricsService.registerComponent("Intent");
+            MetricsFeature feature = component.registerFeature("ObjectiveTracker");
+            affectedIntents = metricsService.createHistogram(component, feature, "affectedIntents");
+        }
         scheduleIntentUpdate(1);
         log.info("Started");
     }
@@ -220,7 +227,7 @@ public class ObjectiveTracker implements ObjectiveTrackerService {
             if (resource instanceof Link) {
                 intentsByLink.remove(linkKey((Link) resource), intentKey);
             } else if (resource instanceof ElementId) {
-                intentsByDevice.remove(resource, intentKey);
+                intentsByDevice.remove((ElementId) resource, intentKey);
             }
         }
     }
@@ -241,7 +248,7 @@ public class ObjectiveTracker implements ObjectiveTrackerService {
         if (log.isTraceEnabled()) {
             log.trace("intent {}, old: {}, new: {}, installableCount: {}, resourceCount: {}",
                       key,
-                      intentsByDevice.values().contains(key),
+                      intentsByDevice.containsIntent(key),
                       isLocal && isInstalled,
                       installables.size(),
                       intent.resources().size() +
@@ -306,18 +313,17 @@ public class ObjectiveTracker implements ObjectiveTrackerService {
                     if (reason instanceof LinkEvent) {
                         LinkEvent linkEvent = (LinkEvent) reason;
                         final LinkKey linkKey = linkKey(linkEvent.subject());
-                        synchronized (intentsByLink) {
-                            Set<Key> intentKeys = intentsByLink.get(linkKey);
-                            log.debug("recompile triggered by LinkEvent {} ({}) for {}",
-                                    linkKey, linkEvent.type(), intentKeys);
-                            intentsToRecompile.addAll(intentKeys);
-                        }
+                        Set<Key> intentKeys = intentsByLink.get(linkKey);
+                        log.debug("recompile triggered by LinkEvent {} ({}) for {}",
+                                linkKey, linkEvent.type(), intentKeys);
+                        intentsToRecompile.addAll(intentKeys);
                         dontRecompileAllFailedIntents = dontRecompileAllFailedIntents &&
                                 (linkEvent.type() == LINK_REMOVED ||
                                 (linkEvent.type() == LINK_UPDATED &&
                                 linkEvent.subject().isExpected()));
                     }
                 }
+                recordAffectedIntents(intentsToRecompile.size());
                 delegate.triggerCompile(intentsToRecompile, !dontRecompileAllFailedIntents);
             }
         }
@@ -362,10 +368,8 @@ public class ObjectiveTracker implements ObjectiveTrackerService {
 
             // TODO should we recompile on available==true?
 
-            final ImmutableSet<Key> snapshot;
-            synchronized (intentsByDevice) {
-                snapshot = ImmutableSet.copyOf(intentsByDevice.get(id));
-            }
+            Set<Key> snapshot = intentsByDevice.get(id);
+            recordAffectedIntents(snapshot.size());
             delegate.triggerCompile(snapshot, available);
         }
     }
@@ -417,6 +421,13 @@ public class ObjectiveTracker implements ObjectiveTrackerService {
         }
     }
 
+    private void recordAffectedIntents(int count) {
+        Histogram histogram = affectedIntents;
+        if (histogram != null) {
+            histogram.update(count);
+        }
+    }
+
     private void doIntentUpdate() {
         synchronized (this) {
             updateScheduled.set(false);
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2020-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.net.intent.impl;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import org.onosproject.net.intent.Key;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Concurrent index of the intents that use each of a set of network resources.
+ * <p>
+ * Updates of different resources do not contend with each other and lookups
+ * do not lock, so that topology events can be resolved to the affected
+ * intents while intents are being tracked and untracked.
+ *
+ * @param <R> type of the indexed resources
+ */
+final class ResourceIntentIndex<R> {
+
+    private final ConcurrentMap<R, Set<Key>> index = new ConcurrentHashMap<>();
+
+    /**
+     * Records that the given intent uses the given resource.
+     *
+     * @param resource  resource
+     * @param intentKey intent key
+     */
+    void put(R resource, Key intentKey) {
+        index.compute(resource, (r, keys) -> {
+            Set<Key> updated = keys != null ? keys : ConcurrentHashMap.newKeySet();
+            updated.add(intentKey);
+            return updated;
+        });
+    }
+
+    /**
+     * Records that the given intent no longer uses the given resource.
+     *
+     * @param resource  resource
+     * @param intentKey intent key
+     */
+    void remove(R resource, Key intentKey) {
+        index.computeIfPresent(resource, (r, keys) -> {
+            keys.remove(intentKey);
+            return keys.isEmpty() ? null : keys;
+        });
+    }
+
+    /**
+     * Returns the intents that use the given resource.
+     *
+     * @param resource resource
+     * @return snapshot of the intent keys
+     */
+    Set<Key> get(R resource) {
+        Set<Key> keys = index.get(resource);
+        return keys == null ? ImmutableSet.of() : ImmutableSet.copyOf(keys);
+    }
+
+    /**
+     * Indicates whether the given intent uses any of the indexed resources.
+     *
+     * @param intentKey intent key
+     * @return true if the intent uses an indexed resource
+     */
+    boolean containsIntent(Key intentKey) {
+        return index.values().stream().anyMatch(keys -> keys.contains(intentKey));
+    }
+
+    /**
+     * Returns a snapshot of all resource to intent associations.
+     *
+     * @return set of resource and intent key pairs
+     */
+    public Set<Map.Entry<R, Key>> entries() {
+        ImmutableSet.Builder<Map.Entry<R, Key>> entries = ImmutableSet.builder();
+        index.forEach((resource, keys) -> keys.forEach(key -> entries.add(Maps.immutableEntry(resource, key))));
+        return entries.build();
+    }
+}
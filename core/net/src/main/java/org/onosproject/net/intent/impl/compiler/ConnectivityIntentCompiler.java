@@ -279,6 +279,9 @@ public abstract class ConnectivityIntentCompiler<T extends ConnectivityIntent>
         List<Resource> resourcesToUpdate = Lists.newArrayList(incomingResources);
         resourcesToUpdate.removeAll(resourcesToAdd);
 
+        // Old allocations are released together in a single store transaction
+        List<ResourceAllocation> resourceAllocationsToRelease = Lists.newArrayList();
+
         // If there are no resources to update skip update procedures
         if (!resourcesToUpdate.isEmpty()) {
             // Remove old resources that need to be updated
@@ -288,7 +291,7 @@ public abstract class ConnectivityIntentCompiler<T extends ConnectivityIntent>
                             .filter(rA -> resourceIds(resourcesToUpdate).contains(rA.resource().id()))
                             .collect(Collectors.toList());
             log.debug("Releasing bandwidth for intent {}: {} bps", newResourceConsumer, resourcesToUpdate);
-            resourceService.release(resourceAllocationsToUpdate);
+            resourceAllocationsToRelease.addAll(resourceAllocationsToUpdate);
 
             // Update resourcesToAdd with the list of both the new resources and
             // the resources to update
@@ -302,7 +305,11 @@ public abstract class ConnectivityIntentCompiler<T extends ConnectivityIntent>
             Collection<ResourceAllocation> resourceAllocationsByKey =
                     resourceService.getResourceAllocations(intent.key());
 
-            resourceService.release(Lists.newArrayList(resourceAllocationsByKey));
+            resourceAllocationsToRelease.addAll(resourceAllocationsByKey);
+        }
+
+        if (!resourceAllocationsToRelease.isEmpty()) {
+            resourceService.release(resourceAllocationsToRelease);
         }
 
         // Allocate resources
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2020-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.net.packet.impl;
+
+import org.onlab.packet.Ethernet;
+import org.onlab.packet.IPv4;
+import org.onlab.packet.IPv6;
+import org.onosproject.net.PortNumber;
+import org.onosproject.net.flow.TrafficSelector;
+import org.onosproject.net.flow.criteria.Criterion;
+import org.onosproject.net.flow.criteria.EthTypeCriterion;
+import org.onosproject.net.flow.criteria.IPProtocolCriterion;
+import org.onosproject.net.flow.criteria.PortCriterion;
+import org.onosproject.net.packet.InboundPacket;
+
+import java.util.Set;
+
+/**
+ * Classification of an inbound packet, computed once and matched against
+ * the selectors of the packet processors.
+ */
+final class PacketClassification {
+
+    private static final int UNKNOWN = -1;
+
+    private final PortNumber inPort;
+    private final int ethType;
+    private final int ipProto;
+
+    private PacketClassification(PortNumber inPort, int ethType, int ipProto) {
+        this.inPort = inPort;
+        this.ethType = ethType;
+        this.ipProto = ipProto;
+    }
+
+    /**
+     * Classifies the given inbound packet.
+     *
+     * @param packet inbound packet
+     * @return packet classification
+     */
+    static PacketClassification of(InboundPacket packet) {
+        PortNumber inPort = packet.receivedFrom() != null ? packet.receivedFrom().port() : null;
+        Ethernet eth = packet.parsed();
+        if (eth == null) {
+            return new PacketClassification(inPort, UNKNOWN, UNKNOWN);
+        }
+        int ethType = eth.getEtherType() & 0xffff;
+        int ipProto = UNKNOWN;
+        if (eth.getPayload() instanceof IPv4) {
+            ipProto = ((IPv4) eth.getPayload()).getProtocol() & 0xff;
+        } else if (eth.getPayload() instanceof IPv6) {
+            // Behind extension headers (e.g. hop-by-hop options of MLD) the
+            // next header is not the transport protocol, so leave it unknown
+            IPv6 ipv6 = (IPv6) eth.getPayload();
+            if (!isExtensionHeader(ipv6.getNextHeader())) {
+                ipProto = ipv6.getNextHeader() & 0xff;
+            }
+        }
+        return new PacketClassification(inPort, ethType, ipProto);
+    }
+
+    // Indicates whether the given IPv6 next header is an extension header
+    private static boolean isExtensionHeader(byte nextHeader) {
+        switch (nextHeader) {
+            case IPv6.PROTOCOL_HOPOPT:
+            case IPv6.PROTOCOL_ROUTING:
+            case IPv6.PROTOCOL_FRAG:
+            case IPv6.PROTOCOL_ESP:
+            case IPv6.PROTOCOL_AH:
+            case IPv6.PROTOCOL_DSTOPT:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Indicates whether the packet matches any of the given selectors.
+     *
+     * @param selectors traffic selectors
+     * @return false if the packet certainly matches none of the selectors
+     */
+    boolean matchesAny(Set<TrafficSelector> selectors) {
+        for (TrafficSelector selector : selectors) {
+            if (matches(selector)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Indicates whether the packet matches the given selector. Criteria that
+     * are not part of the classification, or that cannot be evaluated for
+     * this packet, are considered matching.
+     *
+     * @param selector traffic selector
+     * @return false if the packet certainly does not match the selector
+     */
+    boolean matches(TrafficSelector selector) {
+        for (Criterion criterion : selector.criteria()) {
+            switch (criterion.type()) {
+                case IN_PORT:
+                    if (inPort != null && !inPort.equals(((PortCriterion) criterion).port())) {
+                        return false;
+                    }
+                    break;
+                case ETH_TYPE:
+                    int type = ((EthTypeCriterion) criterion).ethType().toShort() & 0xffff;
+                    if (ethType != UNKNOWN && ethType != type) {
+                        return false;
+                    }
+                    break;
+                case IP_PROTO:
+                    if (ipProto != UNKNOWN && ipProto != ((IPProtocolCriterion) criterion).protocol()) {
+                        return false;
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+        return true;
+    }
+}
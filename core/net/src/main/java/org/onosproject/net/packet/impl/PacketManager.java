@@ -16,8 +16,13 @@
 package org.onosproject.net.packet.impl;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSortedMap;
 import com.google.common.collect.Lists;
 import org.onlab.util.ItemNotFoundException;
+import org.onlab.util.PredictableExecutor;
+import org.onlab.util.Tools;
+import org.onosproject.cfg.ComponentConfigService;
 import org.onosproject.cluster.ClusterService;
 import org.onosproject.cluster.NodeId;
 import org.onosproject.core.ApplicationId;
@@ -54,9 +59,11 @@ import org.onosproject.net.packet.PacketStore;
 import org.onosproject.net.packet.PacketStoreDelegate;
 import org.onosproject.net.provider.AbstractProviderRegistry;
 import org.onosproject.net.provider.AbstractProviderService;
+import org.osgi.service.component.ComponentContext;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.Deactivate;
+import org.osgi.service.component.annotations.Modified;
 import org.osgi.service.component.annotations.Reference;
 import org.osgi.service.component.annotations.ReferenceCardinality;
 import org.onosproject.net.packet.PacketInFilter;
@@ -65,14 +72,21 @@ import org.slf4j.Logger;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.SortedMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
 
 
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static org.onlab.util.Tools.groupedThreads;
+import static org.onosproject.net.OsgiPropertyConstants.PM_PROCESSING_LANES;
+import static org.onosproject.net.OsgiPropertyConstants.PM_PROCESSING_LANES_DEFAULT;
 import static org.onosproject.security.AppGuard.checkPermission;
 import static org.onosproject.security.AppPermission.Type.PACKET_EVENT;
 import static org.onosproject.security.AppPermission.Type.PACKET_READ;
@@ -82,7 +96,13 @@ import static org.slf4j.LoggerFactory.getLogger;
 /**
  * Provides a basic implementation of the packet SB &amp; NB APIs.
  */
-@Component(immediate = true, service = { PacketService.class, PacketProviderRegistry.class })
+@Component(
+    immediate = true,
+    service = { PacketService.class, PacketProviderRegistry.class },
+    property = {
+        PM_PROCESSING_LANES + ":Integer=" + PM_PROCESSING_LANES_DEFAULT,
+    }
+)
 public class PacketManager
         extends AbstractProviderRegistry<PacketProvider, PacketProviderService>
         implements PacketService, PacketProviderRegistry {
@@ -95,6 +115,11 @@ public class PacketManager
     private static final String ERROR_NULL_DEVICE_ID = "Device ID cannot be null";
     private static final String SUPPORT_PACKET_REQUEST_PROPERTY = "supportPacketRequest";
 
+    // Upper bounds (inclusive) of the processing time buckets in nanos; the last bucket is unbounded
+    private static final long[] LATENCY_BOUNDS = {
+            1_000, 5_000, 10_000, 50_000, 100_000, 500_000, 1_000_000, 5_000_000, 10_000_000
+    };
+
     private final PacketStoreDelegate delegate = new InternalStoreDelegate();
 
     @Reference(cardinality = ReferenceCardinality.MANDATORY)
@@ -115,8 +140,16 @@ public class PacketManager
     @Reference(cardinality = ReferenceCardinality.MANDATORY)
     protected FlowObjectiveService objectiveService;
 
+    @Reference(cardinality = ReferenceCardinality.MANDATORY)
+    protected ComponentConfigService cfgService;
+
+    /** Number of per-device ordered lanes processing packets; 0 processes them on the provider thread. */
+    private int packetProcessingLanes = PM_PROCESSING_LANES_DEFAULT;
+
     private ExecutorService eventHandlingExecutor;
 
+    private volatile PredictableExecutor processingExecutor;
+
     private final DeviceListener deviceListener = new InternalDeviceListener();
 
     private final List<ProcessorEntry> processors = Lists.newCopyOnWriteArrayList();
@@ -129,7 +162,9 @@ public class PacketManager
     private List<PacketInFilter> filters = new CopyOnWriteArrayList<>();
 
     @Activate
-    public void activate() {
+    public void activate(ComponentContext context) {
+        cfgService.registerProperties(getClass());
+        modified(context);
         eventHandlingExecutor = Executors.newSingleThreadExecutor(
                 groupedThreads("onos/net/packet", "event-handler", log));
         localNodeId = clusterService.getLocalNode().id();
@@ -154,12 +189,36 @@ public class PacketManager
 
     @Deactivate
     public void deactivate() {
+        cfgService.unregisterProperties(getClass(), false);
         store.unsetDelegate(delegate);
         deviceService.removeListener(deviceListener);
         eventHandlingExecutor.shutdown();
+        if (processingExecutor != null) {
+            processingExecutor.shutdown();
+            processingExecutor = null;
+        }
         log.info("Stopped");
     }
 
+    @Modified
+    public void modified(ComponentContext context) {
+        if (context == null) {
+            return;
+        }
+        Integer lanes = Tools.getIntegerProperty(context.getProperties(), PM_PROCESSING_LANES);
+        if (lanes == null || lanes < 0 || lanes == packetProcessingLanes) {
+            return;
+        }
+        packetProcessingLanes = lanes;
+        PredictableExecutor oldExecutor = processingExecutor;
+        processingExecutor = lanes > 0 ?
+                new PredictableExecutor(lanes, groupedThreads("onos/net/packet", "processor-%d", log)) : null;
+        if (oldExecutor != null) {
+            oldExecutor.shutdown();
+        }
+        log.info("Settings: {}={}", PM_PROCESSING_LANES, packetProcessingLanes);
+    }
+
     @Override
     protected PacketProvider defaultProvider() {
         return defaultProvider;
@@ -167,9 +226,15 @@ public class PacketManager
 
     @Override
     public void addProcessor(PacketProcessor processor, int priority) {
+        addProcessor(processor, priority, ImmutableSet.of());
+    }
+
+    @Override
+    public void addProcessor(PacketProcessor processor, int priority, Set<TrafficSelector> selectors) {
         checkPermission(PACKET_EVENT);
         checkNotNull(processor, ERROR_NULL_PROCESSOR);
-        ProcessorEntry entry = new ProcessorEntry(processor, priority);
+        checkNotNull(selectors, ERROR_NULL_SELECTOR);
+        ProcessorEntry entry = new ProcessorEntry(processor, priority, ImmutableSet.copyOf(selectors));
 
         // Insert the new processor according to its priority.
         int i = 0;
@@ -476,8 +541,38 @@ public class PacketManager
                 }
                 return;
             }
-            // TODO filter packets sent to processors based on registrations
+
+            // Packets from the same device are processed in order on the same lane
+            PredictableExecutor executor = processingExecutor;
+            if (executor != null && context.inPacket().receivedFrom() != null) {
+                try {
+                    executor.execute(() -> dispatchPacket(context),
+                                     context.inPacket().receivedFrom().deviceId().hashCode());
+                    return;
+                } catch (RejectedExecutionException e) {
+                    log.debug("Processing lanes are being reconfigured; processing packet inline");
+                }
+            }
+            dispatchPacket(context);
+        }
+
+        /**
+         * Hands the packet to the processors, in priority order, skipping
+         * those whose selector does not match the packet.
+         *
+         * @param context packet context
+         */
+        private void dispatchPacket(PacketContext context) {
+            PacketClassification classification = null;
             for (ProcessorEntry entry : processors) {
+                if (!entry.selectors().isEmpty()) {
+                    if (classification == null) {
+                        classification = PacketClassification.of(context.inPacket());
+                    }
+                    if (!classification.matchesAny(entry.selectors())) {
+                        continue;
+                    }
+                }
                 try {
                     if (log.isTraceEnabled()) {
                         log.trace("Starting packet processing by {}",
@@ -585,12 +680,15 @@ public class PacketManager
     private class ProcessorEntry implements PacketProcessorEntry {
         private final PacketProcessor processor;
         private final int priority;
-        private long invocations = 0;
-        private long nanos = 0;
+        private final Set<TrafficSelector> selectors;
+        private final LongAdder invocations = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+        private final AtomicLongArray histogram = new AtomicLongArray(LATENCY_BOUNDS.length + 1);
 
-        public ProcessorEntry(PacketProcessor processor, int priority) {
+        public ProcessorEntry(PacketProcessor processor, int priority, Set<TrafficSelector> selectors) {
             this.processor = processor;
             this.priority = priority;
+            this.selectors = selectors;
         }
 
         @Override
@@ -603,24 +701,48 @@ public class PacketManager
             return priority;
         }
 
+        /**
+         * Returns the selectors of the packets of interest.
+         *
+         * @return traffic selectors; empty for all packets
+         */
+        Set<TrafficSelector> selectors() {
+            return selectors;
+        }
+
         @Override
         public long invocations() {
-            return invocations;
+            return invocations.sum();
         }
 
         @Override
         public long totalNanos() {
-            return nanos;
+            return nanos.sum();
         }
 
         @Override
         public long averageNanos() {
-            return invocations > 0 ? nanos / invocations : 0;
+            long count = invocations();
+            return count > 0 ? totalNanos() / count : 0;
+        }
+
+        @Override
+        public SortedMap<Long, Long> latencyHistogram() {
+            ImmutableSortedMap.Builder<Long, Long> builder = ImmutableSortedMap.naturalOrder();
+            for (int i = 0; i < histogram.length(); i++) {
+                builder.put(i < LATENCY_BOUNDS.length ? LATENCY_BOUNDS[i] : Long.MAX_VALUE, histogram.get(i));
+            }
+            return builder.build();
         }
 
         void addNanos(long nanos) {
-            this.nanos += nanos;
-            this.invocations++;
+            this.nanos.add(nanos);
+            this.invocations.increment();
+            int i = 0;
+            while (i < LATENCY_BOUNDS.length && nanos > LATENCY_BOUNDS[i]) {
+                i++;
+            }
+            histogram.incrementAndGet(i);
         }
     }
 }
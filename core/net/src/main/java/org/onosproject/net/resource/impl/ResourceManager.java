@@ -40,6 +40,7 @@ import org.slf4j.Logger;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -103,6 +104,23 @@ public final class ResourceManager extends AbstractListenerManager<ResourceEvent
                 .collect(Collectors.toList());
     }
 
+    @Override
+    public List<ResourceAllocation> allocateAll(
+            Map<? extends ResourceConsumer, ? extends List<? extends Resource>> requests) {
+        checkPermission(RESOURCE_WRITE);
+        checkNotNull(requests);
+
+        boolean success = store.allocateAll(requests);
+        if (!success) {
+            return ImmutableList.of();
+        }
+
+        return requests.entrySet().stream()
+                .flatMap(request -> request.getValue().stream()
+                        .map(x -> new ResourceAllocation(x, request.getKey())))
+                .collect(Collectors.toList());
+    }
+
     @Override
     public boolean release(List<ResourceAllocation> allocations) {
         checkPermission(RESOURCE_WRITE);
@@ -119,6 +137,14 @@ public final class ResourceManager extends AbstractListenerManager<ResourceEvent
         return release(ImmutableList.copyOf(allocations));
     }
 
+    @Override
+    public boolean releaseAll(Collection<? extends ResourceConsumer> consumers) {
+        checkPermission(RESOURCE_WRITE);
+        checkNotNull(consumers);
+
+        return store.releaseAll(consumers);
+    }
+
     @Override
     public List<ResourceAllocation> getResourceAllocations(ResourceId id) {
         checkPermission(RESOURCE_READ);
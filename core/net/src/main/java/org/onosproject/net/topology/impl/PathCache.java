@@ -0,0 +1,207 @@
+/*
+ * Copyright 2020-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.net.topology.impl;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.DisjointPath;
+import org.onosproject.net.Link;
+import org.onosproject.net.LinkKey;
+import org.onosproject.net.Path;
+import org.onosproject.net.topology.LinkWeigher;
+import org.onosproject.net.topology.Topology;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static org.onosproject.net.LinkKey.linkKey;
+
+/**
+ * Bounded cache of infrastructure paths computed against a specific
+ * topology, keyed by source, destination and identity of the link weigher.
+ */
+final class PathCache {
+
+    private final Topology topology;
+    private final int maxSize;
+    private final long maxAge;
+    private final Cache<PathKey, Set<? extends Path>> cache;
+
+    /**
+     * Creates an empty path cache for the given topology.
+     *
+     * @param topology topology against which the paths are computed
+     * @param maxSize  maximum number of cached source/destination pairs
+     * @param maxAge   maximum age of cached paths in seconds
+     */
+    PathCache(Topology topology, int maxSize, long maxAge) {
+        this.topology = topology;
+        this.maxSize = maxSize;
+        this.maxAge = maxAge;
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(maxAge, TimeUnit.SECONDS)
+                .build();
+    }
+
+    /**
+     * Returns the number of cached source/destination pairs.
+     *
+     * @return number of cache entries
+     */
+    long size() {
+        return cache.size();
+    }
+
+    /**
+     * Returns the cached shortest paths between the given devices, if any.
+     *
+     * @param src     source device
+     * @param dst     destination device
+     * @param weigher link weigher
+     * @return cached paths or null if none are cached
+     */
+    @SuppressWarnings("unchecked")
+    Set<Path> getPaths(DeviceId src, DeviceId dst, LinkWeigher weigher) {
+        return (Set<Path>) cache.getIfPresent(new PathKey(src, dst, weigher, false));
+    }
+
+    /**
+     * Returns the cached disjoint path pairs between the given devices, if any.
+     *
+     * @param src     source device
+     * @param dst     destination device
+     * @param weigher link weigher
+     * @return cached disjoint paths or null if none are cached
+     */
+    @SuppressWarnings("unchecked")
+    Set<DisjointPath> getDisjointPaths(DeviceId src, DeviceId dst, LinkWeigher weigher) {
+        return (Set<DisjointPath>) cache.getIfPresent(new PathKey(src, dst, weigher, true));
+    }
+
+    /**
+     * Caches the shortest paths between the given devices.
+     *
+     * @param src     source device
+     * @param dst     destination device
+     * @param weigher link weigher
+     * @param paths   paths to cache
+     */
+    void putPaths(DeviceId src, DeviceId dst, LinkWeigher weigher, Set<Path> paths) {
+        cache.put(new PathKey(src, dst, weigher, false), paths);
+    }
+
+    /**
+     * Caches the disjoint path pairs between the given devices.
+     *
+     * @param src     source device
+     * @param dst     destination device
+     * @param weigher link weigher
+     * @param paths   disjoint paths to cache
+     */
+    void putDisjointPaths(DeviceId src, DeviceId dst, LinkWeigher weigher, Set<DisjointPath> paths) {
+        cache.put(new PathKey(src, dst, weigher, true), paths);
+    }
+
+    /**
+     * Creates a cache for the given topology, carrying over those entries of
+     * this cache that traverse none of the given removed links. Since link
+     * removals can only make paths more costly, the shortest paths which do
+     * not use any of them remain the shortest.
+     *
+     * @param newTopology  topology for the new cache
+     * @param removedLinks links removed since the topology of this cache
+     * @return new path cache
+     */
+    PathCache carryOver(Topology newTopology, Set<LinkKey> removedLinks) {
+        PathCache next = new PathCache(newTopology, maxSize, maxAge);
+        for (Map.Entry<PathKey, Set<? extends Path>> entry : cache.asMap().entrySet()) {
+            if (entry.getValue().stream().noneMatch(path -> traverses(path, removedLinks))) {
+                next.cache.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return next;
+    }
+
+    // Indicates whether the path, or its backup if any, traverses any of the links
+    private static boolean traverses(Path path, Set<LinkKey> links) {
+        if (path instanceof DisjointPath && ((DisjointPath) path).backup() != null) {
+            return traverses(((DisjointPath) path).primary(), links) ||
+                    traverses(((DisjointPath) path).backup(), links);
+        }
+        for (Link link : path.links()) {
+            if (links.contains(linkKey(link))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Indicates whether the cache holds paths computed against the given topology.
+     *
+     * @param topology topology descriptor
+     * @return true if paths for the topology can be cached
+     */
+    boolean isFor(Topology topology) {
+        return this.topology == topology;
+    }
+
+    @Override
+    public String toString() {
+        return toStringHelper(this)
+                .add("topology", topology)
+                .add("size", cache.size())
+                .toString();
+    }
+
+    // Key of a cache entry; weighers are compared by identity.
+    private static final class PathKey {
+        private final DeviceId src;
+        private final DeviceId dst;
+        private final LinkWeigher weigher;
+        private final boolean disjoint;
+
+        private PathKey(DeviceId src, DeviceId dst, LinkWeigher weigher, boolean disjoint) {
+            this.src = src;
+            this.dst = dst;
+            this.weigher = weigher;
+            this.disjoint = disjoint;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(src, dst, System.identityHashCode(weigher), disjoint);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof PathKey)) {
+                return false;
+            }
+            PathKey that = (PathKey) obj;
+            return Objects.equals(src, that.src) && Objects.equals(dst, that.dst) &&
+                    weigher == that.weigher && disjoint == that.disjoint;
+        }
+    }
+}
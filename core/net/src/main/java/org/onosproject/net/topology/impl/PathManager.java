@@ -15,26 +15,51 @@
  */
 package org.onosproject.net.topology.impl;
 
+import com.codahale.metrics.Counter;
+import org.onlab.metrics.MetricsComponent;
+import org.onlab.metrics.MetricsFeature;
+import org.onlab.metrics.MetricsService;
+import org.onlab.util.Tools;
+import org.onosproject.cfg.ComponentConfigService;
+import org.onosproject.event.Event;
+import org.onosproject.net.DeviceId;
 import org.onosproject.net.DisjointPath;
 import org.onosproject.net.ElementId;
 import org.onosproject.net.Link;
+import org.onosproject.net.LinkKey;
 import org.onosproject.net.Path;
 import org.onosproject.net.host.HostService;
+import org.onosproject.net.link.LinkEvent;
 import org.onosproject.net.topology.AbstractPathService;
 import org.onosproject.net.topology.LinkWeigher;
 import org.onosproject.net.topology.PathService;
+import org.onosproject.net.topology.Topology;
+import org.onosproject.net.topology.TopologyEvent;
+import org.onosproject.net.topology.TopologyListener;
 import org.onosproject.net.topology.TopologyService;
+import org.osgi.service.component.ComponentContext;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.Deactivate;
+import org.osgi.service.component.annotations.Modified;
 import org.osgi.service.component.annotations.Reference;
 import org.osgi.service.component.annotations.ReferenceCardinality;
 import org.slf4j.Logger;
 
+import java.util.Dictionary;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.stream.Stream;
 
+import static org.onosproject.net.LinkKey.linkKey;
+import static org.onosproject.net.OsgiPropertyConstants.PATH_CACHE_MAX_AGE;
+import static org.onosproject.net.OsgiPropertyConstants.PATH_CACHE_MAX_AGE_DEFAULT;
+import static org.onosproject.net.OsgiPropertyConstants.PATH_CACHE_SELECTIVE_INVALIDATION;
+import static org.onosproject.net.OsgiPropertyConstants.PATH_CACHE_SELECTIVE_INVALIDATION_DEFAULT;
+import static org.onosproject.net.OsgiPropertyConstants.PATH_CACHE_SIZE;
+import static org.onosproject.net.OsgiPropertyConstants.PATH_CACHE_SIZE_DEFAULT;
 import static org.onosproject.security.AppGuard.checkPermission;
 import static org.onosproject.security.AppPermission.Type.TOPOLOGY_READ;
 import static org.slf4j.LoggerFactory.getLogger;
@@ -43,8 +68,18 @@ import static org.slf4j.LoggerFactory.getLogger;
 /**
  * Provides implementation of a path selection service atop the current
  * topology and host services.
+ * <p>
+ * Infrastructure paths are cached per topology until the topology changes.
  */
-@Component(immediate = true, service = PathService.class)
+@Component(
+        immediate = true,
+        service = PathService.class,
+        property = {
+                PATH_CACHE_SIZE + ":Integer=" + PATH_CACHE_SIZE_DEFAULT,
+                PATH_CACHE_MAX_AGE + ":Integer=" + PATH_CACHE_MAX_AGE_DEFAULT,
+                PATH_CACHE_SELECTIVE_INVALIDATION + ":Boolean=" + PATH_CACHE_SELECTIVE_INVALIDATION_DEFAULT
+        }
+)
 public class PathManager extends AbstractPathService implements PathService {
 
     private final Logger log = getLogger(getClass());
@@ -55,19 +90,82 @@ public class PathManager extends AbstractPathService implements PathService {
     @Reference(cardinality = ReferenceCardinality.MANDATORY)
     protected HostService hostService;
 
+    @Reference(cardinality = ReferenceCardinality.MANDATORY)
+    protected ComponentConfigService cfgService;
+
+    @Reference(cardinality = ReferenceCardinality.MANDATORY)
+    protected MetricsService metricsService;
+
+    /** Maximum number of cached source/destination pairs; 0 disables the path cache. */
+    private int pathCacheSize = PATH_CACHE_SIZE_DEFAULT;
+
+    /** Maximum age of cached paths in seconds. */
+    private int pathCacheMaxAge = PATH_CACHE_MAX_AGE_DEFAULT;
+
+    /** Retain cached paths unaffected by link removals across topology changes. */
+    private boolean pathCacheSelectiveInvalidation = PATH_CACHE_SELECTIVE_INVALIDATION_DEFAULT;
+
+    private final TopologyListener topologyListener = new InternalTopologyListener();
+
+    private volatile PathCache pathCache;
+
+    private Counter cacheHits;
+    private Counter cacheMisses;
+
     @Activate
-    public void activate() {
+    public void activate(ComponentContext context) {
         // initialize AbstractPathService
         super.topologyService = this.topologyService;
         super.hostService = this.hostService;
+        cfgService.registerProperties(getClass());
+        if (metricsService != null) {
+            MetricsComponent component = metricsService.registerComponent("Topology");
+            MetricsFeature feature = component.registerFeature("PathCache");
+            cacheHits = metricsService.createCounter(component, feature, "hits");
+            cacheMisses = metricsService.createCounter(component, feature, "misses");
+        }
+        modified(context);
+        topologyService.addListener(topologyListener);
         log.info("Started");
     }
 
     @Deactivate
     public void deactivate() {
+        topologyService.removeListener(topologyListener);
+        cfgService.unregisterProperties(getClass(), false);
+        pathCache = null;
         log.info("Stopped");
     }
 
+    @Modified
+    public void modified(ComponentContext context) {
+        if (context != null) {
+            readComponentConfiguration(context);
+        }
+        pathCache = pathCacheSize > 0 ?
+                new PathCache(topologyService.currentTopology(), pathCacheSize, pathCacheMaxAge) : null;
+    }
+
+    /**
+     * Extracts properties from the component configuration context.
+     *
+     * @param context the component context
+     */
+    private void readComponentConfiguration(ComponentContext context) {
+        Dictionary<?, ?> properties = context.getProperties();
+
+        pathCacheSize = Tools.getIntegerProperty(properties, PATH_CACHE_SIZE, PATH_CACHE_SIZE_DEFAULT);
+        pathCacheMaxAge = Tools.getIntegerProperty(properties, PATH_CACHE_MAX_AGE, PATH_CACHE_MAX_AGE_DEFAULT);
+
+        Boolean flag = Tools.isPropertyEnabled(properties, PATH_CACHE_SELECTIVE_INVALIDATION);
+        if (flag != null) {
+            pathCacheSelectiveInvalidation = flag;
+        }
+        log.info("Settings: {}={}, {}={}, {}={}",
+                 PATH_CACHE_SIZE, pathCacheSize, PATH_CACHE_MAX_AGE, pathCacheMaxAge,
+                 PATH_CACHE_SELECTIVE_INVALIDATION, pathCacheSelectiveInvalidation);
+    }
+
     @Override
     public Set<Path> getPaths(ElementId src, ElementId dst) {
         checkPermission(TOPOLOGY_READ);
@@ -114,4 +212,76 @@ public class PathManager extends AbstractPathService implements PathService {
         return super.getDisjointPaths(src, dst, weigher, riskProfile);
     }
 
+    @Override
+    protected Set<Path> getInfrastructurePaths(Topology topology, DeviceId src,
+                                               DeviceId dst, LinkWeigher weigher) {
+        PathCache cache = pathCache;
+        if (cache == null || !cache.isFor(topology)) {
+            return super.getInfrastructurePaths(topology, src, dst, weigher);
+        }
+        Set<Path> paths = cache.getPaths(src, dst, weigher);
+        if (paths != null) {
+            count(cacheHits);
+            return paths;
+        }
+        count(cacheMisses);
+        paths = super.getInfrastructurePaths(topology, src, dst, weigher);
+        cache.putPaths(src, dst, weigher, paths);
+        return paths;
+    }
+
+    @Override
+    protected Set<DisjointPath> getInfrastructureDisjointPaths(Topology topology, DeviceId src,
+                                                               DeviceId dst, LinkWeigher weigher) {
+        PathCache cache = pathCache;
+        if (cache == null || !cache.isFor(topology)) {
+            return super.getInfrastructureDisjointPaths(topology, src, dst, weigher);
+        }
+        Set<DisjointPath> paths = cache.getDisjointPaths(src, dst, weigher);
+        if (paths != null) {
+            count(cacheHits);
+            return paths;
+        }
+        count(cacheMisses);
+        paths = super.getInfrastructureDisjointPaths(topology, src, dst, weigher);
+        cache.putDisjointPaths(src, dst, weigher, paths);
+        return paths;
+    }
+
+    private static void count(Counter counter) {
+        if (counter != null) {
+            counter.inc();
+        }
+    }
+
+    // Returns the links removed by the given topology change, or null if the
+    // change involved anything other than link removals.
+    private static Set<LinkKey> removedLinks(List<Event> reasons) {
+        if (reasons == null || reasons.isEmpty()) {
+            return null;
+        }
+        Set<LinkKey> links = new HashSet<>();
+        for (Event reason : reasons) {
+            if (!(reason instanceof LinkEvent) || reason.type() != LinkEvent.Type.LINK_REMOVED) {
+                return null;
+            }
+            links.add(linkKey(((LinkEvent) reason).subject()));
+        }
+        return links;
+    }
+
+    // Replaces the path cache as the topology changes.
+    private class InternalTopologyListener implements TopologyListener {
+        @Override
+        public void event(TopologyEvent event) {
+            PathCache cache = pathCache;
+            if (cache == null) {
+                return;
+            }
+            Set<LinkKey> removedLinks = pathCacheSelectiveInvalidation ? removedLinks(event.reasons()) : null;
+            pathCache = removedLinks != null ?
+                    cache.carryOver(event.subject(), removedLinks) :
+                    new PathCache(event.subject(), pathCacheSize, pathCacheMaxAge);
+        }
+    }
 }
@@ -23,6 +23,8 @@ import org.onosproject.event.EventSink;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
@@ -88,6 +90,75 @@ public class CoreEventDispatcherTest {
         assertTrue(takesTooLong.interrupted);
     }
 
+    @Test
+    public void postOverPartitionedLanes() throws Exception {
+        dispatcher.setDispatchLanes(4, 4096);
+        OrderedSink orderedSink = new OrderedSink();
+        dispatcher.addSink(Ordered.class, orderedSink);
+        int subjects = 8;
+        int count = 200;
+        orderedSink.latch = new CountDownLatch(subjects * count);
+        for (int i = 0; i < count; i++) {
+            for (int s = 0; s < subjects; s++) {
+                dispatcher.post(new Ordered("s" + s, i));
+            }
+        }
+        assertTrue("events not delivered", orderedSink.latch.await(5, TimeUnit.SECONDS));
+        assertTrue("events delivered out of order", orderedSink.ordered);
+        dispatcher.removeSink(Ordered.class);
+    }
+
+    @Test
+    public void postOverFullLane() throws Exception {
+        dispatcher.setDispatchLanes(1, 4);
+        OrderedSink orderedSink = new OrderedSink();
+        orderedSink.gate = new CountDownLatch(1);
+        dispatcher.addSink(Ordered.class, orderedSink);
+        int count = 100;
+        orderedSink.latch = new CountDownLatch(count);
+        for (int i = 0; i < count; i++) {
+            dispatcher.post(new Ordered("s", i));
+        }
+        orderedSink.gate.countDown();
+        assertTrue("events not delivered", orderedSink.latch.await(5, TimeUnit.SECONDS));
+        assertTrue("events delivered out of order", orderedSink.ordered);
+        dispatcher.removeSink(Ordered.class);
+    }
+
+    @Test
+    public void reconfigureLanesWhilePosting() throws Exception {
+        OrderedSink orderedSink = new OrderedSink();
+        dispatcher.addSink(Ordered.class, orderedSink);
+        int count = 20_000;
+        orderedSink.latch = new CountDownLatch(count);
+        Thread poster = new Thread(() -> {
+            for (int i = 0; i < count; i++) {
+                dispatcher.post(new Ordered("s" + (i % 16), i));
+            }
+        });
+        poster.start();
+        for (int i = 0; poster.isAlive(); i++) {
+            dispatcher.setDispatchLanes(1 + i % 4, i % 2 == 0 ? 0 : 64);
+        }
+        assertTrue("events lost", orderedSink.latch.await(5, TimeUnit.SECONDS));
+        dispatcher.removeSink(Ordered.class);
+    }
+
+    @Test
+    public void reconfigureLanes() throws Exception {
+        dispatcher.setDispatchLanes(2, 0);
+        prickleSink.latch = new CountDownLatch(1);
+        dispatcher.post(new Prickle("yo"));
+        prickleSink.latch.await(100, TimeUnit.MILLISECONDS);
+        validate(prickleSink, "yo");
+
+        dispatcher.setDispatchLanes(1, 16);
+        prickleSink.latch = new CountDownLatch(1);
+        dispatcher.post(new Prickle("again"));
+        prickleSink.latch.await(100, TimeUnit.MILLISECONDS);
+        validate(prickleSink, "yo", "again");
+    }
+
     private void validate(Sink sink, String... strings) {
         int i = 0;
         assertEquals("incorrect event count", strings.length, sink.subjects.size());
@@ -141,6 +212,38 @@ public class CoreEventDispatcherTest {
         }
     }
 
+    private static class Ordered extends AbstractEvent<Type, String> {
+        final int sequence;
+
+        protected Ordered(String subject, int sequence) {
+            super(Type.FOO, subject);
+            this.sequence = sequence;
+        }
+    }
+
+    private static class OrderedSink implements EventSink<Ordered> {
+        final Map<String, Integer> last = new ConcurrentHashMap<>();
+        volatile boolean ordered = true;
+        CountDownLatch latch;
+        CountDownLatch gate;
+
+        @Override
+        public void process(Ordered event) {
+            if (gate != null) {
+                try {
+                    gate.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            Integer previous = last.put(event.subject(), event.sequence);
+            if (previous != null && previous != event.sequence - 1) {
+                ordered = false;
+            }
+            latch.countDown();
+        }
+    }
+
     private static class TooLongEvent extends AbstractEvent<Type, String> {
         protected TooLongEvent(String subject) {
             super(Type.FOO, subject);
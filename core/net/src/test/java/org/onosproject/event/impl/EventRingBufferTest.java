@@ -0,0 +1,82 @@
+/*
+ * Copyright 2020-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.event.impl;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of the bounded event ring buffer.
+ */
+public class EventRingBufferTest {
+
+    @Test
+    public void boundedOfferAndPoll() {
+        EventRingBuffer<Integer> ring = new EventRingBuffer<>(3);
+        assertEquals("incorrect capacity", 4, ring.capacity());
+        for (int i = 0; i < 4; i++) {
+            assertTrue("offer failed", ring.offer(i));
+        }
+        assertFalse("offer should spill when full", ring.offer(4));
+        assertEquals("incorrect size", 5, ring.size());
+        assertEquals("incorrect spilled count", 1, ring.spilled());
+
+        // Space freed in the ring must not let later events overtake spilled ones
+        assertEquals("incorrect order", Integer.valueOf(0), ring.poll());
+        assertFalse("offer should spill behind earlier spills", ring.offer(5));
+
+        for (int i = 1; i < 6; i++) {
+            assertEquals("incorrect order", Integer.valueOf(i), ring.poll());
+        }
+        assertNull("buffer should be empty", ring.poll());
+        assertEquals("incorrect spilled count", 0, ring.spilled());
+        assertTrue("offer should succeed after wrap", ring.offer(6));
+        assertEquals("incorrect element after wrap", Integer.valueOf(6), ring.poll());
+    }
+
+    @Test
+    public void concurrentProducers() throws Exception {
+        EventRingBuffer<int[]> ring = new EventRingBuffer<>(16);
+        int producers = 4;
+        int count = 10_000;
+        CountDownLatch done = new CountDownLatch(producers);
+        for (int p = 0; p < producers; p++) {
+            int producer = p;
+            new Thread(() -> {
+                for (int i = 0; i < count; i++) {
+                    ring.offer(new int[]{producer, i});
+                }
+                done.countDown();
+            }).start();
+        }
+
+        // Every event is delivered, and in order for each producer
+        int[] next = new int[producers];
+        for (int i = 0; i < producers * count; i++) {
+            int[] event = ring.take();
+            assertEquals("incorrect order", next[event[0]]++, event[1]);
+        }
+        assertTrue("producers did not finish", done.await(5, TimeUnit.SECONDS));
+        assertNull("buffer should be empty", ring.poll());
+    }
+}
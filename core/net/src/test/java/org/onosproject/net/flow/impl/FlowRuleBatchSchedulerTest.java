@@ -0,0 +1,262 @@
+/*
+ * Copyright 2020-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.net.flow.impl;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.PortNumber;
+import org.onosproject.net.flow.DefaultFlowRule;
+import org.onosproject.net.flow.DefaultTrafficSelector;
+import org.onosproject.net.flow.FlowId;
+import org.onosproject.net.flow.FlowRule;
+import org.onosproject.net.flow.FlowRuleOperations.Priority;
+import org.onosproject.net.flow.oldbatch.FlowRuleBatchEntry;
+import org.onosproject.net.flow.oldbatch.FlowRuleBatchEntry.FlowRuleOperation;
+import org.onosproject.net.flow.oldbatch.FlowRuleBatchOperation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.onosproject.net.NetTestTools.APP_ID;
+import static org.onosproject.net.NetTestTools.did;
+
+/**
+ * Unit tests for the per-device flow rule batch scheduler.
+ */
+public class FlowRuleBatchSchedulerTest {
+
+    private static final DeviceId DID = did("d1");
+
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final List<Long> sent = new ArrayList<>();
+    private final List<FlowRuleBatchOperation> sentBatches = new ArrayList<>();
+    private final AtomicLong batchIds = new AtomicLong(100);
+    private final List<Priority> waited = new ArrayList<>();
+    private FlowRuleBatchScheduler scheduler;
+
+    @Before
+    public void setUp() {
+        scheduler = new FlowRuleBatchScheduler(tasks::add, batch -> {
+            sent.add(batch.id());
+            sentBatches.add(batch);
+        }, batchIds::incrementAndGet);
+        scheduler.setWaitTimeListener((priority, nanos) -> waited.add(priority));
+    }
+
+    private static FlowRule rule(int port) {
+        return DefaultFlowRule.builder()
+                .forDevice(DID)
+                .withSelector(DefaultTrafficSelector.builder().matchInPort(PortNumber.portNumber(port)).build())
+                .withPriority(10)
+                .fromApp(APP_ID)
+                .makePermanent()
+                .build();
+    }
+
+    private static FlowRuleBatchOperation batch(long id, int size) {
+        List<FlowRuleBatchEntry> entries = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            entries.add(new FlowRuleBatchEntry(FlowRuleOperation.ADD, rule(i)));
+        }
+        return new FlowRuleBatchOperation(entries, DID, id);
+    }
+
+    private static FlowRuleBatchOperation batch(long id, FlowRuleOperation op, int port) {
+        return new FlowRuleBatchOperation(Collections.singletonList(new FlowRuleBatchEntry(op, rule(port))), DID, id);
+    }
+
+    private void runTasks() {
+        while (!tasks.isEmpty()) {
+            tasks.poll().run();
+        }
+    }
+
+    /**
+     * Tests that urgent batches go first and that regular batches are
+     * weighted over bulk batches.
+     */
+    @Test
+    public void priorityOrder() {
+        for (long id = 1; id <= 6; id++) {
+            scheduler.submit(batch(id, 1), Priority.NORMAL);
+        }
+        scheduler.submit(batch(10, 1), Priority.BULK);
+        scheduler.submit(batch(11, 1), Priority.BULK);
+        scheduler.submit(batch(20, 1), Priority.URGENT);
+
+        assertThat(scheduler.queueDepth(Priority.NORMAL), is(6));
+        assertThat(scheduler.queueDepth(Priority.BULK), is(2));
+        assertThat(scheduler.queueDepth(Priority.URGENT), is(1));
+        assertThat(tasks.size(), is(1));
+
+        runTasks();
+        assertThat(sent, contains(20L, 1L, 2L, 3L, 4L, 10L, 5L, 6L, 11L));
+        assertThat(waited.get(0), is(Priority.URGENT));
+        assertThat(scheduler.queueDepth(Priority.NORMAL), is(0));
+        assertThat(scheduler.queueDepth(Priority.BULK), is(0));
+    }
+
+    /**
+     * Tests that bulk batches are held back once the device exceeds its rate
+     * and that other batches are not held back with them.
+     */
+    @Test
+    public void bulkRateLimit() {
+        scheduler.setBulkRateLimit(10);
+        scheduler.submit(batch(1, 30), Priority.BULK);
+        scheduler.submit(batch(2, 10), Priority.BULK);
+        runTasks();
+        assertThat(sent, contains(1L));
+        assertThat(scheduler.queueDepth(Priority.BULK), is(1));
+
+        scheduler.submit(batch(3, 1), Priority.URGENT);
+        assertThat(tasks.size(), is(1));
+        runTasks();
+        assertThat(sent, contains(1L, 3L));
+
+        scheduler.setBulkRateLimit(0);
+        scheduler.submit(batch(4, 1), Priority.NORMAL);
+        runTasks();
+        assertThat(sent, contains(1L, 3L, 4L, 2L));
+        assertThat(tasks.isEmpty(), is(true));
+    }
+
+    /**
+     * Tests that queued operations on the same flow are coalesced into their
+     * net operation and that the coalesced batches are remembered.
+     */
+    @Test
+    public void coalescing() {
+        scheduler.setCoalescing(true);
+        scheduler.submit(batch(1, FlowRuleOperation.ADD, 1), Priority.NORMAL);
+        scheduler.submit(batch(2, FlowRuleOperation.MODIFY, 1), Priority.NORMAL);
+        scheduler.submit(batch(3, FlowRuleOperation.ADD, 2), Priority.NORMAL);
+        scheduler.submit(batch(4, FlowRuleOperation.REMOVE, 2), Priority.NORMAL);
+        scheduler.submit(batch(5, FlowRuleOperation.ADD, 3), Priority.URGENT);
+        runTasks();
+
+        assertThat(sent, contains(5L, 101L));
+        List<String> ops = sentBatches.get(1).getOperations().stream()
+                .map(op -> op.operator() + ":" + op.target().id())
+                .collect(Collectors.toList());
+        assertThat(ops, contains("ADD:" + rule(1).id(), "REMOVE:" + rule(2).id()));
+        assertThat(sentBatches.get(1).getOperations().get(0).target(), is(rule(1)));
+        assertThat(scheduler.coalescedOperations(), is(2L));
+        assertThat(scheduler.queueDepth(Priority.NORMAL), is(0));
+
+        Map<Long, Set<FlowId>> coalesced = scheduler.coalesced(101L);
+        assertThat(coalesced.keySet(), contains(1L, 2L, 3L, 4L));
+        assertThat(coalesced.get(1L), contains(rule(1).id()));
+        assertThat(coalesced.get(2L), contains(rule(1).id()));
+        // the removal superseded the addition, which thus never reached the device
+        assertThat(coalesced.get(3L), empty());
+        assertThat(coalesced.get(4L), contains(rule(2).id()));
+        assertThat(scheduler.coalesced(101L), nullValue());
+        assertThat(scheduler.coalesced(5L), nullValue());
+    }
+
+    /**
+     * Tests that regular batches are held for the coalescing window while
+     * urgent batches are not.
+     */
+    @Test
+    public void coalesceWindow() {
+        scheduler.setCoalescing(true);
+        scheduler.setCoalesceWindow(60_000);
+        scheduler.submit(batch(1, FlowRuleOperation.ADD, 1), Priority.NORMAL);
+        scheduler.submit(batch(2, FlowRuleOperation.REMOVE, 1), Priority.NORMAL);
+        assertThat(tasks.isEmpty(), is(true));
+        assertThat(sent.isEmpty(), is(true));
+
+        scheduler.submit(batch(3, FlowRuleOperation.ADD, 2), Priority.URGENT);
+        runTasks();
+        assertThat(sent, contains(3L, 101L));
+        assertThat(sentBatches.get(1).getOperations().get(0).operator(), is(FlowRuleOperation.REMOVE));
+    }
+
+    /**
+     * Tests that coalescing does not merge bulk batches beyond the bulk rate
+     * limit nor beyond the maximum merged batch size.
+     */
+    @Test
+    public void coalescingLimits() {
+        scheduler.setCoalescing(true);
+        scheduler.setBulkRateLimit(10);
+        scheduler.submit(batch(1, 4), Priority.BULK);
+        scheduler.submit(batch(2, 4), Priority.BULK);
+        scheduler.submit(batch(3, 4), Priority.BULK);
+        runTasks();
+        // the third batch is left out of the merged batch for lack of tokens
+        assertThat(sent, contains(101L, 3L));
+        assertThat(scheduler.coalesced(101L).keySet(), contains(1L, 2L));
+
+        scheduler.setBulkRateLimit(0);
+        int size = FlowRuleBatchScheduler.MAX_COALESCED_OPERATIONS / 2;
+        scheduler.submit(batch(4, 1), Priority.NORMAL);
+        scheduler.submit(batch(5, size), Priority.NORMAL);
+        scheduler.submit(batch(6, size), Priority.NORMAL);
+        runTasks();
+        assertThat(sent, contains(101L, 3L, 102L, 6L));
+        assertThat(scheduler.coalesced(102L).keySet(), contains(4L, 5L));
+    }
+
+    /**
+     * Tests that the batches of a merged batch are abandoned when it cannot
+     * be sent or does not complete in time.
+     */
+    @Test
+    public void abandonCoalesced() {
+        List<Long> abandoned = new ArrayList<>();
+        scheduler.setAbandonListener(batches -> batches.forEach(batch -> abandoned.add(batch.id())));
+        scheduler.setCoalescing(true);
+        scheduler.setCoalescedTimeout(0);
+        scheduler.submit(batch(1, FlowRuleOperation.ADD, 1), Priority.NORMAL);
+        scheduler.submit(batch(2, FlowRuleOperation.ADD, 2), Priority.NORMAL);
+        runTasks();
+        assertThat(sent, contains(101L));
+        assertThat(abandoned.isEmpty(), is(true));
+
+        scheduler.submit(batch(3, FlowRuleOperation.ADD, 3), Priority.NORMAL);
+        scheduler.submit(batch(4, FlowRuleOperation.ADD, 4), Priority.NORMAL);
+        runTasks();
+        assertThat(abandoned, contains(1L, 2L));
+        assertThat(scheduler.coalesced(101L), nullValue());
+
+        FlowRuleBatchScheduler failing = new FlowRuleBatchScheduler(tasks::add, batch -> {
+            throw new IllegalStateException("boom");
+        }, batchIds::incrementAndGet);
+        failing.setAbandonListener(batches -> batches.forEach(batch -> abandoned.add(batch.id())));
+        failing.setCoalescing(true);
+        failing.submit(batch(5, FlowRuleOperation.ADD, 1), Priority.NORMAL);
+        failing.submit(batch(6, FlowRuleOperation.ADD, 2), Priority.NORMAL);
+        runTasks();
+        assertThat(abandoned, contains(1L, 2L, 5L, 6L));
+        assertThat(failing.coalesced(103L), nullValue());
+    }
+}
@@ -40,6 +40,8 @@ import org.onosproject.net.Device.Type;
 import org.onosproject.net.DeviceId;
 import org.onosproject.net.MastershipRole;
 import org.onosproject.net.config.NetworkConfigServiceAdapter;
+import org.onosproject.net.device.DeviceEvent;
+import org.onosproject.net.device.DeviceListener;
 import org.onosproject.net.device.DeviceServiceAdapter;
 import org.onosproject.net.driver.AbstractHandlerBehaviour;
 import org.onosproject.net.driver.DefaultDriver;
@@ -125,6 +127,7 @@ public class FlowRuleManagerTest {
     protected FlowRuleProviderService providerService;
     protected TestProvider provider;
     protected TestListener listener = new TestListener();
+    private final List<DeviceListener> deviceListeners = Lists.newArrayList();
     private ApplicationId appId;
 
     private TestDriverManager driverService;
@@ -419,6 +422,83 @@ public class FlowRuleManagerTest {
 
     }
 
+    /*
+     * Tests that flow entries pushed in segments are merged as they arrive
+     * and that missing flows are only reconciled once all segments are in.
+     */
+    @Test
+    public void flowMetricsSegments() {
+        FlowRule f1 = flowRule(1, 1);
+        FlowRule f2 = flowRule(2, 2);
+        FlowRule f3 = flowRule(3, 3);
+
+        FlowEntry fe1 = new DefaultFlowEntry(f1);
+        FlowEntry fe2 = new DefaultFlowEntry(f2);
+        mgr.applyFlowRules(f1, f2, f3);
+
+        mgr.removeFlowRules(f3);
+
+        providerService.pushFlowMetricsSegment(DID, 1, Lists.newArrayList(fe1));
+        validateEvents(RULE_ADD_REQUESTED, RULE_ADD_REQUESTED, RULE_ADD_REQUESTED,
+                       RULE_REMOVE_REQUESTED, RULE_ADDED);
+
+        providerService.pushFlowMetricsSegment(DID, 1, Lists.newArrayList(fe2));
+        validateEvents(RULE_ADDED);
+
+        providerService.pushFlowMetricsComplete(DID, 1);
+        validateEvents(RULE_REMOVED);
+        assertEquals("2 rules should exist", 2, flowCount());
+    }
+
+    /**
+     * Tests that the segments of a new flow stats reply do not mix with those
+     * of an earlier, incomplete reply, and that an unknown reply is not
+     * reconciled.
+     */
+    @Test
+    public void flowMetricsSegmentsOfNewReply() {
+        FlowRule f1 = flowRule(1, 1);
+        FlowRule f2 = flowRule(2, 2);
+        FlowRule f3 = flowRule(3, 3);
+        mgr.applyFlowRules(f1, f2, f3);
+        mgr.removeFlowRules(f3);
+
+        providerService.pushFlowMetricsSegment(DID, 1, Lists.newArrayList(new DefaultFlowEntry(f3)));
+        providerService.pushFlowMetricsSegment(DID, 2, Lists.newArrayList(new DefaultFlowEntry(f1)));
+        providerService.pushFlowMetricsSegment(DID, 2, Lists.newArrayList(new DefaultFlowEntry(f2)));
+        listener.events.clear();
+
+        // the earlier reply never completed, so its segments were discarded
+        providerService.pushFlowMetricsComplete(DID, 1);
+        validateEvents();
+        assertEquals("3 rules should exist", 3, flowCount());
+
+        providerService.pushFlowMetricsComplete(DID, 2);
+        validateEvents(RULE_REMOVED);
+        assertEquals("2 rules should exist", 2, flowCount());
+    }
+
+    /**
+     * Tests that the segments pushed for a device are dropped once the device
+     * goes away.
+     */
+    @Test
+    public void flowMetricsSegmentsOfRemovedDevice() {
+        FlowRule f1 = flowRule(1, 1);
+        FlowRule f2 = flowRule(2, 2);
+        mgr.applyFlowRules(f1, f2);
+        mgr.removeFlowRules(f2);
+
+        providerService.pushFlowMetricsSegment(DID, 1, Lists.newArrayList(new DefaultFlowEntry(f1)));
+        listener.events.clear();
+        DeviceEvent event = new DeviceEvent(DeviceEvent.Type.DEVICE_REMOVED, DEV);
+        deviceListeners.forEach(l -> l.event(event));
+
+        providerService.pushFlowMetricsComplete(DID, 1);
+        validateEvents();
+        assertEquals("2 rules should exist", 2, flowCount());
+    }
+
     @Test
     public void removeByAppId() {
         FlowRule f1 = flowRule(1, 1);
@@ -489,7 +569,12 @@ public class FlowRuleManagerTest {
         }
     }
 
-    private static class TestDeviceService extends DeviceServiceAdapter {
+    private class TestDeviceService extends DeviceServiceAdapter {
+        @Override
+        public void addListener(DeviceListener listener) {
+            deviceListeners.add(listener);
+        }
+
         @Override
         public int getDeviceCount() {
             return 2;
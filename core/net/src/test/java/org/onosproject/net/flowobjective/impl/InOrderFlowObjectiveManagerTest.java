@@ -21,6 +21,7 @@ import com.google.common.collect.Sets;
 import org.junit.Before;
 import org.junit.Ignore;
 import org.junit.Test;
+import org.onlab.osgi.ComponentContextAdapter;
 import org.onlab.packet.Ethernet;
 import org.onlab.packet.IpPrefix;
 import org.onlab.packet.MacAddress;
@@ -52,8 +53,10 @@ import org.onosproject.net.flowobjective.Objective;
 import org.onosproject.net.flowobjective.ObjectiveContext;
 import org.onosproject.net.flowobjective.ObjectiveError;
 import org.onosproject.net.flowobjective.ObjectiveEvent;
+import org.osgi.service.component.ComponentContext;
 
 import static java.util.concurrent.Executors.newFixedThreadPool;
+import static org.easymock.EasyMock.anyInt;
 import static org.easymock.EasyMock.createMock;
 import static org.easymock.EasyMock.expect;
 import static org.easymock.EasyMock.replay;
@@ -65,9 +68,15 @@ import static org.onlab.junit.TestTools.assertAfter;
 import static org.onlab.util.Tools.groupedThreads;
 
 import java.util.Collection;
+import java.util.Dictionary;
+import java.util.Hashtable;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.atomic.AtomicInteger;
 
 public class InOrderFlowObjectiveManagerTest {
@@ -330,6 +339,146 @@ public class InOrderFlowObjectiveManagerTest {
         verify(mgr.flowObjectiveStore);
     }
 
+    /**
+     * Stress test with segment routing style filtering, next and forwarding
+     * objectives on many devices. Checks that objectives with the same key
+     * run in order and that no device has more objectives in flight than allowed.
+     */
+    @Test
+    public void manyDevices() {
+        final int devices = 500;
+        final int maxInFlight = 2;
+        List<Objective> perDevice = Lists.newArrayList(
+                FILT4, FILT6, FILT1, NEXT1, NEXT3, NEXT5, FWD1, FWD5, FWD2);
+
+        ExecutorService completer = newFixedThreadPool(8, groupedThreads("foo", "completer-%d"));
+        Map<DeviceId, List<Objective>> received = new ConcurrentHashMap<>();
+        Map<DeviceId, AtomicInteger> inFlight = new ConcurrentHashMap<>();
+        AtomicInteger maxSeen = new AtomicInteger();
+        AtomicInteger completed = new AtomicInteger();
+
+        mgr.maxInFlightPerDevice = maxInFlight;
+        expect(mgr.flowObjectiveStore.getNextGroup(anyInt())).andReturn(NGRP1).anyTimes();
+        replay(mgr.flowObjectiveStore);
+
+        for (int i = 0; i < devices; i++) {
+            DeviceId deviceId = DeviceId.deviceId("of:" + (i + 100));
+            received.put(deviceId, Lists.newCopyOnWriteArrayList());
+            inFlight.put(deviceId, new AtomicInteger());
+            mgr.pipeliners.put(deviceId, new PipelinerAdapter() {
+                @Override
+                public void filter(FilteringObjective filterObjective) {
+                    complete(filterObjective, true);
+                }
+
+                @Override
+                public void forward(ForwardingObjective forwardObjective) {
+                    complete(forwardObjective, true);
+                }
+
+                @Override
+                public void next(NextObjective nextObjective) {
+                    complete(nextObjective, false);
+                }
+
+                private void complete(Objective obj, boolean gated) {
+                    received.get(deviceId).add(obj);
+                    if (gated) {
+                        maxSeen.accumulateAndGet(inFlight.get(deviceId).incrementAndGet(), Math::max);
+                    }
+                    completer.execute(() -> {
+                        if (ThreadLocalRandom.current().nextBoolean()) {
+                            Thread.yield();
+                        }
+                        if (gated) {
+                            inFlight.get(deviceId).decrementAndGet();
+                        }
+                        completed.incrementAndGet();
+                        obj.context().ifPresent(c -> c.onSuccess(obj));
+                    });
+                }
+            });
+        }
+
+        for (Objective obj : perDevice) {
+            received.keySet().forEach(deviceId -> {
+                if (obj instanceof FilteringObjective) {
+                    mgr.filter(deviceId, (FilteringObjective) obj);
+                } else if (obj instanceof NextObjective) {
+                    mgr.next(deviceId, (NextObjective) obj);
+                } else {
+                    mgr.forward(deviceId, (ForwardingObjective) obj);
+                }
+            });
+        }
+
+        int total = devices * perDevice.size();
+        assertAfter(30000, () -> assertEquals(total, completed.get()));
+        completer.shutdown();
+
+        assertTrue(maxSeen.get() <= maxInFlight);
+        received.values().forEach(objs -> {
+            assertEquals(perDevice.size(), objs.size());
+            assertTrue(objs.indexOf(FILT4) < objs.indexOf(FILT6));
+            assertTrue(objs.indexOf(NEXT1) < objs.indexOf(NEXT3));
+            assertTrue(objs.indexOf(NEXT3) < objs.indexOf(NEXT5));
+            assertTrue(objs.indexOf(FWD1) < objs.indexOf(FWD5));
+        });
+        assertTrue(mgr.getFilteringObjQueue().isEmpty());
+        assertTrue(mgr.getForwardingObjQueue().isEmpty());
+        assertTrue(mgr.getNextObjQueue().isEmpty());
+    }
+
+    /**
+     * Tests that only objectives holding a slot give it back when they
+     * complete, and that the in-flight limit can be reconfigured.
+     */
+    @Test
+    public void reconfigureMaxInFlight() throws Exception {
+        List<Objective> executed = Lists.newCopyOnWriteArrayList();
+        mgr.pipeliners.put(DEV1, new PipelinerAdapter() {
+            @Override
+            public void filter(FilteringObjective filterObjective) {
+                executed.add(filterObjective);
+            }
+
+            @Override
+            public void forward(ForwardingObjective forwardObjective) {
+                executed.add(forwardObjective);
+            }
+        });
+        expect(mgr.flowObjectiveStore.getNextGroup(anyInt())).andReturn(NGRP1).anyTimes();
+        replay(mgr.flowObjectiveStore);
+
+        mgr.modified(maxInFlight(1));
+        mgr.filter(DEV1, FILT1);
+        mgr.filter(DEV1, FILT4);
+        mgr.forward(DEV1, FWD1);
+        assertAfter(TIMEOUT_THRESH, () -> assertEquals(1, executed.size()));
+
+        // A duplicate completion must not free a second slot
+        Objective first = executed.get(0);
+        first.context().ifPresent(c -> c.onSuccess(first));
+        first.context().ifPresent(c -> c.onSuccess(first));
+        assertAfter(TIMEOUT_THRESH, () -> assertEquals(2, executed.size()));
+        Thread.sleep(TIMEOUT_THRESH / 5);
+        assertEquals(2, executed.size());
+
+        mgr.modified(maxInFlight(0));
+        assertAfter(TIMEOUT_THRESH, () -> assertEquals(3, executed.size()));
+    }
+
+    private static ComponentContext maxInFlight(int max) {
+        return new ComponentContextAdapter() {
+            @Override
+            public Dictionary getProperties() {
+                Hashtable<String, String> props = new Hashtable<>();
+                props.put("maxInFlightPerDevice", String.valueOf(max));
+                return props;
+            }
+        };
+    }
+
     // FIXME We currently do not handle the case when an app sends edit/remove of a next id before add.
     //       The edit/remove operation will be queued by pendingNext, and the add operation will be
     //       queued by the ordering queue forever due to the deadlock. This can be improved by making
@@ -28,11 +28,14 @@ import org.onosproject.net.intent.IntentState;
 import org.onosproject.net.intent.IntentTestsMocks.MockIntent;
 import org.onosproject.net.intent.IntentTestsMocks.MockTimestamp;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
 
 /**
  * Unit tests for the intent accumulator.
@@ -143,5 +146,48 @@ public class IntentAccumulatorTest extends AbstractIntentTest {
         accumulator.processItems(intentDataItems);
     }
 
-
+    /**
+     * Tests that batches are limited in number and that operations on keys of
+     * batches in flight are held back until those batches complete.
+     */
+    @Test
+    public void checkInFlightBatches() {
+        List<Collection<IntentData>> batches = new ArrayList<>();
+        List<IntentData> resubmitted = new ArrayList<>();
+        IntentAccumulator accumulator = new IntentAccumulator(batches::add, 2) {
+            @Override
+            public void add(IntentData item) {
+                resubmitted.add(item);
+            }
+        };
+
+        IntentData data1 = new IntentData(intent1, IntentState.INSTALL_REQ, new MockTimestamp(1));
+        IntentData data2 = new IntentData(intent2, IntentState.INSTALL_REQ, new MockTimestamp(1));
+        IntentData data3 = new IntentData(intent3, IntentState.INSTALL_REQ, new MockTimestamp(1));
+        IntentData data1Newer = new IntentData(intent1, IntentState.WITHDRAW_REQ, new MockTimestamp(2));
+
+        assertThat(accumulator.isReady(), is(true));
+        accumulator.processItems(ImmutableList.of(data1));
+        assertThat(accumulator.isReady(), is(true));
+
+        // intent1 is still in flight, so its newer operation is held back
+        accumulator.processItems(ImmutableList.of(data1Newer, data2));
+        assertThat(batches, hasSize(2));
+        assertThat(batches.get(1), contains(data2));
+        assertThat(accumulator.isReady(), is(false));
+
+        // an older operation does not replace the held back one
+        accumulator.ready(batches.get(1));
+        accumulator.processItems(ImmutableList.of(data1, data3));
+        assertThat(batches.get(2), contains(data3));
+
+        accumulator.ready(batches.get(0));
+        assertThat(resubmitted, contains(data1Newer));
+        accumulator.ready(batches.get(2));
+        assertThat(accumulator.isReady(), is(true));
+
+        accumulator.processItems(resubmitted);
+        assertThat(batches, hasSize(4));
+        assertThat(batches.get(3), contains(data1Newer));
+    }
 }
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2020-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.net.intent.impl;
+
+import com.google.common.collect.Maps;
+import org.junit.Test;
+import org.onosproject.net.LinkKey;
+import org.onosproject.net.intent.Key;
+
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.onosproject.net.LinkKey.linkKey;
+import static org.onosproject.net.NetTestTools.APP_ID;
+import static org.onosproject.net.NetTestTools.connectPoint;
+
+/**
+ * Unit tests for the resource to intent index.
+ */
+public class ResourceIntentIndexTest {
+
+    private static final LinkKey LINK1 = linkKey(connectPoint("a", 1), connectPoint("b", 1));
+    private static final LinkKey LINK2 = linkKey(connectPoint("b", 2), connectPoint("c", 1));
+    private static final Key KEY1 = Key.of(1L, APP_ID);
+    private static final Key KEY2 = Key.of(2L, APP_ID);
+
+    /**
+     * Tests adding, looking up and removing associations.
+     */
+    @Test
+    public void basics() {
+        ResourceIntentIndex<LinkKey> index = new ResourceIntentIndex<>();
+        index.put(LINK1, KEY1);
+        index.put(LINK1, KEY2);
+        index.put(LINK2, KEY1);
+        index.put(LINK2, KEY1);
+
+        assertThat(index.get(LINK1), containsInAnyOrder(KEY1, KEY2));
+        assertThat(index.get(LINK2), containsInAnyOrder(KEY1));
+        assertThat(index.containsIntent(KEY2), is(true));
+        assertThat(index.entries(), containsInAnyOrder(Maps.immutableEntry(LINK1, KEY1),
+                                                       Maps.immutableEntry(LINK1, KEY2),
+                                                       Maps.immutableEntry(LINK2, KEY1)));
+
+        index.remove(LINK1, KEY2);
+        index.remove(LINK2, KEY1);
+        index.remove(LINK2, KEY2);
+        assertThat(index.get(LINK1), containsInAnyOrder(KEY1));
+        assertThat(index.get(LINK2), is(empty()));
+        assertThat(index.containsIntent(KEY2), is(false));
+        assertThat(index.entries(), hasSize(1));
+    }
+
+    /**
+     * Tests that concurrent updates of the same resource are not lost.
+     *
+     * @throws InterruptedException if interrupted while waiting for the updates
+     */
+    @Test
+    public void concurrentUpdates() throws InterruptedException {
+        ResourceIntentIndex<LinkKey> index = new ResourceIntentIndex<>();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        IntStream.range(0, 1000).forEach(i -> executor.execute(() -> {
+            Key key = Key.of(i, APP_ID);
+            index.put(LINK1, key);
+            index.put(LINK2, key);
+            if (i % 2 == 0) {
+                index.remove(LINK2, key);
+            }
+        }));
+        executor.shutdown();
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS), is(true));
+
+        Set<Key> keys = index.get(LINK1);
+        assertThat(keys, hasSize(1000));
+        assertThat(index.get(LINK2), hasSize(500));
+    }
+}
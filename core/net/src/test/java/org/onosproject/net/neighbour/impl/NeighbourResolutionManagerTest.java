@@ -17,6 +17,7 @@
 package org.onosproject.net.neighbour.impl;
 
 import java.util.Collection;
+import java.util.Set;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -93,7 +94,7 @@ public class NeighbourResolutionManagerTest {
         packetService.requestPackets(anyObject(TrafficSelector.class),
                 anyObject(PacketPriority.class), anyObject(ApplicationId.class));
         expectLastCall().anyTimes();
-        packetService.addProcessor(anyObject(PacketProcessor.class), anyInt());
+        packetService.addProcessor(anyObject(PacketProcessor.class), anyInt(), anyObject(Set.class));
         expectLastCall().andDelegateTo(new TestPacketService()).once();
         packetService.cancelPackets(anyObject(TrafficSelector.class),
                 anyObject(PacketPriority.class), anyObject(ApplicationId.class));
@@ -18,14 +18,25 @@ package org.onosproject.net.packet.impl;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
+import org.onlab.osgi.ComponentContextAdapter;
+import org.onlab.packet.ARP;
+import org.onlab.packet.Ethernet;
+import org.onlab.packet.ICMP6;
+import org.onlab.packet.IPv4;
+import org.onlab.packet.IPv6;
+import org.onlab.packet.UDP;
+import org.onlab.packet.ipv6.HopByHopOptions;
+import org.onosproject.cfg.ComponentConfigAdapter;
 import org.onosproject.cluster.ClusterServiceAdapter;
 import org.onosproject.common.event.impl.TestEventDispatcher;
 import org.onosproject.core.CoreServiceAdapter;
 import org.onosproject.core.IdGenerator;
 import org.onosproject.event.TestListener;
 import org.onosproject.net.AnnotationKeys;
+import org.onosproject.net.ConnectPoint;
 import org.onosproject.net.DefaultAnnotations;
 import org.onosproject.net.DefaultDevice;
 import org.onosproject.net.Device;
@@ -37,20 +48,38 @@ import org.onosproject.net.driver.DefaultDriver;
 import org.onosproject.net.driver.DriverRegistry;
 import org.onosproject.net.driver.impl.DriverManager;
 import org.onosproject.net.driver.impl.DriverRegistryManager;
+import org.onosproject.net.PortNumber;
+import org.onosproject.net.flow.DefaultTrafficSelector;
 import org.onosproject.net.flow.DefaultTrafficTreatment;
+import org.onosproject.net.packet.DefaultInboundPacket;
 import org.onosproject.net.packet.DefaultOutboundPacket;
 import org.onosproject.net.packet.OutboundPacket;
+import org.onosproject.net.packet.PacketContext;
+import org.onosproject.net.packet.PacketContextAdapter;
+import org.onosproject.net.packet.PacketProcessor;
+import org.onosproject.net.packet.PacketProcessorEntry;
 import org.onosproject.net.packet.PacketProgrammable;
+import org.onosproject.net.packet.PacketProvider;
 import org.onosproject.net.packet.PacketProviderRegistry;
+import org.onosproject.net.packet.PacketProviderService;
 import org.onosproject.net.pi.PiPipeconfServiceAdapter;
+import org.onosproject.net.provider.AbstractProvider;
 import org.onosproject.net.provider.ProviderId;
 import org.onosproject.net.provider.TestProvider;
 import org.onosproject.store.trivial.SimplePacketStore;
 
 import java.nio.ByteBuffer;
+import java.util.Dictionary;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.onosproject.net.NetTestTools.injectEventDispatcher;
 
 /**
@@ -62,6 +91,8 @@ public class PacketManagerTest {
 
     private static final DeviceId FOO_DID = DeviceId.deviceId("foo:002");
 
+    private static final ProviderId BAR_PID = new ProviderId("bar", "bar");
+
     private static final DefaultAnnotations ANNOTATIONS =
             DefaultAnnotations.builder().set(AnnotationKeys.DRIVER, "foo").build();
 
@@ -86,8 +117,9 @@ public class PacketManagerTest {
         mgr.deviceService = new TestDeviceService();
         mgr.deviceService = new TestDeviceService();
         mgr.coreService = new TestCoreService();
+        mgr.cfgService = new ComponentConfigAdapter();
         providerRegistry = mgr;
-        mgr.activate();
+        mgr.activate(null);
 
         DriverRegistryManager driverRegistry = new DriverRegistryManager();
         driverService = new TestDriverManager(driverRegistry);
@@ -108,6 +140,168 @@ public class PacketManagerTest {
         assertEquals("Packet not emitted correctly", packet, emittedPacket);
     }
 
+    @After
+    public void tearDown() {
+        mgr.deactivate();
+    }
+
+    /**
+     * Tests that processors only see the packets matching their selector.
+     */
+    @Test
+    public void processorSelectors() {
+        TestProcessor arp = new TestProcessor(null);
+        TestProcessor udp = new TestProcessor(null);
+        TestProcessor all = new TestProcessor(null);
+        mgr.addProcessor(arp, PacketProcessor.director(1),
+                         DefaultTrafficSelector.builder().matchEthType(Ethernet.TYPE_ARP).build());
+        mgr.addProcessor(udp, PacketProcessor.director(2),
+                         DefaultTrafficSelector.builder().matchEthType(Ethernet.TYPE_IPV4)
+                                 .matchIPProtocol(IPv4.PROTOCOL_UDP).build());
+        mgr.addProcessor(all, PacketProcessor.director(3));
+
+        PacketProviderService providerService = providerRegistry.register(new TestPacketProvider());
+        providerService.processPacket(packetContext(arpPacket()));
+        providerService.processPacket(packetContext(udpPacket()));
+        providerService.processPacket(packetContext(udpPacket()));
+
+        assertEquals("Incorrect ARP processor invocations", 1, arp.invocations);
+        assertEquals("Incorrect UDP processor invocations", 2, udp.invocations);
+        assertEquals("Incorrect catch-all processor invocations", 3, all.invocations);
+
+        List<PacketProcessorEntry> entries = mgr.getProcessors();
+        assertEquals(3, entries.size());
+        for (PacketProcessorEntry entry : entries) {
+            long histogramCount = entry.latencyHistogram().values().stream().mapToLong(Long::longValue).sum();
+            assertEquals("Histogram does not account for all invocations", entry.invocations(), histogramCount);
+            assertEquals(Long.valueOf(Long.MAX_VALUE), entry.latencyHistogram().lastKey());
+        }
+    }
+
+    /**
+     * Tests that IP protocol selectors do not reject IPv6 packets carrying
+     * extension headers.
+     */
+    @Test
+    public void processorSelectorsBehindExtensionHeaders() {
+        TestProcessor icmp6 = new TestProcessor(null);
+        TestProcessor udp = new TestProcessor(null);
+        mgr.addProcessor(icmp6, PacketProcessor.director(1),
+                         DefaultTrafficSelector.builder().matchEthType(Ethernet.TYPE_IPV6)
+                                 .matchIPProtocol(IPv6.PROTOCOL_ICMP6).build());
+        mgr.addProcessor(udp, PacketProcessor.director(2),
+                         DefaultTrafficSelector.builder().matchEthType(Ethernet.TYPE_IPV6)
+                                 .matchIPProtocol(IPv6.PROTOCOL_UDP).build());
+
+        PacketProviderService providerService = providerRegistry.register(new TestPacketProvider());
+        providerService.processPacket(packetContext(mldPacket()));
+
+        assertEquals("Incorrect ICMPv6 processor invocations", 1, icmp6.invocations);
+        assertEquals("Incorrect UDP processor invocations", 1, udp.invocations);
+    }
+
+    /**
+     * Tests that packets are processed on the processing lanes when enabled.
+     */
+    @Test
+    public void processingLanes() throws InterruptedException {
+        mgr.modified(new ComponentContextAdapter() {
+            @Override
+            public Dictionary getProperties() {
+                Hashtable<String, String> props = new Hashtable<>();
+                props.put("packetProcessingLanes", "2");
+                return props;
+            }
+        });
+
+        CountDownLatch latch = new CountDownLatch(4);
+        TestProcessor processor = new TestProcessor(latch);
+        mgr.addProcessor(processor, PacketProcessor.director(1));
+
+        PacketProviderService providerService = providerRegistry.register(new TestPacketProvider());
+        for (int i = 0; i < 4; i++) {
+            providerService.processPacket(packetContext(udpPacket()));
+        }
+        assertTrue("Packets not processed", latch.await(5, TimeUnit.SECONDS));
+        assertEquals(4, processor.invocations);
+        assertTrue("Packets processed on the provider thread",
+                   processor.threads.stream().noneMatch(t -> t == Thread.currentThread()));
+    }
+
+    private static Ethernet arpPacket() {
+        ARP arp = new ARP();
+        arp.setHardwareType(ARP.HW_TYPE_ETHERNET).setProtocolType(ARP.PROTO_TYPE_IP)
+                .setHardwareAddressLength((byte) 6).setProtocolAddressLength((byte) 4)
+                .setOpCode(ARP.OP_REQUEST)
+                .setSenderHardwareAddress(new byte[6]).setSenderProtocolAddress(new byte[4])
+                .setTargetHardwareAddress(new byte[6]).setTargetProtocolAddress(new byte[4]);
+        Ethernet eth = new Ethernet();
+        eth.setEtherType(Ethernet.TYPE_ARP).setSourceMACAddress("00:00:00:00:00:01")
+                .setDestinationMACAddress("ff:ff:ff:ff:ff:ff").setPayload(arp);
+        return eth;
+    }
+
+    private static Ethernet udpPacket() {
+        IPv4 ip = new IPv4();
+        ip.setProtocol(IPv4.PROTOCOL_UDP).setSourceAddress("10.0.0.1").setDestinationAddress("10.0.0.2")
+                .setPayload(new UDP());
+        Ethernet eth = new Ethernet();
+        eth.setEtherType(Ethernet.TYPE_IPV4).setSourceMACAddress("00:00:00:00:00:01")
+                .setDestinationMACAddress("00:00:00:00:00:02").setPayload(ip);
+        return eth;
+    }
+
+    private static Ethernet mldPacket() {
+        ICMP6 icmp6 = new ICMP6();
+        icmp6.setIcmpType(ICMP6.MCAST_REPORT);
+        HopByHopOptions hopByHop = new HopByHopOptions();
+        hopByHop.setNextHeader(IPv6.PROTOCOL_ICMP6);
+        hopByHop.setOptions(new byte[6]);
+        hopByHop.setPayload(icmp6);
+        IPv6 ip = new IPv6();
+        ip.setNextHeader(IPv6.PROTOCOL_HOPOPT).setSourceAddress(new byte[16])
+                .setDestinationAddress(new byte[16]).setPayload(hopByHop);
+        Ethernet eth = new Ethernet();
+        eth.setEtherType(Ethernet.TYPE_IPV6).setSourceMACAddress("00:00:00:00:00:01")
+                .setDestinationMACAddress("33:33:00:00:00:16").setPayload(ip);
+        return eth;
+    }
+
+    private static PacketContext packetContext(Ethernet eth) {
+        ConnectPoint cp = new ConnectPoint(FOO_DID, PortNumber.portNumber(1));
+        return new PacketContextAdapter(0, new DefaultInboundPacket(cp, eth, ByteBuffer.wrap(eth.serialize())),
+                                        null, false);
+    }
+
+    private static class TestProcessor implements PacketProcessor {
+        private final CountDownLatch latch;
+        private final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+        private volatile int invocations;
+
+        TestProcessor(CountDownLatch latch) {
+            this.latch = latch;
+        }
+
+        @Override
+        public synchronized void process(PacketContext context) {
+            invocations++;
+            threads.add(Thread.currentThread());
+            if (latch != null) {
+                latch.countDown();
+            }
+        }
+    }
+
+    private static class TestPacketProvider extends AbstractProvider implements PacketProvider {
+        TestPacketProvider() {
+            super(BAR_PID);
+        }
+
+        @Override
+        public void emit(OutboundPacket packet) {
+        }
+    }
+
     private static class TestDeviceService extends DeviceServiceAdapter {
         @Override
         public int getDeviceCount() {
@@ -15,20 +15,27 @@
  */
 package org.onosproject.net.topology.impl;
 
+import com.google.common.collect.ImmutableList;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.onlab.junit.TestUtils;
+import org.onlab.metrics.MetricsManager;
+import org.onosproject.cfg.ComponentConfigAdapter;
 import org.onosproject.net.DeviceId;
 import org.onosproject.net.ElementId;
 import org.onosproject.net.Host;
 import org.onosproject.net.HostId;
+import org.onosproject.net.Link;
 import org.onosproject.net.Path;
 import org.onosproject.net.host.HostServiceAdapter;
+import org.onosproject.net.link.LinkEvent;
 import org.onosproject.net.provider.ProviderId;
 import org.onosproject.net.topology.LinkWeigher;
 import org.onosproject.net.topology.PathService;
 import org.onosproject.net.topology.Topology;
+import org.onosproject.net.topology.TopologyEvent;
+import org.onosproject.net.topology.TopologyListener;
 import org.onosproject.net.topology.TopologyServiceAdapter;
 
 import java.util.HashMap;
@@ -53,6 +60,7 @@ public class PathManagerTest {
 
     private FakeTopoMgr fakeTopoMgr = new FakeTopoMgr();
     private FakeHostMgr fakeHostMgr = new FakeHostMgr();
+    private MetricsManager metricsManager = new MetricsManager();
 
     @Before
     public void setUp() throws Exception {
@@ -60,7 +68,9 @@ public class PathManagerTest {
         service = mgr;
         TestUtils.setField(mgr, "topologyService", fakeTopoMgr);
         TestUtils.setField(mgr, "hostService", fakeHostMgr);
-        mgr.activate();
+        mgr.cfgService = new ComponentConfigAdapter();
+        mgr.metricsService = metricsManager;
+        mgr.activate(null);
     }
 
     @After
@@ -137,6 +147,51 @@ public class PathManagerTest {
         assertTrue("there should be no paths", paths.isEmpty());
     }
 
+    @Test
+    public void cachedPaths() {
+        DeviceId src = did("src");
+        DeviceId dst = did("dst");
+        fakeTopoMgr.paths.add(createPath("src", "middle", "dst"));
+        validatePaths(service.getPaths(src, dst), 1, 2, src, dst);
+        validatePaths(service.getPaths(src, dst), 1, 2, src, dst);
+        assertEquals("incorrect path computation count", 1, fakeTopoMgr.queries);
+        assertEquals("incorrect hit count", 1, counter("hits"));
+        assertEquals("incorrect miss count", 1, counter("misses"));
+
+        fakeTopoMgr.listener.event(new TopologyEvent(TopologyEvent.Type.TOPOLOGY_CHANGED, null,
+                                                     ImmutableList.of()));
+        validatePaths(service.getPaths(src, dst), 1, 2, src, dst);
+        assertEquals("incorrect path computation count", 2, fakeTopoMgr.queries);
+    }
+
+    @Test
+    public void selectivelyInvalidatedPaths() throws Exception {
+        TestUtils.setField(mgr, "pathCacheSelectiveInvalidation", true);
+        DeviceId src = did("src");
+        DeviceId dst = did("dst");
+        Path path = createPath("src", "middle", "dst");
+        fakeTopoMgr.paths.add(path);
+        validatePaths(service.getPaths(src, dst), 1, 2, src, dst);
+
+        linkRemoved(link("other", 1, "middle", 2));
+        validatePaths(service.getPaths(src, dst), 1, 2, src, dst);
+        assertEquals("incorrect path computation count", 1, fakeTopoMgr.queries);
+
+        linkRemoved(path.links().get(1));
+        validatePaths(service.getPaths(src, dst), 1, 2, src, dst);
+        assertEquals("incorrect path computation count", 2, fakeTopoMgr.queries);
+    }
+
+    private void linkRemoved(Link link) {
+        fakeTopoMgr.listener.event(new TopologyEvent(TopologyEvent.Type.TOPOLOGY_CHANGED, null,
+                ImmutableList.of(new LinkEvent(LinkEvent.Type.LINK_REMOVED, link))));
+    }
+
+    private long counter(String name) {
+        return metricsManager.getCounters((n, m) -> n.endsWith("PathCache." + name))
+                .values().iterator().next().getCount();
+    }
+
     // Makes sure the set of paths meets basic expectations.
     private void validatePaths(Set<Path> paths, int count, int length,
                                ElementId src, ElementId dst) {
@@ -151,6 +206,8 @@ public class PathManagerTest {
     // Fake entity to give out paths.
     private class FakeTopoMgr extends TopologyServiceAdapter {
         Set<Path> paths = new HashSet<>();
+        TopologyListener listener;
+        int queries;
 
         @Override
         public Set<Path> getPaths(Topology topology, DeviceId src,
@@ -161,8 +218,14 @@ public class PathManagerTest {
         @Override
         public Set<Path> getPaths(Topology topology, DeviceId src,
                                   DeviceId dst, LinkWeigher weight) {
+            queries++;
             return paths;
         }
+
+        @Override
+        public void addListener(TopologyListener listener) {
+            this.listener = listener;
+        }
     }
 
     // Fake entity to give out hosts.
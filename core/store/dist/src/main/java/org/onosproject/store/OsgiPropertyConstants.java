@@ -38,6 +38,15 @@ public final class OsgiPropertyConstants {
     public static final String MAX_BACKUP_COUNT = "backupCount";
     public static final int MAX_BACKUP_COUNT_DEFAULT = 2;
 
+    public static final String COMPACT_FLOW_BUCKETS = "compactFlowBuckets";
+    public static final boolean COMPACT_FLOW_BUCKETS_DEFAULT = false;
+
+    public static final String DELTA_FLOW_BACKUPS = "deltaFlowBackups";
+    public static final boolean DELTA_FLOW_BACKUPS_DEFAULT = false;
+
+    public static final String FLOW_CHANGE_LOG_SIZE = "flowChangeLogSize";
+    public static final int FLOW_CHANGE_LOG_SIZE_DEFAULT = 1024;
+
     public static final String ELECTION_TIMEOUT_MILLIS = "electionTimeoutMillis";
     public static final long ELECTION_TIMEOUT_MILLIS_DEFAULT = 2500;
 
@@ -64,4 +73,10 @@ public final class OsgiPropertyConstants {
 
     public static final String LINK_WEIGHT_FUNCTION = "linkWeightFunction";
     public static final String LINK_WEIGHT_FUNCTION_DEFAULT = "hopCount";
+
+    public static final String INCREMENTAL_TOPOLOGY = "incrementalTopology";
+    public static final boolean INCREMENTAL_TOPOLOGY_DEFAULT = false;
+
+    public static final String VERIFY_INCREMENTAL_TOPOLOGY = "verifyIncrementalTopology";
+    public static final boolean VERIFY_INCREMENTAL_TOPOLOGY_DEFAULT = false;
 }
@@ -25,6 +25,7 @@ import org.onosproject.store.cluster.messaging.ClusterCommunicationService;
 import org.onosproject.store.cluster.messaging.ClusterMessage;
 import org.onosproject.store.cluster.messaging.ClusterMessageHandler;
 import org.onosproject.store.cluster.messaging.Endpoint;
+import org.onosproject.store.cluster.messaging.MessageEncoder;
 import org.onosproject.store.cluster.messaging.MessageSubject;
 import org.onosproject.store.cluster.messaging.MessagingService;
 import org.onosproject.utils.MeteringAgent;
@@ -124,11 +125,7 @@ public class ClusterCommunicationManager implements ClusterCommunicationService
                                                NodeId toNodeId) {
         checkPermission(CLUSTER_WRITE);
         try {
-            byte[] payload = new ClusterMessage(
-                    localNodeId,
-                    subject,
-                    timeFunction(encoder, subjectMeteringAgent, SERIALIZING).apply(message)
-                    ).getBytes();
+            byte[] payload = encode(localNodeId, subject, message, encoder);
             return doUnicast(subject, payload, toNodeId);
         } catch (Exception e) {
             return Tools.exceptionalFuture(e);
@@ -141,11 +138,7 @@ public class ClusterCommunicationManager implements ClusterCommunicationService
                               Function<M, byte[]> encoder,
                               Set<NodeId> nodes) {
         checkPermission(CLUSTER_WRITE);
-        byte[] payload = new ClusterMessage(
-                localNodeId,
-                subject,
-                timeFunction(encoder, subjectMeteringAgent, SERIALIZING).apply(message))
-                .getBytes();
+        byte[] payload = encode(localNodeId, subject, message, encoder);
         nodes.forEach(nodeId -> doUnicast(subject, payload, nodeId));
     }
 
@@ -157,18 +150,41 @@ public class ClusterCommunicationManager implements ClusterCommunicationService
                                                       NodeId toNodeId) {
         checkPermission(CLUSTER_WRITE);
         try {
-            ClusterMessage envelope = new ClusterMessage(
-                    clusterService.getLocalNode().id(),
-                    subject,
-                    timeFunction(encoder, subjectMeteringAgent, SERIALIZING).
-                            apply(message));
-            return sendAndReceive(subject, envelope.getBytes(), toNodeId).
+            byte[] payload = encode(clusterService.getLocalNode().id(), subject, message, encoder);
+            return sendAndReceive(subject, payload, toNodeId).
                     thenApply(bytes -> timeFunction(decoder, subjectMeteringAgent, DESERIALIZING).apply(bytes));
         } catch (Exception e) {
             return Tools.exceptionalFuture(e);
         }
     }
 
+    /**
+     * Encodes the message into the bytes of a cluster message. A
+     * {@link MessageEncoder} writes the message straight into the cluster
+     * message; any other encoder's bytes are copied into it.
+     *
+     * @param sender message sender
+     * @param subject message subject
+     * @param message message to encode
+     * @param encoder message encoder
+     * @param <M> message type
+     * @return cluster message bytes
+     */
+    @SuppressWarnings("unchecked")
+    private <M> byte[] encode(NodeId sender, MessageSubject subject, M message, Function<M, byte[]> encoder) {
+        if (encoder instanceof MessageEncoder) {
+            MessageEncoder<M> messageEncoder = (MessageEncoder<M>) encoder;
+            return timeFunction((M m) -> messageEncoder.encode(
+                    m, payload -> ClusterMessage.getBytes(sender, subject, payload)),
+                    subjectMeteringAgent, SERIALIZING).apply(message);
+        }
+        return new ClusterMessage(
+                sender,
+                subject,
+                timeFunction(encoder, subjectMeteringAgent, SERIALIZING).apply(message))
+                .getBytes();
+    }
+
     private CompletableFuture<Void> doUnicast(MessageSubject subject, byte[] payload, NodeId toNodeId) {
         ControllerNode node = clusterService.getNode(toNodeId);
         checkArgument(node != null, "Unknown nodeId: %s", toNodeId);
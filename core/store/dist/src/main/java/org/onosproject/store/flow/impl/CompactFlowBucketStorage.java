@@ -0,0 +1,544 @@
+/*
+ * Copyright 2020-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.flow.impl;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import com.google.common.collect.Lists;
+import org.onosproject.core.GroupId;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.flow.DefaultFlowEntry;
+import org.onosproject.net.flow.DefaultFlowRule;
+import org.onosproject.net.flow.FlowEntry;
+import org.onosproject.net.flow.FlowEntry.FlowEntryState;
+import org.onosproject.net.flow.FlowEntry.FlowLiveType;
+import org.onosproject.net.flow.FlowId;
+import org.onosproject.net.flow.FlowRule;
+import org.onosproject.net.flow.FlowRule.FlowRemoveReason;
+import org.onosproject.net.flow.IndexTableId;
+import org.onosproject.net.flow.StoredFlowEntry;
+import org.onosproject.net.flow.TableId;
+import org.onosproject.net.flow.TrafficSelector;
+import org.onosproject.net.flow.TrafficTreatment;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Flow bucket storage that keeps flow entries in primitive columnar arrays.
+ * <p>
+ * Rather than retaining a {@link StoredFlowEntry} object and a nested map per flow, this storage keeps the cookie,
+ * priority, timeouts, counters, state and timestamps of each entry in parallel primitive arrays indexed by slot.
+ * Selectors, treatments and other immutable objects are interned so that entries sharing the same match or
+ * actions share a single instance. Slots are located through an open hash index keyed by the flow identifier.
+ * <p>
+ * {@link FlowEntry} instances are only materialized on read. Entries returned by this storage are therefore
+ * detached copies: changes made to them are not reflected in the storage unless they are made through
+ * {@link #update(FlowRule, Function)}.
+ */
+public class CompactFlowBucketStorage implements FlowBucketStorage {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CompactFlowBucketStorage.class);
+
+    private static final int INITIAL_CAPACITY = 8;
+    private static final int NIL = -1;
+    private static final byte NULL_ORDINAL = -1;
+
+    private static final FlowEntryState[] STATES = FlowEntryState.values();
+    private static final FlowLiveType[] LIVE_TYPES = FlowLiveType.values();
+    private static final FlowRemoveReason[] REASONS = FlowRemoveReason.values();
+
+    private static final Interner<Object> INTERNER = Interners.newWeakInterner();
+
+    private int size;
+    private int[] index;
+    private int[] next;
+
+    private long[] ids;
+    private long[] created;
+    private long[] lastSeen;
+    private long[] life;
+    private long[] packets;
+    private long[] bytes;
+    private int[] priorities;
+    private int[] timeouts;
+    private int[] hardTimeouts;
+    private int[] errTypes;
+    private int[] errCodes;
+    private short[] appIds;
+    private byte[] states;
+    private byte[] liveTypes;
+    private byte[] reasons;
+    private boolean[] permanent;
+
+    private DeviceId[] devices;
+    private TableId[] tables;
+    private GroupId[] groups;
+    private TrafficSelector[] selectors;
+    private TrafficTreatment[] treatments;
+
+    CompactFlowBucketStorage() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Allocates empty columns with the given capacity.
+     *
+     * @param capacity the number of slots to allocate
+     */
+    private void allocate(int capacity) {
+        size = 0;
+        index = new int[capacity * 2];
+        Arrays.fill(index, NIL);
+        next = new int[capacity];
+        ids = new long[capacity];
+        created = new long[capacity];
+        lastSeen = new long[capacity];
+        life = new long[capacity];
+        packets = new long[capacity];
+        bytes = new long[capacity];
+        priorities = new int[capacity];
+        timeouts = new int[capacity];
+        hardTimeouts = new int[capacity];
+        errTypes = new int[capacity];
+        errCodes = new int[capacity];
+        appIds = new short[capacity];
+        states = new byte[capacity];
+        liveTypes = new byte[capacity];
+        reasons = new byte[capacity];
+        permanent = new boolean[capacity];
+        devices = new DeviceId[capacity];
+        tables = new TableId[capacity];
+        groups = new GroupId[capacity];
+        selectors = new TrafficSelector[capacity];
+        treatments = new TrafficTreatment[capacity];
+    }
+
+    /**
+     * Grows the columns to the given capacity and rebuilds the hash index.
+     *
+     * @param capacity the new number of slots
+     */
+    private void grow(int capacity) {
+        next = Arrays.copyOf(next, capacity);
+        ids = Arrays.copyOf(ids, capacity);
+        created = Arrays.copyOf(created, capacity);
+        lastSeen = Arrays.copyOf(lastSeen, capacity);
+        life = Arrays.copyOf(life, capacity);
+        packets = Arrays.copyOf(packets, capacity);
+        bytes = Arrays.copyOf(bytes, capacity);
+        priorities = Arrays.copyOf(priorities, capacity);
+        timeouts = Arrays.copyOf(timeouts, capacity);
+        hardTimeouts = Arrays.copyOf(hardTimeouts, capacity);
+        errTypes = Arrays.copyOf(errTypes, capacity);
+        errCodes = Arrays.copyOf(errCodes, capacity);
+        appIds = Arrays.copyOf(appIds, capacity);
+        states = Arrays.copyOf(states, capacity);
+        liveTypes = Arrays.copyOf(liveTypes, capacity);
+        reasons = Arrays.copyOf(reasons, capacity);
+        permanent = Arrays.copyOf(permanent, capacity);
+        devices = Arrays.copyOf(devices, capacity);
+        tables = Arrays.copyOf(tables, capacity);
+        groups = Arrays.copyOf(groups, capacity);
+        selectors = Arrays.copyOf(selectors, capacity);
+        treatments = Arrays.copyOf(treatments, capacity);
+
+        index = new int[capacity * 2];
+        Arrays.fill(index, NIL);
+        for (int slot = 0; slot < size; slot++) {
+            link(slot);
+        }
+    }
+
+    /**
+     * Returns the hash index position for the given flow identifier.
+     *
+     * @param id the flow identifier value
+     * @return the hash index position
+     */
+    private int position(long id) {
+        int hash = (int) (id ^ (id >>> 32));
+        hash ^= (hash >>> 16);
+        return hash & (index.length - 1);
+    }
+
+    /**
+     * Links the given slot into the hash index.
+     *
+     * @param slot the slot to link
+     */
+    private void link(int slot) {
+        int position = position(ids[slot]);
+        next[slot] = index[position];
+        index[position] = slot;
+    }
+
+    /**
+     * Unlinks the given slot from the hash index.
+     *
+     * @param slot the slot to unlink
+     */
+    private void unlink(int slot) {
+        int position = position(ids[slot]);
+        int current = index[position];
+        if (current == slot) {
+            index[position] = next[slot];
+            return;
+        }
+        while (current != NIL) {
+            if (next[current] == slot) {
+                next[current] = next[slot];
+                return;
+            }
+            current = next[current];
+        }
+    }
+
+    /**
+     * Returns the slot holding the entry matching the given rule.
+     * <p>
+     * Rules are matched the same way {@link DefaultFlowRule#equals(Object)} matches them, on device, priority,
+     * selector and table, within the set of entries sharing the rule's flow identifier.
+     *
+     * @param rule the rule to lookup
+     * @return the matching slot or {@code -1} if no entry matches the rule
+     */
+    private int find(FlowRule rule) {
+        long id = rule.id().value();
+        int slot = index[position(id)];
+        while (slot != NIL) {
+            if (ids[slot] == id
+                && priorities[slot] == rule.priority()
+                && Objects.equals(devices[slot], rule.deviceId())
+                && Objects.equals(selectors[slot], rule.selector())
+                && Objects.equals(tables[slot], rule.table())) {
+                return slot;
+            }
+            slot = next[slot];
+        }
+        return NIL;
+    }
+
+    /**
+     * Writes all fields of the given entry to the given slot.
+     *
+     * @param slot  the slot to write
+     * @param entry the entry to write
+     */
+    private void write(int slot, FlowEntry entry) {
+        ids[slot] = entry.id().value();
+        created[slot] = entry instanceof DefaultFlowRule
+            ? ((DefaultFlowRule) entry).created() : System.currentTimeMillis();
+        priorities[slot] = entry.priority();
+        timeouts[slot] = entry.timeout();
+        hardTimeouts[slot] = entry.hardTimeout();
+        errTypes[slot] = entry.errType();
+        errCodes[slot] = entry.errCode();
+        appIds[slot] = entry.appId();
+        reasons[slot] = ordinal(entry.reason());
+        permanent[slot] = entry.isPermanent();
+        devices[slot] = intern(entry.deviceId());
+        tables[slot] = intern(entry.table());
+        groups[slot] = intern(entry.groupId());
+        selectors[slot] = intern(entry.selector());
+        treatments[slot] = intern(entry.treatment());
+        writeState(slot, entry);
+    }
+
+    /**
+     * Writes the mutable state and statistics of the given entry to the given slot.
+     *
+     * @param slot  the slot to write
+     * @param entry the entry from which to read the state
+     */
+    private void writeState(int slot, FlowEntry entry) {
+        states[slot] = ordinal(entry.state());
+        liveTypes[slot] = ordinal(entry.liveType());
+        life[slot] = entry.life(NANOSECONDS);
+        packets[slot] = entry.packets();
+        bytes[slot] = entry.bytes();
+        lastSeen[slot] = entry.lastSeen();
+    }
+
+    /**
+     * Materializes the flow entry stored in the given slot.
+     *
+     * @param slot the slot to read
+     * @return a new flow entry holding the state of the given slot
+     */
+    private StoredFlowEntry read(int slot) {
+        return new DefaultFlowEntry(
+            new SlotRule(slot),
+            valueOf(STATES, states[slot]),
+            life[slot],
+            NANOSECONDS,
+            valueOf(LIVE_TYPES, liveTypes[slot]),
+            packets[slot],
+            bytes[slot],
+            errTypes[slot],
+            errCodes[slot],
+            lastSeen[slot],
+            created[slot]);
+    }
+
+    /**
+     * Removes the given slot, moving the last slot into its place.
+     *
+     * @param slot the slot to remove
+     */
+    private void delete(int slot) {
+        unlink(slot);
+        int last = size - 1;
+        if (slot != last) {
+            unlink(last);
+            ids[slot] = ids[last];
+            created[slot] = created[last];
+            lastSeen[slot] = lastSeen[last];
+            life[slot] = life[last];
+            packets[slot] = packets[last];
+            bytes[slot] = bytes[last];
+            priorities[slot] = priorities[last];
+            timeouts[slot] = timeouts[last];
+            hardTimeouts[slot] = hardTimeouts[last];
+            errTypes[slot] = errTypes[last];
+            errCodes[slot] = errCodes[last];
+            appIds[slot] = appIds[last];
+            states[slot] = states[last];
+            liveTypes[slot] = liveTypes[last];
+            reasons[slot] = reasons[last];
+            permanent[slot] = permanent[last];
+            devices[slot] = devices[last];
+            tables[slot] = tables[last];
+            groups[slot] = groups[last];
+            selectors[slot] = selectors[last];
+            treatments[slot] = treatments[last];
+            link(slot);
+        }
+        devices[last] = null;
+        tables[last] = null;
+        groups[last] = null;
+        selectors[last] = null;
+        treatments[last] = null;
+        size--;
+    }
+
+    @Override
+    public synchronized int count() {
+        return size;
+    }
+
+    @Override
+    public synchronized StoredFlowEntry get(FlowRule rule) {
+        int slot = find(rule);
+        return slot != NIL ? read(slot) : null;
+    }
+
+    @Override
+    public synchronized Collection<StoredFlowEntry> getAll() {
+        List<StoredFlowEntry> entries = Lists.newArrayListWithCapacity(size);
+        for (int slot = 0; slot < size; slot++) {
+            entries.add(read(slot));
+        }
+        return entries;
+    }
+
+    @Override
+    public synchronized void add(FlowEntry rule) {
+        int slot = find(rule);
+        if (slot == NIL) {
+            if (size == ids.length) {
+                grow(ids.length * 2);
+            }
+            slot = size++;
+            write(slot, rule);
+            link(slot);
+        } else {
+            write(slot, rule);
+        }
+    }
+
+    @Override
+    public synchronized boolean update(FlowEntry rule) {
+        int slot = find(rule);
+        if (slot == NIL || !(rule instanceof DefaultFlowEntry)) {
+            return false;
+        }
+        if (((DefaultFlowEntry) rule).created() < created[slot]) {
+            LOGGER.debug("Trying to update more recent flow entry {} (stored: {})", rule, read(slot));
+            return false;
+        }
+        write(slot, rule);
+        return true;
+    }
+
+    @Override
+    public synchronized <T> T update(FlowRule rule, Function<StoredFlowEntry, T> function) {
+        int slot = find(rule);
+        if (slot == NIL) {
+            return null;
+        }
+        StoredFlowEntry entry = read(slot);
+        T result = function.apply(entry);
+        writeState(slot, entry);
+        return result;
+    }
+
+    @Override
+    public synchronized FlowEntry remove(FlowEntry rule) {
+        int slot = find(rule);
+        if (slot == NIL) {
+            return null;
+        }
+        if (rule instanceof DefaultFlowEntry && ((DefaultFlowEntry) rule).created() < created[slot]) {
+            LOGGER.debug("Trying to remove more recent flow entry {} (stored: {})", rule, read(slot));
+            return null;
+        }
+        FlowEntry removed = read(slot);
+        delete(slot);
+        return removed;
+    }
+
+    @Override
+    public synchronized FlowBucketStorage copy() {
+        CompactFlowBucketStorage copy = new CompactFlowBucketStorage();
+        for (int slot = 0; slot < size; slot++) {
+            copy.add(read(slot));
+        }
+        return copy;
+    }
+
+    @Override
+    public synchronized void clear() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Interns the given object.
+     *
+     * @param object the object to intern
+     * @param <T>    the object type
+     * @return the canonical instance of the given object or {@code null} if the object is {@code null}
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T intern(T object) {
+        return object != null ? (T) INTERNER.intern(object) : null;
+    }
+
+    private static byte ordinal(Enum<?> value) {
+        return value != null ? (byte) value.ordinal() : NULL_ORDINAL;
+    }
+
+    private static <E extends Enum<E>> E valueOf(E[] values, byte ordinal) {
+        return ordinal != NULL_ORDINAL ? values[ordinal] : null;
+    }
+
+    /**
+     * Flyweight {@link FlowRule} view of a single slot.
+     * <p>
+     * Views are only used to materialize a {@link DefaultFlowEntry} while the storage lock is held and must not
+     * escape the storage.
+     */
+    private final class SlotRule implements FlowRule {
+        private final int slot;
+
+        private SlotRule(int slot) {
+            this.slot = slot;
+        }
+
+        @Override
+        public FlowId id() {
+            return FlowId.valueOf(ids[slot]);
+        }
+
+        @Override
+        public short appId() {
+            return appIds[slot];
+        }
+
+        @Override
+        public GroupId groupId() {
+            return groups[slot];
+        }
+
+        @Override
+        public int priority() {
+            return priorities[slot];
+        }
+
+        @Override
+        public DeviceId deviceId() {
+            return devices[slot];
+        }
+
+        @Override
+        public TrafficSelector selector() {
+            return selectors[slot];
+        }
+
+        @Override
+        public TrafficTreatment treatment() {
+            return treatments[slot];
+        }
+
+        @Override
+        public int timeout() {
+            return timeouts[slot];
+        }
+
+        @Override
+        public int hardTimeout() {
+            return hardTimeouts[slot];
+        }
+
+        @Override
+        public FlowRemoveReason reason() {
+            return valueOf(REASONS, reasons[slot]);
+        }
+
+        @Override
+        public boolean isPermanent() {
+            return permanent[slot];
+        }
+
+        @Override
+        public int tableId() {
+            TableId table = tables[slot];
+            return table.type() == TableId.Type.INDEX ? ((IndexTableId) table).id() : table.hashCode();
+        }
+
+        @Override
+        public TableId table() {
+            return tables[slot];
+        }
+
+        @Override
+        public boolean exactMatch(FlowRule rule) {
+            return rule != null
+                && ids[slot] == rule.id().value()
+                && priorities[slot] == rule.priority()
+                && Objects.equals(devices[slot], rule.deviceId())
+                && Objects.equals(selectors[slot], rule.selector())
+                && Objects.equals(tables[slot], rule.table())
+                && Objects.equals(treatments[slot], rule.treatment());
+        }
+    }
+}
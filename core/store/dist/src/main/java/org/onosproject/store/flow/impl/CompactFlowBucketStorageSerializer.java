@@ -0,0 +1,61 @@
+/*
+ * Copyright 2020-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.flow.impl;
+
+import java.util.Collection;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.Serializer;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import org.onosproject.net.flow.DefaultFlowEntry;
+import org.onosproject.net.flow.StoredFlowEntry;
+
+/**
+ * Kryo Serializer for {@link CompactFlowBucketStorage}.
+ * <p>
+ * The storage is written as a sequence of flow entries rather than as its internal columns so that the receiving
+ * node rebuilds its own columns and interns selectors and treatments against its local instances.
+ */
+public final class CompactFlowBucketStorageSerializer extends Serializer<CompactFlowBucketStorage> {
+
+    /**
+     * Creates {@link CompactFlowBucketStorage} serializer instance.
+     */
+    public CompactFlowBucketStorageSerializer() {
+        // non-null, mutable
+        super(false, false);
+    }
+
+    @Override
+    public void write(Kryo kryo, Output output, CompactFlowBucketStorage object) {
+        Collection<StoredFlowEntry> entries = object.getAll();
+        output.writeInt(entries.size(), true);
+        for (StoredFlowEntry entry : entries) {
+            kryo.writeObject(output, entry);
+        }
+    }
+
+    @Override
+    public CompactFlowBucketStorage read(Kryo kryo, Input input, Class<CompactFlowBucketStorage> type) {
+        CompactFlowBucketStorage storage = new CompactFlowBucketStorage();
+        int size = input.readInt(true);
+        for (int i = 0; i < size; i++) {
+            storage.add(kryo.readObject(input, DefaultFlowEntry.class));
+        }
+        return storage;
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2020-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.flow.impl;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import com.google.common.collect.Maps;
+import org.onosproject.net.flow.DefaultFlowEntry;
+import org.onosproject.net.flow.FlowEntry;
+import org.onosproject.net.flow.FlowId;
+import org.onosproject.net.flow.FlowRule;
+import org.onosproject.net.flow.StoredFlowEntry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Flow bucket storage backed by a map of {@link StoredFlowEntry} objects keyed by {@link FlowId}.
+ */
+public class DefaultFlowBucketStorage implements FlowBucketStorage {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DefaultFlowBucketStorage.class);
+    private final Map<FlowId, Map<StoredFlowEntry, StoredFlowEntry>> flowBucket;
+
+    DefaultFlowBucketStorage() {
+        this(Maps.newConcurrentMap());
+    }
+
+    private DefaultFlowBucketStorage(Map<FlowId, Map<StoredFlowEntry, StoredFlowEntry>> flowBucket) {
+        this.flowBucket = flowBucket;
+    }
+
+    /**
+     * Returns the flow entries for the given flow.
+     *
+     * @param flowId the flow identifier
+     * @return the flows for the given flow ID
+     */
+    private Map<StoredFlowEntry, StoredFlowEntry> getFlowEntries(FlowId flowId) {
+        Map<StoredFlowEntry, StoredFlowEntry> flowEntries = flowBucket.get(flowId);
+        return flowEntries != null ? flowEntries : flowBucket.computeIfAbsent(flowId, id -> Maps.newConcurrentMap());
+    }
+
+    @Override
+    public int count() {
+        return flowBucket.values()
+            .stream()
+            .mapToInt(entry -> entry.values().size())
+            .sum();
+    }
+
+    @Override
+    public StoredFlowEntry get(FlowRule rule) {
+        return getFlowEntries(rule.id()).get(rule);
+    }
+
+    @Override
+    public Collection<StoredFlowEntry> getAll() {
+        return flowBucket.values()
+            .stream()
+            .flatMap(entries -> entries.values().stream())
+            .collect(Collectors.toList());
+    }
+
+    @Override
+    public void add(FlowEntry rule) {
+        getFlowEntries(rule.id()).put((StoredFlowEntry) rule, (StoredFlowEntry) rule);
+    }
+
+    @Override
+    public boolean update(FlowEntry rule) {
+        AtomicBoolean updated = new AtomicBoolean();
+        getFlowEntries(rule.id()).computeIfPresent((StoredFlowEntry) rule, (k, stored) -> {
+            if (rule instanceof DefaultFlowEntry) {
+                DefaultFlowEntry newEntry = (DefaultFlowEntry) rule;
+                if (stored instanceof DefaultFlowEntry) {
+                    DefaultFlowEntry storedEntry = (DefaultFlowEntry) stored;
+                    if (newEntry.created() >= storedEntry.created()) {
+                        updated.set(true);
+                        return newEntry;
+                    } else {
+                        LOGGER.debug("Trying to update more recent flow entry {} (stored: {})", newEntry, stored);
+                        return stored;
+                    }
+                }
+            }
+            return stored;
+        });
+        return updated.get();
+    }
+
+    @Override
+    public <T> T update(FlowRule rule, Function<StoredFlowEntry, T> function) {
+        AtomicReference<T> resultRef = new AtomicReference<>();
+        getFlowEntries(rule.id()).computeIfPresent(new DefaultFlowEntry(rule), (k, stored) -> {
+            if (stored != null) {
+                resultRef.set(function.apply(stored));
+            }
+            return stored;
+        });
+        return resultRef.get();
+    }
+
+    @Override
+    public FlowEntry remove(FlowEntry rule) {
+        final AtomicReference<FlowEntry> removedRule = new AtomicReference<>();
+        flowBucket.computeIfPresent(rule.id(), (flowId, flowEntries) -> {
+            flowEntries.computeIfPresent((StoredFlowEntry) rule, (k, stored) -> {
+                if (rule instanceof DefaultFlowEntry) {
+                    DefaultFlowEntry toRemove = (DefaultFlowEntry) rule;
+                    if (stored instanceof DefaultFlowEntry) {
+                        DefaultFlowEntry storedEntry = (DefaultFlowEntry) stored;
+                        if (toRemove.created() < storedEntry.created()) {
+                            LOGGER.debug("Trying to remove more recent flow entry {} (stored: {})", toRemove, stored);
+                            // the key is not updated, removedRule remains null
+                            return stored;
+                        }
+                    }
+                }
+                removedRule.set(stored);
+                return null;
+            });
+            return flowEntries.isEmpty() ? null : flowEntries;
+        });
+        return removedRule.get();
+    }
+
+    @Override
+    public FlowBucketStorage copy() {
+        return new DefaultFlowBucketStorage(
+            flowBucket.entrySet()
+                .stream()
+                .map(e -> Maps.immutableEntry(e.getKey(), Maps.newHashMap(e.getValue())))
+                .collect(Collectors.toMap(e -> e.getKey(), e -> e.getValue())));
+    }
+
+    @Override
+    public void clear() {
+        flowBucket.clear();
+    }
+}
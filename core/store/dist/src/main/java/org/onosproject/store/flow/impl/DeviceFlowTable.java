@@ -30,6 +30,7 @@ import java.util.function.BiFunction;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import org.onlab.util.KryoNamespace;
@@ -67,7 +68,11 @@ public class DeviceFlowTable {
         .register(KryoNamespaces.API)
         .register(BucketId.class)
         .register(FlowBucket.class)
+        .register(DefaultFlowBucketStorage.class)
+        .register(new CompactFlowBucketStorageSerializer(), CompactFlowBucketStorage.class)
         .register(FlowBucketDigest.class)
+        .register(FlowBucketDelta.class)
+        .register(FlowBucketStatistics.class)
         .register(LogicalTimestamp.class)
         .register(Timestamped.class)
         .build());
@@ -77,6 +82,8 @@ public class DeviceFlowTable {
     private final MessageSubject getDigestsSubject;
     private final MessageSubject getBucketSubject;
     private final MessageSubject backupSubject;
+    private final MessageSubject backupDeltaSubject;
+    private final MessageSubject backupStatisticsSubject;
 
     private final DeviceId deviceId;
     private final ClusterCommunicationService clusterCommunicator;
@@ -84,6 +91,7 @@ public class DeviceFlowTable {
     private final ScheduledExecutorService scheduler;
     private final Executor executor;
     private final NodeId localNodeId;
+    private final boolean compactBuckets;
 
     private final LogicalClock clock = new LogicalClock();
 
@@ -91,6 +99,7 @@ public class DeviceFlowTable {
     private volatile long activeTerm;
 
     private long backupPeriod;
+    private volatile boolean deltaBackups;
 
     private final LifecycleEventListener lifecycleEventListener = new LifecycleEventListener() {
         @Override
@@ -103,6 +112,8 @@ public class DeviceFlowTable {
 
     private final Map<Integer, Queue<Runnable>> flowTasks = Maps.newConcurrentMap();
     private final Map<Integer, FlowBucket> flowBuckets = Maps.newConcurrentMap();
+    private final Map<Integer, FlowBucketChangeLog> changeLogs = Maps.newConcurrentMap();
+    private final Map<Integer, Set<FlowRule>> statisticsUpdates = Maps.newConcurrentMap();
 
     private final Map<BackupOperation, LogicalTimestamp> lastBackupTimes = Maps.newConcurrentMap();
     private final Set<BackupOperation> inFlightUpdates = Sets.newConcurrentHashSet();
@@ -115,7 +126,10 @@ public class DeviceFlowTable {
         ScheduledExecutorService scheduler,
         Executor executor,
         long backupPeriod,
-        long antiEntropyPeriod) {
+        long antiEntropyPeriod,
+        boolean compactBuckets,
+        boolean deltaBackups,
+        int changeLogSize) {
         this.deviceId = deviceId;
         this.clusterCommunicator = clusterCommunicator;
         this.lifecycleManager = lifecycleManager;
@@ -123,14 +137,19 @@ public class DeviceFlowTable {
         this.executor = executor;
         this.localNodeId = clusterService.getLocalNode().id();
         this.replicaInfo = lifecycleManager.getReplicaInfo();
+        this.compactBuckets = compactBuckets;
+        this.deltaBackups = deltaBackups;
 
         for (int i = 0; i < NUM_BUCKETS; i++) {
-            flowBuckets.put(i, new FlowBucket(new BucketId(deviceId, i)));
+            flowBuckets.put(i, newBucket(i));
+            changeLogs.put(i, new FlowBucketChangeLog(clock.getTimestamp(), changeLogSize));
         }
 
         getDigestsSubject = new MessageSubject(String.format("flow-store-%s-digests", deviceId));
         getBucketSubject = new MessageSubject(String.format("flow-store-%s-bucket", deviceId));
         backupSubject = new MessageSubject(String.format("flow-store-%s-backup", deviceId));
+        backupDeltaSubject = new MessageSubject(String.format("flow-store-%s-backup-delta", deviceId));
+        backupStatisticsSubject = new MessageSubject(String.format("flow-store-%s-backup-statistics", deviceId));
 
         addListeners();
 
@@ -169,6 +188,47 @@ public class DeviceFlowTable {
                 TimeUnit.MILLISECONDS);
     }
 
+    /**
+     * Sets whether backups send only the changes since the last backup acknowledged by each node.
+     * <p>
+     * Changes are only logged while delta backups are enabled, so on any transition the change logs are reset and
+     * the last backup times are forgotten, forcing the next backup of each bucket to be a full transfer.
+     *
+     * @param deltaBackups whether to enable delta backups
+     */
+    synchronized void setDeltaBackups(boolean deltaBackups) {
+        if (this.deltaBackups == deltaBackups) {
+            return;
+        }
+        this.deltaBackups = deltaBackups;
+        for (int i = 0; i < NUM_BUCKETS; i++) {
+            resetChangeLog(i);
+        }
+        lastBackupTimes.clear();
+    }
+
+    /**
+     * Sets the maximum number of changes retained per bucket for delta backups.
+     *
+     * @param changeLogSize the maximum number of changes retained per bucket
+     */
+    void setChangeLogSize(int changeLogSize) {
+        changeLogs.values().forEach(changeLog -> changeLog.setMaxSize(changeLogSize));
+    }
+
+    /**
+     * Creates a new empty bucket using the configured storage.
+     *
+     * @param bucket the bucket number
+     * @return the new flow bucket
+     */
+    private FlowBucket newBucket(int bucket) {
+        BucketId bucketId = new BucketId(deviceId, bucket);
+        return compactBuckets
+            ? new FlowBucket(bucketId, new CompactFlowBucketStorage())
+            : new FlowBucket(bucketId);
+    }
+
     /**
      * Counts the flows in the table.
      *
@@ -187,9 +247,7 @@ public class DeviceFlowTable {
      * @return the flow entry for the given rule
      */
     public StoredFlowEntry getFlowEntry(FlowRule rule) {
-        return getBucket(rule.id())
-            .getFlowEntries(rule.id())
-            .get(rule);
+        return getBucket(rule.id()).getFlowEntry(rule);
     }
 
     /**
@@ -199,8 +257,7 @@ public class DeviceFlowTable {
      */
     public Set<FlowEntry> getFlowEntries() {
         return flowBuckets.values().stream()
-            .flatMap(bucket -> bucket.getFlowBucket().values().stream())
-            .flatMap(entries -> entries.values().stream())
+            .flatMap(bucket -> bucket.getFlowEntries().stream())
             .collect(Collectors.toSet());
     }
 
@@ -265,6 +322,7 @@ public class DeviceFlowTable {
     public CompletableFuture<Void> add(FlowEntry rule) {
         return runInTerm(rule.id(), (bucket, term) -> {
             bucket.add(rule, term, clock);
+            recordChange(bucket, rule);
             return null;
         });
     }
@@ -277,7 +335,9 @@ public class DeviceFlowTable {
      */
     public CompletableFuture<Void> update(FlowEntry rule) {
         return runInTerm(rule.id(), (bucket, term) -> {
+            LogicalTimestamp timestamp = bucket.timestamp();
             bucket.update(rule, term, clock);
+            recordChange(bucket, rule, timestamp);
             return null;
         });
     }
@@ -291,7 +351,35 @@ public class DeviceFlowTable {
      * @return a future to be completed with the update result or {@code null} if the rule was not updated
      */
     public <T> CompletableFuture<T> update(FlowRule rule, Function<StoredFlowEntry, T> function) {
-        return runInTerm(rule.id(), (bucket, term) -> bucket.update(rule, function, term, clock));
+        return runInTerm(rule.id(), (bucket, term) -> {
+            T result = bucket.update(rule, function, term, clock);
+            if (result != null) {
+                recordChange(bucket, bucket.getFlowEntry(rule));
+            }
+            return result;
+        });
+    }
+
+    /**
+     * Applies the given statistics update function to the rule.
+     * <p>
+     * Unlike {@link #update(FlowRule, Function)}, statistics updates do not advance the bucket and do not trigger a
+     * backup of the bucket. The updated statistics are sent to the backups lazily with the next anti-entropy run.
+     *
+     * @param rule     the rule to update
+     * @param function the update function to apply
+     * @param <T>      the result type
+     * @return a future to be completed with the update result or {@code null} if the rule was not updated
+     */
+    public <T> CompletableFuture<T> updateStatistics(FlowRule rule, Function<StoredFlowEntry, T> function) {
+        return runInTerm(rule.id(), (bucket, term) -> {
+            T result = bucket.updateStatistics(rule, function);
+            if (result != null) {
+                statisticsUpdates.computeIfAbsent(bucket.bucketId().bucket(), b -> Sets.newConcurrentHashSet())
+                    .add(rule);
+            }
+            return result;
+        });
     }
 
     /**
@@ -301,7 +389,48 @@ public class DeviceFlowTable {
      * @return a future to be completed once the rule has been removed
      */
     public CompletableFuture<FlowEntry> remove(FlowEntry rule) {
-        return runInTerm(rule.id(), (bucket, term) -> bucket.remove(rule, term, clock));
+        return runInTerm(rule.id(), (bucket, term) -> {
+            FlowEntry removed = bucket.remove(rule, term, clock);
+            if (removed != null) {
+                recordChange(bucket, removed);
+            }
+            return removed;
+        });
+    }
+
+    /**
+     * Records a change to the given bucket if the bucket was modified since the given timestamp.
+     *
+     * @param bucket    the bucket that was changed
+     * @param entry     the flow entry that was changed
+     * @param timestamp the bucket timestamp prior to the change
+     */
+    private void recordChange(FlowBucket bucket, FlowEntry entry, LogicalTimestamp timestamp) {
+        if (!bucket.timestamp().equals(timestamp)) {
+            recordChange(bucket, entry);
+        }
+    }
+
+    /**
+     * Records a change to the given bucket in the bucket's change log.
+     *
+     * @param bucket the bucket that was changed
+     * @param entry  the flow entry that was changed
+     */
+    private void recordChange(FlowBucket bucket, FlowEntry entry) {
+        if (deltaBackups && entry != null) {
+            changeLogs.get(bucket.bucketId().bucket()).record(entry, bucket.timestamp());
+        }
+    }
+
+    /**
+     * Resets the change log for the given bucket, forcing the next backup of the bucket to each node to be a full
+     * transfer.
+     *
+     * @param bucket the bucket number
+     */
+    private void resetChangeLog(int bucket) {
+        changeLogs.get(bucket).reset(clock.getTimestamp());
     }
 
     /**
@@ -418,15 +547,18 @@ public class DeviceFlowTable {
         BackupOperation operation = new BackupOperation(nodeId, bucket.bucketId().bucket());
         if (startBackup(operation, timestamp)) {
             CompletableFuture<Void> future = new CompletableFuture<>();
-            backup(bucket, nodeId).whenCompleteAsync((succeeded, error) -> {
+            backup(bucket, nodeId, lastBackupTimes.get(operation)).whenCompleteAsync((backupTime, error) -> {
                 if (error != null) {
                     log.debug("Backup operation {} failed", operation, error);
                     failBackup(operation);
-                } else if (succeeded) {
-                    succeedBackup(operation, timestamp);
+                } else if (backupTime != null) {
+                    succeedBackup(operation, backupTime);
                 } else {
-                    log.debug("Backup operation {} failed: term mismatch", operation);
+                    // The backup was rejected either due to a term mismatch or because the node's copy of the
+                    // bucket did not match the base of the delta. Reset the operation to force a full transfer.
+                    log.debug("Backup operation {} failed: term or timestamp mismatch", operation);
                     failBackup(operation);
+                    resetBackup(operation);
                 }
                 future.complete(null);
             }, executor);
@@ -468,11 +600,33 @@ public class DeviceFlowTable {
      * in-flight updates.
      *
      * @param operation the operation to succeed
-     * @param timestamp the timestamp at which the operation was <em>started</em>
+     * @param timestamp the bucket timestamp that was replicated by the operation
      */
     private void succeedBackup(BackupOperation operation, LogicalTimestamp timestamp) {
         lastBackupTimes.put(operation, timestamp);
         inFlightUpdates.remove(operation);
+        truncateChangeLog(operation.bucket());
+    }
+
+    /**
+     * Discards changes that have been acknowledged by all backups for the given bucket.
+     *
+     * @param bucket the bucket number
+     */
+    private void truncateChangeLog(int bucket) {
+        LogicalTimestamp minBackupTime = null;
+        for (NodeId nodeId : lifecycleManager.getReplicaInfo().backups()) {
+            LogicalTimestamp lastBackupTime = lastBackupTimes.get(new BackupOperation(nodeId, bucket));
+            if (lastBackupTime == null) {
+                return;
+            }
+            if (minBackupTime == null || lastBackupTime.isOlderThan(minBackupTime)) {
+                minBackupTime = lastBackupTime;
+            }
+        }
+        if (minBackupTime != null) {
+            changeLogs.get(bucket).truncate(minBackupTime);
+        }
     }
 
     /**
@@ -486,18 +640,59 @@ public class DeviceFlowTable {
 
     /**
      * Performs the given backup operation.
+     * <p>
+     * If delta backups are enabled and the bucket's change log still covers the last backup time, only the changes
+     * since the last backup are sent. Otherwise, the complete bucket is sent.
      *
-     * @param bucket the bucket to backup
-     * @param nodeId the node to which to backup the bucket
-     * @return a future to be completed with a boolean indicating whether the backup operation was successful
+     * @param bucket         the bucket to backup
+     * @param nodeId         the node to which to backup the bucket
+     * @param lastBackupTime the last bucket timestamp acknowledged by the node
+     * @return a future to be completed with the replicated bucket timestamp or {@code null} if the backup was rejected
      */
-    private CompletableFuture<Boolean> backup(FlowBucket bucket, NodeId nodeId) {
-        if (log.isDebugEnabled()) {
-            log.debug("Backing up {} flow entries in bucket {} to {}", bucket.count(), bucket.bucketId(), nodeId);
-        }
+    private CompletableFuture<LogicalTimestamp> backup(FlowBucket bucket, NodeId nodeId,
+                                                       LogicalTimestamp lastBackupTime) {
         synchronized (bucket) {
-            return sendWithTimestamp(bucket, backupSubject, nodeId);
+            LogicalTimestamp timestamp = bucket.timestamp();
+            FlowBucketDelta delta = deltaBackups ? getDelta(bucket, lastBackupTime) : null;
+            if (delta != null) {
+                log.debug("Backing up {} updated and {} removed flow entries in bucket {} to {}",
+                    delta.updates().size(), delta.removals().size(), bucket.bucketId(), nodeId);
+                return this.<FlowBucketDelta, Boolean>sendWithTimestamp(delta, backupDeltaSubject, nodeId)
+                    .thenApply(succeeded -> succeeded ? timestamp : null);
+            }
+            if (log.isDebugEnabled()) {
+                log.debug("Backing up {} flow entries in bucket {} to {}", bucket.count(), bucket.bucketId(), nodeId);
+            }
+            return this.<FlowBucket, Boolean>sendWithTimestamp(bucket, backupSubject, nodeId)
+                .thenApply(succeeded -> succeeded ? timestamp : null);
+        }
+    }
+
+    /**
+     * Returns the changes to the given bucket since the given timestamp.
+     * <p>
+     * This method must be called while holding the bucket's lock.
+     *
+     * @param bucket    the bucket for which to return the delta
+     * @param timestamp the timestamp from which to compute the delta
+     * @return the delta or {@code null} if the bucket's change log has been truncated beyond the given timestamp
+     */
+    private FlowBucketDelta getDelta(FlowBucket bucket, LogicalTimestamp timestamp) {
+        List<FlowEntry> changes = changeLogs.get(bucket.bucketId().bucket()).changesSince(timestamp);
+        if (changes == null) {
+            return null;
         }
+        List<FlowEntry> updates = Lists.newArrayList();
+        List<FlowEntry> removals = Lists.newArrayList();
+        for (FlowEntry change : changes) {
+            FlowEntry entry = bucket.getFlowEntry(change);
+            if (entry != null) {
+                updates.add(entry);
+            } else {
+                removals.add(change);
+            }
+        }
+        return new FlowBucketDelta(bucket.bucketId(), bucket.term(), timestamp, bucket.timestamp(), updates, removals);
     }
 
     /**
@@ -530,6 +725,67 @@ public class DeviceFlowTable {
         }
     }
 
+    /**
+     * Handles a flow bucket delta backup from a remote peer.
+     *
+     * @param delta the flow bucket delta to apply
+     * @return indicates whether the delta was applied
+     */
+    private boolean onBackupDelta(FlowBucketDelta delta) {
+        log.debug("{} - Received delta {} to backup", deviceId, delta);
+
+        try {
+            DeviceReplicaInfo replicaInfo = lifecycleManager.getReplicaInfo();
+
+            // If the backup is for a different term, reject the request until we learn about the new term.
+            if (delta.term() != replicaInfo.term()) {
+                log.debug("Term mismatch for device {}: {} != {}", deviceId, delta.term(), replicaInfo);
+                return false;
+            }
+
+            FlowBucket bucket = flowBuckets.get(delta.bucketId().bucket());
+            synchronized (bucket) {
+                if (!bucket.apply(delta)) {
+                    log.debug("Base mismatch for bucket {}: {}/{} != {}/{}", delta.bucketId(),
+                        bucket.term(), bucket.timestamp(), delta.term(), delta.baseTimestamp());
+                    return false;
+                }
+            }
+            return true;
+        } catch (Exception e) {
+            log.warn("Failure processing backup request", e);
+            return false;
+        }
+    }
+
+    /**
+     * Handles refreshed flow statistics from a remote peer.
+     *
+     * @param statistics the flow statistics to apply
+     * @return indicates whether the statistics were applied
+     */
+    private boolean onBackupStatistics(FlowBucketStatistics statistics) {
+        log.debug("{} - Received statistics {} to backup", deviceId, statistics);
+
+        try {
+            DeviceReplicaInfo replicaInfo = lifecycleManager.getReplicaInfo();
+
+            // Only apply the statistics to a bucket held in the same term.
+            FlowBucket bucket = flowBuckets.get(statistics.bucketId().bucket());
+            if (statistics.term() != replicaInfo.term() || bucket.term() != statistics.term()) {
+                log.debug("Term mismatch for device {}: {} != {}", deviceId, statistics.term(), replicaInfo);
+                return false;
+            }
+            synchronized (bucket) {
+                bucket.applyStatistics(statistics.entries());
+            }
+            return true;
+        } catch (Exception e) {
+            log.warn("Failure processing backup request", e);
+            return false;
+        }
+    }
+
     /**
      * Runs the anti-entropy protocol.
      */
@@ -542,6 +798,41 @@ public class DeviceFlowTable {
         for (NodeId nodeId : replicaInfo.backups()) {
             runAntiEntropy(nodeId);
         }
+        backupStatistics(replicaInfo);
+    }
+
+    /**
+     * Sends the statistics refreshed since the last run to the backups.
+     *
+     * @param replicaInfo the current replica info
+     */
+    private void backupStatistics(DeviceReplicaInfo replicaInfo) {
+        for (int bucketNumber : statisticsUpdates.keySet()) {
+            Set<FlowRule> rules = statisticsUpdates.remove(bucketNumber);
+            FlowBucket bucket = getBucket(bucketNumber);
+            if (rules == null || bucket.term() != replicaInfo.term()) {
+                continue;
+            }
+            List<FlowEntry> entries;
+            synchronized (bucket) {
+                entries = rules.stream()
+                    .map(bucket::getFlowEntry)
+                    .filter(entry -> entry != null)
+                    .collect(Collectors.toList());
+            }
+            FlowBucketStatistics statistics = new FlowBucketStatistics(bucket.bucketId(), bucket.term(), entries);
+            for (NodeId nodeId : replicaInfo.backups()) {
+                this.<FlowBucketStatistics, Boolean>sendWithTimestamp(statistics, backupStatisticsSubject, nodeId)
+                    .whenComplete((succeeded, error) -> {
+                        if (error != null || !succeeded) {
+                            // Retry with the next run; the statistics are also carried by any full backup.
+                            log.debug("Statistics backup of bucket {} to {} failed", bucket.bucketId(), nodeId, error);
+                            statisticsUpdates.computeIfAbsent(bucketNumber, b -> Sets.newConcurrentHashSet())
+                                .addAll(rules);
+                        }
+                    });
+            }
+        }
     }
 
     /**
@@ -558,7 +849,18 @@ public class DeviceFlowTable {
                     if (localBucket.getDigest().isNewerThan(remoteDigest)) {
                         log.debug("Detected missing flow entries on node {} in bucket {}/{}",
                                 nodeId, deviceId, remoteDigest.bucket());
-                        resetBackup(new BackupOperation(nodeId, remoteDigest.bucket()));
+                        BackupOperation operation = new BackupOperation(nodeId, remoteDigest.bucket());
+
+                        // If the remote bucket is from the same term and the change log still covers its timestamp,
+                        // send only the changes the node is missing. Otherwise, fall back to a full transfer of the
+                        // bucket: timestamps from different terms are not comparable.
+                        if (deltaBackups
+                                && remoteDigest.term() == localBucket.term()
+                                && changeLogs.get(remoteDigest.bucket()).covers(remoteDigest.timestamp())) {
+                            lastBackupTimes.put(operation, remoteDigest.timestamp());
+                        } else {
+                            resetBackup(operation);
+                        }
                     }
                 }
             }, executor);
@@ -671,6 +973,7 @@ public class DeviceFlowTable {
             .thenAcceptAsync(flowBucket -> {
                 flowBuckets.compute(flowBucket.bucketId().bucket(),
                     (id, bucket) -> flowBucket.getDigest().isNewerThan(bucket.getDigest()) ? flowBucket : bucket);
+                resetChangeLog(flowBucket.bucketId().bucket());
             }, executor);
     }
 
@@ -704,7 +1007,10 @@ public class DeviceFlowTable {
     private void activateMaster(DeviceReplicaInfo replicaInfo) {
         if (replicaInfo.isMaster(localNodeId)) {
             log.debug("Activating term {} for device {}", replicaInfo.term(), deviceId);
+            statisticsUpdates.clear();
             for (int i = 0; i < NUM_BUCKETS; i++) {
+                // Changes from a prior term may not have been logged, so force a full transfer to each backup.
+                resetChangeLog(i);
                 activateBucket(i);
             }
             lifecycleManager.activate(replicaInfo.term());
@@ -808,7 +1114,7 @@ public class DeviceFlowTable {
      */
     private <M, R> CompletableFuture<R> sendWithTimestamp(M message, MessageSubject subject, NodeId toNodeId) {
         return clusterCommunicator.<Timestamped<M>, Timestamped<R>>sendAndReceive(
-            clock.timestamp(message), subject, SERIALIZER::encode, SERIALIZER::decode, toNodeId)
+            clock.timestamp(message), subject, SERIALIZER.encoder(), SERIALIZER::decode, toNodeId)
             .thenApply(response -> {
                 clock.tick(response.timestamp());
                 return response.value();
@@ -840,6 +1146,8 @@ public class DeviceFlowTable {
         receiveWithTimestamp(getDigestsSubject, v -> getDigests());
         receiveWithTimestamp(getBucketSubject, this::onGetBucket);
         receiveWithTimestamp(backupSubject, this::onBackup);
+        receiveWithTimestamp(backupDeltaSubject, this::onBackupDelta);
+        receiveWithTimestamp(backupStatisticsSubject, this::onBackupStatistics);
     }
 
     /**
@@ -849,6 +1157,8 @@ public class DeviceFlowTable {
         clusterCommunicator.removeSubscriber(getDigestsSubject);
         clusterCommunicator.removeSubscriber(getBucketSubject);
         clusterCommunicator.removeSubscriber(backupSubject);
+        clusterCommunicator.removeSubscriber(backupDeltaSubject);
+        clusterCommunicator.removeSubscriber(backupStatisticsSubject);
     }
 
     /**
@@ -881,6 +1191,7 @@ public class DeviceFlowTable {
     public void purge() {
         flowTasks.clear();
         flowBuckets.values().forEach(bucket -> bucket.purge());
+        statisticsUpdates.clear();
         lastBackupTimes.clear();
         inFlightUpdates.clear();
     }
@@ -123,7 +123,10 @@ import static org.onosproject.store.OsgiPropertyConstants.*;
                 BACKUP_PERIOD_MILLIS + ":Integer=" + BACKUP_PERIOD_MILLIS_DEFAULT,
                 ANTI_ENTROPY_PERIOD_MILLIS + ":Integer=" + ANTI_ENTROPY_PERIOD_MILLIS_DEFAULT,
                 EC_FLOW_RULE_STORE_PERSISTENCE_ENABLED + ":Boolean=" + EC_FLOW_RULE_STORE_PERSISTENCE_ENABLED_DEFAULT,
-                MAX_BACKUP_COUNT + ":Integer=" + MAX_BACKUP_COUNT_DEFAULT
+                MAX_BACKUP_COUNT + ":Integer=" + MAX_BACKUP_COUNT_DEFAULT,
+                COMPACT_FLOW_BUCKETS + ":Boolean=" + COMPACT_FLOW_BUCKETS_DEFAULT,
+                DELTA_FLOW_BACKUPS + ":Boolean=" + DELTA_FLOW_BACKUPS_DEFAULT,
+                FLOW_CHANGE_LOG_SIZE + ":Integer=" + FLOW_CHANGE_LOG_SIZE_DEFAULT
         }
 )
 public class ECFlowRuleStore
@@ -149,6 +152,15 @@ public class ECFlowRuleStore
     /** Max number of backup copies for each device. */
     private volatile int backupCount = MAX_BACKUP_COUNT_DEFAULT;
 
+    /** Indicates whether new device flow tables store their buckets in compact columnar storage. */
+    private volatile boolean compactFlowBuckets = COMPACT_FLOW_BUCKETS_DEFAULT;
+
+    /** Indicates whether backups send only the flow changes since the last acknowledged backup. */
+    private volatile boolean deltaFlowBackups = DELTA_FLOW_BACKUPS_DEFAULT;
+
+    /** Max number of flow changes retained per bucket for delta backups. */
+    private volatile int flowChangeLogSize = FLOW_CHANGE_LOG_SIZE_DEFAULT;
+
     private InternalFlowTable flowTable = new InternalFlowTable();
 
     @Reference(cardinality = ReferenceCardinality.MANDATORY)
@@ -276,6 +288,9 @@ public class ECFlowRuleStore
         int newBackupPeriod;
         int newBackupCount;
         int newAntiEntropyPeriod;
+        boolean newCompactFlowBuckets;
+        boolean newDeltaFlowBackups;
+        int newFlowChangeLogSize;
         try {
             String s = get(properties, "msgHandlerPoolSize");
             newPoolSize = isNullOrEmpty(s) ? msgHandlerPoolSize : Integer.parseInt(s.trim());
@@ -288,11 +303,21 @@ public class ECFlowRuleStore
 
             s = get(properties, ANTI_ENTROPY_PERIOD_MILLIS);
             newAntiEntropyPeriod = isNullOrEmpty(s) ? antiEntropyPeriod : Integer.parseInt(s.trim());
+
+            newCompactFlowBuckets = Tools.isPropertyEnabled(properties, COMPACT_FLOW_BUCKETS, compactFlowBuckets);
+
+            newDeltaFlowBackups = Tools.isPropertyEnabled(properties, DELTA_FLOW_BACKUPS, deltaFlowBackups);
+
+            s = get(properties, FLOW_CHANGE_LOG_SIZE);
+            newFlowChangeLogSize = isNullOrEmpty(s) ? flowChangeLogSize : Integer.parseInt(s.trim());
         } catch (NumberFormatException | ClassCastException e) {
             newPoolSize = MESSAGE_HANDLER_THREAD_POOL_SIZE_DEFAULT;
             newBackupPeriod = BACKUP_PERIOD_MILLIS_DEFAULT;
             newBackupCount = MAX_BACKUP_COUNT_DEFAULT;
             newAntiEntropyPeriod = ANTI_ENTROPY_PERIOD_MILLIS_DEFAULT;
+            newCompactFlowBuckets = COMPACT_FLOW_BUCKETS_DEFAULT;
+            newDeltaFlowBackups = DELTA_FLOW_BACKUPS_DEFAULT;
+            newFlowChangeLogSize = FLOW_CHANGE_LOG_SIZE_DEFAULT;
         }
 
         if (newBackupPeriod != backupPeriod) {
@@ -319,6 +344,20 @@ public class ECFlowRuleStore
         if (backupCount != newBackupCount) {
             backupCount = newBackupCount;
         }
+
+        if (compactFlowBuckets != newCompactFlowBuckets) {
+            compactFlowBuckets = newCompactFlowBuckets;
+        }
+
+        if (deltaFlowBackups != newDeltaFlowBackups) {
+            deltaFlowBackups = newDeltaFlowBackups;
+            flowTable.setDeltaBackups(newDeltaFlowBackups);
+        }
+
+        if (flowChangeLogSize != newFlowChangeLogSize) {
+            flowChangeLogSize = newFlowChangeLogSize;
+            flowTable.setChangeLogSize(newFlowChangeLogSize);
+        }
         logConfig("Reconfigured");
     }
 
@@ -350,8 +389,9 @@ public class ECFlowRuleStore
     }
 
     private void logConfig(String prefix) {
-        log.info("{} with msgHandlerPoolSize = {}; backupPeriod = {}, backupCount = {}",
-            prefix, msgHandlerPoolSize, backupPeriod, backupCount);
+        log.info("{} with msgHandlerPoolSize = {}; backupPeriod = {}, backupCount = {}, compactFlowBuckets = {}, "
+                + "deltaFlowBackups = {}, flowChangeLogSize = {}", prefix, msgHandlerPoolSize, backupPeriod,
+            backupCount, compactFlowBuckets, deltaFlowBackups, flowChangeLogSize);
     }
 
     @Override
@@ -585,7 +625,25 @@ public class ECFlowRuleStore
     }
 
     private FlowRuleEvent addOrUpdateFlowRuleInternal(FlowEntry rule) {
-        FlowRuleEvent event = flowTable.update(rule, stored -> {
+        // Updates that only refresh the counters of an installed flow do not advance the bucket, so stats polling
+        // does not trigger bucket backups. The counters are sent to the backups lazily by the anti-entropy task.
+        // Only state transitions go through the replicated update below.
+        FlowRuleEvent event = flowTable.updateStatistics(rule, stored -> {
+            if (stored.state() == FlowEntryState.PENDING_ADD) {
+                return null;
+            }
+            stored.setBytes(rule.bytes());
+            stored.setLife(rule.life(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+            stored.setLiveType(rule.liveType());
+            stored.setPackets(rule.packets());
+            stored.setLastSeen();
+            return new FlowRuleEvent(Type.RULE_UPDATED, rule);
+        });
+        if (event != null) {
+            return event;
+        }
+
+        event = flowTable.update(rule, stored -> {
             stored.setBytes(rule.bytes());
             stored.setLife(rule.life(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
             stored.setLiveType(rule.liveType());
@@ -720,7 +778,10 @@ public class ECFlowRuleStore
                 backupScheduler,
                 new OrderedExecutor(backupExecutor),
                 backupPeriod,
-                antiEntropyPeriod));
+                antiEntropyPeriod,
+                compactFlowBuckets,
+                deltaFlowBackups,
+                flowChangeLogSize));
         }
 
         /**
@@ -741,6 +802,24 @@ public class ECFlowRuleStore
             flowTables.values().forEach(flowTable -> flowTable.setAntiEntropyPeriod(antiEntropyPeriod));
         }
 
+        /**
+         * Sets whether flow table backups send only the changes since the last acknowledged backup.
+         *
+         * @param deltaBackups whether to enable delta backups
+         */
+        void setDeltaBackups(boolean deltaBackups) {
+            flowTables.values().forEach(flowTable -> flowTable.setDeltaBackups(deltaBackups));
+        }
+
+        /**
+         * Sets the maximum number of flow changes retained per bucket for delta backups.
+         *
+         * @param changeLogSize the maximum number of flow changes retained per bucket
+         */
+        void setChangeLogSize(int changeLogSize) {
+            flowTables.values().forEach(flowTable -> flowTable.setChangeLogSize(changeLogSize));
+        }
+
         /**
          * Returns the flow table for a specific device.
          *
@@ -757,7 +836,10 @@ public class ECFlowRuleStore
                 backupScheduler,
                 new OrderedExecutor(backupExecutor),
                 backupPeriod,
-                antiEntropyPeriod));
+                antiEntropyPeriod,
+                compactFlowBuckets,
+                deltaFlowBackups,
+                flowChangeLogSize));
         }
 
         /**
@@ -847,6 +929,20 @@ public class ECFlowRuleStore
                 null);
         }
 
+        /**
+         * Applies the given statistics update function to the rule without advancing its bucket.
+         *
+         * @param function the update function to apply
+         * @return the update result or {@code null} if the rule was not updated
+         */
+        public <T> T updateStatistics(FlowRule rule, Function<StoredFlowEntry, T> function) {
+            return Tools.futureGetOrElse(
+                getFlowTable(rule.deviceId()).updateStatistics(rule, function),
+                FLOW_RULE_STORE_TIMEOUT_MILLIS,
+                TimeUnit.MILLISECONDS,
+                null);
+        }
+
         /**
          * Removes the given flow rule.
          *
@@ -15,43 +15,40 @@
  */
 package org.onosproject.store.flow.impl;
 
-import java.util.Map;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
-import java.util.stream.Collectors;
 
-import com.google.common.collect.Maps;
-import org.onosproject.net.flow.DefaultFlowEntry;
 import org.onosproject.net.flow.FlowEntry;
-import org.onosproject.net.flow.FlowId;
 import org.onosproject.net.flow.FlowRule;
 import org.onosproject.net.flow.StoredFlowEntry;
 import org.onosproject.store.LogicalTimestamp;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 /**
  * Container for a bucket of flows assigned to a specific device.
  * <p>
  * The bucket is mutable. When changes are made to the bucket, the term and timestamp in which the change
- * occurred is recorded for ordering changes.
+ * occurred is recorded for ordering changes. The flow entries themselves are held by a {@link FlowBucketStorage}.
  */
 public class FlowBucket {
-    private static final Logger LOGGER = LoggerFactory.getLogger(FlowBucket.class);
     private final BucketId bucketId;
     private volatile long term;
     private volatile LogicalTimestamp timestamp;
-    private final Map<FlowId, Map<StoredFlowEntry, StoredFlowEntry>> flowBucket;
+    private final FlowBucketStorage flowBucket;
 
     FlowBucket(BucketId bucketId) {
-        this(bucketId, 0, new LogicalTimestamp(0), Maps.newConcurrentMap());
+        this(bucketId, new DefaultFlowBucketStorage());
+    }
+
+    FlowBucket(BucketId bucketId, FlowBucketStorage flowBucket) {
+        this(bucketId, 0, new LogicalTimestamp(0), flowBucket);
     }
 
     private FlowBucket(
         BucketId bucketId,
         long term,
         LogicalTimestamp timestamp,
-        Map<FlowId, Map<StoredFlowEntry, StoredFlowEntry>> flowBucket) {
+        FlowBucketStorage flowBucket) {
         this.bucketId = bucketId;
         this.term = term;
         this.timestamp = timestamp;
@@ -99,19 +96,18 @@ public class FlowBucket {
      *
      * @return the flow entries in the bucket
      */
-    public Map<FlowId, Map<StoredFlowEntry, StoredFlowEntry>> getFlowBucket() {
-        return flowBucket;
+    public Collection<StoredFlowEntry> getFlowEntries() {
+        return flowBucket.getAll();
     }
 
     /**
-     * Returns the flow entries for the given flow.
+     * Returns the flow entry for the given rule.
      *
-     * @param flowId the flow identifier
-     * @return the flows for the given flow ID
+     * @param rule the rule for which to lookup the flow entry
+     * @return the flow entry for the given rule or {@code null} if the bucket does not contain the rule
      */
-    public Map<StoredFlowEntry, StoredFlowEntry> getFlowEntries(FlowId flowId) {
-        Map<StoredFlowEntry, StoredFlowEntry> flowEntries = flowBucket.get(flowId);
-        return flowEntries != null ? flowEntries : flowBucket.computeIfAbsent(flowId, id -> Maps.newConcurrentMap());
+    public StoredFlowEntry getFlowEntry(FlowRule rule) {
+        return flowBucket.get(rule);
     }
 
     /**
@@ -120,10 +116,7 @@ public class FlowBucket {
      * @return the number of flows in the bucket
      */
     public int count() {
-        return flowBucket.values()
-            .stream()
-            .mapToInt(entry -> entry.values().size())
-            .sum();
+        return flowBucket.count();
     }
 
     /**
@@ -132,14 +125,7 @@ public class FlowBucket {
      * @return a new copy of the flow bucket
      */
     FlowBucket copy() {
-        return new FlowBucket(
-            bucketId,
-            term,
-            timestamp,
-            flowBucket.entrySet()
-                .stream()
-                .map(e -> Maps.immutableEntry(e.getKey(), Maps.newHashMap(e.getValue())))
-                .collect(Collectors.toMap(e -> e.getKey(), e -> e.getValue())));
+        return new FlowBucket(bucketId, term, timestamp, flowBucket.copy());
     }
 
     /**
@@ -158,11 +144,7 @@ public class FlowBucket {
      * @param clock the logical clock
      */
     public void add(FlowEntry rule, long term, LogicalClock clock) {
-        Map<StoredFlowEntry, StoredFlowEntry> flowEntries = flowBucket.get(rule.id());
-        if (flowEntries == null) {
-            flowEntries = flowBucket.computeIfAbsent(rule.id(), id -> Maps.newConcurrentMap());
-        }
-        flowEntries.put((StoredFlowEntry) rule, (StoredFlowEntry) rule);
+        flowBucket.add(rule);
         recordUpdate(term, clock.getTimestamp());
     }
 
@@ -174,26 +156,9 @@ public class FlowBucket {
      * @param clock the logical clock
      */
     public void update(FlowEntry rule, long term, LogicalClock clock) {
-        Map<StoredFlowEntry, StoredFlowEntry> flowEntries = flowBucket.get(rule.id());
-        if (flowEntries == null) {
-            flowEntries = flowBucket.computeIfAbsent(rule.id(), id -> Maps.newConcurrentMap());
+        if (flowBucket.update(rule)) {
+            recordUpdate(term, clock.getTimestamp());
         }
-        flowEntries.computeIfPresent((StoredFlowEntry) rule, (k, stored) -> {
-            if (rule instanceof DefaultFlowEntry) {
-                DefaultFlowEntry updated = (DefaultFlowEntry) rule;
-                if (stored instanceof DefaultFlowEntry) {
-                    DefaultFlowEntry storedEntry = (DefaultFlowEntry) stored;
-                    if (updated.created() >= storedEntry.created()) {
-                        recordUpdate(term, clock.getTimestamp());
-                        return updated;
-                    } else {
-                        LOGGER.debug("Trying to update more recent flow entry {} (stored: {})", updated, stored);
-                        return stored;
-                    }
-                }
-            }
-            return stored;
-        });
     }
 
     /**
@@ -207,23 +172,44 @@ public class FlowBucket {
      * @return the update result or {@code null} if the rule was not updated
      */
     public <T> T update(FlowRule rule, Function<StoredFlowEntry, T> function, long term, LogicalClock clock) {
-        Map<StoredFlowEntry, StoredFlowEntry> flowEntries = flowBucket.get(rule.id());
-        if (flowEntries == null) {
-            flowEntries = flowBucket.computeIfAbsent(rule.id(), id -> Maps.newConcurrentMap());
+        T result = flowBucket.update(rule, function);
+        if (result != null) {
+            recordUpdate(term, clock.getTimestamp());
         }
+        return result;
+    }
 
-        AtomicReference<T> resultRef = new AtomicReference<>();
-        flowEntries.computeIfPresent(new DefaultFlowEntry(rule), (k, stored) -> {
-            if (stored != null) {
-                T result = function.apply(stored);
-                if (result != null) {
-                    recordUpdate(term, clock.getTimestamp());
-                    resultRef.set(result);
-                }
-            }
-            return stored;
-        });
-        return resultRef.get();
+    /**
+     * Applies the given statistics update function to the rule without recording a change to the bucket.
+     * <p>
+     * Statistics updates do not advance the bucket timestamp, so they do not trigger a backup of the bucket. They are
+     * replicated separately with {@link #applyStatistics(Collection)}.
+     *
+     * @param rule     the rule to update
+     * @param function the update function to apply
+     * @param <T>      the result type
+     * @return the update result or {@code null} if the rule was not updated
+     */
+    public <T> T updateStatistics(FlowRule rule, Function<StoredFlowEntry, T> function) {
+        return flowBucket.update(rule, function);
+    }
+
+    /**
+     * Copies the statistics of the given entries to the matching flows in the bucket.
+     * <p>
+     * Flows that are not in the bucket are ignored, and the bucket timestamp is left unchanged.
+     *
+     * @param entries the flow entries from which to copy statistics
+     */
+    public void applyStatistics(Collection<FlowEntry> entries) {
+        entries.forEach(entry -> flowBucket.update(entry, stored -> {
+            stored.setBytes(entry.bytes());
+            stored.setPackets(entry.packets());
+            stored.setLife(entry.life(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+            stored.setLiveType(entry.liveType());
+            stored.setLastSeen();
+            return true;
+        }));
     }
 
     /**
@@ -235,32 +221,32 @@ public class FlowBucket {
      * @return the removed flow entry
      */
     public FlowEntry remove(FlowEntry rule, long term, LogicalClock clock) {
-        final AtomicReference<FlowEntry> removedRule = new AtomicReference<>();
-        flowBucket.computeIfPresent(rule.id(), (flowId, flowEntries) -> {
-            flowEntries.computeIfPresent((StoredFlowEntry) rule, (k, stored) -> {
-                if (rule instanceof DefaultFlowEntry) {
-                    DefaultFlowEntry toRemove = (DefaultFlowEntry) rule;
-                    if (stored instanceof DefaultFlowEntry) {
-                        DefaultFlowEntry storedEntry = (DefaultFlowEntry) stored;
-                        if (toRemove.created() < storedEntry.created()) {
-                            LOGGER.debug("Trying to remove more recent flow entry {} (stored: {})", toRemove, stored);
-                            // the key is not updated, removedRule remains null
-                            return stored;
-                        }
-                    }
-                }
-                removedRule.set(stored);
-                return null;
-            });
-            return flowEntries.isEmpty() ? null : flowEntries;
-        });
-
-        if (removedRule.get() != null) {
+        FlowEntry removedRule = flowBucket.remove(rule);
+        if (removedRule != null) {
             recordUpdate(term, clock.getTimestamp());
-            return removedRule.get();
-        } else {
-            return null;
         }
+        return removedRule;
+    }
+
+    /**
+     * Applies the given delta to the bucket.
+     * <p>
+     * The delta is only applied if the bucket is at the delta's base, i.e. it was last updated in the delta's term and
+     * is at the delta's base timestamp. Logical timestamps from different terms may overlap, so a bucket from another
+     * term can never serve as the base of a delta. Updated entries replace the stored
+     * entries without regard to their creation times since the delta reflects the master's copy.
+     *
+     * @param delta the delta to apply
+     * @return indicates whether the delta was applied
+     */
+    public boolean apply(FlowBucketDelta delta) {
+        if (term != delta.term() || !timestamp.equals(delta.baseTimestamp())) {
+            return false;
+        }
+        delta.removals().forEach(flowBucket::remove);
+        delta.updates().forEach(flowBucket::add);
+        recordUpdate(delta.term(), delta.timestamp());
+        return true;
     }
 
     /**
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2020-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.flow.impl;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.collect.Lists;
+import org.onosproject.net.flow.FlowEntry;
+import org.onosproject.store.LogicalTimestamp;
+
+/**
+ * Bounded log of the flows changed in a single flow bucket.
+ * <p>
+ * The log records the logical time at which each flow in the bucket was last changed, ordered by that time. Only
+ * the most recent change is retained for each flow, so the log size is bounded by the number of distinct flows
+ * changed since the log was last truncated. When the log exceeds its maximum size, the oldest changes are evicted
+ * and the log can no longer produce deltas from before the eviction.
+ */
+final class FlowBucketChangeLog {
+    private final Map<FlowEntry, LogicalTimestamp> changes = new LinkedHashMap<>();
+    private LogicalTimestamp truncated;
+    private int maxSize;
+
+    FlowBucketChangeLog(LogicalTimestamp truncated, int maxSize) {
+        this.truncated = truncated;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Sets the maximum number of changes retained by the log.
+     *
+     * @param maxSize the maximum number of changes retained by the log
+     */
+    synchronized void setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+        evict();
+    }
+
+    /**
+     * Records a change to the given flow.
+     *
+     * @param entry     the flow entry that was added, updated or removed
+     * @param timestamp the bucket timestamp at which the change occurred
+     */
+    synchronized void record(FlowEntry entry, LogicalTimestamp timestamp) {
+        // Remove the prior change first to move the flow to the end of the log.
+        changes.remove(entry);
+        changes.put(entry, timestamp);
+        evict();
+    }
+
+    /**
+     * Evicts the oldest changes until the log fits its maximum size.
+     */
+    private void evict() {
+        Iterator<Map.Entry<FlowEntry, LogicalTimestamp>> iterator = changes.entrySet().iterator();
+        while (changes.size() > maxSize && iterator.hasNext()) {
+            truncated = iterator.next().getValue();
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Returns the flows changed after the given timestamp.
+     *
+     * @param timestamp the timestamp after which to return changes
+     * @return the flows changed after the given timestamp or {@code null} if changes since the given timestamp
+     * have been truncated from the log
+     */
+    synchronized List<FlowEntry> changesSince(LogicalTimestamp timestamp) {
+        if (timestamp == null || truncated.isNewerThan(timestamp)) {
+            return null;
+        }
+        List<FlowEntry> entries = Lists.newArrayList();
+        changes.forEach((entry, changed) -> {
+            if (changed.isNewerThan(timestamp)) {
+                entries.add(entry);
+            }
+        });
+        return entries;
+    }
+
+    /**
+     * Returns a boolean indicating whether the log can produce a delta from the given timestamp.
+     *
+     * @param timestamp the timestamp from which to produce a delta
+     * @return indicates whether changes since the given timestamp are still in the log
+     */
+    synchronized boolean covers(LogicalTimestamp timestamp) {
+        return timestamp != null && !truncated.isNewerThan(timestamp);
+    }
+
+    /**
+     * Discards changes at or before the given timestamp.
+     * <p>
+     * This is called once all backups have acknowledged the given timestamp, at which point deltas from earlier
+     * timestamps are no longer needed.
+     *
+     * @param timestamp the timestamp up to which to discard changes
+     */
+    synchronized void truncate(LogicalTimestamp timestamp) {
+        if (!timestamp.isNewerThan(truncated)) {
+            return;
+        }
+        Iterator<Map.Entry<FlowEntry, LogicalTimestamp>> iterator = changes.entrySet().iterator();
+        while (iterator.hasNext() && !iterator.next().getValue().isNewerThan(timestamp)) {
+            iterator.remove();
+        }
+        truncated = timestamp;
+    }
+
+    /**
+     * Discards all changes, preventing deltas from being produced for any time prior to the given timestamp.
+     *
+     * @param timestamp the timestamp from which the log is valid
+     */
+    synchronized void reset(LogicalTimestamp timestamp) {
+        changes.clear();
+        truncated = timestamp;
+    }
+}
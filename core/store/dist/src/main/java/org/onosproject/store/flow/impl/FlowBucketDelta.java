@@ -0,0 +1,119 @@
+/*
+ * Copyright 2020-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.flow.impl;
+
+import java.util.List;
+
+import org.onosproject.net.flow.FlowEntry;
+import org.onosproject.store.LogicalTimestamp;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+
+/**
+ * Changes to a flow bucket between two logical times.
+ * <p>
+ * A delta can only be applied to a copy of the bucket at the delta's base timestamp. Applying the delta brings the
+ * copy up to the delta's timestamp.
+ */
+public class FlowBucketDelta {
+    private final BucketId bucketId;
+    private final long term;
+    private final LogicalTimestamp baseTimestamp;
+    private final LogicalTimestamp timestamp;
+    private final List<FlowEntry> updates;
+    private final List<FlowEntry> removals;
+
+    FlowBucketDelta(
+        BucketId bucketId,
+        long term,
+        LogicalTimestamp baseTimestamp,
+        LogicalTimestamp timestamp,
+        List<FlowEntry> updates,
+        List<FlowEntry> removals) {
+        this.bucketId = bucketId;
+        this.term = term;
+        this.baseTimestamp = baseTimestamp;
+        this.timestamp = timestamp;
+        this.updates = updates;
+        this.removals = removals;
+    }
+
+    /**
+     * Returns the flow bucket identifier.
+     *
+     * @return the flow bucket identifier
+     */
+    public BucketId bucketId() {
+        return bucketId;
+    }
+
+    /**
+     * Returns the flow bucket term.
+     *
+     * @return the flow bucket term
+     */
+    public long term() {
+        return term;
+    }
+
+    /**
+     * Returns the timestamp of the bucket to which the delta applies.
+     *
+     * @return the timestamp of the bucket to which the delta applies
+     */
+    public LogicalTimestamp baseTimestamp() {
+        return baseTimestamp;
+    }
+
+    /**
+     * Returns the bucket timestamp after the delta has been applied.
+     *
+     * @return the bucket timestamp after the delta has been applied
+     */
+    public LogicalTimestamp timestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Returns the flow entries added or updated since the base timestamp.
+     *
+     * @return the flow entries added or updated since the base timestamp
+     */
+    public List<FlowEntry> updates() {
+        return updates;
+    }
+
+    /**
+     * Returns the flow entries removed since the base timestamp.
+     *
+     * @return the flow entries removed since the base timestamp
+     */
+    public List<FlowEntry> removals() {
+        return removals;
+    }
+
+    @Override
+    public String toString() {
+        return toStringHelper(this)
+            .add("bucketId", bucketId)
+            .add("term", term)
+            .add("baseTimestamp", baseTimestamp)
+            .add("timestamp", timestamp)
+            .add("updates", updates.size())
+            .add("removals", removals.size())
+            .toString();
+    }
+}
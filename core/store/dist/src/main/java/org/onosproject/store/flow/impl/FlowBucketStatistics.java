@@ -0,0 +1,76 @@
+/*
+ * Copyright 2020-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.flow.impl;
+
+import java.util.List;
+
+import org.onosproject.net.flow.FlowEntry;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+
+/**
+ * Statistics of flows in a flow bucket that were refreshed without changing the bucket.
+ * <p>
+ * Statistics updates are not versioned by the bucket's logical time. Backups apply them to the flows they already
+ * hold in the same term, and otherwise pick them up with the next transfer of the bucket.
+ */
+public class FlowBucketStatistics {
+    private final BucketId bucketId;
+    private final long term;
+    private final List<FlowEntry> entries;
+
+    FlowBucketStatistics(BucketId bucketId, long term, List<FlowEntry> entries) {
+        this.bucketId = bucketId;
+        this.term = term;
+        this.entries = entries;
+    }
+
+    /**
+     * Returns the flow bucket identifier.
+     *
+     * @return the flow bucket identifier
+     */
+    public BucketId bucketId() {
+        return bucketId;
+    }
+
+    /**
+     * Returns the flow bucket term.
+     *
+     * @return the flow bucket term
+     */
+    public long term() {
+        return term;
+    }
+
+    /**
+     * Returns the flow entries with refreshed statistics.
+     *
+     * @return the flow entries with refreshed statistics
+     */
+    public List<FlowEntry> entries() {
+        return entries;
+    }
+
+    @Override
+    public String toString() {
+        return toStringHelper(this)
+            .add("bucketId", bucketId)
+            .add("term", term)
+            .add("entries", entries.size())
+            .toString();
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2020-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.flow.impl;
+
+import java.util.Collection;
+import java.util.function.Function;
+
+import org.onosproject.net.flow.FlowEntry;
+import org.onosproject.net.flow.FlowRule;
+import org.onosproject.net.flow.StoredFlowEntry;
+
+/**
+ * Storage backend for the flow entries held by a {@link FlowBucket}.
+ * <p>
+ * Storage implementations are not responsible for tracking the bucket term and timestamp. Instead, mutating
+ * operations report whether the bucket was changed so that the owning {@link FlowBucket} can record the update.
+ */
+public interface FlowBucketStorage {
+
+    /**
+     * Returns the number of flow entries in the storage.
+     *
+     * @return the number of flow entries in the storage
+     */
+    int count();
+
+    /**
+     * Returns the stored flow entry matching the given rule.
+     *
+     * @param rule the rule for which to lookup the flow entry
+     * @return the stored flow entry or {@code null} if no matching entry exists
+     */
+    StoredFlowEntry get(FlowRule rule);
+
+    /**
+     * Returns the flow entries in the storage.
+     *
+     * @return the flow entries in the storage
+     */
+    Collection<StoredFlowEntry> getAll();
+
+    /**
+     * Adds or replaces the given flow entry.
+     *
+     * @param rule the flow entry to add
+     */
+    void add(FlowEntry rule);
+
+    /**
+     * Replaces an existing flow entry with the given entry if the given entry is not older than the stored entry.
+     *
+     * @param rule the flow entry to update
+     * @return indicates whether the stored entry was updated
+     */
+    boolean update(FlowEntry rule);
+
+    /**
+     * Applies the given update function to the stored entry matching the given rule.
+     *
+     * @param rule     the rule to update
+     * @param function the update function to apply
+     * @param <T>      the result type
+     * @return the update result or {@code null} if the rule was not updated
+     */
+    <T> T update(FlowRule rule, Function<StoredFlowEntry, T> function);
+
+    /**
+     * Removes the stored entry matching the given entry if the given entry is not older than the stored entry.
+     *
+     * @param rule the flow entry to remove
+     * @return the removed flow entry or {@code null} if no entry was removed
+     */
+    FlowEntry remove(FlowEntry rule);
+
+    /**
+     * Returns a copy of the storage.
+     *
+     * @return a copy of the storage
+     */
+    FlowBucketStorage copy();
+
+    /**
+     * Removes all entries from the storage.
+     */
+    void clear();
+}
@@ -48,7 +48,9 @@ import org.onosproject.net.group.StoredGroupEntry;
 import org.onosproject.store.AbstractStore;
 import org.onosproject.store.cluster.messaging.ClusterCommunicationService;
 import org.onosproject.store.serializers.KryoNamespaces;
+import org.onosproject.store.service.CommitStatus;
 import org.onosproject.store.service.ConsistentMap;
+import org.onosproject.store.service.DistributedPrimitive;
 import org.onosproject.store.service.DistributedPrimitive.Status;
 import org.onosproject.store.service.MapEvent;
 import org.onosproject.store.service.MapEventListener;
@@ -56,6 +58,8 @@ import org.onosproject.store.service.MultiValuedTimestamp;
 import org.onosproject.store.service.Serializer;
 import org.onosproject.store.service.StorageService;
 import org.onosproject.store.service.Topic;
+import org.onosproject.store.service.TransactionContext;
+import org.onosproject.store.service.TransactionalMap;
 import org.onosproject.store.service.Versioned;
 import org.osgi.service.component.ComponentContext;
 import org.osgi.service.component.annotations.Activate;
@@ -73,6 +77,7 @@ import java.util.Dictionary;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -82,9 +87,12 @@ import java.util.Properties;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
@@ -122,6 +130,8 @@ public class DistributedGroupStore
 
     private static final int MAX_FAILED_ATTEMPTS = 3;
 
+    private static final String GROUP_STORE_KEYMAP = "onos-group-store-keymap";
+
     private final int dummyId = 0xffffffff;
     private final GroupId dummyGroupId = new GroupId(dummyId);
 
@@ -167,6 +177,7 @@ public class DistributedGroupStore
     private final AtomicInteger groupIdGen = new AtomicInteger();
 
     private KryoNamespace clusterMsgSerializer;
+    private Serializer serializer;
 
     private static Topic<GroupStoreMessage> groupTopic;
 
@@ -204,7 +215,7 @@ public class DistributedGroupStore
                 );
 
         clusterMsgSerializer = kryoBuilder.build("GroupStore");
-        Serializer serializer = Serializer.using(clusterMsgSerializer);
+        serializer = Serializer.using(clusterMsgSerializer);
 
         messageHandlingExecutor = Executors.
                 newFixedThreadPool(MESSAGE_HANDLER_THREAD_POOL_SIZE,
@@ -217,10 +228,10 @@ public class DistributedGroupStore
                                           this::process,
                                           messageHandlingExecutor);
 
-        log.debug("Creating Consistent map onos-group-store-keymap");
+        log.debug("Creating Consistent map {}", GROUP_STORE_KEYMAP);
 
         groupStoreEntriesByKey = storageService.<GroupStoreKeyMapKey, StoredGroupEntry>consistentMapBuilder()
-                .withName("onos-group-store-keymap")
+                .withName(GROUP_STORE_KEYMAP)
                 .withSerializer(serializer)
                 .build();
         groupStoreEntriesByKey.addListener(mapListener);
@@ -380,11 +391,10 @@ public class DistributedGroupStore
             return Collections.emptySet();
         }
 
-        Set<StoredGroupEntry> storedGroups = getGroupStoreKeyMap().values()
-                .stream()
-                .filter(input -> input.deviceId().equals(deviceId))
-                .collect(Collectors.toSet());
-        return ImmutableSet.copyOf(storedGroups);
+        // Served from the per device group id table, kept in sync with the key
+        // map by its listener, so that auditing a device does not scan the
+        // groups of every other device
+        return ImmutableSet.copyOf(getGroupIdTable(deviceId).values());
     }
 
     /**
@@ -494,6 +504,109 @@ public class DistributedGroupStore
         storeGroupDescriptionInternal(groupDesc);
     }
 
+    /**
+     * Stores new group entries using the information from a batch of group
+     * descriptions. Descriptions are grouped per device, and the requests for
+     * a device mastered by a remote instance are forwarded in one message.
+     *
+     * @param groupDescs group descriptions to be used to create group entries
+     */
+    @Override
+    public void storeGroupDescriptions(Collection<GroupDescription> groupDescs) {
+        Map<DeviceId, List<GroupDescription>> descsByDevice = groupDescs.stream()
+                .collect(Collectors.groupingBy(GroupDescription::deviceId,
+                                               LinkedHashMap::new,
+                                               Collectors.toList()));
+        descsByDevice.forEach(this::storeGroupDescriptions);
+    }
+
+    private void storeGroupDescriptions(DeviceId deviceId, List<GroupDescription> groupDescs) {
+        // Skip the groups already existing with the same key
+        List<GroupDescription> newGroupDescs = groupDescs.stream()
+                .filter(groupDesc -> getGroup(deviceId, groupDesc.appCookie()) == null)
+                .collect(Collectors.toList());
+        if (newGroupDescs.isEmpty()) {
+            return;
+        }
+
+        if (mastershipService.getLocalRole(deviceId) != MastershipRole.MASTER) {
+            NodeId master = mastershipService.getMasterFor(deviceId);
+            if (master == null) {
+                log.debug("No Master for device {}...Queuing {} Group ADD requests",
+                          deviceId, newGroupDescs.size());
+                newGroupDescs.forEach(this::addToPendingAudit);
+                return;
+            }
+            GroupStoreMessage groupOp = GroupStoreMessage.
+                    createGroupBatchAddRequestMsg(deviceId, newGroupDescs);
+
+            clusterCommunicator.unicast(groupOp,
+                                        GroupStoreMessageSubjects.REMOTE_GROUP_OP_REQUEST,
+                                        clusterMsgSerializer::serialize,
+                                        master)
+                    .whenComplete((result, error) -> {
+                        if (error != null) {
+                            log.warn("Failed to send batch request to master: {} to {}",
+                                     groupOp.type(), master, error);
+                        } else {
+                            log.debug("Sent {} Group ADD requests for device {} to remote MASTER {}",
+                                      newGroupDescs.size(), deviceId, master);
+                        }
+                    });
+            return;
+        }
+
+        log.debug("Store {} groups for device {} locally", newGroupDescs.size(), deviceId);
+        Map<GroupStoreKeyMapKey, StoredGroupEntry> newGroups = new LinkedHashMap<>();
+        for (GroupDescription groupDesc : newGroupDescs) {
+            GroupStoreKeyMapKey key = new GroupStoreKeyMapKey(deviceId, groupDesc.appCookie());
+            if (!newGroups.containsKey(key)) {
+                StoredGroupEntry group = createGroupEntry(groupDesc);
+                if (group != null) {
+                    newGroups.put(key, group);
+                }
+            }
+        }
+        if (newGroups.isEmpty()) {
+            return;
+        }
+
+        TransactionContext tx = storageService.transactionContextBuilder().build();
+        tx.begin();
+        TransactionalMap<GroupStoreKeyMapKey, StoredGroupEntry> txGroupStoreKeyMap =
+                tx.getTransactionalMap(GROUP_STORE_KEYMAP, serializer);
+        newGroups.forEach(txGroupStoreKeyMap::put);
+        if (commitTransaction(tx) != CommitStatus.SUCCESS) {
+            // The ids are already reserved; fall back to storing groups one by one
+            log.warn("Failed to store {} groups for device {} in one transaction; storing them individually",
+                     newGroups.size(), deviceId);
+            newGroups.forEach(getGroupStoreKeyMap()::put);
+        }
+        newGroups.values().forEach(group -> {
+            log.debug("storeGroupDescriptions: Processing Group ADD request for Id {} in device {}",
+                      group.id(), deviceId);
+            notifyDelegate(new GroupEvent(GroupEvent.Type.GROUP_ADD_REQUESTED, group));
+        });
+    }
+
+    /**
+     * Commits a transaction.
+     *
+     * @param tx the transaction to commit
+     * @return the transaction status, FAILURE if the commit did not complete
+     */
+    private CommitStatus commitTransaction(TransactionContext tx) {
+        try {
+            return tx.commit().get(DistributedPrimitive.DEFAULT_OPERATION_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Interrupted while committing transaction {}", tx.transactionId());
+        } catch (ExecutionException | TimeoutException e) {
+            log.warn("Failed to commit transaction {}", tx.transactionId(), e);
+        }
+        return CommitStatus.FAILURE;
+    }
+
     private void addToPendingAudit(GroupDescription groupDesc) {
         Integer groupIdVal = groupDesc.givenGroupId();
         GroupId groupId = (groupIdVal != null) ? new GroupId(groupIdVal) : dummyGroupId;
@@ -535,9 +648,34 @@ public class DistributedGroupStore
     }
 
     private void storeGroupDescriptionInternal(GroupDescription groupDesc) {
+        StoredGroupEntry group = createGroupEntry(groupDesc);
+        if (group == null) {
+            return;
+        }
+        // Insert the newly created group entry into key map
+        getGroupStoreKeyMap().
+                put(new GroupStoreKeyMapKey(groupDesc.deviceId(),
+                                            groupDesc.appCookie()), group);
+        log.debug("storeGroupDescriptionInternal: Processing Group ADD request for Id {} in device {}",
+                  group.id(),
+                  groupDesc.deviceId());
+        notifyDelegate(new GroupEvent(GroupEvent.Type.GROUP_ADD_REQUESTED,
+                                      group));
+    }
+
+    /**
+     * Creates the entry of a new group and reserves its id in the group id
+     * table. Requests that are queued for audit, that reuse an extraneous
+     * group or that conflict with an existing group are handled here and
+     * yield no entry.
+     *
+     * @param groupDesc group description
+     * @return group entry still to be inserted into the key map, or null
+     */
+    private StoredGroupEntry createGroupEntry(GroupDescription groupDesc) {
         // Check if a group is existing with the same key
         if (getGroup(groupDesc.deviceId(), groupDesc.appCookie()) != null) {
-            return;
+            return null;
         }
 
         if (deviceAuditStatus.get(groupDesc.deviceId()) == null) {
@@ -553,7 +691,7 @@ public class DistributedGroupStore
             pendingKeyTable.put(new GroupStoreKeyMapKey(groupDesc.deviceId(),
                                                         groupDesc.appCookie()),
                                 group);
-            return;
+            return null;
         }
 
         Group matchingExtraneousGroup = null;
@@ -586,7 +724,7 @@ public class DistributedGroupStore
                             put(matchingExtraneousGroup.id(), group);
                     addOrUpdateGroupEntry(matchingExtraneousGroup);
                     removeExtraneousGroupEntry(matchingExtraneousGroup);
-                    return;
+                    return null;
                 } else {
                     //Group buckets are not matching. Update group
                     //with user provided buckets.
@@ -610,7 +748,7 @@ public class DistributedGroupStore
                               matchingExtraneousGroup.id(),
                               groupDesc.deviceId());
                     notifyDelegate(new GroupEvent(Type.GROUP_UPDATE_REQUESTED, modifiedGroup));
-                    return;
+                    return null;
                 }
             }
         } else {
@@ -635,7 +773,7 @@ public class DistributedGroupStore
                         put(matchingExtraneousGroup.id(), group);
                 addOrUpdateGroupEntry(matchingExtraneousGroup);
                 removeExtraneousGroupEntry(matchingExtraneousGroup);
-                return;
+                return null;
             } else {
                 //TODO: Check if there are any empty groups that can be used here
                 log.debug("storeGroupDescriptionInternal: No matching extraneous groups found in Device {}",
@@ -659,25 +797,17 @@ public class DistributedGroupStore
                          groupDesc.deviceId(),
                          existing.appCookie(),
                          groupDesc.appCookie());
-                return;
+                return null;
             }
             id = new GroupId(groupDesc.givenGroupId());
         }
         // Create a group entry object
         StoredGroupEntry group = new DefaultGroup(id, groupDesc);
-        // Insert the newly created group entry into key and id maps
-        getGroupStoreKeyMap().
-                put(new GroupStoreKeyMapKey(groupDesc.deviceId(),
-                                            groupDesc.appCookie()), group);
-        // Ensure it also inserted into group id based table to
-        // avoid any chances of duplication in group id generation
+        // Insert it into group id based table first to avoid any
+        // chances of duplication in group id generation
         getGroupIdTable(groupDesc.deviceId()).
                 put(id, group);
-        log.debug("storeGroupDescriptionInternal: Processing Group ADD request for Id {} in device {}",
-                  id,
-                  groupDesc.deviceId());
-        notifyDelegate(new GroupEvent(GroupEvent.Type.GROUP_ADD_REQUESTED,
-                                      group));
+        return group;
     }
 
     /**
@@ -1267,6 +1397,8 @@ public class DistributedGroupStore
         }
         if (groupOp.type() == GroupStoreMessage.Type.ADD) {
             storeGroupDescriptionInternal(groupOp.groupDesc());
+        } else if (groupOp.type() == GroupStoreMessage.Type.BATCH_ADD) {
+            groupOp.groupDescs().forEach(this::storeGroupDescriptionInternal);
         } else if (groupOp.type() == GroupStoreMessage.Type.UPDATE) {
             updateGroupDescriptionInternal(groupOp.deviceId(),
                                            groupOp.appCookie(),
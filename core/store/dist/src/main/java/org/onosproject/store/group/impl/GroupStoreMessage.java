@@ -21,6 +21,9 @@ import org.onosproject.net.group.GroupDescription;
 import org.onosproject.net.group.GroupKey;
 import org.onosproject.net.group.GroupStore.UpdateType;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Format of the Group store message that is used to
  * communicate with the peer nodes in the cluster.
@@ -32,6 +35,7 @@ public final class GroupStoreMessage {
     private final UpdateType updateType;
     private final GroupBuckets updateBuckets;
     private final GroupKey newAppCookie;
+    private final List<GroupDescription> groupDescs;
     private final Type type;
 
     /**
@@ -41,7 +45,8 @@ public final class GroupStoreMessage {
         ADD,
         UPDATE,
         DELETE,
-        FAILOVER
+        FAILOVER,
+        BATCH_ADD
     }
 
     private GroupStoreMessage(Type type,
@@ -51,6 +56,17 @@ public final class GroupStoreMessage {
                              UpdateType updateType,
                              GroupBuckets updateBuckets,
                              GroupKey newAppCookie) {
+        this(type, deviceId, appCookie, groupDesc, updateType, updateBuckets, newAppCookie, null);
+    }
+
+    private GroupStoreMessage(Type type,
+                             DeviceId deviceId,
+                             GroupKey appCookie,
+                             GroupDescription groupDesc,
+                             UpdateType updateType,
+                             GroupBuckets updateBuckets,
+                             GroupKey newAppCookie,
+                             List<GroupDescription> groupDescs) {
         this.type = type;
         this.deviceId = deviceId;
         this.appCookie = appCookie;
@@ -58,6 +74,7 @@ public final class GroupStoreMessage {
         this.updateType = updateType;
         this.updateBuckets = updateBuckets;
         this.newAppCookie = newAppCookie;
+        this.groupDescs = groupDescs;
     }
 
     /**
@@ -78,6 +95,26 @@ public final class GroupStoreMessage {
                               null);
     }
 
+    /**
+     * Creates a group store message for a batch of group ADD requests
+     * targeting the same device.
+     *
+     * @param deviceId device identifier in which groups to be added
+     * @param descs group creation parameters
+     * @return constructed group store message
+     */
+    public static GroupStoreMessage createGroupBatchAddRequestMsg(DeviceId deviceId,
+                                                                  List<GroupDescription> descs) {
+        return new GroupStoreMessage(Type.BATCH_ADD,
+                                     deviceId,
+                                     null,
+                                     null,
+                                     null,
+                                     null,
+                                     null,
+                                     new ArrayList<>(descs));
+    }
+
     /**
      * Creates a group store message for group UPDATE request.
      *
@@ -159,6 +196,15 @@ public final class GroupStoreMessage {
         return groupDesc;
     }
 
+    /**
+     * Returns the group create parameters associated with this batch group request.
+     *
+     * @return list of group create parameters; null if this is not a batch request
+     */
+    public List<GroupDescription> groupDescs() {
+        return groupDescs;
+    }
+
     /**
      * Returns the group buckets to be updated as part of this group request.
      *
@@ -51,13 +51,15 @@ import org.osgi.service.component.annotations.ReferenceCardinality;
 import org.slf4j.Logger;
 
 import java.util.Collection;
-import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
@@ -84,7 +86,20 @@ public class DistributedHostStore
 
     private ConsistentMap<HostId, DefaultHost> hostsConsistentMap;
     private Map<HostId, DefaultHost> hosts;
-    private Map<IpAddress, Set<Host>> hostsByIp;
+    // Secondary indexes, updated by the write paths and by the host map listener
+    private final HostIndex<IpAddress> hostsByIp = new HostIndex<>(Host::ipAddresses);
+    private final HostIndex<MacAddress> hostsByMac = new HostIndex<>(host -> ImmutableSet.of(host.mac()));
+    private final HostIndex<ConnectPoint> hostsByLocation = new HostIndex<>(host -> host.locations().stream()
+            .map(location -> new ConnectPoint(location.elementId(), location.port()))
+            .collect(Collectors.toSet()));
+    private final HostIndex<DeviceId> hostsByDevice = new HostIndex<>(host -> host.locations().stream()
+            .map(HostLocation::deviceId)
+            .collect(Collectors.toSet()));
+    // Version of each host reflected by the indexes. Removed hosts are kept with a null value
+    // until their removal event is received, so that a late event cannot bring them back.
+    private volatile Map<HostId, Versioned<DefaultHost>> indexedHosts = new ConcurrentHashMap<>();
+    // Index updates share the lock, reloading the indexes takes it exclusively
+    private final ReadWriteLock indexLock = new ReentrantReadWriteLock();
     MapEventListener<HostId, DefaultHost> hostLocationTracker =
             new HostLocationTracker();
 
@@ -107,11 +122,11 @@ public class DistributedHostStore
         executor = newSingleThreadScheduledExecutor(groupedThreads("onos/hosts", "status-listener", log));
         statusChangeListener = status -> {
             if (status == Status.ACTIVE) {
-                executor.execute(this::loadHostsByIp);
+                executor.execute(this::loadIndexes);
             }
         };
         hostsConsistentMap.addStatusChangeListener(statusChangeListener);
-        loadHostsByIp();
+        loadIndexes();
         log.info("Started");
     }
 
@@ -123,18 +138,23 @@ public class DistributedHostStore
         log.info("Stopped");
     }
 
-    private void loadHostsByIp() {
-        hostsByIp = new ConcurrentHashMap<IpAddress, Set<Host>>();
-        hostsConsistentMap.asJavaMap().values().forEach(host -> {
-            host.ipAddresses().forEach(ip -> {
-                Set<Host> existingHosts = hostsByIp.get(ip);
-                if (existingHosts == null) {
-                    hostsByIp.put(ip, addHosts(host));
-                } else {
-                    existingHosts.add(host);
-                }
-            });
-        });
+    private void loadIndexes() {
+        indexLock.writeLock().lock();
+        try {
+            Map<HostId, Versioned<DefaultHost>> loaded = new ConcurrentHashMap<>();
+            hostsConsistentMap.entrySet().forEach(entry -> loaded.put(entry.getKey(), entry.getValue()));
+            List<DefaultHost> allHosts = loaded.values().stream()
+                    .map(Versioned::value)
+                    .collect(Collectors.toList());
+            // Each index is rebuilt aside and then swapped in, lookups keep using the old one meanwhile
+            hostsByIp.load(allHosts);
+            hostsByMac.load(allHosts);
+            hostsByLocation.load(allHosts);
+            hostsByDevice.load(allHosts);
+            indexedHosts = loaded;
+        } finally {
+            indexLock.writeLock().unlock();
+        }
     }
 
     private boolean shouldUpdate(DefaultHost existingHost,
@@ -186,7 +206,7 @@ public class DistributedHostStore
                                         HostId hostId,
                                         HostDescription hostDescription,
                                         boolean replaceIPs) {
-        hostsConsistentMap.computeIf(hostId,
+        Versioned<DefaultHost> host = hostsConsistentMap.computeIf(hostId,
                 existingHost -> shouldUpdate(existingHost, providerId,
                         hostDescription, replaceIPs),
                 (id, existingHost) -> {
@@ -220,20 +240,26 @@ public class DistributedHostStore
                             false,
                             annotations);
                 });
+        if (host != null) {
+            updateIndexes(hostId, host);
+        }
         return null;
     }
 
     // TODO No longer need to return HostEvent
     @Override
     public HostEvent removeHost(HostId hostId) {
-        hosts.remove(hostId);
+        Versioned<DefaultHost> removed = hostsConsistentMap.remove(hostId);
+        if (removed != null) {
+            removeFromIndexes(hostId, removed.version());
+        }
         return null;
     }
 
     // TODO No longer need to return HostEvent
     @Override
     public HostEvent removeIp(HostId hostId, IpAddress ipAddress) {
-        hosts.compute(hostId, (id, existingHost) -> {
+        reindex(hostId, hostsConsistentMap.compute(hostId, (id, existingHost) -> {
             if (existingHost != null) {
                 checkState(Objects.equals(hostId.mac(), existingHost.mac()),
                         "Existing and new MAC addresses differ.");
@@ -244,7 +270,6 @@ public class DistributedHostStore
                 if (addresses != null && addresses.contains(ipAddress)) {
                     addresses = new HashSet<>(existingHost.ipAddresses());
                     addresses.remove(ipAddress);
-                    removeIpFromHostsByIp(existingHost, ipAddress);
                     return new DefaultHost(existingHost.providerId(),
                             hostId,
                             existingHost.mac(),
@@ -262,14 +287,14 @@ public class DistributedHostStore
                 }
             }
             return null;
-        });
+        }));
         return null;
     }
 
     @Override
     public void appendLocation(HostId hostId, HostLocation location) {
         log.debug("Appending location {} to host {}", location, hostId);
-        hosts.compute(hostId, (id, existingHost) -> {
+        reindex(hostId, hostsConsistentMap.compute(hostId, (id, existingHost) -> {
             if (existingHost != null) {
                 checkState(Objects.equals(hostId.mac(), existingHost.mac()),
                         "Existing and new MAC addresses differ.");
@@ -289,13 +314,13 @@ public class DistributedHostStore
                         existingHost.configured(), existingHost.suspended(), existingHost.annotations());
             }
             return null;
-        });
+        }));
     }
 
     @Override
     public void removeLocation(HostId hostId, HostLocation location) {
         log.debug("Removing location {} from host {}", location, hostId);
-        hosts.compute(hostId, (id, existingHost) -> {
+        reindex(hostId, hostsConsistentMap.compute(hostId, (id, existingHost) -> {
             if (existingHost != null) {
                 checkState(Objects.equals(hostId.mac(), existingHost.mac()),
                         "Existing and new MAC addresses differ.");
@@ -314,7 +339,7 @@ public class DistributedHostStore
                                 existingHost.configured(), existingHost.suspended(), existingHost.annotations());
             }
             return null;
-        });
+        }));
     }
 
     @Override
@@ -339,37 +364,27 @@ public class DistributedHostStore
 
     @Override
     public Set<Host> getHosts(MacAddress mac) {
-        return filter(hosts.values(), host -> Objects.equals(host.mac(), mac));
+        return hostsByMac.get(mac);
     }
 
     @Override
     public Set<Host> getHosts(IpAddress ip) {
-        Set<Host> hosts = hostsByIp.get(ip);
-        return hosts != null ? ImmutableSet.copyOf(hosts) : ImmutableSet.of();
+        return hostsByIp.get(ip);
     }
 
     @Override
     public Set<Host> getConnectedHosts(ConnectPoint connectPoint) {
-        Set<Host> filtered = hosts.entrySet().stream()
-                .filter(entry -> entry.getValue().locations().contains(connectPoint))
-                .map(Map.Entry::getValue)
-                .collect(Collectors.toSet());
-        return ImmutableSet.copyOf(filtered);
+        return hostsByLocation.get(new ConnectPoint(connectPoint.elementId(), connectPoint.port()));
     }
 
     @Override
     public Set<Host> getConnectedHosts(DeviceId deviceId) {
-        Set<Host> filtered = hosts.entrySet().stream()
-                .filter(entry -> entry.getValue().locations().stream()
-                        .map(HostLocation::deviceId).anyMatch(dpid -> dpid.equals(deviceId)))
-                .map(Map.Entry::getValue)
-                .collect(Collectors.toSet());
-        return ImmutableSet.copyOf(filtered);
+        return hostsByDevice.get(deviceId);
     }
 
     @Override
     public void suspend(HostId hostId) {
-        hosts.compute(hostId, (id, existingHost) -> {
+        reindex(hostId, hostsConsistentMap.compute(hostId, (id, existingHost) -> {
             if (existingHost != null) {
                 if (!existingHost.suspended()) {
                     return new DefaultHost(existingHost.providerId(),
@@ -388,12 +403,12 @@ public class DistributedHostStore
 
             }
             return null;
-        });
+        }));
     }
 
     @Override
     public void unsuspend(HostId hostId) {
-        hosts.compute(hostId, (id, existingHost) -> {
+        reindex(hostId, hostsConsistentMap.compute(hostId, (id, existingHost) -> {
             if (existingHost != null) {
                 if (existingHost.suspended()) {
                     return new DefaultHost(existingHost.providerId(),
@@ -412,54 +427,82 @@ public class DistributedHostStore
                 }
             }
             return null;
-        });
+        }));
     }
 
     private Set<Host> filter(Collection<DefaultHost> collection, Predicate<DefaultHost> predicate) {
         return collection.stream().filter(predicate).collect(Collectors.toSet());
     }
 
-    private Set<Host> addHosts(Host host) {
-        Set<Host> hosts = Sets.newConcurrentHashSet();
-        hosts.add(host);
-        return hosts;
-    }
-
-    private Set<Host> updateHosts(Set<Host> existingHosts, Host host) {
-        existingHosts.removeIf(existingHost -> existingHost.id().equals(host.id()));
-        existingHosts.add(host);
-        return existingHosts;
-    }
-
-    private Set<Host> removeHosts(Set<Host> existingHosts, Host host) {
-
-        if (existingHosts != null) {
-            existingHosts.removeIf(existingHost -> existingHost.id().equals(host.id()));
+    // Indexes the outcome of a compute on the host map; a null value means the host was removed
+    private void reindex(HostId hostId, Versioned<DefaultHost> host) {
+        if (Versioned.valueOrNull(host) != null) {
+            updateIndexes(hostId, host);
+        } else {
+            removeFromIndexes(hostId, null);
         }
+    }
 
-        if (existingHosts == null || existingHosts.isEmpty()) {
-            return null;
+    // Indexes the given version of a host unless a newer one is already indexed
+    private void updateIndexes(HostId hostId, Versioned<DefaultHost> host) {
+        indexLock.readLock().lock();
+        try {
+            indexedHosts.compute(hostId, (id, indexed) -> {
+                if (indexed != null && indexed.version() >= host.version()) {
+                    return indexed;
+                }
+                DefaultHost prevHost = Versioned.valueOrNull(indexed);
+                hostsByIp.update(host.value(), prevHost);
+                hostsByMac.update(host.value(), prevHost);
+                hostsByLocation.update(host.value(), prevHost);
+                hostsByDevice.update(host.value(), prevHost);
+                return host;
+            });
+        } finally {
+            indexLock.readLock().unlock();
         }
-        return existingHosts;
     }
 
-    private void updateHostsByIp(DefaultHost host, DefaultHost prevHost) {
-        // Let's update first the current ips
-        host.ipAddresses().forEach(
-                ip -> hostsByIp.compute(ip, (k, v) -> v == null ? addHosts(host) : updateHosts(v, host)));
-
-        // Let's remove then each old ip
-        Set<IpAddress> oldIps = prevHost != null ? prevHost.ipAddresses() : Collections.emptySet();
-        Sets.difference(oldIps, host.ipAddresses()).forEach(
-                ip -> hostsByIp.computeIfPresent(ip, (k, v) -> removeHosts(v, host)));
+    // Removes a host from the indexes unless a newer one is already indexed. The version is the one
+    // of the removed host, or null when unknown, in which case the indexed host is removed.
+    private void removeFromIndexes(HostId hostId, Long version) {
+        indexLock.readLock().lock();
+        try {
+            indexedHosts.computeIfPresent(hostId, (id, indexed) -> {
+                if (indexed.value() == null || (version != null && indexed.version() > version)) {
+                    return indexed;
+                }
+                unindex(indexed.value());
+                return new Versioned<>(null, version != null ? version : indexed.version());
+            });
+        } finally {
+            indexLock.readLock().unlock();
+        }
     }
 
-    private void removeHostsByIp(DefaultHost host) {
-        host.ipAddresses().forEach(ip -> hostsByIp.computeIfPresent(ip, (k, v) -> removeHosts(v, host)));
+    // Handles the removal event of a host, after which no older event can be received for it
+    private void removedFromMap(HostId hostId, long version) {
+        indexLock.readLock().lock();
+        try {
+            indexedHosts.computeIfPresent(hostId, (id, indexed) -> {
+                if (indexed.version() > version) {
+                    return indexed;
+                }
+                if (indexed.value() != null) {
+                    unindex(indexed.value());
+                }
+                return null;
+            });
+        } finally {
+            indexLock.readLock().unlock();
+        }
     }
 
-    private void removeIpFromHostsByIp(DefaultHost host, IpAddress ip) {
-        hostsByIp.computeIfPresent(ip, (k, v) -> removeHosts(v, host));
+    private void unindex(DefaultHost host) {
+        hostsByIp.remove(host);
+        hostsByMac.remove(host);
+        hostsByLocation.remove(host);
+        hostsByDevice.remove(host);
     }
 
     private class HostLocationTracker implements MapEventListener<HostId, DefaultHost> {
@@ -469,11 +512,11 @@ public class DistributedHostStore
             DefaultHost prevHost = Versioned.valueOrNull(event.oldValue());
             switch (event.type()) {
                 case INSERT:
-                    updateHostsByIp(host, prevHost);
+                    updateIndexes(event.key(), event.newValue());
                     notifyDelegate(new HostEvent(HOST_ADDED, host));
                     break;
                 case UPDATE:
-                    updateHostsByIp(host, prevHost);
+                    updateIndexes(event.key(), event.newValue());
                     if (host.suspended() && !prevHost.suspended()) {
                         notifyDelegate(new HostEvent(HOST_SUSPENDED, host, prevHost));
                     } else if (!host.suspended() && prevHost.suspended()) {
@@ -487,7 +530,7 @@ public class DistributedHostStore
                     }
                     break;
                 case REMOVE:
-                    removeHostsByIp(prevHost);
+                    removedFromMap(event.key(), event.oldValue().version());
                     notifyDelegate(new HostEvent(HOST_REMOVED, prevHost));
                     break;
                 default:
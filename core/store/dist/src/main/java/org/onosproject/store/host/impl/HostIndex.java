@@ -0,0 +1,120 @@
+/*
+ * Copyright 2020-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.host.impl;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
+import org.onosproject.net.Host;
+import org.onosproject.net.HostId;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Secondary index of hosts by an attribute, such as an IP address or a location.
+ * <p>
+ * The index is updated incrementally as the hosts change, so that lookups
+ * only visit the hosts matching the key instead of scanning every host.
+ * Updates must not run concurrently with {@link #load(Iterable)}.
+ *
+ * @param <K> type of the index key
+ */
+final class HostIndex<K> {
+
+    private final Function<Host, Set<K>> keyFunction;
+    private volatile Map<K, Map<HostId, Host>> index = new ConcurrentHashMap<>();
+
+    /**
+     * Creates an index keyed by the given function.
+     *
+     * @param keyFunction function returning the index keys of a host
+     */
+    HostIndex(Function<Host, Set<K>> keyFunction) {
+        this.keyFunction = keyFunction;
+    }
+
+    /**
+     * Returns the hosts indexed under the given key.
+     *
+     * @param key index key
+     * @return immutable set of hosts
+     */
+    Set<Host> get(K key) {
+        Map<HostId, Host> hosts = index.get(key);
+        return hosts != null ? ImmutableSet.copyOf(hosts.values()) : ImmutableSet.of();
+    }
+
+    /**
+     * Indexes a new or updated host.
+     *
+     * @param host     current host
+     * @param prevHost previous host; null if the host is new
+     */
+    void update(Host host, Host prevHost) {
+        Set<K> keys = keyFunction.apply(host);
+        // Let's update first the current keys
+        put(index, keys, host);
+
+        // Let's remove then each old key
+        Set<K> oldKeys = prevHost != null ? keyFunction.apply(prevHost) : Collections.emptySet();
+        Sets.difference(oldKeys, keys).forEach(key -> remove(key, host));
+    }
+
+    /**
+     * Removes a host from the index.
+     *
+     * @param host removed host
+     */
+    void remove(Host host) {
+        keyFunction.apply(host).forEach(key -> remove(key, host));
+    }
+
+    /**
+     * Removes a host from the given key only.
+     *
+     * @param key  index key
+     * @param host host to remove
+     */
+    void remove(K key, Host host) {
+        index.computeIfPresent(key, (k, hosts) -> {
+            hosts.remove(host.id());
+            return hosts.isEmpty() ? null : hosts;
+        });
+    }
+
+    /**
+     * Rebuilds the index from the given hosts. The new index is swapped in once
+     * complete, so that concurrent lookups never observe a partial index.
+     *
+     * @param hosts all the hosts
+     */
+    void load(Iterable<? extends Host> hosts) {
+        Map<K, Map<HostId, Host>> loaded = new ConcurrentHashMap<>();
+        hosts.forEach(host -> put(loaded, keyFunction.apply(host), host));
+        index = loaded;
+    }
+
+    private void put(Map<K, Map<HostId, Host>> index, Set<K> keys, Host host) {
+        keys.forEach(key -> index.compute(key, (k, hosts) -> {
+            Map<HostId, Host> updated = hosts != null ? hosts : new ConcurrentHashMap<>();
+            updated.put(host.id(), host);
+            return updated;
+        }));
+    }
+}
@@ -0,0 +1,550 @@
+/*
+ * Copyright 2020-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.resource.impl;
+
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.TreeMap;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * Immutable compressed set of int values, in the style of Roaring bitmaps.
+ * <p>
+ * Values are split into chunks by their upper 16 bits. Each chunk holds the lower 16 bits of its values
+ * in whichever of a sorted array, a bitmap or a list of runs takes the least space, so that both sparse
+ * sets and long ranges, such as all the VLAN IDs of a port, stay small. Values are ordered as signed ints,
+ * the same as the range sets this class replaced, so that codecs mapping values above
+ * {@link Integer#MAX_VALUE} to negative ints, such as port numbers, keep their iteration order.
+ */
+final class CompressedIntSet {
+
+    private static final int CHUNK_SIZE = 1 << 16;
+    private static final int WORDS = CHUNK_SIZE / Long.SIZE;
+    private static final int BITMAP_BYTES = WORDS * Long.BYTES;
+
+    private static final byte ARRAY = 0;
+    private static final byte BITMAP = 1;
+    private static final byte RUNS = 2;
+
+    static final CompressedIntSet EMPTY = new CompressedIntSet(new short[0], new Container[0]);
+
+    // Signed upper 16 bits of the values of each chunk, in ascending order
+    private final short[] keys;
+    private final Container[] containers;
+    private final int size;
+
+    private CompressedIntSet(short[] keys, Container[] containers) {
+        this.keys = keys;
+        this.containers = containers;
+        int size = 0;
+        for (Container container : containers) {
+            size += container.cardinality();
+        }
+        this.size = size;
+    }
+
+    /**
+     * Returns a set of the given values.
+     *
+     * @param values values of the set
+     * @return compressed set
+     */
+    static CompressedIntSet of(IntStream values) {
+        TreeMap<Short, long[]> chunks = new TreeMap<>();
+        values.forEach(value -> {
+            long[] words = chunks.computeIfAbsent((short) (value >> 16), k -> new long[WORDS]);
+            int low = value & 0xffff;
+            words[low >>> 6] |= 1L << low;
+        });
+        short[] keys = new short[chunks.size()];
+        Container[] containers = new Container[chunks.size()];
+        int i = 0;
+        for (Map.Entry<Short, long[]> chunk : chunks.entrySet()) {
+            keys[i] = chunk.getKey();
+            containers[i++] = Container.of(chunk.getValue());
+        }
+        return new CompressedIntSet(keys, containers);
+    }
+
+    /**
+     * Returns the number of values in the set.
+     *
+     * @return number of values
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns whether the set is empty.
+     *
+     * @return true if the set has no values
+     */
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns whether the set contains the given value.
+     *
+     * @param value value to check
+     * @return true if the value is in the set
+     */
+    boolean contains(int value) {
+        int i = Arrays.binarySearch(keys, (short) (value >> 16));
+        return i >= 0 && containers[i].contains((char) value);
+    }
+
+    /**
+     * Returns the smallest value of the set.
+     *
+     * @return first value
+     * @throws NoSuchElementException if the set is empty
+     */
+    int first() {
+        return iterator().nextInt();
+    }
+
+    /**
+     * Returns an iterator over the values of the set in ascending order.
+     *
+     * @return value iterator
+     */
+    PrimitiveIterator.OfInt iterator() {
+        return new PrimitiveIterator.OfInt() {
+            private int chunk = -1;
+            private PrimitiveIterator.OfInt values = IntStream.empty().iterator();
+
+            @Override
+            public boolean hasNext() {
+                while (!values.hasNext() && chunk + 1 < keys.length) {
+                    chunk++;
+                    values = containers[chunk].iterator(keys[chunk] << 16);
+                }
+                return values.hasNext();
+            }
+
+            @Override
+            public int nextInt() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return values.nextInt();
+            }
+        };
+    }
+
+    /**
+     * Returns a set of the values in this set or in the given one.
+     *
+     * @param other other set
+     * @return union of the sets
+     */
+    CompressedIntSet union(CompressedIntSet other) {
+        return merge(other, false);
+    }
+
+    /**
+     * Returns a set of the values in this set that are not in the given one.
+     *
+     * @param other other set
+     * @return difference of the sets
+     */
+    CompressedIntSet difference(CompressedIntSet other) {
+        return merge(other, true);
+    }
+
+    private CompressedIntSet merge(CompressedIntSet other, boolean subtract) {
+        short[] newKeys = new short[keys.length + other.keys.length];
+        Container[] newContainers = new Container[newKeys.length];
+        int n = 0;
+        int i = 0;
+        int j = 0;
+        while (i < keys.length || j < other.keys.length) {
+            int cmp = i == keys.length ? 1 : j == other.keys.length ? -1 : Short.compare(keys[i], other.keys[j]);
+            Container merged;
+            short key;
+            if (cmp < 0) {
+                key = keys[i];
+                merged = containers[i++];
+            } else if (cmp > 0) {
+                key = other.keys[j];
+                merged = subtract ? null : other.containers[j];
+                j++;
+            } else {
+                key = keys[i];
+                long[] words = new long[WORDS];
+                containers[i++].addTo(words);
+                if (subtract) {
+                    long[] removed = new long[WORDS];
+                    other.containers[j++].addTo(removed);
+                    for (int w = 0; w < WORDS; w++) {
+                        words[w] &= ~removed[w];
+                    }
+                } else {
+                    other.containers[j++].addTo(words);
+                }
+                merged = Container.of(words);
+            }
+            if (merged != null) {
+                newKeys[n] = key;
+                newContainers[n++] = merged;
+            }
+        }
+        return new CompressedIntSet(Arrays.copyOf(newKeys, n), Arrays.copyOf(newContainers, n));
+    }
+
+    /**
+     * Writes the set to the given output.
+     *
+     * @param output kryo output
+     */
+    void write(Output output) {
+        output.writeVarInt(keys.length, true);
+        for (int i = 0; i < keys.length; i++) {
+            output.writeShort(keys[i]);
+            containers[i].write(output);
+        }
+    }
+
+    /**
+     * Reads a set written by {@link #write(Output)}.
+     *
+     * @param input kryo input
+     * @return compressed set
+     */
+    static CompressedIntSet read(Input input) {
+        int count = input.readVarInt(true);
+        short[] keys = new short[count];
+        Container[] containers = new Container[count];
+        for (int i = 0; i < count; i++) {
+            keys[i] = input.readShort();
+            containers[i] = Container.read(input);
+        }
+        return new CompressedIntSet(keys, containers);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(keys) + Arrays.hashCode(containers);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        // each chunk has a single representation for its values
+        CompressedIntSet other = (CompressedIntSet) obj;
+        return Arrays.equals(keys, other.keys) && Arrays.equals(containers, other.containers);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("[");
+        PrimitiveIterator.OfInt it = iterator();
+        int count = 0;
+        while (it.hasNext() && count < 16) {
+            sb.append(count++ > 0 ? ", " : "").append(it.nextInt());
+        }
+        if (it.hasNext()) {
+            sb.append(", ... (").append(size).append(" values)");
+        }
+        return sb.append(']').toString();
+    }
+
+    // Lower 16 bits of the values of a chunk
+    private abstract static class Container {
+
+        // Returns the most compact container for the given chunk bitmap; null if it is empty
+        static Container of(long[] words) {
+            int cardinality = 0;
+            int runs = 0;
+            long previous = 0;
+            for (long word : words) {
+                cardinality += Long.bitCount(word);
+                runs += Long.bitCount(word & ~((word << 1) | (previous >>> 63)));
+                previous = word;
+            }
+            if (cardinality == 0) {
+                return null;
+            }
+            int arrayBytes = cardinality * Character.BYTES;
+            int runBytes = runs * 2 * Character.BYTES;
+            if (runBytes <= arrayBytes && runBytes < BITMAP_BYTES) {
+                return RunContainer.of(words, runs);
+            } else if (arrayBytes < BITMAP_BYTES) {
+                return ArrayContainer.of(words, cardinality);
+            }
+            return new BitmapContainer(words.clone(), cardinality);
+        }
+
+        static Container read(Input input) {
+            byte type = input.readByte();
+            int length = input.readVarInt(true);
+            switch (type) {
+                case ARRAY:
+                    return new ArrayContainer(readDeltas(input, length));
+                case RUNS:
+                    return new RunContainer(readDeltas(input, length));
+                case BITMAP:
+                    long[] words = input.readLongs(length);
+                    int cardinality = 0;
+                    for (long word : words) {
+                        cardinality += Long.bitCount(word);
+                    }
+                    return new BitmapContainer(words, cardinality);
+                default:
+                    throw new IllegalStateException("Unknown container type " + type);
+            }
+        }
+
+        // Sorted values are written as variable length deltas, which keeps dense arrays and runs small
+        static void writeDeltas(Output output, char[] values) {
+            int previous = 0;
+            for (char value : values) {
+                output.writeVarInt(value - previous, true);
+                previous = value;
+            }
+        }
+
+        static char[] readDeltas(Input input, int length) {
+            char[] values = new char[length];
+            int previous = 0;
+            for (int i = 0; i < length; i++) {
+                previous += input.readVarInt(true);
+                values[i] = (char) previous;
+            }
+            return values;
+        }
+
+        abstract int cardinality();
+
+        abstract boolean contains(char value);
+
+        abstract void addTo(long[] words);
+
+        abstract PrimitiveIterator.OfInt iterator(int high);
+
+        abstract void write(Output output);
+    }
+
+    private static final class ArrayContainer extends Container {
+        private final char[] values;
+
+        private ArrayContainer(char[] values) {
+            this.values = values;
+        }
+
+        static ArrayContainer of(long[] words, int cardinality) {
+            char[] values = new char[cardinality];
+            int n = 0;
+            for (int w = 0; w < words.length; w++) {
+                long word = words[w];
+                while (word != 0) {
+                    values[n++] = (char) (w * Long.SIZE + Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+            return new ArrayContainer(values);
+        }
+
+        @Override
+        int cardinality() {
+            return values.length;
+        }
+
+        @Override
+        boolean contains(char value) {
+            return Arrays.binarySearch(values, value) >= 0;
+        }
+
+        @Override
+        void addTo(long[] words) {
+            for (char value : values) {
+                words[value >>> 6] |= 1L << value;
+            }
+        }
+
+        @Override
+        PrimitiveIterator.OfInt iterator(int high) {
+            return IntStream.range(0, values.length).map(i -> high | values[i]).iterator();
+        }
+
+        @Override
+        void write(Output output) {
+            output.writeByte(ARRAY);
+            output.writeVarInt(values.length, true);
+            writeDeltas(output, values);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(values);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof ArrayContainer && Arrays.equals(values, ((ArrayContainer) obj).values);
+        }
+    }
+
+    private static final class BitmapContainer extends Container {
+        private final long[] words;
+        private final int cardinality;
+
+        private BitmapContainer(long[] words, int cardinality) {
+            this.words = words;
+            this.cardinality = cardinality;
+        }
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        boolean contains(char value) {
+            return (words[value >>> 6] & (1L << value)) != 0;
+        }
+
+        @Override
+        void addTo(long[] target) {
+            for (int w = 0; w < WORDS; w++) {
+                target[w] |= words[w];
+            }
+        }
+
+        @Override
+        PrimitiveIterator.OfInt iterator(int high) {
+            return IntStream.range(0, CHUNK_SIZE).filter(i -> contains((char) i)).map(i -> high | i).iterator();
+        }
+
+        @Override
+        void write(Output output) {
+            output.writeByte(BITMAP);
+            output.writeVarInt(words.length, true);
+            output.writeLongs(words);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(words);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof BitmapContainer && Arrays.equals(words, ((BitmapContainer) obj).words);
+        }
+    }
+
+    private static final class RunContainer extends Container {
+        // Start and last value of each run, in ascending order
+        private final char[] bounds;
+        private final int cardinality;
+
+        private RunContainer(char[] bounds) {
+            this.bounds = bounds;
+            int cardinality = 0;
+            for (int i = 0; i < bounds.length; i += 2) {
+                cardinality += bounds[i + 1] - bounds[i] + 1;
+            }
+            this.cardinality = cardinality;
+        }
+
+        static RunContainer of(long[] words, int runs) {
+            char[] bounds = new char[runs * 2];
+            int n = 0;
+            int start = -1;
+            for (int i = 0; i <= CHUNK_SIZE; i++) {
+                boolean set = i < CHUNK_SIZE && (words[i >>> 6] & (1L << i)) != 0;
+                if (set && start < 0) {
+                    start = i;
+                } else if (!set && start >= 0) {
+                    bounds[n++] = (char) start;
+                    bounds[n++] = (char) (i - 1);
+                    start = -1;
+                }
+            }
+            return new RunContainer(bounds);
+        }
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        boolean contains(char value) {
+            int lo = 0;
+            int hi = bounds.length / 2 - 1;
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                if (value < bounds[2 * mid]) {
+                    hi = mid - 1;
+                } else if (value > bounds[2 * mid + 1]) {
+                    lo = mid + 1;
+                } else {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        void addTo(long[] words) {
+            for (int i = 0; i < bounds.length; i += 2) {
+                for (int v = bounds[i]; v <= bounds[i + 1]; v++) {
+                    words[v >>> 6] |= 1L << v;
+                }
+            }
+        }
+
+        @Override
+        PrimitiveIterator.OfInt iterator(int high) {
+            return IntStream.range(0, bounds.length / 2)
+                    .flatMap(r -> IntStream.rangeClosed(bounds[2 * r], bounds[2 * r + 1]))
+                    .map(i -> high | i)
+                    .iterator();
+        }
+
+        @Override
+        void write(Output output) {
+            output.writeByte(RUNS);
+            output.writeVarInt(bounds.length, true);
+            writeDeltas(output, bounds);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(bounds);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof RunContainer && Arrays.equals(bounds, ((RunContainer) obj).bounds);
+        }
+    }
+}
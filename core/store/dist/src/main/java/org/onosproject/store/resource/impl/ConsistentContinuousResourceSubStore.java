@@ -52,10 +52,12 @@ class ConsistentContinuousResourceSubStore implements ConsistentResourceSubStore
         this.consumers = service.<ContinuousResourceId, ContinuousResourceAllocation>consistentMapBuilder()
                 .withName(MapNames.CONTINUOUS_CONSUMER_MAP)
                 .withSerializer(SERIALIZER)
+                .withRelaxedReadConsistency()
                 .build();
         this.childMap = service.<DiscreteResourceId, Set<ContinuousResource>>consistentMapBuilder()
                 .withName(MapNames.CONTINUOUS_CHILD_MAP)
                 .withSerializer(SERIALIZER)
+                .withRelaxedReadConsistency()
                 .build();
 
         Tools.retryable(
@@ -162,4 +164,11 @@ class ConsistentContinuousResourceSubStore implements ConsistentResourceSubStore
                 // continuous resource allocations only
                 .map(x -> (ContinuousResource) x.resource());
     }
+
+    @Override
+    public Stream<ResourceAllocation> getAllocations(Set<ResourceConsumerId> consumerIds) {
+        return consumers.values().stream()
+                .flatMap(x -> x.value().allocations().stream())
+                .filter(x -> consumerIds.contains(x.consumerId()));
+    }
 }
@@ -50,10 +50,12 @@ class ConsistentDiscreteResourceSubStore implements ConsistentResourceSubStore
         this.consumers = service.<DiscreteResourceId, ResourceConsumerId>consistentMapBuilder()
                 .withName(MapNames.DISCRETE_CONSUMER_MAP)
                 .withSerializer(SERIALIZER)
+                .withRelaxedReadConsistency()
                 .build();
         this.childMap = service.<DiscreteResourceId, DiscreteResources>consistentMapBuilder()
                 .withName(MapNames.DISCRETE_CHILD_MAP)
                 .withSerializer(SERIALIZER)
+                .withRelaxedReadConsistency()
                 .build();
 
         Tools.retryable(
@@ -126,4 +128,11 @@ class ConsistentDiscreteResourceSubStore implements ConsistentResourceSubStore
                 .map(Map.Entry::getKey)
                 .map(x -> Resources.discrete(x).resource());
     }
+
+    @Override
+    public Stream<ResourceAllocation> getAllocations(Set<ResourceConsumerId> consumerIds) {
+        return consumers.entrySet().stream()
+                .filter(x -> consumerIds.contains(x.getValue().value()))
+                .map(x -> new ResourceAllocation(Resources.discrete(x.getKey()).resource(), x.getValue().value()));
+    }
 }
@@ -16,6 +16,7 @@
 package org.onosproject.store.resource.impl;
 
 import com.google.common.annotations.Beta;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import org.onlab.util.KryoNamespace;
 import org.onlab.util.Tools;
@@ -228,20 +229,31 @@ public class ConsistentResourceStore extends AbstractStore<ResourceEvent, Resour
         checkNotNull(resources);
         checkNotNull(consumer);
 
+        return allocateAll(ImmutableMap.of(consumer, resources));
+    }
+
+    @Override
+    public boolean allocateAll(Map<? extends ResourceConsumer, ? extends List<? extends Resource>> requests) {
+        checkNotNull(requests);
+
         while (true) {
             TransactionContext tx = service.transactionContextBuilder().build();
             tx.begin();
 
             TransactionalDiscreteResourceSubStore discreteTxStore = discreteStore.transactional(tx);
             TransactionalContinuousResourceSubStore continuousTxStore = continuousStore.transactional(tx);
-            for (Resource resource : resources) {
-                if (resource instanceof DiscreteResource) {
-                    if (!discreteTxStore.allocate(consumer.consumerId(), (DiscreteResource) resource)) {
-                        return abortTransaction(tx);
-                    }
-                } else if (resource instanceof ContinuousResource) {
-                    if (!continuousTxStore.allocate(consumer.consumerId(), (ContinuousResource) resource)) {
-                        return abortTransaction(tx);
+            for (Map.Entry<? extends ResourceConsumer, ? extends List<? extends Resource>> request
+                    : requests.entrySet()) {
+                ResourceConsumerId consumerId = request.getKey().consumerId();
+                for (Resource resource : request.getValue()) {
+                    if (resource instanceof DiscreteResource) {
+                        if (!discreteTxStore.allocate(consumerId, (DiscreteResource) resource)) {
+                            return abortTransaction(tx);
+                        }
+                    } else if (resource instanceof ContinuousResource) {
+                        if (!continuousTxStore.allocate(consumerId, (ContinuousResource) resource)) {
+                            return abortTransaction(tx);
+                        }
                     }
                 }
             }
@@ -251,7 +263,7 @@ public class ConsistentResourceStore extends AbstractStore<ResourceEvent, Resour
                     return true;
                 }
             } catch (InterruptedException | ExecutionException | TimeoutException e) {
-                log.warn("Failed to allocate {}: {}", resources, e);
+                log.warn("Failed to allocate resources to {} consumers: {}", requests.size(), e);
                 return false;
             }
         }
@@ -293,6 +305,22 @@ public class ConsistentResourceStore extends AbstractStore<ResourceEvent, Resour
         }
     }
 
+    // computational complexity: O(n + m) where n is the number of entries in discreteConsumers
+    // and m is the number of allocations for all continuous resources, regardless of the number of consumers
+    @Override
+    public boolean releaseAll(Collection<? extends ResourceConsumer> consumers) {
+        checkNotNull(consumers);
+
+        Set<ResourceConsumerId> consumerIds = consumers.stream()
+                .map(ResourceConsumer::consumerId)
+                .collect(Collectors.toSet());
+        List<ResourceAllocation> allocations = Stream.concat(
+                discreteStore.getAllocations(consumerIds),
+                continuousStore.getAllocations(consumerIds))
+                .collect(Collectors.toList());
+        return release(allocations);
+    }
+
     // computational complexity: O(1) if the resource is discrete type.
     // O(n) if the resource is continuous type where n is the number of the children of
     // the specified resource's parent
@@ -90,4 +90,12 @@ interface ConsistentResourceSubStore
      */
     Stream<U> getResources(ResourceConsumerId consumerId);
 
+    /**
+     * Returns a stream of resource allocations for any of the given consumers.
+     *
+     * @param consumerIds the consumer IDs for which to return allocations
+     * @return a stream of allocations to the given consumers
+     */
+    Stream<ResourceAllocation> getAllocations(Set<ResourceConsumerId> consumerIds);
+
 }
\ No newline at end of file
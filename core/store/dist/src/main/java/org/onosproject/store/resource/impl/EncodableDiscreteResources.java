@@ -161,6 +161,10 @@ final class EncodableDiscreteResources implements DiscreteResources {
 
     @Override
     public Set<DiscreteResource> values() {
+        if (map.size() == 1) {
+            // the common case of a single value type is served without decoding every resource up front
+            return map.values().iterator().next().values(parent.id());
+        }
         return map.values().stream()
                 .flatMap(x -> x.values(parent.id()).stream())
                 .collect(Collectors.toCollection(LinkedHashSet::new));
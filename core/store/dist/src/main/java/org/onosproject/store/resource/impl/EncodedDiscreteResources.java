@@ -16,104 +16,118 @@
 package org.onosproject.store.resource.impl;
 
 import com.google.common.base.MoreObjects;
-import com.google.common.collect.DiscreteDomain;
-import com.google.common.collect.Range;
-import com.google.common.collect.RangeSet;
-import com.google.common.collect.TreeRangeSet;
+import com.google.common.collect.Iterators;
 import org.onlab.util.Tools;
 import org.onosproject.net.resource.DiscreteResource;
 import org.onosproject.net.resource.DiscreteResourceCodec;
 import org.onosproject.net.resource.DiscreteResourceId;
 import org.onosproject.net.resource.Resources;
 
-import java.util.LinkedHashSet;
+import java.util.AbstractSet;
+import java.util.Iterator;
 import java.util.Objects;
 import java.util.Set;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 
 import static com.google.common.base.Preconditions.checkArgument;
 
 /**
  * Represents discrete resources encoded by a codec.
+ * <p>
+ * Encoded values are kept in a {@link CompressedIntSet}, so that contiguous ranges such as VLAN IDs
+ * and sparse sets such as partially allocated MPLS labels are both stored compactly.
  */
 final class EncodedDiscreteResources {
-    private final RangeSet<Integer> rangeSet;
+    private final CompressedIntSet values;
     private final DiscreteResourceCodec codec;
 
-    EncodedDiscreteResources(RangeSet<Integer> rangeSet, DiscreteResourceCodec codec) {
-        this.rangeSet = rangeSet;
+    EncodedDiscreteResources(CompressedIntSet values, DiscreteResourceCodec codec) {
+        this.values = values;
         this.codec = codec;
     }
 
+    @SuppressWarnings("unchecked")
     static EncodedDiscreteResources of(Set<DiscreteResource> resources, DiscreteResourceCodec codec) {
-        RangeSet<Integer> rangeSet = TreeRangeSet.create();
-        resources.stream()
+        CompressedIntSet values = CompressedIntSet.of(resources.stream()
                 .map(x -> x.valueAs(Object.class))
                 .flatMap(Tools::stream)
-                .map(x -> codec.encode(x))
-                .map(Range::singleton)
-                .map(x -> x.canonical(DiscreteDomain.integers()))
-                .forEach(rangeSet::add);
+                .mapToInt(x -> codec.encode(x)));
 
-        return new EncodedDiscreteResources(rangeSet, codec);
+        return new EncodedDiscreteResources(values, codec);
     }
 
-    RangeSet<Integer> rangeSet() {
-        return rangeSet;
+    CompressedIntSet encodedValues() {
+        return values;
     }
 
     DiscreteResourceCodec codec() {
         return codec;
     }
 
+    /**
+     * Returns a view of the resources under the given parent.
+     * Membership is answered from the encoded values and resources are decoded while iterating.
+     *
+     * @param parent parent of the resources
+     * @return unmodifiable set of the resources
+     */
     Set<DiscreteResource> values(DiscreteResourceId parent) {
-        return rangeSet.asRanges().stream()
-                .flatMapToInt(x1 -> IntStream.range(x1.lowerEndpoint(), x1.upperEndpoint()))
-                .boxed()
-                .map(x -> codec.decode(x))
-                .map(x -> Resources.discrete(parent, x).resource())
-                .collect(Collectors.toCollection(LinkedHashSet::new));
+        return new AbstractSet<DiscreteResource>() {
+            @Override
+            public Iterator<DiscreteResource> iterator() {
+                return Iterators.transform(values.iterator(),
+                        x -> Resources.discrete(parent, codec.decode(x)).resource());
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                if (!(o instanceof DiscreteResource)) {
+                    return false;
+                }
+                DiscreteResource resource = (DiscreteResource) o;
+                return !values.isEmpty()
+                        && resource.parent().map(x -> x.id().equals(parent)).orElse(false)
+                        && resource.valueAs(Object.class).map(x -> x.getClass() == encodedClass()).orElse(false)
+                        && EncodedDiscreteResources.this.contains(resource);
+            }
+
+            @Override
+            public int size() {
+                return values.size();
+            }
+        };
     }
 
     Class<?> encodedClass() {
-        Range<Integer> firstRange = rangeSet.asRanges().iterator().next();
-        return codec.decode(firstRange.lowerEndpoint()).getClass();
+        return codec.decode(values.first()).getClass();
     }
 
     @SuppressWarnings("unchecked")
     boolean contains(DiscreteResource resource) {
         return resource.valueAs(Object.class)
                 .map(x -> codec.encode(x))
-                .map(rangeSet::contains)
+                .map(values::contains)
                 .orElse(false);
     }
 
     EncodedDiscreteResources difference(EncodedDiscreteResources other) {
         checkArgument(this.codec.getClass() == other.codec.getClass());
 
-        RangeSet<Integer> newRangeSet = TreeRangeSet.create(this.rangeSet);
-        newRangeSet.removeAll(other.rangeSet);
-
-        return new EncodedDiscreteResources(newRangeSet, this.codec);
+        return new EncodedDiscreteResources(values.difference(other.values), this.codec);
     }
 
     EncodedDiscreteResources add(EncodedDiscreteResources other) {
         checkArgument(this.codec.getClass() == other.codec.getClass());
 
-        RangeSet<Integer> newRangeSet = TreeRangeSet.create(this.rangeSet);
-        newRangeSet.addAll(other.rangeSet);
-
-        return new EncodedDiscreteResources(newRangeSet, this.codec);
+        return new EncodedDiscreteResources(values.union(other.values), this.codec);
     }
 
     boolean isEmpty() {
-        return rangeSet.isEmpty();
+        return values.isEmpty();
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(rangeSet, codec);
+        return Objects.hash(values, codec);
     }
 
     @Override
@@ -125,14 +139,14 @@ final class EncodedDiscreteResources {
             return false;
         }
         final EncodedDiscreteResources other = (EncodedDiscreteResources) obj;
-        return Objects.equals(this.rangeSet, other.rangeSet)
+        return Objects.equals(this.values, other.values)
                 && Objects.equals(this.codec, other.codec);
     }
 
     @Override
     public String toString() {
         return MoreObjects.toStringHelper(this)
-                .add("rangeSet", rangeSet)
+                .add("values", values)
                 .add("codec", codec)
                 .toString();
     }
@@ -19,39 +19,47 @@ import com.esotericsoftware.kryo.Kryo;
 import com.esotericsoftware.kryo.Serializer;
 import com.esotericsoftware.kryo.io.Input;
 import com.esotericsoftware.kryo.io.Output;
-import com.google.common.collect.Range;
-import com.google.common.collect.RangeSet;
-import com.google.common.collect.TreeRangeSet;
 import org.onlab.util.ClosedOpenRange;
 import org.onosproject.net.resource.DiscreteResourceCodec;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * Kryo Serializer for {@link EncodedDiscreteResources}.
+ * <p>
+ * Values used to be written as a list of {@link ClosedOpenRange}. A null list now marks the versioned
+ * encoding that follows it, so that values written by either encoding can be read.
  */
 final class EncodedResourcesSerializer extends Serializer<EncodedDiscreteResources> {
+
+    private static final int FORMAT_VERSION = 1;
+
     @Override
     public void write(Kryo kryo, Output output, EncodedDiscreteResources object) {
-        List<ClosedOpenRange> ranges = object.rangeSet().asRanges().stream()
-                .map(ClosedOpenRange::of)
-                .collect(Collectors.toList());
-        kryo.writeObject(output, ranges);
+        kryo.writeObjectOrNull(output, null, ArrayList.class);
+        output.writeVarInt(FORMAT_VERSION, true);
+        object.encodedValues().write(output);
         kryo.writeClassAndObject(output, object.codec());
     }
 
     @Override
     public EncodedDiscreteResources read(Kryo kryo, Input input, Class<EncodedDiscreteResources> cls) {
         @SuppressWarnings("unchecked")
-        List<ClosedOpenRange> ranges = kryo.readObject(input, ArrayList.class);
+        List<ClosedOpenRange> ranges = kryo.readObjectOrNull(input, ArrayList.class);
+        CompressedIntSet values;
+        if (ranges == null) {
+            int version = input.readVarInt(true);
+            if (version != FORMAT_VERSION) {
+                throw new IllegalStateException("Unknown encoded resources format version " + version);
+            }
+            values = CompressedIntSet.read(input);
+        } else {
+            values = CompressedIntSet.of(ranges.stream()
+                    .flatMapToInt(x -> IntStream.range(x.lowerBound(), x.upperBound())));
+        }
         DiscreteResourceCodec codec = (DiscreteResourceCodec) kryo.readClassAndObject(input);
-
-        RangeSet<Integer> rangeSet = TreeRangeSet.create();
-        ranges.stream()
-                .map(x -> Range.closedOpen(x.lowerBound(), x.upperBound()))
-                .forEach(rangeSet::add);
-        return new EncodedDiscreteResources(rangeSet, codec);
+        return new EncodedDiscreteResources(values, codec);
     }
 }
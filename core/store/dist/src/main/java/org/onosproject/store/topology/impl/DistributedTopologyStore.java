@@ -17,6 +17,7 @@ package org.onosproject.store.topology.impl;
 
 import org.onlab.graph.GraphPathSearch;
 import org.onlab.util.KryoNamespace;
+import org.onlab.util.Tools;
 import org.onosproject.cfg.ComponentConfigService;
 import org.onosproject.common.DefaultTopology;
 import org.onosproject.event.Event;
@@ -72,8 +73,12 @@ import static com.google.common.base.Preconditions.checkArgument;
 import static org.onlab.util.Tools.get;
 import static org.onlab.util.Tools.isNullOrEmpty;
 import static org.onosproject.net.topology.TopologyEvent.Type.TOPOLOGY_CHANGED;
+import static org.onosproject.store.OsgiPropertyConstants.INCREMENTAL_TOPOLOGY;
+import static org.onosproject.store.OsgiPropertyConstants.INCREMENTAL_TOPOLOGY_DEFAULT;
 import static org.onosproject.store.OsgiPropertyConstants.LINK_WEIGHT_FUNCTION;
 import static org.onosproject.store.OsgiPropertyConstants.LINK_WEIGHT_FUNCTION_DEFAULT;
+import static org.onosproject.store.OsgiPropertyConstants.VERIFY_INCREMENTAL_TOPOLOGY;
+import static org.onosproject.store.OsgiPropertyConstants.VERIFY_INCREMENTAL_TOPOLOGY_DEFAULT;
 import static org.slf4j.LoggerFactory.getLogger;
 
 /**
@@ -89,7 +94,9 @@ import static org.slf4j.LoggerFactory.getLogger;
                 TopologyStore.class, PathAdminService.class
         },
         property = {
-                LINK_WEIGHT_FUNCTION + "=" + LINK_WEIGHT_FUNCTION_DEFAULT
+                LINK_WEIGHT_FUNCTION + "=" + LINK_WEIGHT_FUNCTION_DEFAULT,
+                INCREMENTAL_TOPOLOGY + ":Boolean=" + INCREMENTAL_TOPOLOGY_DEFAULT,
+                VERIFY_INCREMENTAL_TOPOLOGY + ":Boolean=" + VERIFY_INCREMENTAL_TOPOLOGY_DEFAULT
         }
 )
 public class DistributedTopologyStore
@@ -98,7 +105,8 @@ public class DistributedTopologyStore
 
     private final Logger log = getLogger(getClass());
 
-    private static final String FORMAT = "Settings: linkWeightFunction={}";
+    private static final String FORMAT = "Settings: linkWeightFunction={}, " +
+            "incrementalTopology={}, verifyIncrementalTopology={}";
 
     private volatile DefaultTopology current =
             new DefaultTopology(ProviderId.NONE,
@@ -128,6 +136,12 @@ public class DistributedTopologyStore
     /** Default link-weight function: hopCount, linkMetric, geoDistance. */
     private String linkWeightFunction = LINK_WEIGHT_FUNCTION_DEFAULT;
 
+    /** Derive clusters and broadcast trees incrementally from the previous topology. */
+    private boolean incrementalTopology = INCREMENTAL_TOPOLOGY_DEFAULT;
+
+    /** Verify incrementally derived clusters against a full cluster search. */
+    private boolean verifyIncrementalTopology = VERIFY_INCREMENTAL_TOPOLOGY_DEFAULT;
+
     // Cluster root to broadcast points bindings to allow convergence to
     // a shared broadcast tree; node that is the master of the cluster root
     // is the primary.
@@ -174,7 +188,18 @@ public class DistributedTopologyStore
                             new GeoDistanceLinkWeight(deviceService) : null;
             setDefaultLinkWeigher(weight);
         }
-        log.info(FORMAT, linkWeightFunction);
+
+        Boolean flag = Tools.isPropertyEnabled(properties, INCREMENTAL_TOPOLOGY);
+        if (flag != null) {
+            incrementalTopology = flag;
+        }
+
+        flag = Tools.isPropertyEnabled(properties, VERIFY_INCREMENTAL_TOPOLOGY);
+        if (flag != null && flag != verifyIncrementalTopology) {
+            verifyIncrementalTopology = flag;
+            DefaultTopology.setVerifyIncrementalClusters(verifyIncrementalTopology);
+        }
+        log.info(FORMAT, linkWeightFunction, incrementalTopology, verifyIncrementalTopology);
     }
 
     @Override
@@ -297,7 +322,8 @@ public class DistributedTopologyStore
                                         List<Event> reasons) {
         // Have the default topology construct self from the description data.
         DefaultTopology newTopology =
-                new DefaultTopology(providerId, graphDescription, this::isBroadcastPoint);
+                new DefaultTopology(providerId, graphDescription, this::isBroadcastPoint,
+                                    incrementalTopology ? current : null);
         updateBroadcastPoints(newTopology);
 
         // Promote the new topology to current and return a ready-to-send event.
@@ -322,8 +348,11 @@ public class DistributedTopologyStore
         topology.getClusters().forEach(c -> {
             toRemove.remove(c.root().deviceId());
             if (mastershipService.isLocalMaster(c.root().deviceId())) {
-                broadcastPoints.put(c.root().deviceId(),
-                                    topology.broadcastPoints(c.id()));
+                // Avoid replicating broadcast trees which have not changed
+                Set<ConnectPoint> points = topology.broadcastPoints(c.id());
+                if (!Objects.equals(points, broadcastPoints.get(c.root().deviceId()))) {
+                    broadcastPoints.put(c.root().deviceId(), points);
+                }
             }
         });
 
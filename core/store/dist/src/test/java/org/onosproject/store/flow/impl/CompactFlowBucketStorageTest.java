@@ -0,0 +1,211 @@
+/*
+ * Copyright 2020-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.flow.impl;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.onlab.packet.MacAddress;
+import org.onlab.util.KryoNamespace;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.PortNumber;
+import org.onosproject.net.flow.DefaultFlowEntry;
+import org.onosproject.net.flow.DefaultFlowRule;
+import org.onosproject.net.flow.DefaultTrafficSelector;
+import org.onosproject.net.flow.DefaultTrafficTreatment;
+import org.onosproject.net.flow.FlowEntry;
+import org.onosproject.net.flow.FlowEntry.FlowEntryState;
+import org.onosproject.net.flow.FlowRule;
+import org.onosproject.net.flow.StoredFlowEntry;
+import org.onosproject.store.LogicalTimestamp;
+import org.onosproject.store.serializers.KryoNamespaces;
+import org.onosproject.store.service.Serializer;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.onosproject.net.NetTestTools.APP_ID;
+import static org.onosproject.net.NetTestTools.did;
+
+/**
+ * Unit tests for the compact flow bucket storage.
+ */
+public class CompactFlowBucketStorageTest {
+
+    private static final DeviceId DEVICE_ID = did("device1");
+
+    private CompactFlowBucketStorage storage;
+
+    @Before
+    public void setUp() {
+        storage = new CompactFlowBucketStorage();
+    }
+
+    private static FlowRule rule(long mac, int priority) {
+        return DefaultFlowRule.builder()
+            .forDevice(DEVICE_ID)
+            .withSelector(DefaultTrafficSelector.builder()
+                .matchEthDst(MacAddress.valueOf(mac))
+                .build())
+            .withTreatment(DefaultTrafficTreatment.builder()
+                .setOutput(PortNumber.portNumber(1))
+                .build())
+            .withPriority(priority)
+            .makeTemporary(44)
+            .fromApp(APP_ID)
+            .build();
+    }
+
+    /**
+     * Tests adding and reading flow entries.
+     */
+    @Test
+    public void testAddAndGet() {
+        FlowRule rule = rule(1, 10);
+        DefaultFlowEntry entry = new DefaultFlowEntry(rule, FlowEntryState.ADDED, 5, TimeUnit.SECONDS, 100, 200);
+        storage.add(entry);
+
+        assertThat(storage.count(), is(1));
+        StoredFlowEntry stored = storage.get(rule);
+        assertThat(stored, notNullValue());
+        assertThat(stored.exactMatch(rule), is(true));
+        assertThat(stored.state(), is(FlowEntryState.ADDED));
+        assertThat(stored.life(TimeUnit.SECONDS), is(5L));
+        assertThat(stored.packets(), is(100L));
+        assertThat(stored.bytes(), is(200L));
+        assertThat(stored.lastSeen(), is(entry.lastSeen()));
+        assertThat(((DefaultFlowEntry) stored).created(), is(entry.created()));
+        assertThat(stored.appId(), is(rule.appId()));
+        assertThat(stored.timeout(), is(rule.timeout()));
+        assertThat(stored.isPermanent(), is(rule.isPermanent()));
+
+        assertThat(storage.get(rule(2, 10)), nullValue());
+        assertThat(storage.get(rule(1, 20)), nullValue());
+    }
+
+    /**
+     * Tests that selectors and treatments are shared across entries.
+     */
+    @Test
+    public void testInterning() {
+        storage.add(new DefaultFlowEntry(rule(1, 10)));
+        storage.add(new DefaultFlowEntry(rule(1, 20)));
+        assertThat(storage.get(rule(1, 10)).selector(), sameInstance(storage.get(rule(1, 20)).selector()));
+        assertThat(storage.get(rule(1, 10)).treatment(), sameInstance(storage.get(rule(1, 20)).treatment()));
+    }
+
+    /**
+     * Tests that update functions are written back to the storage.
+     */
+    @Test
+    public void testUpdateFunction() {
+        FlowRule rule = rule(1, 10);
+        storage.add(new DefaultFlowEntry(rule));
+        String result = storage.update(rule, stored -> {
+            stored.setState(FlowEntryState.ADDED);
+            stored.setPackets(10);
+            stored.setBytes(20);
+            return "updated";
+        });
+        assertThat(result, is("updated"));
+
+        FlowEntry stored = storage.get(rule);
+        assertThat(stored.state(), is(FlowEntryState.ADDED));
+        assertThat(stored.packets(), is(10L));
+        assertThat(stored.bytes(), is(20L));
+
+        assertThat(storage.update(rule(2, 10), stored2 -> "missing"), nullValue());
+    }
+
+    /**
+     * Tests that older entries do not replace or remove newer entries.
+     */
+    @Test
+    public void testStaleUpdateAndRemove() throws Exception {
+        FlowRule rule = rule(1, 10);
+        DefaultFlowEntry older = new DefaultFlowEntry(rule);
+        Thread.sleep(2);
+        DefaultFlowEntry newer = new DefaultFlowEntry(rule, FlowEntryState.ADDED);
+        storage.add(newer);
+
+        assertThat(storage.update(older), is(false));
+        assertThat(storage.remove(older), nullValue());
+        assertThat(storage.get(rule).state(), is(FlowEntryState.ADDED));
+
+        assertThat(storage.remove(newer), notNullValue());
+        assertThat(storage.count(), is(0));
+    }
+
+    /**
+     * Tests growing the storage and removing entries from the middle of the columns.
+     */
+    @Test
+    public void testGrowAndRemove() {
+        int count = 1000;
+        for (int i = 0; i < count; i++) {
+            storage.add(new DefaultFlowEntry(rule(i, 10)));
+        }
+        assertThat(storage.count(), is(count));
+
+        for (int i = 0; i < count; i += 2) {
+            assertThat(storage.remove(new DefaultFlowEntry(rule(i, 10))), notNullValue());
+        }
+        assertThat(storage.count(), is(count / 2));
+
+        for (int i = 0; i < count; i++) {
+            if (i % 2 == 0) {
+                assertThat(storage.get(rule(i, 10)), nullValue());
+            } else {
+                assertThat(storage.get(rule(i, 10)), notNullValue());
+            }
+        }
+        assertThat(storage.getAll().size(), is(count / 2));
+
+        storage.clear();
+        assertThat(storage.count(), is(0));
+    }
+
+    /**
+     * Tests serializing a flow bucket backed by compact storage.
+     */
+    @Test
+    public void testSerialization() {
+        Serializer serializer = Serializer.using(KryoNamespace.newBuilder()
+            .register(KryoNamespaces.API)
+            .register(BucketId.class)
+            .register(FlowBucket.class)
+            .register(LogicalTimestamp.class)
+            .register(DefaultFlowBucketStorage.class)
+            .register(new CompactFlowBucketStorageSerializer(), CompactFlowBucketStorage.class)
+            .build());
+
+        FlowRule rule = rule(1, 10);
+        DefaultFlowEntry entry = new DefaultFlowEntry(rule, FlowEntryState.ADDED, 5, TimeUnit.SECONDS, 100, 200);
+        FlowBucket bucket = new FlowBucket(new BucketId(DEVICE_ID, 1), storage);
+        bucket.add(entry, 1, new LogicalClock());
+
+        FlowBucket decoded = serializer.decode(serializer.encode(bucket));
+        assertThat(decoded.count(), is(1));
+        assertThat(decoded.term(), is(1L));
+        StoredFlowEntry stored = decoded.getFlowEntry(rule);
+        assertThat(stored.exactMatch(rule), is(true));
+        assertThat(stored.packets(), is(100L));
+        assertThat(((DefaultFlowEntry) stored).created(), is(entry.created()));
+    }
+}
@@ -0,0 +1,375 @@
+/*
+ * Copyright 2020-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.flow.impl;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.onlab.packet.IpAddress;
+import org.onlab.packet.MacAddress;
+import org.onlab.util.Tools;
+import org.onosproject.cluster.ClusterServiceAdapter;
+import org.onosproject.cluster.ControllerNode;
+import org.onosproject.cluster.DefaultControllerNode;
+import org.onosproject.cluster.NodeId;
+import org.onosproject.event.AbstractListenerManager;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.flow.DefaultFlowEntry;
+import org.onosproject.net.flow.DefaultFlowRule;
+import org.onosproject.net.flow.DefaultTrafficSelector;
+import org.onosproject.net.flow.FlowEntry;
+import org.onosproject.store.LogicalTimestamp;
+import org.onosproject.store.cluster.messaging.ClusterCommunicationServiceAdapter;
+import org.onosproject.store.cluster.messaging.MessageSubject;
+import org.onosproject.store.cluster.messaging.MessagingException;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.onosproject.net.NetTestTools.APP_ID;
+import static org.onosproject.net.NetTestTools.did;
+
+/**
+ * Unit tests for the replication handlers of the device flow table.
+ */
+public class DeviceFlowTableTest {
+
+    private static final DeviceId DEVICE_ID = did("device1");
+    private static final NodeId LOCAL = new NodeId("local");
+    private static final NodeId OLD_MASTER = new NodeId("node1");
+    private static final NodeId NEW_MASTER = new NodeId("node2");
+
+    private final TestClusterCommunicator clusterCommunicator = new TestClusterCommunicator();
+    private final TestLifecycleManager lifecycleManager = new TestLifecycleManager();
+    private ScheduledExecutorService scheduler;
+    private DeviceFlowTable flowTable;
+
+    @Before
+    public void setUp() {
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+        lifecycleManager.replicaInfo = new DeviceReplicaInfo(1, OLD_MASTER, ImmutableList.of(LOCAL));
+        Executor executor = Runnable::run;
+        flowTable = new DeviceFlowTable(
+            DEVICE_ID,
+            new ClusterServiceAdapter(),
+            clusterCommunicator,
+            lifecycleManager,
+            scheduler,
+            executor,
+            60_000,
+            60_000,
+            false,
+            true,
+            1000);
+    }
+
+    @After
+    public void tearDown() {
+        flowTable.close();
+        scheduler.shutdownNow();
+    }
+
+    private static FlowEntry entry(long mac) {
+        return new DefaultFlowEntry(DefaultFlowRule.builder()
+            .forDevice(DEVICE_ID)
+            .withSelector(DefaultTrafficSelector.builder()
+                .matchEthDst(MacAddress.valueOf(mac))
+                .build())
+            .withPriority(10)
+            .makePermanent()
+            .fromApp(APP_ID)
+            .build());
+    }
+
+    private static int bucket(FlowEntry entry) {
+        return Math.abs((int) (entry.id().id() % 128));
+    }
+
+    // Returns an entry other than the given ones that falls into the same bucket
+    private static FlowEntry sameBucket(FlowEntry... others) {
+        long mac = 1;
+        FlowEntry entry = entry(mac);
+        while (Arrays.asList(others).contains(entry) || bucket(entry) != bucket(others[0])) {
+            entry = entry(++mac);
+        }
+        return new DefaultFlowEntry(entry, FlowEntry.FlowEntryState.ADDED);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <M, R> R deliver(String subject, M message) {
+        Function<Timestamped<M>, Timestamped<R>> handler = (Function<Timestamped<M>, Timestamped<R>>)
+            clusterCommunicator.handlers.get(subject(subject));
+        return handler.apply(new Timestamped<>(message, new LogicalTimestamp(0))).value();
+    }
+
+    /**
+     * Tests that a delta from a new term is rejected by a backup holding the bucket from a prior term, even when the
+     * bucket's logical timestamp matches the base of the delta.
+     */
+    @Test
+    public void testDeltaRejectedAcrossTerms() {
+        FlowEntry oldEntry = entry(1);
+        BucketId bucketId = new BucketId(DEVICE_ID, bucket(oldEntry));
+
+        // Full backup of the bucket by the master of the first term
+        LogicalClock oldClock = new LogicalClock();
+        FlowBucket oldBucket = new FlowBucket(bucketId);
+        oldBucket.add(oldEntry, 1, oldClock);
+        Boolean applied = deliver("backup", oldBucket);
+        assertThat(applied, is(true));
+        assertThat(flowTable.getFlowEntry(oldEntry), notNullValue());
+
+        // The new master starts a new term whose logical time overlaps the backed up bucket
+        lifecycleManager.replicaInfo = new DeviceReplicaInfo(2, NEW_MASTER, ImmutableList.of(LOCAL));
+        FlowEntry newEntry = sameBucket(oldEntry);
+        FlowBucketDelta delta = new FlowBucketDelta(
+            bucketId, 2, oldBucket.timestamp(), new LogicalTimestamp(oldBucket.timestamp().value() + 1),
+            Lists.newArrayList(newEntry), Lists.newArrayList());
+
+        applied = deliver("backup-delta", delta);
+        assertThat(applied, is(false));
+        assertThat(flowTable.getFlowEntry(newEntry), nullValue());
+        assertThat(flowTable.getFlowEntry(oldEntry), notNullValue());
+
+        // A full backup for the new term is accepted and replaces the divergent bucket
+        LogicalClock newClock = new LogicalClock();
+        FlowBucket newBucket = new FlowBucket(bucketId);
+        newBucket.add(newEntry, 2, newClock);
+        applied = deliver("backup", newBucket);
+        assertThat(applied, is(true));
+        assertThat(flowTable.getFlowEntry(newEntry), notNullValue());
+        assertThat(flowTable.getFlowEntry(oldEntry), nullValue());
+
+        // Once the bucket is at the new term, deltas on top of it are applied
+        FlowEntry nextEntry = sameBucket(newEntry);
+        delta = new FlowBucketDelta(
+            bucketId, 2, newBucket.timestamp(), new LogicalTimestamp(newBucket.timestamp().value() + 1),
+            Lists.newArrayList(nextEntry), Lists.newArrayList());
+        applied = deliver("backup-delta", delta);
+        assertThat(applied, is(true));
+        assertThat(flowTable.getFlowEntry(nextEntry), notNullValue());
+    }
+
+    /**
+     * Tests that a statistics-only update of an installed flow does not advance the bucket and reaches the backups
+     * through the next anti-entropy run without a transfer of the bucket.
+     */
+    @Test
+    public void testStatisticsUpdateNotRecorded() {
+        TestClusterCommunicator masterCommunicator = new TestClusterCommunicator();
+        ManualScheduler masterScheduler = new ManualScheduler();
+        DeviceFlowTable master = newMaster(masterCommunicator, masterScheduler, false);
+        try {
+            FlowEntry entry = new DefaultFlowEntry(entry(1), FlowEntry.FlowEntryState.ADDED);
+            master.add(entry).join();
+            masterScheduler.runPeriodicTasks();
+            FlowBucketDigest before = digest(bucket(entry));
+
+            Boolean updated = master.updateStatistics(entry, stored -> {
+                stored.setPackets(100);
+                stored.setBytes(200);
+                return true;
+            }).join();
+            assertThat(updated, is(true));
+
+            masterCommunicator.sent.clear();
+            masterScheduler.runPeriodicTasks();
+            assertThat(masterCommunicator.sent.contains(subject("backup")), is(false));
+            assertThat(masterCommunicator.sent.contains(subject("backup-statistics")), is(true));
+            assertThat(digest(bucket(entry)).isNewerThan(before), is(false));
+            assertThat(flowTable.getFlowEntry(entry).packets(), is(100L));
+            assertThat(flowTable.getFlowEntry(entry).bytes(), is(200L));
+
+            // Statistics are only sent once
+            masterCommunicator.sent.clear();
+            masterScheduler.runPeriodicTasks();
+            assertThat(masterCommunicator.sent.contains(subject("backup-statistics")), is(false));
+        } finally {
+            master.close();
+            masterScheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * Tests that enabling delta backups at runtime forces a full backup, so that changes made while delta backups
+     * were disabled are not left out of the backups.
+     */
+    @Test
+    public void testToggleDeltaBackups() {
+        TestClusterCommunicator masterCommunicator = new TestClusterCommunicator();
+        ManualScheduler masterScheduler = new ManualScheduler();
+        DeviceFlowTable master = newMaster(masterCommunicator, masterScheduler, false);
+        try {
+            FlowEntry entry1 = new DefaultFlowEntry(entry(1), FlowEntry.FlowEntryState.ADDED);
+            master.add(entry1).join();
+            masterScheduler.runPeriodicTasks();
+            assertThat(flowTable.getFlowEntry(entry1), notNullValue());
+
+            // Not logged while delta backups are disabled
+            FlowEntry entry2 = sameBucket(entry1);
+            master.add(entry2).join();
+
+            master.setDeltaBackups(true);
+            FlowEntry entry3 = sameBucket(entry1, entry2);
+            master.add(entry3).join();
+            masterScheduler.runPeriodicTasks();
+            assertThat(flowTable.getFlowEntry(entry2), notNullValue());
+            assertThat(flowTable.getFlowEntry(entry3), notNullValue());
+
+            // Changes logged before delta backups were disabled are not reused once they are enabled again
+            master.setDeltaBackups(false);
+            master.remove(entry1).join();
+            master.setDeltaBackups(true);
+            masterScheduler.runPeriodicTasks();
+            assertThat(flowTable.getFlowEntry(entry1), nullValue());
+            assertThat(flowTable.getFlowEntry(entry2), notNullValue());
+        } finally {
+            master.close();
+            masterScheduler.shutdownNow();
+        }
+    }
+
+    // Creates a master table for the term in which the local table is a backup
+    private DeviceFlowTable newMaster(TestClusterCommunicator masterCommunicator, ManualScheduler masterScheduler,
+                                      boolean deltaBackups) {
+        masterCommunicator.peers.put(LOCAL, clusterCommunicator);
+        TestLifecycleManager masterLifecycleManager = new TestLifecycleManager();
+        masterLifecycleManager.replicaInfo = lifecycleManager.replicaInfo;
+        return new DeviceFlowTable(
+            DEVICE_ID,
+            new TestClusterService(OLD_MASTER),
+            masterCommunicator,
+            masterLifecycleManager,
+            masterScheduler,
+            Runnable::run,
+            60_000,
+            60_000,
+            false,
+            deltaBackups,
+            1000);
+    }
+
+    private static MessageSubject subject(String name) {
+        return new MessageSubject(String.format("flow-store-%s-%s", DEVICE_ID, name));
+    }
+
+    private FlowBucketDigest digest(int bucket) {
+        Set<FlowBucketDigest> digests = deliver("digests", null);
+        return digests.stream().filter(digest -> digest.bucket() == bucket).findFirst().orElse(null);
+    }
+
+    private static class TestClusterService extends ClusterServiceAdapter {
+        private final ControllerNode localNode;
+
+        TestClusterService(NodeId nodeId) {
+            localNode = new DefaultControllerNode(nodeId, IpAddress.valueOf("127.0.0.1"));
+        }
+
+        @Override
+        public ControllerNode getLocalNode() {
+            return localNode;
+        }
+    }
+
+    private static class TestClusterCommunicator extends ClusterCommunicationServiceAdapter {
+        private final Map<MessageSubject, Function<?, ?>> handlers = Maps.newConcurrentMap();
+        private final Map<MessageSubject, Function<byte[], byte[]>> subscribers = Maps.newConcurrentMap();
+        private final Map<NodeId, TestClusterCommunicator> peers = Maps.newConcurrentMap();
+        private final List<MessageSubject> sent = Lists.newCopyOnWriteArrayList();
+
+        @Override
+        public <M, R> void addSubscriber(MessageSubject subject, Function<byte[], M> decoder,
+                                         Function<M, R> handler, Function<R, byte[]> encoder, Executor executor) {
+            handlers.put(subject, handler);
+            subscribers.put(subject, decoder.andThen(handler).andThen(encoder));
+        }
+
+        @Override
+        public void removeSubscriber(MessageSubject subject) {
+            handlers.remove(subject);
+            subscribers.remove(subject);
+        }
+
+        @Override
+        public <M, R> CompletableFuture<R> sendAndReceive(M message, MessageSubject subject,
+                                                          Function<M, byte[]> encoder, Function<byte[], R> decoder,
+                                                          NodeId toNodeId) {
+            sent.add(subject);
+            TestClusterCommunicator peer = peers.get(toNodeId);
+            Function<byte[], byte[]> subscriber = peer != null ? peer.subscribers.get(subject) : null;
+            if (subscriber == null) {
+                return Tools.exceptionalFuture(new MessagingException.NoRemoteHandler());
+            }
+            return CompletableFuture.completedFuture(decoder.apply(subscriber.apply(encoder.apply(message))));
+        }
+    }
+
+    // Runs periodic tasks such as anti-entropy only when asked to
+    private static class ManualScheduler extends ScheduledThreadPoolExecutor {
+        private final List<Runnable> periodicTasks = Lists.newCopyOnWriteArrayList();
+
+        ManualScheduler() {
+            super(1);
+        }
+
+        @Override
+        public ScheduledFuture<?> scheduleAtFixedRate(Runnable command, long initialDelay, long period,
+                                                      TimeUnit unit) {
+            periodicTasks.add(command);
+            return super.scheduleAtFixedRate(command, initialDelay, period, unit);
+        }
+
+        void runPeriodicTasks() {
+            periodicTasks.forEach(Runnable::run);
+        }
+    }
+
+    private static class TestLifecycleManager
+        extends AbstractListenerManager<LifecycleEvent, LifecycleEventListener>
+        implements LifecycleManager {
+        private volatile DeviceReplicaInfo replicaInfo;
+
+        @Override
+        public DeviceReplicaInfo getReplicaInfo() {
+            return replicaInfo;
+        }
+
+        @Override
+        public void activate(long term) {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -38,6 +38,8 @@ import org.onosproject.net.flow.FlowRule;
 import org.onosproject.net.flow.oldbatch.FlowRuleBatchEntry;
 import org.onosproject.net.flow.DefaultFlowEntry;
 import org.onosproject.net.flow.FlowEntry;
+import org.onosproject.net.flow.FlowEntry.FlowEntryState;
+import org.onosproject.net.flow.FlowRuleEvent;
 import org.onosproject.net.flow.DefaultFlowRule;
 import org.onosproject.net.flow.oldbatch.FlowRuleBatchOperation;
 import org.onosproject.net.intent.IntentTestsMocks;
@@ -52,6 +54,7 @@ import org.onosproject.store.service.TestStorageService;
 import org.onlab.packet.Ip4Address;
 import java.util.Iterator;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 import org.osgi.service.component.ComponentContext;
 
@@ -261,6 +264,25 @@ public class ECFlowRuleStoreTest {
         assertThat(flowStoreImpl.getTableStatistics(deviceId), notNullValue());
     }
 
+    /**
+     * Tests updating the statistics of an installed flow.
+     */
+    @Test
+    public void testUpdateFlowStatistics() {
+        flowStoreImpl.addOrUpdateFlowRule(new DefaultFlowEntry(flowRule, FlowEntryState.ADDED));
+
+        FlowEntry update = new DefaultFlowEntry(flowRule, FlowEntryState.ADDED, 10, TimeUnit.SECONDS, 100, 200);
+        FlowRuleEvent event = flowStoreImpl.addOrUpdateFlowRule(update);
+        assertThat(event, notNullValue());
+        assertThat(event.type(), is(FlowRuleEvent.Type.RULE_UPDATED));
+
+        FlowEntry stored = flowStoreImpl.getFlowEntry(flowRule);
+        assertThat(stored.state(), is(FlowEntryState.ADDED));
+        assertThat(stored.packets(), is(100L));
+        assertThat(stored.bytes(), is(200L));
+        assertThat(stored.life(), is(10L));
+    }
+
     /**
      * Tests flow removal.
      */
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2020-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.flow.impl;
+
+import java.util.Collections;
+
+import com.google.common.collect.Lists;
+import org.junit.Test;
+import org.onlab.packet.MacAddress;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.flow.DefaultFlowEntry;
+import org.onosproject.net.flow.DefaultFlowRule;
+import org.onosproject.net.flow.DefaultTrafficSelector;
+import org.onosproject.net.flow.FlowEntry;
+import org.onosproject.net.flow.FlowEntry.FlowEntryState;
+import org.onosproject.store.LogicalTimestamp;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.onosproject.net.NetTestTools.APP_ID;
+import static org.onosproject.net.NetTestTools.did;
+
+/**
+ * Unit tests for the flow bucket change log and delta application.
+ */
+public class FlowBucketChangeLogTest {
+
+    private static final DeviceId DEVICE_ID = did("device1");
+
+    private static FlowEntry entry(long mac) {
+        return new DefaultFlowEntry(DefaultFlowRule.builder()
+            .forDevice(DEVICE_ID)
+            .withSelector(DefaultTrafficSelector.builder()
+                .matchEthDst(MacAddress.valueOf(mac))
+                .build())
+            .withPriority(10)
+            .makePermanent()
+            .fromApp(APP_ID)
+            .build());
+    }
+
+    private static LogicalTimestamp ts(long value) {
+        return new LogicalTimestamp(value);
+    }
+
+    /**
+     * Tests that only the latest change to each flow is returned in change order.
+     */
+    @Test
+    public void testChangesSince() {
+        FlowBucketChangeLog changeLog = new FlowBucketChangeLog(ts(0), 10);
+        changeLog.record(entry(1), ts(1));
+        changeLog.record(entry(2), ts(2));
+        changeLog.record(entry(1), ts(3));
+
+        assertThat(changeLog.changesSince(ts(0)), contains(entry(2), entry(1)));
+        assertThat(changeLog.changesSince(ts(2)), contains(entry(1)));
+        assertThat(changeLog.changesSince(ts(3)), is(empty()));
+        assertThat(changeLog.changesSince(null), nullValue());
+    }
+
+    /**
+     * Tests that evicting changes from a full log prevents deltas from before the eviction.
+     */
+    @Test
+    public void testEviction() {
+        FlowBucketChangeLog changeLog = new FlowBucketChangeLog(ts(0), 2);
+        changeLog.record(entry(1), ts(1));
+        changeLog.record(entry(2), ts(2));
+        changeLog.record(entry(3), ts(3));
+
+        assertThat(changeLog.covers(ts(0)), is(false));
+        assertThat(changeLog.changesSince(ts(0)), nullValue());
+        assertThat(changeLog.covers(ts(1)), is(true));
+        assertThat(changeLog.changesSince(ts(1)), contains(entry(2), entry(3)));
+    }
+
+    /**
+     * Tests truncating acknowledged changes and resetting the log.
+     */
+    @Test
+    public void testTruncateAndReset() {
+        FlowBucketChangeLog changeLog = new FlowBucketChangeLog(ts(0), 10);
+        changeLog.record(entry(1), ts(1));
+        changeLog.record(entry(2), ts(2));
+
+        changeLog.truncate(ts(1));
+        assertThat(changeLog.changesSince(ts(0)), nullValue());
+        assertThat(changeLog.changesSince(ts(1)), contains(entry(2)));
+
+        changeLog.reset(ts(5));
+        assertThat(changeLog.changesSince(ts(2)), nullValue());
+        assertThat(changeLog.changesSince(ts(5)), is(empty()));
+    }
+
+    /**
+     * Tests applying a delta to a flow bucket.
+     */
+    @Test
+    public void testApplyDelta() {
+        BucketId bucketId = new BucketId(DEVICE_ID, 1);
+        LogicalClock clock = new LogicalClock();
+        FlowBucket bucket = new FlowBucket(bucketId);
+        bucket.add(entry(1), 1, clock);
+        LogicalTimestamp base = bucket.timestamp();
+
+        FlowEntry updated = new DefaultFlowEntry(entry(2), FlowEntryState.ADDED);
+        FlowBucketDelta delta = new FlowBucketDelta(
+            bucketId, 1, base, ts(10), Lists.newArrayList(updated), Lists.newArrayList(entry(1)));
+
+        FlowBucket stale = new FlowBucket(bucketId);
+        assertThat(stale.apply(delta), is(false));
+
+        FlowBucketDelta otherTerm = new FlowBucketDelta(
+            bucketId, 2, base, ts(10), Lists.newArrayList(updated), Lists.newArrayList(entry(1)));
+        assertThat(bucket.apply(otherTerm), is(false));
+
+        assertThat(bucket.apply(delta), is(true));
+        assertThat(bucket.timestamp(), is(ts(10)));
+        assertThat(bucket.getFlowEntry(entry(1)), nullValue());
+        assertThat(bucket.getFlowEntry(entry(2)), notNullValue());
+        assertThat(bucket.getFlowEntry(entry(2)).state(), is(FlowEntryState.ADDED));
+
+        FlowBucketDelta empty = new FlowBucketDelta(
+            bucketId, 1, base, ts(11), Collections.emptyList(), Collections.emptyList());
+        assertThat(bucket.apply(empty), is(false));
+    }
+}
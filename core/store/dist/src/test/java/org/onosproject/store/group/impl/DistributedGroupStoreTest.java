@@ -48,7 +48,7 @@ import org.onosproject.net.group.GroupStoreDelegate;
 import org.onosproject.net.group.GroupOperation.GroupMsgErrorCode;
 import org.onosproject.store.cluster.messaging.ClusterCommunicationServiceAdapter;
 import org.onosproject.store.service.ConsistentMap;
-import org.onosproject.store.service.TestStorageService;
+import org.onosproject.store.service.TestTransactionalStorageService;
 
 import java.util.ArrayList;
 import java.util.LinkedList;
@@ -113,6 +113,7 @@ public class DistributedGroupStoreTest {
             groupId3.id(),
             APP_ID);
 
+    private TestTransactionalStorageService storageService;
     private DistributedGroupStore groupStoreImpl;
     private GroupStore groupStore;
     private ConsistentMap auditPendingReqQueue;
@@ -144,7 +145,8 @@ public class DistributedGroupStoreTest {
     @Before
     public void setUp() throws Exception {
         groupStoreImpl = new DistributedGroupStore();
-        groupStoreImpl.storageService = new TestStorageService();
+        storageService = new TestTransactionalStorageService();
+        groupStoreImpl.storageService = storageService;
         groupStoreImpl.clusterCommunicator = new ClusterCommunicationServiceAdapter();
         groupStoreImpl.mastershipService = new MasterOfAll();
         groupStoreImpl.cfgService = new ComponentConfigAdapter();
@@ -229,6 +231,53 @@ public class DistributedGroupStoreTest {
         assertThat(auditPendingReqQueue.size(), is(0));
     }
 
+    /**
+     * Tests adding a batch of groups spanning several devices.
+     */
+    @Test
+    public void testStoreGroupDescriptions() throws Exception {
+        groupStore.deviceInitialAuditCompleted(deviceId1, true);
+
+        // Groups of an audited device are added, the others wait for the audit
+        groupStore.storeGroupDescriptions(ImmutableList.of(groupDescription1,
+                                                           groupDescription2,
+                                                           groupDescription3));
+        assertThat(groupStore.getGroupCount(deviceId1), is(1));
+        assertThat(groupStore.getGroup(deviceId1, groupKey1), notNullValue());
+        assertThat(groupStore.getGroupCount(deviceId2), is(0));
+        assertThat(auditPendingReqQueue.size(), is(2));
+
+        groupStore.deviceInitialAuditCompleted(deviceId2, true);
+        assertThat(groupStore.getGroupCount(deviceId2), is(2));
+        assertThat(groupStore.getGroup(deviceId2, groupId2), notNullValue());
+        assertThat(groupStore.getGroup(deviceId2, groupId3), notNullValue());
+        assertThat(auditPendingReqQueue.size(), is(0));
+
+        // Existing groups are not added again
+        groupStore.storeGroupDescriptions(ImmutableList.of(groupDescription1));
+        assertThat(groupStore.getGroupCount(deviceId1), is(1));
+    }
+
+    /**
+     * Tests that a batch of groups for a locally mastered device is stored
+     * in a single transaction.
+     */
+    @Test
+    public void testStoreGroupDescriptionsInOneTransaction() {
+        TestDelegate delegate = new TestDelegate();
+        groupStore.setDelegate(delegate);
+        groupStore.deviceInitialAuditCompleted(deviceId2, true);
+
+        groupStore.storeGroupDescriptions(ImmutableList.of(groupDescription2,
+                                                           groupDescription3));
+        assertThat(storageService.commits(), is(1));
+        assertThat(groupStore.getGroupCount(deviceId2), is(2));
+        assertThat(groupStore.getGroup(deviceId2, groupKey2).id(), is(groupId2));
+        assertThat(groupStore.getGroup(deviceId2, groupKey3).id(), is(groupId3));
+        assertThat(delegate.eventsSeen(), hasSize(2));
+        delegate.eventsSeen().forEach(event -> assertThat(event.type(), is(GroupEvent.Type.GROUP_ADD_REQUESTED)));
+    }
+
     /**
      * Tests removing all groups on the given device.
      */
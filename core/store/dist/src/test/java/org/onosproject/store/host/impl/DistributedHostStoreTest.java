@@ -101,7 +101,7 @@ public class DistributedHostStoreTest {
                                                                 HOST_LEARNT_WITH_ADDRESSES.configured(),
                                                                 HOST_LEARNT_WITH_ADDRESSES.annotations());
     private static final MapEvent<HostId, DefaultHost> HOST_EVENT =
-            new MapEvent<>("foobar", HOSTID, new Versioned<>(NEW_HOST, 0), new Versioned<>(OLD_HOST, 0));
+            new MapEvent<>("foobar", HOSTID, new Versioned<>(NEW_HOST, 2), new Versioned<>(OLD_HOST, 1));
     private static final DefaultHost HOST1 = new DefaultHost(PID, HOSTID, HOSTID.mac(), HOSTID.vlanId(),
             Set.<HostLocation>of(HOST_LOC11), null,
             Set.<IpAddress>of(), VlanId.NONE,
@@ -135,6 +135,33 @@ public class DistributedHostStoreTest {
         ecXHostStore.deactivate();
     }
 
+    /**
+     * Tests that the location, device and MAC indexes follow host moves and removals.
+     */
+    @Test
+    public void testIndexesByLocationAndMac() {
+        ecXHostStore.createOrUpdateHost(PID, HOSTID, HOST_LEARNT_WITH_LOCATIONS, false);
+
+        assertEquals(1, ecXHostStore.getConnectedHosts(CP11).size());
+        assertEquals(1, ecXHostStore.getConnectedHosts(CP12).size());
+        assertEquals(1, ecXHostStore.getConnectedHosts(DEV1).size());
+        assertEquals(1, ecXHostStore.getHosts(HOSTID.mac()).size());
+        assertEquals(HOST_LOCATIONS, ecXHostStore.getConnectedHosts(HOST_LOC11).iterator().next().locations());
+
+        // Remove one location
+        ecXHostStore.removeLocation(HOSTID, HOST_LOC12);
+
+        assertEquals(1, ecXHostStore.getConnectedHosts(CP11).size());
+        assertTrue(ecXHostStore.getConnectedHosts(CP12).isEmpty());
+        assertEquals(HOST_LOCATION, ecXHostStore.getConnectedHosts(DEV1).iterator().next().locations());
+
+        ecXHostStore.removeHost(HOSTID);
+
+        assertTrue(ecXHostStore.getConnectedHosts(CP11).isEmpty());
+        assertTrue(ecXHostStore.getConnectedHosts(DEV1).isEmpty());
+        assertTrue(ecXHostStore.getHosts(HOSTID.mac()).isEmpty());
+    }
+
     /**
      * Tests the removeIp method call.
      */
@@ -280,6 +307,22 @@ public class DistributedHostStoreTest {
 
     }
 
+    /**
+     * Tests that an event older than the indexed host does not roll the indexes back.
+     */
+    @Test
+    public void testStaleEventIgnored() {
+        ecXHostStore.createOrUpdateHost(PID, HOSTID, HOST_LEARNT_WITH_ADDRESSES, false);
+        ecXHostStore.removeIp(HOSTID, IP2);
+
+        // Late event for the first version written above
+        ecXHostStore.hostLocationTracker.event(new MapEvent<>("foobar", HOSTID,
+                new Versioned<>(OLD_HOST, 1), null));
+
+        assertTrue(ecXHostStore.getHosts(IP2).isEmpty());
+        assertEquals(HOST_ADDRESS, ecXHostStore.getHosts(IP1).iterator().next().ipAddresses());
+    }
+
     @Test
     public void testUpdateLocationInHostsByIp() {
         // Add host in the store
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2020-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.host.impl;
+
+import com.google.common.collect.ImmutableSet;
+import org.junit.Test;
+import org.onlab.packet.IpAddress;
+import org.onlab.packet.MacAddress;
+import org.onlab.packet.VlanId;
+import org.onosproject.net.DefaultHost;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.Host;
+import org.onosproject.net.HostId;
+import org.onosproject.net.HostLocation;
+import org.onosproject.net.PortNumber;
+import org.onosproject.net.provider.ProviderId;
+
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class HostIndexTest {
+
+    private static final ProviderId PID = new ProviderId("of", "foo");
+    private static final HostId HOSTID1 = HostId.hostId(MacAddress.valueOf("1a:1a:1a:1a:1a:1a"));
+    private static final HostId HOSTID2 = HostId.hostId(MacAddress.valueOf("1a:1a:1a:1a:1a:1b"));
+    private static final IpAddress IP1 = IpAddress.valueOf("10.2.0.2");
+    private static final IpAddress IP2 = IpAddress.valueOf("10.2.0.3");
+    private static final HostLocation LOC1 =
+            new HostLocation(DeviceId.deviceId("of:0000000000000001"), PortNumber.portNumber(1), 0);
+
+    private static Host host(HostId hostId, Set<IpAddress> ips) {
+        return new DefaultHost(PID, hostId, hostId.mac(), VlanId.NONE, LOC1, ips);
+    }
+
+    @Test
+    public void testUpdateAndRemove() {
+        HostIndex<IpAddress> sut = new HostIndex<>(Host::ipAddresses);
+
+        Host host1 = host(HOSTID1, ImmutableSet.of(IP1, IP2));
+        Host host2 = host(HOSTID2, ImmutableSet.of(IP1));
+        sut.update(host1, null);
+        sut.update(host2, null);
+        assertEquals(ImmutableSet.of(host1, host2), sut.get(IP1));
+        assertEquals(ImmutableSet.of(host1), sut.get(IP2));
+
+        // Updated hosts replace the previous ones and leave their old keys
+        Host movedHost1 = host(HOSTID1, ImmutableSet.of(IP2));
+        sut.update(movedHost1, host1);
+        assertEquals(ImmutableSet.of(host2), sut.get(IP1));
+        assertEquals(1, sut.get(IP2).size());
+        assertEquals(movedHost1.ipAddresses(), sut.get(IP2).iterator().next().ipAddresses());
+
+        sut.remove(IP1, host2);
+        assertTrue(sut.get(IP1).isEmpty());
+
+        sut.remove(movedHost1);
+        assertTrue(sut.get(IP2).isEmpty());
+    }
+
+    @Test
+    public void testLoad() {
+        HostIndex<MacAddress> sut = new HostIndex<>(host -> ImmutableSet.of(host.mac()));
+        sut.update(host(HOSTID2, ImmutableSet.of()), null);
+
+        Host host1 = host(HOSTID1, ImmutableSet.of(IP1));
+        sut.load(ImmutableSet.of(host1));
+        assertEquals(ImmutableSet.of(host1), sut.get(HOSTID1.mac()));
+        assertTrue(sut.get(HOSTID2.mac()).isEmpty());
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2020-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.resource.impl;
+
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.assertThat;
+
+public class CompressedIntSetTest {
+
+    private static List<Integer> toList(CompressedIntSet set) {
+        List<Integer> values = new ArrayList<>();
+        PrimitiveIterator.OfInt it = set.iterator();
+        while (it.hasNext()) {
+            values.add(it.nextInt());
+        }
+        return values;
+    }
+
+    private static byte[] serialize(CompressedIntSet set) {
+        Output output = new Output(1024, -1);
+        set.write(output);
+        return output.toBytes();
+    }
+
+    @Test
+    public void testContains() {
+        CompressedIntSet sut = CompressedIntSet.of(IntStream.of(1, 5, 70000, -1));
+
+        assertThat(sut.size(), is(4));
+        assertThat(sut.contains(1), is(true));
+        assertThat(sut.contains(70000), is(true));
+        assertThat(sut.contains(-1), is(true));
+        assertThat(sut.contains(2), is(false));
+        assertThat(sut.contains(70001), is(false));
+    }
+
+    @Test
+    public void testIterationOrder() {
+        CompressedIntSet sut = CompressedIntSet.of(IntStream.of(-1, 70000, 5, 1, 5, Integer.MIN_VALUE));
+
+        // signed order, as the range sets used before
+        assertThat(toList(sut), is(List.of(Integer.MIN_VALUE, -1, 1, 5, 70000)));
+        assertThat(sut.first(), is(Integer.MIN_VALUE));
+    }
+
+    @Test
+    public void testNegativeValues() {
+        CompressedIntSet a = CompressedIntSet.of(IntStream.rangeClosed(-3, 3));
+        CompressedIntSet b = CompressedIntSet.of(IntStream.of(-2, 0, 2));
+
+        assertThat(toList(a.difference(b)), is(List.of(-3, -1, 1, 3)));
+        assertThat(a.union(b), is(a));
+        assertThat(CompressedIntSet.read(new Input(serialize(a))), is(a));
+    }
+
+    @Test
+    public void testDenseAndRangeChunks() {
+        CompressedIntSet range = CompressedIntSet.of(IntStream.range(1, 4095));
+        CompressedIntSet dense = CompressedIntSet.of(IntStream.range(0, 1 << 16).filter(x -> x % 3 != 0));
+
+        assertThat(range.size(), is(4094));
+        assertThat(range.contains(4094), is(true));
+        assertThat(range.contains(4095), is(false));
+        assertThat(dense.contains(3), is(false));
+        assertThat(dense.contains(4), is(true));
+        assertThat(toList(dense).size(), is(dense.size()));
+    }
+
+    @Test
+    public void testUnionAndDifference() {
+        CompressedIntSet a = CompressedIntSet.of(IntStream.range(0, 100));
+        CompressedIntSet b = CompressedIntSet.of(IntStream.range(50, 150));
+
+        assertThat(a.union(b), is(CompressedIntSet.of(IntStream.range(0, 150))));
+        assertThat(a.difference(b), is(CompressedIntSet.of(IntStream.range(0, 50))));
+        assertThat(a.difference(a).isEmpty(), is(true));
+        assertThat(a.difference(a), is(CompressedIntSet.EMPTY));
+    }
+
+    @Test
+    public void testSerialization() {
+        CompressedIntSet sut = CompressedIntSet.of(IntStream.concat(
+                IntStream.range(0, 1 << 17).filter(x -> x % 7 != 0),
+                IntStream.of(-5, 1 << 20, (1 << 20) + 9)));
+
+        CompressedIntSet decoded = CompressedIntSet.read(new Input(serialize(sut)));
+
+        assertThat(decoded, is(sut));
+        assertThat(decoded.size(), is(sut.size()));
+    }
+
+    @Test
+    public void testCompactEncoding() {
+        // all the VLAN IDs of a port are a single run
+        byte[] vlans = serialize(CompressedIntSet.of(IntStream.range(1, 4095)));
+        // a fragmented label space is kept as an array of small deltas
+        byte[] labels = serialize(CompressedIntSet.of(IntStream.range(0, 1000).map(x -> x * 2)));
+
+        assertThat(vlans.length, lessThan(16));
+        assertThat(labels.length, lessThan(1100));
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2020-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.resource.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.junit.Before;
+import org.junit.Test;
+import org.onlab.packet.VlanId;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.PortNumber;
+import org.onosproject.net.intent.IntentId;
+import org.onosproject.net.resource.DiscreteResource;
+import org.onosproject.net.resource.ResourceAllocation;
+import org.onosproject.store.service.TestTransactionalStorageService;
+
+import java.util.List;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.onosproject.net.resource.Resources.discrete;
+
+/**
+ * Tests for bulk allocation and release in ConsistentResourceStore.
+ */
+public class ConsistentResourceStoreTest {
+    private static final DeviceId DID = DeviceId.deviceId("of:0000000000000001");
+    private static final PortNumber PN = PortNumber.portNumber(1);
+    private static final DiscreteResource DEVICE = discrete(DID).resource();
+    private static final DiscreteResource PORT = discrete(DID, PN).resource();
+    private static final DiscreteResource VLAN1 = discrete(DID, PN, VlanId.vlanId((short) 1)).resource();
+    private static final DiscreteResource VLAN2 = discrete(DID, PN, VlanId.vlanId((short) 2)).resource();
+    private static final DiscreteResource VLAN3 = discrete(DID, PN, VlanId.vlanId((short) 3)).resource();
+
+    private static final IntentId CONSUMER1 = IntentId.valueOf(1);
+    private static final IntentId CONSUMER2 = IntentId.valueOf(2);
+    private static final IntentId CONSUMER3 = IntentId.valueOf(3);
+
+    private TestTransactionalStorageService storage;
+    private ConsistentResourceStore store;
+
+    @Before
+    public void setUp() {
+        storage = new TestTransactionalStorageService();
+        store = new ConsistentResourceStore();
+        store.service = storage;
+        store.activate();
+
+        assertThat(store.register(ImmutableList.of(DEVICE)), is(true));
+        assertThat(store.register(ImmutableList.of(PORT)), is(true));
+        assertThat(store.register(ImmutableList.of(VLAN1, VLAN2, VLAN3)), is(true));
+    }
+
+    /**
+     * Tests that all requests are allocated in a single transaction.
+     */
+    @Test
+    public void testAllocateAll() {
+        assertThat(store.allocateAll(ImmutableMap.of(
+                CONSUMER1, ImmutableList.of(VLAN1),
+                CONSUMER2, ImmutableList.of(VLAN2))), is(true));
+
+        assertThat(store.getResources(CONSUMER1), contains(VLAN1));
+        assertThat(store.getResources(CONSUMER2), contains(VLAN2));
+        assertThat(store.isAvailable(VLAN3), is(true));
+    }
+
+    /**
+     * Tests that a request conflicting with an existing allocation rolls back
+     * the allocations of every other consumer in the batch.
+     */
+    @Test
+    public void testAllocateAllConflictWithExisting() {
+        assertThat(store.allocate(ImmutableList.of(VLAN2), CONSUMER3), is(true));
+
+        assertThat(store.allocateAll(ImmutableMap.of(
+                CONSUMER1, ImmutableList.of(VLAN1),
+                CONSUMER2, ImmutableList.of(VLAN2))), is(false));
+
+        assertThat(store.getResources(CONSUMER1), is(empty()));
+        assertThat(store.getResources(CONSUMER2), is(empty()));
+        assertThat(store.isAvailable(VLAN1), is(true));
+        assertThat(store.getResources(CONSUMER3), contains(VLAN2));
+    }
+
+    /**
+     * Tests that two consumers of the same batch requesting the same resource
+     * leave nothing allocated.
+     */
+    @Test
+    public void testAllocateAllConflictWithinBatch() {
+        assertThat(store.allocateAll(ImmutableMap.of(
+                CONSUMER1, ImmutableList.of(VLAN1, VLAN3),
+                CONSUMER2, ImmutableList.of(VLAN3))), is(false));
+
+        assertThat(store.getResources(CONSUMER1), is(empty()));
+        assertThat(store.getResources(CONSUMER2), is(empty()));
+        assertThat(store.isAvailable(VLAN1), is(true));
+        assertThat(store.isAvailable(VLAN3), is(true));
+    }
+
+    /**
+     * Tests that a batch whose commit fails because of a concurrent allocation
+     * is retried and then rejected without partial allocations.
+     */
+    @Test
+    public void testAllocateAllConcurrentModification() {
+        storage.beforeNextCommit(() -> assertThat(store.allocate(ImmutableList.of(VLAN2), CONSUMER3), is(true)));
+
+        assertThat(store.allocateAll(ImmutableMap.of(
+                CONSUMER1, ImmutableList.of(VLAN1),
+                CONSUMER2, ImmutableList.of(VLAN2))), is(false));
+
+        assertThat(storage.failedCommits(), is(1));
+        assertThat(store.getResources(CONSUMER1), is(empty()));
+        assertThat(store.getResources(CONSUMER2), is(empty()));
+        assertThat(store.getResources(CONSUMER3), contains(VLAN2));
+    }
+
+    /**
+     * Tests that releasing several consumers at once leaves other consumers intact.
+     */
+    @Test
+    public void testReleaseAll() {
+        assertThat(store.allocateAll(ImmutableMap.of(
+                CONSUMER1, ImmutableList.of(VLAN1),
+                CONSUMER2, ImmutableList.of(VLAN2),
+                CONSUMER3, ImmutableList.of(VLAN3))), is(true));
+
+        assertThat(store.releaseAll(ImmutableList.of(CONSUMER1, CONSUMER2)), is(true));
+
+        assertThat(store.isAvailable(VLAN1), is(true));
+        assertThat(store.isAvailable(VLAN2), is(true));
+        List<ResourceAllocation> remaining = store.getResourceAllocations(VLAN3.id());
+        assertThat(remaining.size(), is(1));
+        assertThat(remaining.get(0).consumerId(), is(CONSUMER3.consumerId()));
+    }
+}
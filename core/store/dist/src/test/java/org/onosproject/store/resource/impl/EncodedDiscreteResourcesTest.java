@@ -16,15 +16,26 @@
 
 package org.onosproject.store.resource.impl;
 
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import org.junit.Test;
 import org.onlab.packet.VlanId;
+import org.onlab.util.ClosedOpenRange;
+import org.onlab.util.KryoNamespace;
 import org.onosproject.net.DeviceId;
 import org.onosproject.net.PortNumber;
 import org.onosproject.net.resource.DiscreteResource;
 import org.onosproject.net.resource.Resources;
+import org.onosproject.store.serializers.KryoNamespaces;
+import org.onosproject.store.service.Serializer;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.*;
@@ -36,6 +47,49 @@ public class EncodedDiscreteResourcesTest {
     private static final VlanId VID2 = VlanId.vlanId((short) 2);
     private static final VlanId VID3 = VlanId.vlanId((short) 3);
 
+    // Same registrations as ConsistentResourceStore.SERIALIZER, writing values as a list of ranges
+    private static final Serializer LEGACY_SERIALIZER = Serializer.using(KryoNamespace.newBuilder()
+            .register(KryoNamespaces.API)
+            .register(UnifiedDiscreteResources.class)
+            .register(new EncodableDiscreteResourcesSerializer(), EncodableDiscreteResources.class)
+            .register(GenericDiscreteResources.class)
+            .register(EmptyDiscreteResources.class)
+            .register(new LegacyEncodedResourcesSerializer(), EncodedDiscreteResources.class)
+            .register(ContinuousResourceAllocation.class)
+            .register(PortNumberCodec.class)
+            .register(VlanIdCodec.class)
+            .register(MplsLabelCodec.class)
+            .build());
+
+    private static final class LegacyEncodedResourcesSerializer
+            extends com.esotericsoftware.kryo.Serializer<EncodedDiscreteResources> {
+        @Override
+        public void write(Kryo kryo, Output output, EncodedDiscreteResources object) {
+            List<ClosedOpenRange> ranges = new ArrayList<>();
+            for (int value : toList(object)) {
+                int last = ranges.size() - 1;
+                if (last >= 0 && ranges.get(last).upperBound() == value) {
+                    ranges.set(last, ClosedOpenRange.of(ranges.get(last).lowerBound(), value + 1));
+                } else {
+                    ranges.add(ClosedOpenRange.of(value, value + 1));
+                }
+            }
+            kryo.writeObject(output, ranges);
+            kryo.writeClassAndObject(output, object.codec());
+        }
+
+        @Override
+        public EncodedDiscreteResources read(Kryo kryo, Input input, Class<EncodedDiscreteResources> cls) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private static List<Integer> toList(EncodedDiscreteResources resources) {
+        List<Integer> values = new ArrayList<>();
+        resources.encodedValues().iterator().forEachRemaining((int x) -> values.add(x));
+        return values;
+    }
+
     @Test
     public void testContains() {
         DiscreteResource res1 = Resources.discrete(DID, PN, VID1).resource();
@@ -75,4 +129,38 @@ public class EncodedDiscreteResourcesTest {
                 is(EncodedDiscreteResources.of(ImmutableSet.of(res1, res2, res3), new VlanIdCodec())));
     }
 
+    @Test
+    public void testPortOrder() {
+        List<PortNumber> ports = ImmutableList.of(PortNumber.portNumber(0xffffff00L), PortNumber.portNumber(1),
+                PortNumber.portNumber(5), PortNumber.portNumber(0xfffffff0L));
+        EncodedDiscreteResources sut = EncodedDiscreteResources.of(ports.stream()
+                .map(x -> Resources.discrete(DID, x).resource())
+                .collect(Collectors.toSet()), new PortNumberCodec());
+
+        // ports above Integer.MAX_VALUE are encoded as negative ints and come first, as before
+        assertThat(toList(sut), is(ImmutableList.of(0xffffff00, 0xfffffff0, 1, 5)));
+    }
+
+    @Test
+    public void testSerialization() {
+        EncodedDiscreteResources sut = EncodedDiscreteResources.of(ImmutableSet.of(
+                Resources.discrete(DID, PN, VID1).resource(),
+                Resources.discrete(DID, PN, VID3).resource()), new VlanIdCodec());
+
+        byte[] bytes = ConsistentResourceStore.SERIALIZER.encode(sut);
+
+        assertThat(ConsistentResourceStore.SERIALIZER.decode(bytes), is(sut));
+    }
+
+    @Test
+    public void testLegacySerialization() {
+        EncodedDiscreteResources sut = EncodedDiscreteResources.of(ImmutableSet.of(
+                Resources.discrete(DID, PN, VID1).resource(),
+                Resources.discrete(DID, PN, VID2).resource(),
+                Resources.discrete(DID, PN, VID3).resource()), new VlanIdCodec());
+        EncodedDiscreteResources empty = new EncodedDiscreteResources(CompressedIntSet.EMPTY, new VlanIdCodec());
+
+        assertThat(ConsistentResourceStore.SERIALIZER.decode(LEGACY_SERIALIZER.encode(sut)), is(sut));
+        assertThat(ConsistentResourceStore.SERIALIZER.decode(LEGACY_SERIALIZER.encode(empty)), is(empty));
+    }
 }
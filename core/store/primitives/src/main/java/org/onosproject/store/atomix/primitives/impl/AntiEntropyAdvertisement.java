@@ -16,9 +16,11 @@
 package org.onosproject.store.atomix.primitives.impl;
 
 import java.util.Map;
+import java.util.Set;
 
 import com.google.common.base.MoreObjects;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import org.onosproject.cluster.NodeId;
 
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -30,6 +32,8 @@ public class AntiEntropyAdvertisement<K> {
 
     private final NodeId sender;
     private final Map<K, MapValue.Digest> digest;
+    private final int bucketCount;
+    private final Set<Integer> buckets;
 
     /**
      * Creates a new anti entropy advertisement message.
@@ -41,6 +45,27 @@ public class AntiEntropyAdvertisement<K> {
                                     Map<K, MapValue.Digest> digest) {
         this.sender = checkNotNull(sender);
         this.digest = ImmutableMap.copyOf(checkNotNull(digest));
+        this.bucketCount = 0;
+        this.buckets = null;
+    }
+
+    /**
+     * Creates a new anti entropy advertisement message covering only the
+     * given buckets of an {@link AntiEntropyDigest}.
+     *
+     * @param sender      the sender's node ID
+     * @param digest      for map entries in the given buckets
+     * @param bucketCount number of buckets the keys are spread over
+     * @param buckets     buckets covered by this advertisement
+     */
+    public AntiEntropyAdvertisement(NodeId sender,
+                                    Map<K, MapValue.Digest> digest,
+                                    int bucketCount,
+                                    Set<Integer> buckets) {
+        this.sender = checkNotNull(sender);
+        this.digest = ImmutableMap.copyOf(checkNotNull(digest));
+        this.bucketCount = bucketCount;
+        this.buckets = ImmutableSet.copyOf(checkNotNull(buckets));
     }
 
     /**
@@ -61,6 +86,25 @@ public class AntiEntropyAdvertisement<K> {
         return digest;
     }
 
+    /**
+     * Returns whether this advertisement covers only some buckets of the keys.
+     *
+     * @return true if the advertisement is partial
+     */
+    public boolean isPartial() {
+        return buckets != null;
+    }
+
+    /**
+     * Returns whether a key with the given hash is covered by this advertisement.
+     *
+     * @param keyHash hash of the serialized key
+     * @return true if the key is in a covered bucket
+     */
+    public boolean covers(long keyHash) {
+        return buckets == null || buckets.contains(AntiEntropyDigest.bucketOf(keyHash, bucketCount));
+    }
+
     @Override
     public String toString() {
         return MoreObjects.toStringHelper(getClass())
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2020-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.atomix.primitives.impl;
+
+import com.google.common.base.MoreObjects;
+import org.onosproject.cluster.NodeId;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Anti-entropy digest message for eventually consistent map.
+ * <p>
+ * Summarizes the entries of the sender as one hash per bucket of key hashes. The receiver
+ * replies with the buckets whose hashes differ from its own, and only the entry digests of
+ * those buckets are then exchanged in an {@link AntiEntropyAdvertisement}.
+ */
+public class AntiEntropyDigest {
+
+    private final NodeId sender;
+    private final long[] bucketHashes;
+
+    /**
+     * Creates a new anti entropy digest message.
+     *
+     * @param sender       the sender's node ID
+     * @param bucketHashes hash of the entries of each bucket
+     */
+    public AntiEntropyDigest(NodeId sender, long[] bucketHashes) {
+        checkArgument(bucketHashes.length > 0, "At least one bucket is required");
+        this.sender = checkNotNull(sender);
+        this.bucketHashes = bucketHashes;
+    }
+
+    /**
+     * Returns the bucket of the given key hash.
+     *
+     * @param keyHash     hash of the serialized key
+     * @param bucketCount number of buckets
+     * @return bucket index
+     */
+    public static int bucketOf(long keyHash, int bucketCount) {
+        return (int) Math.floorMod(keyHash, (long) bucketCount);
+    }
+
+    /**
+     * Returns the sender's node ID.
+     *
+     * @return the sender's node ID
+     */
+    public NodeId sender() {
+        return sender;
+    }
+
+    /**
+     * Returns the number of buckets the keys are spread over.
+     *
+     * @return number of buckets
+     */
+    public int bucketCount() {
+        return bucketHashes.length;
+    }
+
+    /**
+     * Returns the hash of the entries of each bucket.
+     *
+     * @return bucket hashes
+     */
+    public long[] bucketHashes() {
+        return bucketHashes;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(getClass())
+                .add("sender", sender)
+                .add("bucketCount", bucketHashes.length)
+                .toString();
+    }
+}
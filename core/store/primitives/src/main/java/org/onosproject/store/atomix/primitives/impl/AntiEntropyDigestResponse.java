@@ -0,0 +1,69 @@
+/*
+ * Copyright 2020-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.atomix.primitives.impl;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableSet;
+
+import java.util.Set;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Reply to an {@link AntiEntropyDigest}, carrying the buckets that differ on the receiver.
+ */
+public class AntiEntropyDigestResponse {
+
+    private final AntiEntropyResponse status;
+    private final Set<Integer> buckets;
+
+    /**
+     * Creates a new anti entropy digest response.
+     *
+     * @param status  status of the digest processing
+     * @param buckets buckets whose hashes differ
+     */
+    public AntiEntropyDigestResponse(AntiEntropyResponse status, Set<Integer> buckets) {
+        this.status = checkNotNull(status);
+        this.buckets = ImmutableSet.copyOf(checkNotNull(buckets));
+    }
+
+    /**
+     * Returns the status of the digest processing.
+     *
+     * @return anti-entropy status
+     */
+    public AntiEntropyResponse status() {
+        return status;
+    }
+
+    /**
+     * Returns the buckets whose hashes differ between the peers.
+     *
+     * @return bucket indexes
+     */
+    public Set<Integer> buckets() {
+        return buckets;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(getClass())
+                .add("status", status)
+                .add("buckets", buckets.size())
+                .toString();
+    }
+}
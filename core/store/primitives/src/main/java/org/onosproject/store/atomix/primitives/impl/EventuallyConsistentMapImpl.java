@@ -15,6 +15,7 @@
  */
 package org.onosproject.store.atomix.primitives.impl;
 
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -43,9 +44,11 @@ import java.util.stream.Collectors;
 import com.google.common.collect.Collections2;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
+import com.google.common.hash.Hashing;
 import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.apache.commons.lang3.tuple.Pair;
 import org.onlab.util.AbstractAccumulator;
@@ -57,6 +60,7 @@ import org.onosproject.store.LogicalTimestamp;
 import org.onosproject.store.Timestamp;
 import org.onosproject.store.cluster.messaging.ClusterCommunicationService;
 import org.onosproject.store.cluster.messaging.MessageSubject;
+import org.onosproject.store.cluster.messaging.MessagingException;
 import org.onosproject.store.serializers.KryoNamespaces;
 import org.onosproject.store.service.DistributedPrimitive;
 import org.onosproject.store.service.EventuallyConsistentMap;
@@ -89,8 +93,26 @@ public class EventuallyConsistentMapImpl<K, V>
     private static final int WINDOW_SIZE = 5;
     private static final int HIGH_LOAD_THRESHOLD = 2;
     private static final int LOAD_WINDOW = 2;
+    // Maps with at least this many entries first exchange per bucket digests
+    private static final int DIGEST_THRESHOLD = 1024;
+    private static final int ENTRIES_PER_BUCKET = 32;
+    private static final int MAX_DIGEST_BUCKETS = 1 << 16;
+
+    // Whether instances of a class have a string form of their own, rather than Object's
+    private static final ClassValue<Boolean> HAS_STRING_FORM = new ClassValue<Boolean>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            try {
+                return type.getMethod("toString").getDeclaringClass() != Object.class;
+            } catch (NoSuchMethodException e) {
+                return false;
+            }
+        }
+    };
 
     private final Map<K, MapValue<V>> items;
+    // Digest hashes of the local entries, updated along with the entries
+    private final Map<K, EntryHash> entryHashes = Maps.newConcurrentMap();
     private final ClusterCommunicationService clusterCommunicator;
     private final Serializer serializer;
     private final PersistenceService persistenceService;
@@ -99,6 +121,7 @@ public class EventuallyConsistentMapImpl<K, V>
     private final MessageSubject initializeMessageSubject;
     private final MessageSubject updateMessageSubject;
     private final MessageSubject antiEntropyAdvertisementSubject;
+    private final MessageSubject antiEntropyDigestSubject;
     private final MessageSubject updateRequestSubject;
     private final Set<EventuallyConsistentMapListener<K, V>> listeners
             = Sets.newCopyOnWriteArraySet();
@@ -182,6 +205,7 @@ public class EventuallyConsistentMapImpl<K, V>
         } else {
             items = Maps.newConcurrentMap();
         }
+        items.forEach(this::hashed);
         senderPending = Maps.newConcurrentMap();
         destroyedMessage = mapName + ERROR_DESTROYED;
 
@@ -273,6 +297,15 @@ public class EventuallyConsistentMapImpl<K, V>
                 this.backgroundExecutor
         );
 
+        antiEntropyDigestSubject = new MessageSubject("ecm-" + mapName + "-anti-entropy-digest");
+        clusterCommunicator.addSubscriber(
+                antiEntropyDigestSubject,
+                serializer::decode,
+                this::handleAntiEntropyDigest,
+                serializer::encode,
+                this.backgroundExecutor
+        );
+
         updateRequestSubject = new MessageSubject("ecm-" + mapName + "-update-request");
         clusterCommunicator.addSubscriber(
                 updateRequestSubject,
@@ -313,6 +346,8 @@ public class EventuallyConsistentMapImpl<K, V>
                 .register(MapValue.class)
                 .register(MapValue.Digest.class)
                 .register(UpdateRequest.class)
+                .register(AntiEntropyDigest.class)
+                .register(AntiEntropyDigestResponse.class)
                 .build(name() + "-ecmap"));
     }
 
@@ -429,7 +464,7 @@ public class EventuallyConsistentMapImpl<K, V>
             }
             if (updated.get()) {
                 previousValue.set(existing);
-                return tombstone.orElse(null);
+                return hashed(k, tombstone.orElse(null));
             } else {
                 return existing;
             }
@@ -457,7 +492,7 @@ public class EventuallyConsistentMapImpl<K, V>
                 updated.set(true);
                 // We return a copy to ensure updates to peers can be serialized.
                 // This prevents replica divergence due to serialization failures.
-                return serializer.copy(newValue);
+                return hashed(k, serializer.copy(newValue));
             } else {
                 return mv;
             }
@@ -528,7 +563,7 @@ public class EventuallyConsistentMapImpl<K, V>
         items.compute(key, (k, existing) -> {
             if (existing == null || newValue.isNewerThan(existing)) {
                 updated.set(true);
-                return newValue;
+                return hashed(k, newValue);
             }
             return existing;
         });
@@ -569,6 +604,7 @@ public class EventuallyConsistentMapImpl<K, V>
         clusterCommunicator.removeSubscriber(updateMessageSubject);
         clusterCommunicator.removeSubscriber(updateRequestSubject);
         clusterCommunicator.removeSubscriber(antiEntropyAdvertisementSubject);
+        clusterCommunicator.removeSubscriber(antiEntropyDigestSubject);
         return CompletableFuture.completedFuture(null);
     }
 
@@ -613,8 +649,48 @@ public class EventuallyConsistentMapImpl<K, V>
     }
 
     private void sendAdvertisementToPeer(NodeId peer) {
-        long adCreationTime = System.currentTimeMillis();
-        AntiEntropyAdvertisement<K> ad = createAdvertisement();
+        if (items.size() < DIGEST_THRESHOLD) {
+            sendAdvertisementToPeer(peer, createAdvertisement(), System.currentTimeMillis());
+        } else {
+            sendDigestToPeer(peer);
+        }
+    }
+
+    /**
+     * Sends a digest of the local entries to the peer, followed by an advertisement
+     * of the entries in the buckets that differ on the peer, if any.
+     */
+    private void sendDigestToPeer(NodeId peer) {
+        long digestCreationTime = System.currentTimeMillis();
+        AntiEntropyDigest digest = new AntiEntropyDigest(localNodeId,
+                bucketHashes(digestBucketCount(items.size())));
+        clusterCommunicator.<AntiEntropyDigest, AntiEntropyDigestResponse>sendAndReceive(digest,
+                antiEntropyDigestSubject,
+                serializer::encode,
+                serializer::decode,
+                peer)
+                .whenCompleteAsync((response, error) -> {
+                    if (error != null) {
+                        if (ExceptionUtils.getRootCause(error) instanceof MessagingException.NoRemoteHandler) {
+                            // peer does not support digests yet
+                            sendAdvertisementToPeer(peer, createAdvertisement(), digestCreationTime);
+                        } else {
+                            log.debug("Failed to send anti-entropy digest to {}: {}",
+                                    peer, error.getMessage());
+                        }
+                    } else if (response.status() == AntiEntropyResponse.PROCESSED) {
+                        if (response.buckets().isEmpty()) {
+                            antiEntropyTimes.put(peer, digestCreationTime);
+                        } else {
+                            sendAdvertisementToPeer(peer,
+                                    createAdvertisement(digest.bucketCount(), response.buckets()),
+                                    digestCreationTime);
+                        }
+                    }
+                }, backgroundExecutor);
+    }
+
+    private void sendAdvertisementToPeer(NodeId peer, AntiEntropyAdvertisement<K> ad, long adCreationTime) {
         clusterCommunicator.sendAndReceive(ad,
                 antiEntropyAdvertisementSubject,
                 serializer::encode,
@@ -649,6 +725,109 @@ public class EventuallyConsistentMapImpl<K, V>
                 ImmutableMap.copyOf(Maps.transformValues(items, MapValue::digest)));
     }
 
+    private AntiEntropyAdvertisement<K> createAdvertisement(int bucketCount, Set<Integer> buckets) {
+        Map<K, MapValue.Digest> digests = Maps.newHashMap();
+        items.forEach((key, value) -> {
+            if (buckets.contains(AntiEntropyDigest.bucketOf(cachedKeyHash(key), bucketCount))) {
+                digests.put(key, value.digest());
+            }
+        });
+        return new AntiEntropyAdvertisement<>(localNodeId, digests, bucketCount, buckets);
+    }
+
+    private static int digestBucketCount(int size) {
+        return Math.min(MAX_DIGEST_BUCKETS, Integer.highestOneBit(Math.max(1, size / ENTRIES_PER_BUCKET)));
+    }
+
+    /**
+     * Returns a hash of the key, identical on every node and across releases. The hash is
+     * computed from the class name and the string form of the key, which unlike the serialized
+     * form do not depend on the serializer registrations. Keys without a string form of their
+     * own fall back to the serialized form.
+     */
+    private long keyHash(K key) {
+        if (!HAS_STRING_FORM.get(key.getClass())) {
+            return Hashing.murmur3_128().hashBytes(serializer.encode(key)).asLong();
+        }
+        return Hashing.murmur3_128().newHasher()
+                .putString(key.getClass().getName(), StandardCharsets.UTF_8)
+                .putString(key.toString(), StandardCharsets.UTF_8)
+                .hash().asLong();
+    }
+
+    private long cachedKeyHash(K key) {
+        EntryHash hash = entryHashes.get(key);
+        return hash != null ? hash.keyHash : keyHash(key);
+    }
+
+    /**
+     * Updates the cached hash of an entry; to be called with the new value of the entry
+     * while it is being updated in the items.
+     *
+     * @return the given value
+     */
+    private MapValue<V> hashed(K key, MapValue<V> value) {
+        if (value == null) {
+            entryHashes.remove(key);
+        } else {
+            entryHashes.compute(key, (k, hash) -> {
+                long keyHash = hash != null ? hash.keyHash : keyHash(k);
+                MapValue.Digest digest = value.digest();
+                long entryHash = Hashing.murmur3_128().newHasher()
+                        .putLong(keyHash)
+                        .putBytes(serializer.encode(digest.timestamp()))
+                        .putBoolean(digest.isTombstone())
+                        .hash().asLong();
+                return new EntryHash(keyHash, entryHash);
+            });
+        }
+        return value;
+    }
+
+    /**
+     * Returns the hash of the local entries in each bucket. The hash of a bucket is the sum
+     * of the hashes of its keys and entry digests, so it does not depend on iteration order.
+     */
+    long[] bucketHashes(int bucketCount) {
+        long[] hashes = new long[bucketCount];
+        entryHashes.values().forEach(hash ->
+                hashes[AntiEntropyDigest.bucketOf(hash.keyHash, bucketCount)] += hash.entryHash);
+        return hashes;
+    }
+
+    /**
+     * Hashes of a local entry: the hash of its key, which selects its bucket, and the hash
+     * of the key with the entry digest, which adds up to the bucket hash.
+     */
+    private static final class EntryHash {
+        private final long keyHash;
+        private final long entryHash;
+
+        private EntryHash(long keyHash, long entryHash) {
+            this.keyHash = keyHash;
+            this.entryHash = entryHash;
+        }
+    }
+
+    AntiEntropyDigestResponse handleAntiEntropyDigest(AntiEntropyDigest digest) {
+        if (destroyed || underHighLoad()) {
+            return new AntiEntropyDigestResponse(AntiEntropyResponse.IGNORED, ImmutableSet.of());
+        }
+        long[] localHashes = bucketHashes(digest.bucketCount());
+        long[] remoteHashes = digest.bucketHashes();
+        Set<Integer> buckets = new HashSet<>();
+        for (int i = 0; i < localHashes.length; i++) {
+            if (localHashes[i] != remoteHashes[i]) {
+                buckets.add(i);
+            }
+        }
+        if (log.isTraceEnabled()) {
+            log.trace("Received anti-entropy digest from {} for {} with {} of {} buckets differing",
+                    digest.sender(), mapName, buckets.size(), localHashes.length);
+        }
+        return new AntiEntropyDigestResponse(AntiEntropyResponse.PROCESSED, buckets);
+    }
+
     private AntiEntropyResponse handleAntiEntropyAdvertisement(AntiEntropyAdvertisement<K> ad) {
         if (destroyed || underHighLoad()) {
             return AntiEntropyResponse.IGNORED;
@@ -681,6 +860,10 @@ public class EventuallyConsistentMapImpl<K, V>
         Set<K> locallyUnknown = new HashSet<>(ad.digest().keySet());
 
         items.forEach((key, localValue) -> {
+            if (ad.isPartial() && !ad.covers(cachedKeyHash(key))) {
+                // the peer has the same entries in this bucket
+                return;
+            }
             locallyUnknown.remove(key);
             MapValue.Digest remoteValueDigest = ad.digest().get(key);
             if (remoteValueDigest == null || localValue.isNewerThan(remoteValueDigest.timestamp())) {
@@ -738,7 +921,8 @@ public class EventuallyConsistentMapImpl<K, V>
                 .filter(e -> e.getValue().creationTime() <= currentSafeTombstonePurgeTime)
                 .collect(Collectors.toList());
         previousTombstonePurgeTime = currentSafeTombstonePurgeTime;
-        tombStonesToDelete.forEach(entry -> items.remove(entry.getKey(), entry.getValue()));
+        tombStonesToDelete.forEach(entry -> items.computeIfPresent(entry.getKey(),
+                (key, value) -> value.equals(entry.getValue()) ? hashed(key, null) : value));
     }
 
     private void processUpdates(Collection<UpdateEntry<K, V>> updates) {
@@ -860,7 +1044,7 @@ public class EventuallyConsistentMapImpl<K, V>
             return clusterCommunicator.<List<UpdateEntry<K, V>>, Void>sendAndReceive(
                     ImmutableList.copyOf(updates),
                     initializeMessageSubject,
-                    serializer::encode,
+                    serializer.encoder(),
                     serializer::decode,
                     peer)
                     .whenComplete((result, error) -> {
@@ -914,7 +1098,7 @@ public class EventuallyConsistentMapImpl<K, V>
                 try {
                     clusterCommunicator.unicast(ImmutableList.copyOf(map.values()),
                             updateMessageSubject,
-                            serializer::encode,
+                            serializer.encoder(),
                             peer)
                             .whenComplete((result, error) -> {
                                 if (error != null) {
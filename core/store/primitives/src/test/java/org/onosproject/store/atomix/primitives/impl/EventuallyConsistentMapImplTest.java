@@ -25,12 +25,14 @@ import static org.easymock.EasyMock.expectLastCall;
 import static org.easymock.EasyMock.replay;
 import static org.easymock.EasyMock.reset;
 import static org.easymock.EasyMock.verify;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -49,6 +51,7 @@ import java.util.function.Supplier;
 
 import com.google.common.collect.ComparisonChain;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -92,6 +95,8 @@ public class EventuallyConsistentMapImplTest {
             = new MessageSubject("ecm-" + MAP_NAME + "-anti-entropy");
     private static final MessageSubject UPDATE_REQUEST_SUBJECT
             = new MessageSubject("ecm-" + MAP_NAME + "-update-request");
+    private static final MessageSubject ANTI_ENTROPY_DIGEST_SUBJECT
+            = new MessageSubject("ecm-" + MAP_NAME + "-anti-entropy-digest");
 
     private static final String KEY1 = "one";
     private static final String KEY2 = "two";
@@ -104,6 +109,7 @@ public class EventuallyConsistentMapImplTest {
     private Consumer<Collection<UpdateEntry<String, String>>> updateHandler;
     private Consumer<Collection<UpdateRequest<String>>> requestHandler;
     private Function<AntiEntropyAdvertisement<String>, AntiEntropyResponse> antiEntropyHandler;
+    private Function<AntiEntropyDigest, AntiEntropyDigestResponse> antiEntropyDigestHandler;
     private Supplier<List<NodeId>> peersHandler = ArrayList::new;
 
     @Before
@@ -135,6 +141,12 @@ public class EventuallyConsistentMapImplTest {
                                                           anyObject(Function.class),
                                                           anyObject(Executor.class));
         expectLastCall().andDelegateTo(new TestClusterCommunicationService()).times(1);
+        clusterCommunicator.<Object, Object>addSubscriber(anyObject(MessageSubject.class),
+                                                          anyObject(Function.class),
+                                                          anyObject(Function.class),
+                                                          anyObject(Function.class),
+                                                          anyObject(Executor.class));
+        expectLastCall().andDelegateTo(new TestClusterCommunicationService()).times(1);
         clusterCommunicator.<Object>addSubscriber(anyObject(MessageSubject.class),
                 anyObject(Function.class), anyObject(Consumer.class), anyObject(Executor.class));
         expectLastCall().andDelegateTo(new TestClusterCommunicationService()).times(1);
@@ -648,6 +660,53 @@ public class EventuallyConsistentMapImplTest {
         return true;
     }
 
+    @Test
+    public void testAntiEntropyDigest() throws Exception {
+        expectPeerMessage(clusterCommunicator);
+
+        ecMap.put(KEY1, VALUE1);
+        ecMap.put(KEY2, VALUE2);
+
+        int bucketCount = 8;
+        long[] hashes = ((EventuallyConsistentMapImpl<String, String>) ecMap).bucketHashes(bucketCount);
+
+        // Peers with the same entries have no differing bucket
+        AntiEntropyDigestResponse response = antiEntropyDigestHandler.apply(
+                new AntiEntropyDigest(NodeId.nodeId("peer"), hashes.clone()));
+        assertEquals(AntiEntropyResponse.PROCESSED, response.status());
+        assertTrue(response.buckets().isEmpty());
+
+        // Only the bucket that differs is reported
+        long[] otherHashes = hashes.clone();
+        otherHashes[3]++;
+        response = antiEntropyDigestHandler.apply(new AntiEntropyDigest(NodeId.nodeId("peer"), otherHashes));
+        assertEquals(ImmutableSet.of(3), response.buckets());
+    }
+
+    @Test
+    public void testBucketHashesFollowUpdates() throws Exception {
+        expectPeerMessage(clusterCommunicator);
+
+        EventuallyConsistentMapImpl<String, String> map = (EventuallyConsistentMapImpl<String, String>) ecMap;
+        int bucketCount = 8;
+        long[] empty = map.bucketHashes(bucketCount);
+
+        ecMap.put(KEY1, VALUE1);
+        long[] put = map.bucketHashes(bucketCount);
+        assertFalse(Arrays.equals(empty, put));
+        assertArrayEquals(put, map.bucketHashes(bucketCount));
+
+        ecMap.put(KEY1, VALUE2);
+        long[] updated = map.bucketHashes(bucketCount);
+        assertFalse(Arrays.equals(put, updated));
+
+        // The tombstone of a removed entry still counts until it is purged
+        ecMap.remove(KEY1);
+        long[] removed = map.bucketHashes(bucketCount);
+        assertFalse(Arrays.equals(updated, removed));
+        assertFalse(Arrays.equals(empty, removed));
+    }
+
     @Test
     public void testDestroy() throws Exception {
         clusterCommunicator.removeSubscriber(BOOTSTRAP_MESSAGE_SUBJECT);
@@ -655,6 +714,7 @@ public class EventuallyConsistentMapImplTest {
         clusterCommunicator.removeSubscriber(UPDATE_MESSAGE_SUBJECT);
         clusterCommunicator.removeSubscriber(UPDATE_REQUEST_SUBJECT);
         clusterCommunicator.removeSubscriber(ANTI_ENTROPY_MESSAGE_SUBJECT);
+        clusterCommunicator.removeSubscriber(ANTI_ENTROPY_DIGEST_SUBJECT);
 
         replay(clusterCommunicator);
 
@@ -813,6 +873,8 @@ public class EventuallyConsistentMapImplTest {
                 Function<byte[], M> decoder, Function<M, R> handler, Function<R, byte[]> encoder, Executor executor) {
             if (subject.equals(ANTI_ENTROPY_MESSAGE_SUBJECT)) {
                 antiEntropyHandler = (Function<AntiEntropyAdvertisement<String>, AntiEntropyResponse>) handler;
+            } else if (subject.equals(ANTI_ENTROPY_DIGEST_SUBJECT)) {
+                antiEntropyDigestHandler = (Function<AntiEntropyDigest, AntiEntropyDigestResponse>) handler;
             } else if (!subject.equals(INITIALIZE_MESSAGE_SUBJECT)) {
                 throw new IllegalStateException("Unexpected message subject " + subject.toString());
             }
@@ -18,6 +18,7 @@ package org.onosproject.store.serializers;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
+import java.util.function.Function;
 
 import org.onlab.util.KryoNamespace;
 import org.onosproject.store.service.Serializer;
@@ -55,6 +56,18 @@ public interface StoreSerializer extends Serializer {
      */
     void encode(final Object obj, final OutputStream stream);
 
+    /**
+     * Serializes the specified object into a pooled buffer and applies the
+     * given function to the serialized bytes without copying them.
+     * The buffer is only valid for the duration of the call.
+     *
+     * @param obj object to be serialized
+     * @param function function to apply to the serialized bytes
+     * @return function result
+     * @param <T> function result type
+     */
+    <T> T encode(final Object obj, final Function<ByteBuffer, T> function);
+
     /**
      * Deserializes the specified bytes into an object.
      *
@@ -66,7 +79,8 @@ public interface StoreSerializer extends Serializer {
     <T> T decode(final byte[] bytes);
 
     /**
-     * Deserializes the specified bytes into an object.
+     * Deserializes the specified bytes into an object, reading from the
+     * buffer's current position.
      *
      * @param buffer bytes to be deserialized
      * @return deserialized object
@@ -116,6 +130,11 @@ public interface StoreSerializer extends Serializer {
                 return ns.serialize(obj);
             }
 
+            @Override
+            public <T> T encode(Object obj, Function<ByteBuffer, T> function) {
+                return ns.serialize(obj, function);
+            }
+
             @Override
             public <T> T decode(InputStream stream) {
                 return ns.deserialize(stream);
@@ -59,6 +59,7 @@ import org.onosproject.net.intent.IntentId;
 import org.onosproject.net.resource.ResourceAllocation;
 import org.onosproject.net.resource.ResourceConsumerId;
 import org.onosproject.net.resource.Resources;
+import org.onosproject.store.cluster.messaging.MessageEncoder;
 import org.onosproject.net.provider.ProviderId;
 import org.onosproject.net.intent.constraint.AnnotationConstraint;
 import org.onosproject.net.intent.constraint.BandwidthConstraint;
@@ -159,8 +160,10 @@ public class KryoSerializerTest {
 
         T copy2 = serializer.decode(serializer.encode(original));
 
+        T copy3 = serializer.encode(original, bytes -> serializer.decode(bytes));
+
         new EqualsTester()
-            .addEqualityGroup(original, copy, copy2)
+            .addEqualityGroup(original, copy, copy2, copy3)
             .testEquals();
     }
 
@@ -507,4 +510,37 @@ public class KryoSerializerTest {
         testSerializedEquals(bs);
     }
 
+    @Test
+    public void testDecodeSlice() {
+        // Two objects back to back in one buffer, each decoded in place
+        ByteBuffer buffer = ByteBuffer.allocate(1024);
+        buffer.put((byte) 0x7f);
+        serializer.encode(CP1, buffer);
+        serializer.encode(CP2, buffer);
+        buffer.flip();
+        buffer.get();
+
+        ConnectPoint first = serializer.decode(buffer.slice());
+        assertEquals(CP1, first);
+
+        ConnectPoint copy1 = serializer.decode(buffer);
+        ConnectPoint copy2 = serializer.decode(buffer);
+        assertEquals(CP1, copy1);
+        assertEquals(CP2, copy2);
+        assertEquals(0, buffer.remaining());
+    }
+
+    @Test
+    public void testEncoderGrows() {
+        // Larger than both the default and the largest pooled buffer
+        byte[] large = new byte[2 * KryoNamespace.MAX_POOLED_BUFFER_SIZE];
+        Arrays.fill(large, (byte) 0x5a);
+
+        MessageEncoder<byte[]> encoder = serializer.encoder();
+        byte[] copy = serializer.decode(encoder.apply(large));
+        assertArrayEquals(large, copy);
+
+        ConnectPoint cp = serializer.decode(serializer.<ConnectPoint>encoder().apply(CP1));
+        assertEquals(CP1, cp);
+    }
 }
@@ -30,6 +30,7 @@ import io.netty.channel.group.DefaultChannelGroup;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.nio.NioServerSocketChannel;
 import io.netty.util.concurrent.GlobalEventExecutor;
+import org.onlab.metrics.MetricsService;
 import org.onlab.util.ItemNotFoundException;
 import org.onosproject.net.DeviceId;
 import org.onosproject.net.config.NetworkConfigRegistry;
@@ -108,6 +109,7 @@ public class Controller {
     // Configuration options
     protected List<Integer> openFlowPorts = ImmutableList.of(6633, 6653);
     protected int workerThreads = 0;
+    protected int dispatcherSpareThreads = 0;
     protected int[] cfgQueueSizes = {FIRST_QUEUE_SIZE, 0, 0, 0, 0, 0, 0, DEFAULT_QUEUE_SIZE};
     protected int[] cfgBulkSizes = new int[8];
 
@@ -119,6 +121,10 @@ public class Controller {
     private EventLoopGroup bossGroup;
     private EventLoopGroup workerGroup;
 
+    // Shared by all switch channels; sized to the number of cores plus the
+    // configured spare threads
+    private OFMessageDispatcher messageDispatcher;
+
     enum TlsMode {
         DISABLED, // TLS is not used for OpenFlow connections
         ENABLED,  // Clients are required use TLS and present a client certificate
@@ -135,6 +141,7 @@ public class Controller {
 
     private DriverService driverService;
     private NetworkConfigRegistry netCfgService;
+    private MetricsService metricsService;
 
     public Controller() {
         Arrays.fill(cfgBulkSizes, DEFAULT_BULK_SIZE);
@@ -148,6 +155,15 @@ public class Controller {
         return cfgBulkSizes[queueId];
     }
 
+    /**
+     * Returns the dispatcher shared by all switch channels.
+     *
+     * @return message dispatcher
+     */
+    OFMessageDispatcher messageDispatcher() {
+        return messageDispatcher;
+    }
+
     // **************
     // Initialization
     // **************
@@ -264,6 +280,7 @@ public class Controller {
     public void setConfigParams(Dictionary<?, ?> properties) {
         boolean restartRequired = setOpenFlowPorts(properties);
         restartRequired |= setWorkerThreads(properties);
+        restartRequired |= setDispatcherSpareThreads(properties);
         restartRequired |= setTlsParameters(properties);
         if (restartRequired) {
             restart();
@@ -326,6 +343,27 @@ public class Controller {
         return oldValue != this.workerThreads; // restart if number of threads has changed
     }
 
+    /**
+     * Gets the number of spare message dispatcher threads from property dict.
+     *
+     * @param properties dictionary
+     * @return true if restart is required
+     */
+    private boolean setDispatcherSpareThreads(Dictionary<?, ?> properties) {
+        int oldValue = this.dispatcherSpareThreads;
+
+        String threads = get(properties, "dispatcherSpareThreads");
+        if (!Strings.isNullOrEmpty(threads)) {
+            int spareThreads = Integer.parseInt(threads);
+            if (spareThreads < 0) {
+                throw new IllegalArgumentException("dispatcherSpareThreads value must not be negative");
+            }
+            this.dispatcherSpareThreads = spareThreads;
+        }
+        log.debug("Number of spare dispatcher threads set to {}", this.dispatcherSpareThreads);
+        return oldValue != this.dispatcherSpareThreads; // restart if number of threads has changed
+    }
+
     static class TlsParams {
         final TlsMode mode;
         final String ksLocation;
@@ -635,11 +673,14 @@ public class Controller {
     }
 
     public void start(OpenFlowAgent ag, DriverService driverService,
-                      NetworkConfigRegistry netCfgService) {
+                      NetworkConfigRegistry netCfgService, MetricsService metricsService) {
         log.info("Starting OpenFlow IO");
         this.agent = ag;
         this.driverService = driverService;
         this.netCfgService = netCfgService;
+        this.metricsService = metricsService;
+        this.messageDispatcher = new OFMessageDispatcher(Runtime.getRuntime().availableProcessors(),
+                                                         dispatcherSpareThreads, metricsService);
         this.init();
         this.addListeningPorts(this.openFlowPorts);
     }
@@ -655,6 +696,7 @@ public class Controller {
         // Shut down all event loops to terminate all threads.
         bossGroup.shutdownGracefully();
         workerGroup.shutdownGracefully();
+        messageDispatcher.shutdown();
 
         // Wait until all threads are terminated.
         try {
@@ -670,7 +712,7 @@ public class Controller {
         // only restart if we are already running
         if (cg != null) {
             stop();
-            start(this.agent, this.driverService, this.netCfgService);
+            start(this.agent, this.driverService, this.netCfgService, this.metricsService);
         }
     }
 
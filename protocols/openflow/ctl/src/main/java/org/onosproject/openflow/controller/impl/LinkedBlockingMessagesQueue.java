@@ -16,14 +16,18 @@
 package org.onosproject.openflow.controller.impl;
 
 import java.util.Collection;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
- * This class wrap existing class LinkedBlockingQueue for solution problem
- * with handling and processed received messages in onos.
+ * Bounded queue of messages received from a switch and waiting to be
+ * processed in onos.
+ * <p>
+ * Backed by a lock-free queue, so neither producers nor the dispatcher
+ * draining it ever block on each other.
  *
- * @see java.util.concurrent.LinkedBlockingQueue
+ * @see java.util.concurrent.ConcurrentLinkedQueue
  */
 public class LinkedBlockingMessagesQueue<T> {
 
@@ -45,7 +49,12 @@ public class LinkedBlockingMessagesQueue<T> {
     /**
      * Queue of messages.
      */
-    private BlockingQueue<T> queue;
+    private volatile Queue<T> queue;
+
+    /**
+     * Number of elements in the queue.
+     */
+    private final AtomicInteger count = new AtomicInteger();
 
     /**
      * Constructor.
@@ -57,7 +66,7 @@ public class LinkedBlockingMessagesQueue<T> {
     public LinkedBlockingMessagesQueue(int idQueue, int sizeOfQueue, int bulk) {
         this.idQueue = idQueue;
         this.sizeOfQueue = sizeOfQueue;
-        this.queue = new LinkedBlockingQueue<>(this.sizeOfQueue);
+        this.queue = new ConcurrentLinkedQueue<>();
         this.bulk = bulk;
     }
 
@@ -86,7 +95,8 @@ public class LinkedBlockingMessagesQueue<T> {
      */
     public void setSizeOfQueue(int sizeOfQueue) {
         this.sizeOfQueue = sizeOfQueue;
-        this.queue = new LinkedBlockingQueue<>(this.sizeOfQueue);
+        this.queue = new ConcurrentLinkedQueue<>();
+        this.count.set(0);
     }
 
     /**
@@ -96,6 +106,10 @@ public class LinkedBlockingMessagesQueue<T> {
      * @return <code>true</code> if the element was added to this queue, else <code>false</code>
      */
     public boolean offer(T message) {
+        if (count.incrementAndGet() > sizeOfQueue) {
+            count.decrementAndGet();
+            return false;
+        }
         return this.queue.offer(message);
     }
 
@@ -106,7 +120,14 @@ public class LinkedBlockingMessagesQueue<T> {
      * @return the numbers of elements transfered
      */
     public int drainTo(Collection<? super T> messages) {
-        return this.queue.drainTo(messages, this.bulk);
+        int drained = 0;
+        T message;
+        while (drained < bulk && (message = queue.poll()) != null) {
+            messages.add(message);
+            drained++;
+        }
+        count.addAndGet(-drained);
+        return drained;
     }
 
     /**
@@ -115,7 +136,7 @@ public class LinkedBlockingMessagesQueue<T> {
      * @return the elements count
      */
     public int size() {
-        return this.queue.size();
+        return count.get();
     }
 
     /**
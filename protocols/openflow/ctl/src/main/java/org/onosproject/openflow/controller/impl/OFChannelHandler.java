@@ -18,7 +18,6 @@ package org.onosproject.openflow.controller.impl;
 
 import static org.onlab.packet.Ethernet.TYPE_BSN;
 import static org.onlab.packet.Ethernet.TYPE_LLDP;
-import static org.onlab.util.Tools.groupedThreads;
 import static org.onosproject.openflow.controller.Dpid.uri;
 
 import java.io.IOException;
@@ -35,17 +34,10 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.LinkedBlockingDeque;
-import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CopyOnWriteArraySet;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
 import java.util.concurrent.RejectedExecutionException;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.locks.Condition;
-import java.util.concurrent.locks.ReentrantLock;
 
 import org.osgi.service.component.annotations.Reference;
 import org.osgi.service.component.annotations.ReferenceCardinality;
@@ -192,34 +184,11 @@ class OFChannelHandler extends ChannelInboundHandlerAdapter
 
 
     /**
-     * Lock held by take, poll, etc.
-     */
-    private final ReentrantLock takeLock = new ReentrantLock();
-
-    /**
-     * Wait queue for waiting takes.
-     */
-    private final Condition notEmpty = takeLock.newCondition();
-
-    /**
-     * Current number of elements in enabled sub-queues.
-     */
-    private final AtomicInteger totalCount = new AtomicInteger();
-
-
-    /**
-     * Single thread executor for OFMessage dispatching.
-     *
-     * Gets initialized on channelActive, shutdown on channelInactive.
-     */
-    private ExecutorService dispatcher;
-
-    /**
-     * Handle for dispatcher thread.
+     * Dispatcher of this switch on the shared controller dispatcher pool.
      * <p>
-     * Should only be touched from the Channel I/O thread
+     * Gets registered on first dispatch, closed on channelInactive.
      */
-    private Future<?> dispatcherHandle = CompletableFuture.completedFuture(null);
+    private OFMessageDispatcher.SwitchDispatcher dispatcher;
 
     /**
      * Dispatch backlog.
@@ -1327,8 +1296,6 @@ class OFChannelHandler extends ChannelInboundHandlerAdapter
             channelId = channel.toString();
         }
 
-        dispatcher = Executors.newSingleThreadExecutor(groupedThreads("onos/of/dispatcher", channelId, log));
-
         /*
             hack to wait for the switch to tell us what it's
             max version is. This is not spec compliant and should
@@ -1346,7 +1313,7 @@ class OFChannelHandler extends ChannelInboundHandlerAdapter
                  getSwitchInfoString());
 
         if (dispatcher != null) {
-            dispatcher.shutdownNow();
+            dispatcher.close();
             dispatcher = null;
         }
 
@@ -1496,23 +1463,6 @@ class OFChannelHandler extends ChannelInboundHandlerAdapter
         return this.state.isHandshakeComplete();
     }
 
-    /**
-     * Increment totalCount variable and send signal to executor.
-     */
-    private void incrementAndSignal() {
-        try {
-            totalCount.incrementAndGet();
-            takeLock.lockInterruptibly();
-            try {
-                notEmpty.signal();
-            } finally {
-                takeLock.unlock();
-            }
-        } catch (InterruptedException e) {
-            e.printStackTrace();
-        }
-    }
-
     /**
      * Try to push OpenFlow message to queue.
      *
@@ -1521,12 +1471,7 @@ class OFChannelHandler extends ChannelInboundHandlerAdapter
      * @return true if message was successful added to queue
      */
     private boolean pushMessageToQueue(OFMessage message, int idQueue) {
-        if (!dispatchQueuesMapProducer.get(idQueue).offer(message)) {
-            return false;
-        } else {
-            incrementAndSignal();
-            return true;
-        }
+        return dispatchQueuesMapProducer.get(idQueue).offer(message);
     }
 
     /**
@@ -1580,30 +1525,6 @@ class OFChannelHandler extends ChannelInboundHandlerAdapter
         return NUM_OF_QUEUES - 1;
     }
 
-    /**
-     * Process messages from dispatch queues.
-     *
-     * @param queuesSize count of messages in all queues
-     */
-    private void processMessages(int queuesSize) {
-        List<OFMessage> msgs = new ArrayList<>();
-        int processed;
-        do {
-            processed = 0;
-            while (processed < queuesSize) {
-                for (LinkedBlockingMessagesQueue<OFMessage> queue :
-                        dispatchQueuesMapProducer.values()) {
-                    processed += queue.drainTo(msgs);
-                }
-            }
-
-            msgs.forEach(sw::handleMessage);
-            msgs.clear();
-            /* Decrement conditional variable */
-            queuesSize = totalCount.addAndGet(-1 * processed);
-        } while (queuesSize > 0);
-    }
-
     private void dispatchMessage(OFMessage m) {
         log.debug("Begin dispatch OpenFlow Message");
         boolean backlogEmpty = processDispatchBacklogQueue();
@@ -1616,32 +1537,11 @@ class OFChannelHandler extends ChannelInboundHandlerAdapter
             }
         }
 
-        if (dispatcherHandle.isDone()) {
-            // dispatcher terminated for some reason, restart
-            dispatcherHandle = dispatcher.submit((Runnable) () -> {
-                try {
-                    for (;;) {
-                        int tc = 0;
-                        takeLock.lockInterruptibly();
-                        try {
-                            while ((tc = totalCount.get()) == 0) {
-                                notEmpty.await();
-                            }
-                        } finally {
-                            takeLock.unlock();
-                        }
-
-                        processMessages(tc);
-                    }
-                } catch (InterruptedException e) {
-                    log.warn("Dispatcher interrupted");
-                    Thread.currentThread().interrupt();
-                    // interrupted. gracefully shutting down
-                    return;
-                }
-
-            });
+        if (dispatcher == null) {
+            dispatcher = controller.messageDispatcher().register(sw.getStringId(),
+                    dispatchQueuesMapProducer.values(), sw::handleMessage);
         }
+        dispatcher.signal();
     }
 
     /**
@@ -0,0 +1,301 @@
+/*
+ * Copyright 2020-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.openflow.controller.impl;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Timer;
+import com.google.common.collect.Sets;
+import org.onlab.metrics.MetricsComponent;
+import org.onlab.metrics.MetricsFeature;
+import org.onlab.metrics.MetricsService;
+import org.projectfloodlight.openflow.protocol.OFMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Dispatches OpenFlow messages received from all switches on a shared,
+ * work-stealing pool of threads.
+ * <p>
+ * Each switch registers its message queues and gets a {@link SwitchDispatcher}
+ * back. A switch dispatcher is scheduled on the pool at most once at a time,
+ * so messages of a single switch are still handled in order, and every run
+ * drains at most one bulk of messages from each queue before yielding the
+ * thread to other switches. Batches run directly on the dispatcher threads,
+ * so a blocking message handler holds its thread. When spare threads are
+ * configured, batches run as managed blocks instead: the pool then adds up to
+ * that many threads while handlers block, so that the other switches keep
+ * being served.
+ */
+final class OFMessageDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(OFMessageDispatcher.class);
+
+    private static final String THREAD_NAME = "onos/of-dispatcher-";
+    private static final String METRICS_COMPONENT = "OpenFlowDispatcher";
+    private static final String QUEUE_OCCUPANCY = "QueueOccupancy";
+    private static final String DISPATCH_LATENCY = "DispatchLatency";
+
+    private static final long KEEP_ALIVE_SECONDS = 60;
+
+    private final ForkJoinPool pool;
+    private final boolean managedBlocking;
+    private final MetricsService metricsService;
+    private final MetricsComponent metricsComponent;
+
+    // Metrics of each switch, shared by all the channels of the switch
+    private final Map<String, SwitchMetrics> switchMetrics = new HashMap<>();
+
+    /**
+     * Creates a dispatcher with the given number of threads.
+     *
+     * @param threads        number of dispatcher threads
+     * @param spareThreads   maximum number of threads added while message
+     *                       handlers block; 0 runs batches directly
+     * @param metricsService metrics service used to publish per-switch
+     *                       metrics; may be null
+     */
+    OFMessageDispatcher(int threads, int spareThreads, MetricsService metricsService) {
+        // Once the spare threads are exhausted, blocking handlers just hold their
+        // thread instead of failing the dispatch
+        this.pool = new ForkJoinPool(threads, p -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+            thread.setName(THREAD_NAME + thread.getPoolIndex());
+            return thread;
+        }, (t, e) -> log.error("Uncaught exception on {}", t.getName(), e), true,
+                threads, threads + spareThreads, 1, p -> true,
+                KEEP_ALIVE_SECONDS, TimeUnit.SECONDS);
+        this.managedBlocking = spareThreads > 0;
+        this.metricsService = metricsService;
+        this.metricsComponent = metricsService != null ?
+                metricsService.registerComponent(METRICS_COMPONENT) : null;
+    }
+
+    /**
+     * Registers the message queues of a switch with this dispatcher.
+     *
+     * @param name    name of the switch, used for metrics and logging
+     * @param queues  message queues of the switch, in drain order
+     * @param handler consumer of the dispatched messages
+     * @return dispatcher for the given switch
+     */
+    SwitchDispatcher register(String name,
+                              Collection<LinkedBlockingMessagesQueue<OFMessage>> queues,
+                              Consumer<OFMessage> handler) {
+        return new SwitchDispatcher(name, queues, handler);
+    }
+
+    /**
+     * Stops all dispatcher threads; queued messages are discarded.
+     */
+    void shutdown() {
+        pool.shutdownNow();
+    }
+
+    private synchronized SwitchMetrics acquireMetrics(String name, SwitchDispatcher dispatcher) {
+        SwitchMetrics metrics = switchMetrics.computeIfAbsent(name, SwitchMetrics::new);
+        metrics.dispatchers.add(dispatcher);
+        return metrics;
+    }
+
+    private synchronized void releaseMetrics(String name, SwitchDispatcher dispatcher) {
+        SwitchMetrics metrics = switchMetrics.get(name);
+        if (metrics != null && metrics.dispatchers.remove(dispatcher) && metrics.dispatchers.isEmpty()) {
+            switchMetrics.remove(name);
+            metrics.remove();
+        }
+    }
+
+    /**
+     * Metrics of a switch, aggregated over the dispatchers of all its channels.
+     * They are published when the first channel registers and removed when
+     * the last one closes.
+     */
+    private final class SwitchMetrics {
+
+        private final Set<SwitchDispatcher> dispatchers = Sets.newConcurrentHashSet();
+        private final Timer latency = new Timer();
+        private final MetricsFeature metricsFeature;
+
+        private SwitchMetrics(String name) {
+            if (metricsService != null) {
+                metricsFeature = metricsComponent.registerFeature(name);
+                metricsService.registerMetric(metricsComponent, metricsFeature, QUEUE_OCCUPANCY,
+                                              (Gauge<Integer>) this::occupancy);
+                metricsService.registerMetric(metricsComponent, metricsFeature, DISPATCH_LATENCY, latency);
+            } else {
+                metricsFeature = null;
+            }
+        }
+
+        private int occupancy() {
+            int count = 0;
+            for (SwitchDispatcher dispatcher : dispatchers) {
+                count += dispatcher.occupancy();
+            }
+            return count;
+        }
+
+        private void remove() {
+            if (metricsService != null) {
+                metricsService.removeMetric(metricsComponent, metricsFeature, QUEUE_OCCUPANCY);
+                metricsService.removeMetric(metricsComponent, metricsFeature, DISPATCH_LATENCY);
+            }
+        }
+    }
+
+    /**
+     * Drains the message queues of a single switch.
+     */
+    final class SwitchDispatcher implements Runnable, ForkJoinPool.ManagedBlocker {
+
+        private final String name;
+        private final Collection<LinkedBlockingMessagesQueue<OFMessage>> queues;
+        private final Consumer<OFMessage> handler;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final SwitchMetrics metrics;
+
+        // Only touched by the thread currently running this dispatcher
+        private final List<OFMessage> batch = new ArrayList<>();
+
+        private volatile boolean closed;
+        private volatile long scheduledAt;
+
+        private SwitchDispatcher(String name,
+                                 Collection<LinkedBlockingMessagesQueue<OFMessage>> queues,
+                                 Consumer<OFMessage> handler) {
+            this.name = name;
+            this.queues = queues;
+            this.handler = handler;
+            this.metrics = acquireMetrics(name, this);
+        }
+
+        /**
+         * Returns the number of messages waiting in the switch queues.
+         *
+         * @return queue occupancy
+         */
+        int occupancy() {
+            int count = 0;
+            for (LinkedBlockingMessagesQueue<OFMessage> queue : queues) {
+                count += queue.size();
+            }
+            return count;
+        }
+
+        /**
+         * Returns the timer tracking how long messages of the switch wait
+         * before dispatch.
+         *
+         * @return dispatch latency timer
+         */
+        Timer latency() {
+            return metrics.latency;
+        }
+
+        /**
+         * Signals that new messages were queued for this switch.
+         */
+        void signal() {
+            if (!closed && scheduled.compareAndSet(false, true)) {
+                scheduledAt = System.nanoTime();
+                try {
+                    pool.execute(this);
+                } catch (RejectedExecutionException e) {
+                    log.debug("Dispatcher is shut down; dropping messages for {}", name);
+                    scheduled.set(false);
+                }
+            }
+        }
+
+        /**
+         * Stops dispatching messages of this channel; the switch metrics are
+         * removed once all its channels are closed.
+         */
+        void close() {
+            if (!closed) {
+                closed = true;
+                releaseMetrics(name, this);
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                if (!closed) {
+                    drain();
+                }
+            } finally {
+                batch.clear();
+                scheduled.set(false);
+            }
+            // Messages may have been queued after the drain; reschedule
+            // behind the other switches rather than looping here.
+            if (!closed && occupancy() > 0) {
+                signal();
+            }
+        }
+
+        private void drain() {
+            for (LinkedBlockingMessagesQueue<OFMessage> queue : queues) {
+                queue.drainTo(batch);
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+            metrics.latency.update(System.nanoTime() - scheduledAt, TimeUnit.NANOSECONDS);
+            if (!managedBlocking) {
+                block();
+                return;
+            }
+            try {
+                ForkJoinPool.managedBlock(this);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public boolean block() {
+            for (OFMessage message : batch) {
+                try {
+                    handler.accept(message);
+                } catch (RuntimeException e) {
+                    log.warn("Unable to dispatch {} message for {}", message.getType(), name, e);
+                }
+            }
+            batch.clear();
+            return true;
+        }
+
+        @Override
+        public boolean isReleasable() {
+            return batch.isEmpty();
+        }
+    }
+}
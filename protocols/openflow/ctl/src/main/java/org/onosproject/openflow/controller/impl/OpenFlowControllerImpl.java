@@ -18,6 +18,8 @@ package org.onosproject.openflow.controller.impl;
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Multimap;
+import org.onlab.metrics.MetricsService;
+import org.onlab.util.PredictableExecutor;
 import org.onosproject.cfg.ComponentConfigService;
 import org.onosproject.core.CoreService;
 import org.onosproject.net.DeviceId;
@@ -103,6 +105,7 @@ import static org.onosproject.openflow.controller.impl.OsgiPropertyConstants.*;
         property = {
                 OFPORTS + "=" + OFPORTS_DEFAULT,
                 WORKER_THREADS + ":Integer=" + WORKER_THREADS_DEFAULT,
+                DISPATCHER_SPARE_THREADS + ":Integer=" + DISPATCHER_SPARE_THREADS_DEFAULT,
                 TLS_MODE + "=" + TLS_MODE_DEFAULT,
                 KEY_STORE + "=" + KEY_STORE_DEFAULT,
                 KEY_STORE_PASSWORD + "=" + KEY_STORE_PASSWORD_DEFAULT,
@@ -146,12 +149,18 @@ public class OpenFlowControllerImpl implements OpenFlowController {
     @Reference(cardinality = ReferenceCardinality.MANDATORY)
     protected NetworkConfigRegistry netCfgService;
 
+    @Reference(cardinality = ReferenceCardinality.MANDATORY)
+    protected MetricsService metricsService;
+
     /** Port numbers (comma separated) used by OpenFlow protocol; default is 6633,6653. */
     private String openflowPorts = OFPORTS_DEFAULT;
 
     /** Number of controller worker threads. */
     private int workerThreads = WORKER_THREADS_DEFAULT;
 
+    /** Number of spare message dispatcher threads added while message handlers block; 0 disables them. */
+    private int dispatcherSpareThreads = DISPATCHER_SPARE_THREADS_DEFAULT;
+
     /** TLS mode for OpenFlow channel; options are: disabled [default], enabled, strict. */
     private String tlsMode;
 
@@ -223,6 +232,10 @@ public class OpenFlowControllerImpl implements OpenFlowController {
     protected ExecutorService executorMsgs =
         Executors.newFixedThreadPool(32, groupedThreads("onos/of", "event-stats-%d", log));
 
+    // Flow stats segments of a switch are handed to listeners in order, as they arrive
+    protected PredictableExecutor executorFlowStats =
+        new PredictableExecutor(8, groupedThreads("onos/of", "event-flow-stats-%d", log));
+
     private final ExecutorService executorBarrier =
         Executors.newFixedThreadPool(4, groupedThreads("onos/of", "event-barrier-%d", log));
 
@@ -341,7 +354,7 @@ public class OpenFlowControllerImpl implements OpenFlowController {
         netCfgService.registerConfigFactory(factory);
         netCfgService.addListener(netCfgListener);
         ctrl.setConfigParams(context.getProperties());
-        ctrl.start(agent, driverService, netCfgService);
+        ctrl.start(agent, driverService, netCfgService, metricsService);
         openFlowManager.addListener(openFlowListener);
     }
 
@@ -581,14 +594,9 @@ public class OpenFlowControllerImpl implements OpenFlowController {
                 break;
 
             case FLOW:
-                Collection<OFFlowStatsEntry> flowStats = publishFlowStats(dpid, (OFFlowStatsReply) reply);
-                if (flowStats != null) {
-                    OFFlowStatsReply.Builder rep =
-                            OFFactories.getFactory(reply.getVersion()).buildFlowStatsReply();
-                    rep.setEntries(ImmutableList.copyOf(flowStats));
-                    rep.setXid(reply.getXid());
-                    executorMsgs.execute(new OFMessageHandler(dpid, rep.build()));
-                }
+                // Segments are not aggregated; listeners stream them and
+                // check REPLY_MORE for the end of the reply
+                executorFlowStats.execute(new OFMessageHandler(dpid, reply), dpid.hashCode());
                 break;
             case FLOW_LIGHTWEIGHT:
                 Collection<OFFlowLightweightStatsEntry> flowLightweightStats =
@@ -680,7 +688,7 @@ public class OpenFlowControllerImpl implements OpenFlowController {
                     }
                     fsr.setEntries(entries);
 
-                    flowStats = publishFlowStats(dpid, fsr.build());
+                    Collection<OFFlowStatsEntry> flowStats = publishFlowStats(dpid, fsr.build());
                     if (flowStats != null) {
                         OFFlowStatsReply.Builder rep =
                                 sw.factory().buildFlowStatsReply();
@@ -31,6 +31,9 @@ public final class OsgiPropertyConstants {
     public static final String WORKER_THREADS = "workerThreads";
     public static final int WORKER_THREADS_DEFAULT = 0;
 
+    public static final String DISPATCHER_SPARE_THREADS = "dispatcherSpareThreads";
+    public static final int DISPATCHER_SPARE_THREADS_DEFAULT = 0;
+
     public static final String TLS_MODE = "tlsMode";
     public static final String TLS_MODE_DEFAULT = "";
 
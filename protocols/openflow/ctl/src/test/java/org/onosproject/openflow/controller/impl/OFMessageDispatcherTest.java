@@ -0,0 +1,243 @@
+/*
+ * Copyright 2020-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.openflow.controller.impl;
+
+import com.codahale.metrics.Gauge;
+import com.google.common.collect.ImmutableList;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.onlab.metrics.MetricsManager;
+import org.onosproject.openflow.OfMessageAdapter;
+import org.projectfloodlight.openflow.protocol.OFMessage;
+import org.projectfloodlight.openflow.protocol.OFType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the shared OpenFlow message dispatcher.
+ */
+public class OFMessageDispatcherTest {
+
+    private static final int MESSAGES = 10000;
+
+    private MetricsManager metricsService;
+    private OFMessageDispatcher dispatcher;
+
+    @Before
+    public void setUp() {
+        metricsService = new MetricsManager();
+        dispatcher = new OFMessageDispatcher(4, 0, metricsService);
+    }
+
+    @After
+    public void tearDown() {
+        dispatcher.shutdown();
+    }
+
+    /**
+     * Tests that the messages of each switch are dispatched in order.
+     */
+    @Test
+    public void testPerSwitchOrdering() throws InterruptedException {
+        int switches = 8;
+        CountDownLatch latch = new CountDownLatch(switches * MESSAGES);
+        List<List<OFMessage>> received = new ArrayList<>();
+        List<List<OFMessage>> sent = new ArrayList<>();
+        List<LinkedBlockingMessagesQueue<OFMessage>> queues = new ArrayList<>();
+        List<OFMessageDispatcher.SwitchDispatcher> dispatchers = new ArrayList<>();
+        for (int i = 0; i < switches; i++) {
+            List<OFMessage> messages = new CopyOnWriteArrayList<>();
+            LinkedBlockingMessagesQueue<OFMessage> queue = new LinkedBlockingMessagesQueue<>(0, MESSAGES, 100);
+            received.add(messages);
+            sent.add(new ArrayList<>());
+            queues.add(queue);
+            dispatchers.add(dispatcher.register("of:" + i, ImmutableList.of(queue), m -> {
+                messages.add(m);
+                latch.countDown();
+            }));
+        }
+
+        for (int n = 0; n < MESSAGES; n++) {
+            for (int i = 0; i < switches; i++) {
+                OFMessage message = new OfMessageAdapter(OFType.ECHO_REQUEST);
+                sent.get(i).add(message);
+                assertTrue(queues.get(i).offer(message));
+                dispatchers.get(i).signal();
+            }
+        }
+
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        for (int i = 0; i < switches; i++) {
+            assertThat(received.get(i), is(sent.get(i)));
+            assertThat(dispatchers.get(i).occupancy(), is(0));
+            assertTrue(dispatchers.get(i).latency().getCount() > 0);
+        }
+    }
+
+    /**
+     * Tests that switch metrics are published and removed on close.
+     */
+    @Test
+    public void testMetrics() {
+        LinkedBlockingMessagesQueue<OFMessage> queue = new LinkedBlockingMessagesQueue<>(0, 10, 5);
+        OFMessageDispatcher.SwitchDispatcher switchDispatcher =
+                dispatcher.register("of:1", ImmutableList.of(queue), m -> { });
+        assertThat(metricsService.getGauges((name, metric) -> name.contains("of:1")).size(), is(1));
+        assertThat(metricsService.getTimers((name, metric) -> name.contains("of:1")).size(), is(1));
+
+        assertTrue(queue.offer(new OfMessageAdapter(OFType.ECHO_REQUEST)));
+        assertThat(switchDispatcher.occupancy(), is(1));
+
+        switchDispatcher.close();
+        assertTrue(metricsService.getGauges((name, metric) -> name.contains("of:1")).isEmpty());
+        assertTrue(metricsService.getTimers((name, metric) -> name.contains("of:1")).isEmpty());
+    }
+
+    /**
+     * Tests that the metrics of a switch are shared by its channels and kept
+     * until the last channel closes.
+     */
+    @Test
+    public void testMetricsSharedByChannels() {
+        LinkedBlockingMessagesQueue<OFMessage> queue1 = new LinkedBlockingMessagesQueue<>(0, 10, 5);
+        LinkedBlockingMessagesQueue<OFMessage> queue2 = new LinkedBlockingMessagesQueue<>(0, 10, 5);
+        OFMessageDispatcher.SwitchDispatcher channel1 =
+                dispatcher.register("of:1", ImmutableList.of(queue1), m -> { });
+        OFMessageDispatcher.SwitchDispatcher channel2 =
+                dispatcher.register("of:1", ImmutableList.of(queue2), m -> { });
+        assertThat(metricsService.getGauges((name, metric) -> name.contains("of:1")).size(), is(1));
+
+        assertTrue(queue1.offer(new OfMessageAdapter(OFType.ECHO_REQUEST)));
+        assertTrue(queue2.offer(new OfMessageAdapter(OFType.ECHO_REQUEST)));
+        Gauge<?> occupancy = metricsService.getGauges((name, metric) -> name.contains("of:1"))
+                .values().iterator().next();
+        assertThat(occupancy.getValue(), is(2));
+
+        channel1.close();
+        assertThat(metricsService.getGauges((name, metric) -> name.contains("of:1")).size(), is(1));
+        assertThat(occupancy.getValue(), is(1));
+
+        channel2.close();
+        assertTrue(metricsService.getGauges((name, metric) -> name.contains("of:1")).isEmpty());
+        assertTrue(metricsService.getTimers((name, metric) -> name.contains("of:1")).isEmpty());
+    }
+
+    /**
+     * Tests that without spare threads a blocking handler holds its thread.
+     */
+    @Test
+    public void testBlockingHandlerWithoutSpareThreads() throws InterruptedException {
+        OFMessageDispatcher single = new OFMessageDispatcher(1, 0, null);
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch dispatched = new CountDownLatch(1);
+        try {
+            LinkedBlockingMessagesQueue<OFMessage> queue1 = new LinkedBlockingMessagesQueue<>(0, 10, 5);
+            LinkedBlockingMessagesQueue<OFMessage> queue2 = new LinkedBlockingMessagesQueue<>(0, 10, 5);
+            OFMessageDispatcher.SwitchDispatcher switch1 = single.register("of:1", ImmutableList.of(queue1), m -> {
+                blocked.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            OFMessageDispatcher.SwitchDispatcher switch2 =
+                    single.register("of:2", ImmutableList.of(queue2), m -> dispatched.countDown());
+
+            assertTrue(queue1.offer(new OfMessageAdapter(OFType.ECHO_REQUEST)));
+            switch1.signal();
+            assertTrue(blocked.await(5, TimeUnit.SECONDS));
+
+            assertTrue(queue2.offer(new OfMessageAdapter(OFType.ECHO_REQUEST)));
+            switch2.signal();
+            assertFalse(dispatched.await(200, TimeUnit.MILLISECONDS));
+
+            release.countDown();
+            assertTrue(dispatched.await(5, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+            single.shutdown();
+        }
+    }
+
+    /**
+     * Tests that with spare threads a blocking handler does not stall the
+     * other switches.
+     */
+    @Test
+    public void testBlockingHandler() throws InterruptedException {
+        OFMessageDispatcher single = new OFMessageDispatcher(1, 1, null);
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch dispatched = new CountDownLatch(1);
+        try {
+            LinkedBlockingMessagesQueue<OFMessage> queue1 = new LinkedBlockingMessagesQueue<>(0, 10, 5);
+            LinkedBlockingMessagesQueue<OFMessage> queue2 = new LinkedBlockingMessagesQueue<>(0, 10, 5);
+            OFMessageDispatcher.SwitchDispatcher switch1 = single.register("of:1", ImmutableList.of(queue1), m -> {
+                blocked.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            OFMessageDispatcher.SwitchDispatcher switch2 =
+                    single.register("of:2", ImmutableList.of(queue2), m -> dispatched.countDown());
+
+            assertTrue(queue1.offer(new OfMessageAdapter(OFType.ECHO_REQUEST)));
+            switch1.signal();
+            assertTrue(blocked.await(5, TimeUnit.SECONDS));
+
+            assertTrue(queue2.offer(new OfMessageAdapter(OFType.ECHO_REQUEST)));
+            switch2.signal();
+            assertTrue(dispatched.await(5, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+            single.shutdown();
+        }
+    }
+
+    /**
+     * Tests the queue bound and the bulk limit of the message queue.
+     */
+    @Test
+    public void testQueueBounds() {
+        LinkedBlockingMessagesQueue<OFMessage> queue = new LinkedBlockingMessagesQueue<>(0, 3, 2);
+        for (int i = 0; i < 3; i++) {
+            assertTrue(queue.offer(new OfMessageAdapter(OFType.ECHO_REQUEST)));
+        }
+        assertFalse(queue.offer(new OfMessageAdapter(OFType.ECHO_REQUEST)));
+        assertThat(queue.size(), is(3));
+
+        List<OFMessage> batch = new ArrayList<>();
+        assertThat(queue.drainTo(batch), is(2));
+        assertThat(queue.size(), is(1));
+        assertThat(queue.drainTo(batch), is(1));
+        assertThat(queue.drainTo(batch), is(0));
+        assertThat(batch.size(), is(3));
+    }
+}
@@ -156,6 +156,11 @@ public class LldpLinkProvider extends AbstractProvider implements ProbedLinkProv
     private static final long DEVICE_SYNC_DELAY = 5;
     private static final long LINK_PRUNER_DELAY = 3;
 
+    // Link discovery packets handed to the packet processor
+    private static final Set<TrafficSelector> DISCOVERY_SELECTORS = ImmutableSet.of(
+            DefaultTrafficSelector.builder().matchEthType(TYPE_LLDP).build(),
+            DefaultTrafficSelector.builder().matchEthType(TYPE_BSN).build());
+
     /** If false, link discovery is disabled. */
     protected boolean enabled = false;
 
@@ -359,7 +364,7 @@ public class LldpLinkProvider extends AbstractProvider implements ProbedLinkProv
         providerService = providerRegistry.register(this);
         masterService.addListener(roleListener);
         deviceService.addListener(deviceListener);
-        packetService.addProcessor(packetProcessor, PacketProcessor.advisor(0));
+        packetService.addProcessor(packetProcessor, PacketProcessor.advisor(0), DISCOVERY_SELECTORS);
 
         loadDevices();
 
@@ -15,15 +15,13 @@
  */
 package org.onosproject.provider.lldpcommon;
 
-import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
-import io.netty.util.Timeout;
-import io.netty.util.TimerTask;
 import io.netty.util.internal.StringUtil;
 import org.onlab.packet.Ethernet;
 import org.onlab.packet.MacAddress;
 import org.onlab.packet.ONOSLLDP;
-import org.onlab.util.Timer;
 import org.onlab.util.Tools;
 import org.onosproject.net.AnnotationKeys;
 import org.onosproject.net.ConnectPoint;
@@ -38,12 +36,11 @@ import org.onosproject.net.device.DeviceService;
 import org.onosproject.net.link.DefaultLinkDescription;
 import org.onosproject.net.link.LinkDescription;
 import org.onosproject.net.link.ProbedLinkProvider;
-import org.onosproject.net.packet.DefaultOutboundPacket;
 import org.onosproject.net.packet.OutboundPacket;
 import org.onosproject.net.packet.PacketContext;
 import org.slf4j.Logger;
 
-import java.nio.ByteBuffer;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
@@ -52,20 +49,19 @@ import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
 import static com.google.common.base.Strings.isNullOrEmpty;
-import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static org.onosproject.net.AnnotationKeys.PORT_NAME;
 import static org.onosproject.net.PortNumber.portNumber;
-import static org.onosproject.net.flow.DefaultTrafficTreatment.builder;
 import static org.slf4j.LoggerFactory.getLogger;
 
 /**
  * Run discovery process from a physical switch. Ports are initially labeled as
  * slow ports. When an LLDP is successfully received, label the remote port as
- * fast. Every probeRate milliseconds, loop over all fast ports and send an
- * LLDP, send an LLDP for a single slow port. Based on FlowVisor topology
- * discovery implementation.
+ * fast. Every probeRate milliseconds, every port is sent an LLDP; probes are
+ * built once per port and spread across the interval by the shared
+ * {@link ProbeScheduler}. Based on FlowVisor topology discovery
+ * implementation.
  */
-public class LinkDiscovery implements TimerTask {
+public class LinkDiscovery {
 
     private static final String SCHEME_NAME = "linkdiscovery";
     private static final String ETHERNET = "ETHERNET";
@@ -75,18 +71,19 @@ public class LinkDiscovery implements TimerTask {
     private final DeviceId deviceId;
     private final LinkDiscoveryContext context;
 
-    private final Ethernet ethPacket;
-    private final Ethernet bddpEth;
+    // Offsets the probe slots of this device from the other devices
+    private final int phase;
 
-    private Timeout timeout;
     private volatile boolean isStopped;
 
     // Set of ports to be probed
     private final Map<Long, String> portMap = Maps.newConcurrentMap();
+    // Pre-serialized probes of the ports
+    private final Map<Long, ProbeTemplate> templates = Maps.newConcurrentMap();
+
     /**
-     * Instantiates discovery manager for the given physical switch. Creates a
-     * generic LLDP packet that will be customized for the port it is sent out on.
-     * Starts the the timer for the discovery process.
+     * Instantiates discovery manager for the given physical switch and
+     * registers it with the shared probe scheduler.
      *
      * @param deviceId  the physical switch
      * @param context discovery context
@@ -94,16 +91,7 @@ public class LinkDiscovery implements TimerTask {
     public LinkDiscovery(DeviceId deviceId, LinkDiscoveryContext context) {
         this.deviceId = deviceId;
         this.context = context;
-
-        ethPacket = new Ethernet();
-        ethPacket.setEtherType(Ethernet.TYPE_LLDP);
-        ethPacket.setDestinationMACAddress(MacAddress.ONOS_LLDP);
-        ethPacket.setPad(true);
-
-        bddpEth = new Ethernet();
-        bddpEth.setEtherType(Ethernet.TYPE_BSN);
-        bddpEth.setDestinationMACAddress(MacAddress.BROADCAST);
-        bddpEth.setPad(true);
+        this.phase = deviceId.hashCode();
 
         isStopped = true;
         start();
@@ -114,7 +102,7 @@ public class LinkDiscovery implements TimerTask {
     public synchronized void stop() {
         if (!isStopped) {
             isStopped = true;
-            timeout.cancel();
+            ProbeScheduler.getInstance().unregister(this);
         } else {
             log.warn("LinkDiscovery stopped multiple times?");
         }
@@ -123,14 +111,14 @@ public class LinkDiscovery implements TimerTask {
     public synchronized void start() {
         if (isStopped) {
             isStopped = false;
-            timeout = Timer.newTimeout(this, 0, MILLISECONDS);
+            ProbeScheduler.getInstance().register(this);
         } else {
             log.warn("LinkDiscovery started multiple times?");
         }
     }
 
     public synchronized boolean isStopped() {
-        return isStopped || timeout.isCancelled();
+        return isStopped;
     }
 
     /**
@@ -152,7 +140,7 @@ public class LinkDiscovery implements TimerTask {
         boolean isMaster = context.mastershipService().isLocalMaster(deviceId);
         if (newPort && isMaster) {
             log.debug("Sending initial probe to port {}@{}", port.number().toLong(), deviceId);
-            sendProbes(portNum, portName);
+            sendProbes(ImmutableList.of(portNum));
         }
     }
 
@@ -162,6 +150,7 @@ public class LinkDiscovery implements TimerTask {
      */
     public void removePort(PortNumber port) {
         portMap.remove(port.toLong());
+        templates.remove(port.toLong());
     }
 
     /**
@@ -362,116 +351,100 @@ public class LinkDiscovery implements TimerTask {
     }
 
     /**
-     * Execute this method every t milliseconds. Loops over all ports
-     * labeled as fast and sends out an LLDP. Send out an LLDP on a single slow
-     * port.
+     * Sends the probes of the ports falling into the slot of the given tick.
+     * Each port is probed once every probeRate milliseconds.
      *
-     * @param t timeout
+     * @param tick probe scheduler tick
      */
-    @Override
-    public void run(Timeout t) {
-        try {
-            // Check first if it has been stopped
-            if (isStopped()) {
-                return;
-            }
-            // Verify if we are still the master
-            if (context.mastershipService().isLocalMaster(deviceId)) {
-                log.trace("Sending probes from {}", deviceId);
-                ImmutableMap.copyOf(portMap).forEach(this::sendProbes);
-            }
-        } catch (Exception e) {
-            // Catch all exceptions to avoid timer task being cancelled
-            if (!isStopped()) {
-                // Error condition
-                log.error("Exception thrown during link discovery process", e);
-            } else {
-                // Provider is shutting down, the error can be ignored
-                log.trace("Shutting down, ignoring error", e);
-            }
-        } finally {
-            // if it has not been stopped - re-schedule itself
-            if (!isStopped()) {
-                timeout = t.timer().newTimeout(this, context.probeRate(), MILLISECONDS);
+    void probe(long tick) {
+        if (isStopped() || portMap.isEmpty()) {
+            return;
+        }
+        // Verify if we are still the master
+        if (!context.mastershipService().isLocalMaster(deviceId)) {
+            return;
+        }
+        long slots = ProbeScheduler.slots(context.probeRate());
+        long slot = Math.floorMod(tick + phase, slots);
+        List<Long> batch = Lists.newArrayList();
+        portMap.keySet().forEach(portNumber -> {
+            if (Math.floorMod(portNumber, slots) == slot) {
+                batch.add(portNumber);
             }
+        });
+        if (!batch.isEmpty()) {
+            log.trace("Sending probes from {} to {} ports", deviceId, batch.size());
+            sendProbes(batch);
         }
     }
 
     /**
-     * Creates packet_out LLDP for specified output port.
+     * Returns the probe template for the specified port, building it if it
+     * does not exist yet or has been built with outdated parameters.
      *
      * @param portNumber the port
      * @param portDesc the port description
-     * @return Packet_out message with LLDP data
+     * @param fingerprint cluster fingerprint
+     * @param secret LLDP secret
+     * @return probe template or null if the probe cannot be built
      */
-    private OutboundPacket createOutBoundLldp(Long portNumber, String portDesc) {
-        if (portNumber == null) {
-            return null;
+    private ProbeTemplate getProbeTemplate(Long portNumber, String portDesc, String fingerprint, String secret) {
+        ProbeTemplate template = templates.get(portNumber);
+        if (template != null && template.matches(portDesc, fingerprint, secret)) {
+            return template;
         }
-        ONOSLLDP lldp = getLinkProbe(portNumber, portDesc);
+        ONOSLLDP lldp = getLinkProbe(portNumber, portDesc, secret);
         if (lldp == null) {
-            log.warn("Cannot get link probe with portNumber {} and portDesc {} for {} at LLDP packet creation.",
+            log.warn("Cannot get link probe with portNumber {} and portDesc {} for {}.",
                     portNumber, portDesc, deviceId);
             return null;
         }
-        ethPacket.setSourceMACAddress(context.fingerprint()).setPayload(lldp);
-        return new DefaultOutboundPacket(deviceId,
-                                         builder().setOutput(portNumber(portNumber)).build(),
-                                         ByteBuffer.wrap(ethPacket.serialize()));
-    }
-
-    /**
-     * Creates packet_out BDDP for specified output port.
-     *
-     * @param portNumber the port
-     * @param portDesc the port description
-     * @return Packet_out message with LLDP data
-     */
-    private OutboundPacket createOutBoundBddp(Long portNumber, String portDesc) {
-        if (portNumber == null) {
-            return null;
-        }
-        ONOSLLDP lldp = getLinkProbe(portNumber, portDesc);
-        if (lldp == null) {
-            log.warn("Cannot get link probe with portNumber {} and portDesc {} for {} at BDDP packet creation.",
-                    portNumber, portDesc, deviceId);
+        template = ProbeTemplate.create(deviceId, lldp, portDesc, fingerprint, secret);
+        if (template == null) {
+            log.warn("Cannot build link probe template for {}@{}", portNumber, deviceId);
             return null;
         }
-        bddpEth.setSourceMACAddress(context.fingerprint()).setPayload(lldp);
-        return new DefaultOutboundPacket(deviceId,
-                                         builder().setOutput(portNumber(portNumber)).build(),
-                                         ByteBuffer.wrap(bddpEth.serialize()));
+        templates.put(portNumber, template);
+        return template;
     }
 
-    private ONOSLLDP getLinkProbe(Long portNumber, String portDesc) {
+    private ONOSLLDP getLinkProbe(Long portNumber, String portDesc, String secret) {
         Device device = context.deviceService().getDevice(deviceId);
         if (device == null) {
             log.warn("Cannot find the device {}", deviceId);
             return null;
         }
         return ONOSLLDP.onosSecureLLDP(deviceId.toString(), device.chassisId(), portNumber.intValue(), portDesc,
-                                       context.lldpSecret());
+                                       secret);
     }
 
-    private void sendProbes(Long portNumber, String portDesc) {
+    private void sendProbes(List<Long> portNumbers) {
         if (context.packetService() == null) {
             return;
         }
-        log.trace("Sending probes out of {}@{}", portNumber, deviceId);
-        OutboundPacket pkt = createOutBoundLldp(portNumber, portDesc);
-        if (pkt != null) {
-            context.packetService().emit(pkt);
-        } else {
-            log.warn("Cannot send lldp packet due to packet is null {}", deviceId);
-        }
-        if (context.useBddp()) {
-            OutboundPacket bpkt = createOutBoundBddp(portNumber, portDesc);
-            if (bpkt != null) {
-                context.packetService().emit(bpkt);
-            } else {
-                log.warn("Cannot send bddp packet due to packet is null {}", deviceId);
+        String fingerprint = context.fingerprint();
+        String secret = context.lldpSecret();
+        boolean useBddp = context.useBddp();
+        long timestamp = System.currentTimeMillis();
+
+        List<OutboundPacket> packets = Lists.newArrayListWithCapacity(portNumbers.size() * (useBddp ? 2 : 1));
+        for (Long portNumber : portNumbers) {
+            String portDesc = portMap.get(portNumber);
+            if (portDesc == null) {
+                // Port has been removed in the meantime
+                continue;
+            }
+            ProbeTemplate template = getProbeTemplate(portNumber, portDesc, fingerprint, secret);
+            if (template == null) {
+                log.warn("Cannot send lldp packet due to packet is null {}", deviceId);
+                continue;
+            }
+            packets.add(template.lldp(timestamp));
+            if (useBddp) {
+                packets.add(template.bddp(timestamp));
             }
         }
+        packets.forEach(context.packetService()::emit);
     }
 
     public boolean containsPort(long portNumber) {
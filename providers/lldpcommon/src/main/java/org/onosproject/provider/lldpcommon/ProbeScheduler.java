@@ -0,0 +1,125 @@
+/*
+ * Copyright 2020-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.provider.lldpcommon;
+
+import com.google.common.collect.Sets;
+import io.netty.util.Timeout;
+import io.netty.util.TimerTask;
+import org.onlab.util.Timer;
+import org.slf4j.Logger;
+
+import java.util.Set;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Single timer task driving the link probes of all discovery instances.
+ * Every probe interval is divided in slots of {@link #TICK_MILLIS}; on each
+ * tick every discovery instance sends the batch of probes of the ports
+ * falling into the current slot, so that probes are spread evenly across
+ * the interval instead of being sent in one burst per device.
+ */
+final class ProbeScheduler implements TimerTask {
+
+    /**
+     * Duration of a probe slot in millis.
+     */
+    static final long TICK_MILLIS = 100;
+
+    private static final ProbeScheduler INSTANCE = new ProbeScheduler();
+
+    private final Logger log = getLogger(getClass());
+
+    private final Set<LinkDiscovery> discoverers = Sets.newConcurrentHashSet();
+
+    // Only accessed from the timer thread
+    private long tick;
+
+    private Timeout timeout;
+
+    // Ban public construction
+    private ProbeScheduler() {
+    }
+
+    /**
+     * Returns the shared probe scheduler.
+     *
+     * @return probe scheduler
+     */
+    static ProbeScheduler getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Adds the given discovery instance to the probe rotation.
+     *
+     * @param discovery link discovery
+     */
+    synchronized void register(LinkDiscovery discovery) {
+        discoverers.add(discovery);
+        if (timeout == null) {
+            timeout = Timer.newTimeout(this, TICK_MILLIS, MILLISECONDS);
+        }
+    }
+
+    /**
+     * Removes the given discovery instance from the probe rotation.
+     *
+     * @param discovery link discovery
+     */
+    synchronized void unregister(LinkDiscovery discovery) {
+        discoverers.remove(discovery);
+        if (discoverers.isEmpty() && timeout != null) {
+            timeout.cancel();
+            timeout = null;
+        }
+    }
+
+    /**
+     * Returns the number of slots a probe interval is divided in.
+     *
+     * @param probeRate probe interval in millis
+     * @return number of slots, at least one
+     */
+    static int slots(long probeRate) {
+        return (int) Math.max(1, probeRate / TICK_MILLIS);
+    }
+
+    @Override
+    public void run(Timeout t) {
+        long current = tick++;
+        for (LinkDiscovery discovery : discoverers) {
+            try {
+                discovery.probe(current);
+            } catch (Exception e) {
+                // Catch all exceptions to keep the other devices probing
+                if (!discovery.isStopped()) {
+                    // Error condition
+                    log.error("Exception thrown during link discovery process", e);
+                } else {
+                    // Provider is shutting down, the error can be ignored
+                    log.trace("Shutting down, ignoring error", e);
+                }
+            }
+        }
+        synchronized (this) {
+            if (timeout == t) {
+                timeout = t.timer().newTimeout(this, TICK_MILLIS, MILLISECONDS);
+            }
+        }
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright 2020-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.provider.lldpcommon;
+
+import org.onlab.packet.Ethernet;
+import org.onlab.packet.LLDPOrganizationalTLV;
+import org.onlab.packet.MacAddress;
+import org.onlab.packet.ONOSLLDP;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.flow.TrafficTreatment;
+import org.onosproject.net.packet.DefaultOutboundPacket;
+import org.onosproject.net.packet.OutboundPacket;
+
+import javax.crypto.Mac;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Objects;
+
+import static org.onosproject.net.PortNumber.portNumber;
+import static org.onosproject.net.flow.DefaultTrafficTreatment.builder;
+
+/**
+ * Pre-serialized LLDP and BDDP probes for a single port. Only the timestamp
+ * and signature bytes are patched each time a probe is sent.
+ */
+final class ProbeTemplate {
+
+    private static final int ETH_HEADER_LENGTH = 14;
+    private static final int TLV_HEADER_LENGTH = 2;
+    private static final int ORG_TLV_INFO_OFFSET = TLV_HEADER_LENGTH
+            + LLDPOrganizationalTLV.OUI_LENGTH + LLDPOrganizationalTLV.SUBTYPE_LENGTH;
+    private static final int END_TLV_TYPE = 0;
+
+    private final DeviceId deviceId;
+    private final int portNum;
+    private final String portDesc;
+    private final String fingerprint;
+    private final String secret;
+    private final TrafficTreatment treatment;
+
+    private final byte[] lldpFrame;
+    private final byte[] bddpFrame;
+    private final Mac mac;
+    private final int tsOffset;
+    private final int sigOffset;
+
+    private ProbeTemplate(DeviceId deviceId, int portNum, String portDesc, String fingerprint,
+                          String secret, byte[] lldpFrame, byte[] bddpFrame, Mac mac,
+                          int tsOffset, int sigOffset) {
+        this.deviceId = deviceId;
+        this.portNum = portNum;
+        this.portDesc = portDesc;
+        this.fingerprint = fingerprint;
+        this.secret = secret;
+        this.treatment = builder().setOutput(portNumber(portNum)).build();
+        this.lldpFrame = lldpFrame;
+        this.bddpFrame = bddpFrame;
+        this.mac = mac;
+        this.tsOffset = tsOffset;
+        this.sigOffset = sigOffset;
+    }
+
+    /**
+     * Builds the probe template for the given port.
+     *
+     * @param deviceId    device the probes are sent from
+     * @param probe       freshly created link probe for the port
+     * @param portDesc    port description carried by the probe
+     * @param fingerprint cluster fingerprint used as source MAC
+     * @param secret      LLDP secret; null for unsigned probes
+     * @return probe template or null if the probe cannot be signed
+     */
+    static ProbeTemplate create(DeviceId deviceId, ONOSLLDP probe, String portDesc,
+                                String fingerprint, String secret) {
+        Ethernet lldpEth = new Ethernet();
+        lldpEth.setEtherType(Ethernet.TYPE_LLDP);
+        lldpEth.setDestinationMACAddress(MacAddress.ONOS_LLDP);
+        lldpEth.setPad(true);
+        lldpEth.setSourceMACAddress(fingerprint).setPayload(probe);
+        byte[] lldpFrame = lldpEth.serialize();
+
+        Ethernet bddpEth = new Ethernet();
+        bddpEth.setEtherType(Ethernet.TYPE_BSN);
+        bddpEth.setDestinationMACAddress(MacAddress.BROADCAST);
+        bddpEth.setPad(true);
+        bddpEth.setSourceMACAddress(fingerprint).setPayload(probe);
+        byte[] bddpFrame = bddpEth.serialize();
+
+        Mac mac = null;
+        int tsOffset = -1;
+        int sigOffset = -1;
+        if (secret != null) {
+            // Both frames share the Ethernet header length, hence the offsets
+            mac = ONOSLLDP.createMac(secret);
+            tsOffset = infoOffset(lldpFrame, probe.getTimestampTLV());
+            sigOffset = infoOffset(lldpFrame, probe.getSigTLV());
+            if (mac == null || tsOffset < 0 || sigOffset < 0) {
+                return null;
+            }
+        }
+        return new ProbeTemplate(deviceId, probe.getPort(), portDesc, fingerprint, secret,
+                                 lldpFrame, bddpFrame, mac, tsOffset, sigOffset);
+    }
+
+    /**
+     * Indicates whether the template was built with the given parameters.
+     *
+     * @param portDesc    port description
+     * @param fingerprint cluster fingerprint
+     * @param secret      LLDP secret
+     * @return true if the template can be reused
+     */
+    boolean matches(String portDesc, String fingerprint, String secret) {
+        return Objects.equals(this.portDesc, portDesc) &&
+                Objects.equals(this.fingerprint, fingerprint) &&
+                Objects.equals(this.secret, secret);
+    }
+
+    /**
+     * Returns a freshly stamped LLDP packet-out.
+     *
+     * @param timestamp probe timestamp
+     * @return outbound LLDP probe
+     */
+    OutboundPacket lldp(long timestamp) {
+        return new DefaultOutboundPacket(deviceId, treatment, ByteBuffer.wrap(stamp(lldpFrame, timestamp)));
+    }
+
+    /**
+     * Returns a freshly stamped BDDP packet-out.
+     *
+     * @param timestamp probe timestamp
+     * @return outbound BDDP probe
+     */
+    OutboundPacket bddp(long timestamp) {
+        return new DefaultOutboundPacket(deviceId, treatment, ByteBuffer.wrap(stamp(bddpFrame, timestamp)));
+    }
+
+    private byte[] stamp(byte[] frame, long timestamp) {
+        byte[] copy = Arrays.copyOf(frame, frame.length);
+        if (mac != null) {
+            ByteBuffer.wrap(copy, tsOffset, Long.BYTES).putLong(timestamp);
+            byte[] sig;
+            synchronized (mac) {
+                sig = ONOSLLDP.createSig(mac, deviceId.toString(), portNum, timestamp);
+            }
+            System.arraycopy(sig, 0, copy, sigOffset, sig.length);
+        }
+        return copy;
+    }
+
+    // Walks the LLDP TLVs of the frame and returns the offset of the info
+    // string of the given organizational TLV, or -1 if it is not present.
+    private static int infoOffset(byte[] frame, LLDPOrganizationalTLV target) {
+        if (target == null) {
+            return -1;
+        }
+        int pos = ETH_HEADER_LENGTH;
+        while (pos + TLV_HEADER_LENGTH <= frame.length) {
+            int header = ((frame[pos] & 0xff) << 8) | (frame[pos + 1] & 0xff);
+            int type = header >>> 9;
+            int length = header & 0x1ff;
+            if (type == END_TLV_TYPE) {
+                break;
+            }
+            if (type == LLDPOrganizationalTLV.ORGANIZATIONAL_TLV_TYPE &&
+                    length > ORG_TLV_INFO_OFFSET - TLV_HEADER_LENGTH &&
+                    frame[pos + ORG_TLV_INFO_OFFSET - 1] == target.getSubType() &&
+                    Arrays.equals(Arrays.copyOfRange(frame, pos + TLV_HEADER_LENGTH,
+                                                     pos + TLV_HEADER_LENGTH + LLDPOrganizationalTLV.OUI_LENGTH),
+                                  target.getOUI())) {
+                return pos + ORG_TLV_INFO_OFFSET;
+            }
+            pos += TLV_HEADER_LENGTH + length;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2020-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.provider.lldpcommon;
+
+import org.junit.Test;
+import org.onlab.packet.ChassisId;
+import org.onlab.packet.Ethernet;
+import org.onlab.packet.ONOSLLDP;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.PortNumber;
+import org.onosproject.net.flow.instructions.Instructions;
+import org.onosproject.net.packet.OutboundPacket;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the pre-serialized link probes.
+ */
+public class ProbeTemplateTest {
+
+    private static final DeviceId DID = DeviceId.deviceId("of:c0a80a6e00000001");
+    private static final ChassisId CHASSIS_ID = new ChassisId(67890);
+    private static final int PORT = 7;
+    private static final String PORT_DESC = "Ethernet7";
+    private static final String FINGERPRINT = "a4:23:05:00:11:22";
+    private static final String SECRET = "test";
+    private static final long MAX_DELAY = 60_000;
+
+    private static ProbeTemplate template(String secret) {
+        ONOSLLDP probe = ONOSLLDP.onosSecureLLDP(DID.toString(), CHASSIS_ID, PORT, PORT_DESC, secret);
+        return ProbeTemplate.create(DID, probe, PORT_DESC, FINGERPRINT, secret);
+    }
+
+    private static ONOSLLDP parse(OutboundPacket packet) throws Exception {
+        byte[] frame = packet.data().array();
+        Ethernet eth = Ethernet.deserializer().deserialize(frame, 0, frame.length);
+        return ONOSLLDP.parseONOSLLDP(eth);
+    }
+
+    /**
+     * Tests that stamped probes carry a fresh, valid signature.
+     */
+    @Test
+    public void stampedProbesVerify() throws Exception {
+        ProbeTemplate template = template(SECRET);
+        assertNotNull(template);
+
+        long now = System.currentTimeMillis();
+        OutboundPacket lldp = template.lldp(now);
+        ONOSLLDP probe = parse(lldp);
+        assertNotNull(probe);
+        assertEquals(now, probe.getTimestamp());
+        assertEquals(Integer.valueOf(PORT), probe.getPort());
+        assertEquals(PORT_DESC, probe.getPortDescString());
+        assertTrue(ONOSLLDP.verify(probe, SECRET, MAX_DELAY));
+        assertEquals(DID, lldp.sendThrough());
+        assertEquals(Instructions.createOutput(PortNumber.portNumber(PORT)),
+                     lldp.treatment().allInstructions().get(0));
+
+        // a later stamp must not alter previously emitted frames
+        OutboundPacket later = template.bddp(now + 1);
+        ONOSLLDP bddp = parse(later);
+        assertEquals(now + 1, bddp.getTimestamp());
+        assertTrue(ONOSLLDP.verify(bddp, SECRET, MAX_DELAY));
+        assertEquals(now, parse(lldp).getTimestamp());
+
+        assertFalse(ONOSLLDP.verify(probe, "other", MAX_DELAY));
+    }
+
+    /**
+     * Tests unsigned probes and template reuse checks.
+     */
+    @Test
+    public void unsignedProbes() throws Exception {
+        ProbeTemplate template = template(null);
+        assertNotNull(template);
+        ONOSLLDP probe = parse(template.lldp(System.currentTimeMillis()));
+        assertNotNull(probe);
+        assertEquals(DID.toString(), probe.getDeviceString());
+
+        assertTrue(template.matches(PORT_DESC, FINGERPRINT, null));
+        assertFalse(template.matches(PORT_DESC, FINGERPRINT, SECRET));
+        assertFalse(template.matches("Ethernet8", FINGERPRINT, null));
+    }
+}
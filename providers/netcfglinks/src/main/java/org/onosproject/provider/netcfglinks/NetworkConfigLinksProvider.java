@@ -15,6 +15,7 @@
  */
 package org.onosproject.provider.netcfglinks;
 
+import com.google.common.collect.ImmutableSet;
 import org.onlab.packet.Ethernet;
 import org.onlab.packet.ONOSLLDP;
 import org.onosproject.cluster.ClusterMetadataService;
@@ -123,6 +124,11 @@ public class NetworkConfigLinksProvider
 
     private static final String PROVIDER_NAME =
             "org.onosproject.provider.netcfglinks";
+
+    // Link discovery packets handed to the packet processor
+    private static final Set<TrafficSelector> DISCOVERY_SELECTORS = ImmutableSet.of(
+            DefaultTrafficSelector.builder().matchEthType(TYPE_LLDP).build(),
+            DefaultTrafficSelector.builder().matchEthType(TYPE_BSN).build());
     private final Logger log = LoggerFactory.getLogger(getClass());
 
     private ApplicationId appId;
@@ -156,7 +162,7 @@ public class NetworkConfigLinksProvider
     protected void activate() {
         log.info("Activated");
         appId = coreService.registerApplication(PROVIDER_NAME);
-        packetService.addProcessor(packetProcessor, PacketProcessor.advisor(0));
+        packetService.addProcessor(packetProcessor, PacketProcessor.advisor(0), DISCOVERY_SELECTORS);
         providerService = providerRegistry.register(this);
         deviceService.addListener(deviceListener);
         netCfgService.addListener(cfgListener);
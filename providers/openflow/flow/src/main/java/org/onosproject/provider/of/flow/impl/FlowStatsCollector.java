@@ -25,8 +25,7 @@ import org.projectfloodlight.openflow.types.OFPort;
 import org.projectfloodlight.openflow.types.TableId;
 import org.slf4j.Logger;
 
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import static java.lang.Math.max;
@@ -54,29 +53,32 @@ class FlowStatsCollector implements SwitchDataCollector {
     private static final int MIN_LOAD_RATE = 50;
     // Event/s defining the max load rate
     private static final int MAX_LOAD_RATE = 500;
+    // Number of poll intervals after which a missing reply is given up
+    private static final int MAX_WAIT_POLLS = 3;
 
     private final OpenFlowSwitch sw;
-    private Timer timer;
-    private TimerTask pauseTask;
-    private TimerTask pollTask;
+    private final FlowStatsScheduler scheduler;
+    private FlowStatsScheduler.Task pauseTask;
+    private FlowStatsScheduler.Task pollTask;
 
     private SlidingWindowCounter loadCounter;
     // Defines whether the collector is in pause or not for high load
     private final AtomicBoolean paused = new AtomicBoolean();
     // Defines whether the collector is in waiting or not for a previous stats reply
     private final AtomicBoolean waiting = new AtomicBoolean();
+    private volatile long waitingSince;
 
     private int pollInterval;
 
     /**
      * Creates a new collector for the given switch and poll frequency.
      *
-     * @param timer        timer to use for scheduling
+     * @param scheduler    scheduler to use for polling
      * @param sw           switch to pull
      * @param pollInterval poll frequency in seconds
      */
-    FlowStatsCollector(Timer timer, OpenFlowSwitch sw, int pollInterval) {
-        this.timer = timer;
+    FlowStatsCollector(FlowStatsScheduler scheduler, OpenFlowSwitch sw, int pollInterval) {
+        this.scheduler = scheduler;
         this.sw = checkNotNull(sw, "Null switch");
         this.pollInterval = pollInterval;
     }
@@ -93,8 +95,7 @@ class FlowStatsCollector implements SwitchDataCollector {
         }
         // If we went through start - let's schedule it
         if (loadCounter != null) {
-            pollTask = new PollTimerTask();
-            timer.scheduleAtFixedRate(pollTask, pollInterval * SECONDS, pollInterval * SECONDS);
+            pollTask = schedulePoll(pollInterval);
         }
     }
 
@@ -109,7 +110,7 @@ class FlowStatsCollector implements SwitchDataCollector {
         }
         // Let's reset also waiting, the reply can be discarded/lost
         // during a change of mastership
-        waiting.set(false);
+        clearWaiting();
     }
 
     /**
@@ -150,7 +151,34 @@ class FlowStatsCollector implements SwitchDataCollector {
         return loadCounter.getWindowRate(LOW_WINDOW) < loadCounter.getWindowRate(HIGH_WINDOW);
     }
 
-    private class PauseTimerTask extends TimerTask {
+    private FlowStatsScheduler.Task schedulePoll(long initialDelay) {
+        return scheduler.schedule(sw.getStringId(), new PollTimerTask(),
+                                  initialDelay * SECONDS, pollInterval * SECONDS, TimeUnit.MILLISECONDS);
+    }
+
+    private void clearWaiting() {
+        if (waiting.compareAndSet(true, false)) {
+            scheduler.release(sw.getStringId());
+        }
+    }
+
+    /**
+     * Returns a boolean indicating whether the last stats request is still
+     * awaiting its reply. A reply missing for a few poll intervals is
+     * given up on, so that it does not hold its request slot forever.
+     *
+     * @return indicates whether we are waiting for a previous reply
+     */
+    private boolean isWaiting() {
+        if (waiting.get() &&
+                System.currentTimeMillis() - waitingSince > (long) MAX_WAIT_POLLS * pollInterval * SECONDS) {
+            log.debug("No stats reply from {} after {} polls; giving up", sw.getStringId(), MAX_WAIT_POLLS);
+            clearWaiting();
+        }
+        return waiting.get();
+    }
+
+    private class PauseTimerTask implements Runnable {
         @Override
         public void run() {
             if (isHighLoad()) {
@@ -165,11 +193,11 @@ class FlowStatsCollector implements SwitchDataCollector {
         }
     }
 
-    private class PollTimerTask extends TimerTask {
+    private class PollTimerTask implements Runnable {
         @Override
         public void run() {
             // Check whether we are still waiting a previous reply
-            if (sw.getRole() == RoleState.MASTER && !waiting.get()) {
+            if (sw.getRole() == RoleState.MASTER && !isWaiting()) {
                 // Check whether the switch is under high load from this master. This is done here in case a large
                 // batch was pushed immediately prior to this task running.
                 if (isHighLoad()) {
@@ -186,16 +214,24 @@ class FlowStatsCollector implements SwitchDataCollector {
                         loadCounter.getWindowRate(HIGH_WINDOW));
                 }
 
+                // Bound the number of full flow tables in flight across all switches
+                if (!scheduler.tryAcquire(sw.getStringId(), (long) MAX_WAIT_POLLS * pollInterval, TimeUnit.SECONDS)) {
+                    log.debug("Deferring stats collection for {}; {} requests outstanding",
+                              sw.getStringId(), scheduler.outstanding());
+                    return;
+                }
+
                 log.trace("Collecting stats for {}", sw.getStringId());
                 OFFlowStatsRequest request = sw.factory().buildFlowStatsRequest()
                         .setMatch(sw.factory().matchWildcardAll())
                         .setTableId(TableId.ALL)
                         .setOutPort(OFPort.NO_MASK)
                         .build();
-                sw.sendMsg(request);
                 // Other flow stats will not be asked
                 // if we don't see first the reply of this request
+                waitingSince = System.currentTimeMillis();
                 waiting.set(true);
+                sw.sendMsg(request);
             }
         }
     }
@@ -204,10 +240,9 @@ class FlowStatsCollector implements SwitchDataCollector {
         // Initially start polling quickly. Then drop down to configured value
         log.debug("Starting Stats collection thread for {}", sw.getStringId());
         loadCounter = new SlidingWindowCounter(HIGH_WINDOW);
-        pauseTask = new PauseTimerTask();
-        timer.scheduleAtFixedRate(pauseTask, 1 * SECONDS, 1 * SECONDS);
-        pollTask = new PollTimerTask();
-        timer.scheduleAtFixedRate(pollTask, 1 * SECONDS, pollInterval * SECONDS);
+        pauseTask = scheduler.schedule(sw.getStringId(), new PauseTimerTask(),
+                                       1 * SECONDS, 1 * SECONDS, TimeUnit.MILLISECONDS);
+        pollTask = schedulePoll(1);
     }
 
     private synchronized void pause() {
@@ -226,8 +261,7 @@ class FlowStatsCollector implements SwitchDataCollector {
                   sw.getStringId(),
                   loadCounter.getWindowRate(PAUSE_WINDOW),
                   loadCounter.getWindowRate(HIGH_WINDOW));
-        pollTask = new PollTimerTask();
-        timer.scheduleAtFixedRate(pollTask, pollInterval * SECONDS, pollInterval * SECONDS);
+        pollTask = schedulePoll(pollInterval);
     }
 
     public synchronized void stop() {
@@ -244,10 +278,11 @@ class FlowStatsCollector implements SwitchDataCollector {
             loadCounter.destroy();
             loadCounter = null;
         }
+        clearWaiting();
     }
 
     public void received() {
-        waiting.set(false);
+        clearWaiting();
     }
 
 }
@@ -0,0 +1,229 @@
+/*
+ * Copyright 2020-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.provider.of.flow.impl;
+
+import com.google.common.hash.Hashing;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timeout;
+import org.slf4j.Logger;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static java.lang.Math.floorMod;
+import static org.onlab.util.Tools.groupedThreads;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Central scheduler for the statistics collectors of all switches.
+ * <p>
+ * Periodic tasks are kept on a single hashed wheel timer. Each task gets a
+ * phase within its interval derived from the hash of its key, so switches
+ * connected at the same time still poll spread evenly over the interval
+ * rather than in lockstep. Fired tasks run on a small shared pool and a task
+ * never overlaps with itself. The scheduler also bounds the number of
+ * full-table statistics requests outstanding at any time; each switch holds
+ * at most one request slot, which expires if its reply never comes.
+ */
+class FlowStatsScheduler {
+
+    private final Logger log = getLogger(getClass());
+
+    private static final long TICK_MILLIS = 100;
+    private static final int WHEEL_SIZE = 1024;
+    private static final int WORKER_THREADS = 8;
+
+    private final HashedWheelTimer timer;
+    private final ExecutorService executor;
+
+    // Deadline of the request slot held by each switch
+    private final Map<String, Long> slots = new HashMap<>();
+    private int maxOutstanding;
+
+    /**
+     * Creates a new scheduler.
+     *
+     * @param maxOutstanding maximum number of outstanding statistics requests
+     */
+    FlowStatsScheduler(int maxOutstanding) {
+        this.maxOutstanding = maxOutstanding;
+        this.timer = new HashedWheelTimer(groupedThreads("onos/of", "flow-stats-timer", log),
+                                          TICK_MILLIS, TimeUnit.MILLISECONDS, WHEEL_SIZE);
+        this.executor = Executors.newFixedThreadPool(WORKER_THREADS,
+                                                     groupedThreads("onos/of", "flow-stats-%d", log));
+    }
+
+    /**
+     * Schedules a task to run periodically with a phase derived from its key.
+     * The first run happens after the initial delay plus the task's phase.
+     *
+     * @param key          key identifying the task, e.g. the switch id
+     * @param task         task to run
+     * @param initialDelay minimum delay before the first run
+     * @param interval     interval between two runs
+     * @param unit         time unit of the delay and interval
+     * @return handle of the scheduled task
+     */
+    Task schedule(String key, Runnable task, long initialDelay, long interval, TimeUnit unit) {
+        long intervalMillis = Math.max(unit.toMillis(interval), TICK_MILLIS);
+        long phase = floorMod(Hashing.murmur3_32().hashString(key, StandardCharsets.UTF_8).asInt(),
+                              intervalMillis);
+        Task handle = new Task(task, intervalMillis,
+                               System.currentTimeMillis() + unit.toMillis(initialDelay) + phase);
+        handle.arm();
+        return handle;
+    }
+
+    /**
+     * Tries to take an outstanding request slot for the given key. If the key
+     * already holds a slot, its deadline is renewed instead. The slot is
+     * returned by {@link #release(String)}, or once the timeout elapses.
+     *
+     * @param key     key of the requester, e.g. the switch id
+     * @param timeout time after which the slot is released anyway
+     * @param unit    time unit of the timeout
+     * @return true if the key holds a slot and a request may be sent
+     */
+    synchronized boolean tryAcquire(String key, long timeout, TimeUnit unit) {
+        long now = System.currentTimeMillis();
+        expireSlots(now);
+        if (!slots.containsKey(key) && slots.size() >= maxOutstanding) {
+            return false;
+        }
+        slots.put(key, now + unit.toMillis(timeout));
+        return true;
+    }
+
+    /**
+     * Returns the request slot held by the given key, if any.
+     *
+     * @param key key of the requester
+     * @return true if the key was holding a slot
+     */
+    synchronized boolean release(String key) {
+        return slots.remove(key) != null;
+    }
+
+    /**
+     * Returns the number of outstanding statistics requests.
+     *
+     * @return outstanding requests
+     */
+    synchronized int outstanding() {
+        expireSlots(System.currentTimeMillis());
+        return slots.size();
+    }
+
+    /**
+     * Changes the maximum number of outstanding statistics requests.
+     *
+     * @param maxOutstanding maximum number of outstanding requests
+     */
+    synchronized void setMaxOutstanding(int maxOutstanding) {
+        this.maxOutstanding = maxOutstanding;
+    }
+
+    private void expireSlots(long now) {
+        if (slots.values().removeIf(deadline -> deadline <= now)) {
+            log.debug("Expired statistics request slots; no reply received in time");
+        }
+    }
+
+    /**
+     * Stops the scheduler; all scheduled tasks are dropped.
+     */
+    void shutdown() {
+        timer.stop();
+        executor.shutdownNow();
+    }
+
+    /**
+     * Handle of a periodic task.
+     */
+    final class Task {
+
+        private final Runnable task;
+        private final long interval;
+        private long nextRun;
+        private Timeout timeout;
+        private boolean cancelled;
+
+        private Task(Runnable task, long interval, long firstRun) {
+            this.task = task;
+            this.interval = interval;
+            this.nextRun = firstRun;
+        }
+
+        private synchronized void arm() {
+            if (cancelled) {
+                return;
+            }
+            long delay = Math.max(nextRun - System.currentTimeMillis(), 0);
+            try {
+                timeout = timer.newTimeout(t -> fire(), delay, TimeUnit.MILLISECONDS);
+            } catch (IllegalStateException e) {
+                log.debug("Scheduler is stopped; dropping task");
+            }
+        }
+
+        private void fire() {
+            try {
+                executor.execute(this::run);
+            } catch (RejectedExecutionException e) {
+                log.debug("Scheduler is stopped; dropping task");
+            }
+        }
+
+        private void run() {
+            try {
+                if (!isCancelled()) {
+                    task.run();
+                }
+            } catch (RuntimeException e) {
+                log.warn("Exception while collecting statistics", e);
+            } finally {
+                // Keep the original phase; skip the slots missed by a slow run
+                synchronized (this) {
+                    long now = System.currentTimeMillis();
+                    do {
+                        nextRun += interval;
+                    } while (nextRun <= now);
+                }
+                arm();
+            }
+        }
+
+        private synchronized boolean isCancelled() {
+            return cancelled;
+        }
+
+        /**
+         * Cancels the task; a run already in progress is not interrupted.
+         */
+        synchronized void cancel() {
+            cancelled = true;
+            if (timeout != null) {
+                timeout.cancel();
+                timeout = null;
+            }
+        }
+    }
+}
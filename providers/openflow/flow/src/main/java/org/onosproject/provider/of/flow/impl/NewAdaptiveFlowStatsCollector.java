@@ -37,14 +37,10 @@ import org.projectfloodlight.openflow.types.TableId;
 import org.slf4j.Logger;
 
 import java.util.Optional;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static java.lang.Thread.sleep;
-import static org.onlab.util.Tools.groupedThreads;
 import static org.slf4j.LoggerFactory.getLogger;
 
 /**
@@ -65,16 +61,17 @@ public class NewAdaptiveFlowStatsCollector implements SwitchDataCollector {
 
     private static final int SLEEP_LOOP_COUNT = 10;
     private static final int SLEEP_MS = 100;
+    // Number of cal and poll intervals after which a missing entire flow stats reply is given up
+    private static final int MAX_WAIT_POLLS = 3;
 
     private final DriverService driverService;
     private final OpenFlowSwitch sw;
     private final DeviceId did;
 
-    private ScheduledExecutorService adaptiveFlowStatsScheduler =
-            Executors.newScheduledThreadPool(4, groupedThreads("onos/flow", "device-stats-collector-%d", log));
-    private ScheduledFuture<?> calAndShortFlowsThread;
-    private ScheduledFuture<?> midFlowsThread;
-    private ScheduledFuture<?> longFlowsThread;
+    private final FlowStatsScheduler scheduler;
+    private FlowStatsScheduler.Task calAndShortFlowsThread;
+    private FlowStatsScheduler.Task midFlowsThread;
+    private FlowStatsScheduler.Task longFlowsThread;
 
     // Task that calculates all flowEntries' FlowLiveType and collects stats IMMEDIATE flows every calAndPollInterval
     private CalAndShortFlowsTask calAndShortFlowsTask;
@@ -110,6 +107,7 @@ public class NewAdaptiveFlowStatsCollector implements SwitchDataCollector {
 
     public static final long NO_FLOW_MISSING_XID = (-1);
     private long flowMissingXid = NO_FLOW_MISSING_XID;
+    private volatile long flowMissingSince;
 
     private FlowRuleService flowRuleService;
 
@@ -117,11 +115,14 @@ public class NewAdaptiveFlowStatsCollector implements SwitchDataCollector {
      * Creates a new adaptive collector for the given switch and default cal_and_poll frequency.
      *
      * @param driverService driver service reference
+     * @param scheduler     scheduler to use for polling
      * @param sw            switch to pull
      * @param pollInterval  cal and immediate poll frequency in seconds
      */
-    NewAdaptiveFlowStatsCollector(DriverService driverService, OpenFlowSwitch sw, int pollInterval) {
+    NewAdaptiveFlowStatsCollector(DriverService driverService, FlowStatsScheduler scheduler,
+                                  OpenFlowSwitch sw, int pollInterval) {
         this.driverService = driverService;
+        this.scheduler = scheduler;
         this.sw = sw;
         this.did = DeviceId.deviceId(Dpid.uri(sw.getId()));
 
@@ -183,31 +184,34 @@ public class NewAdaptiveFlowStatsCollector implements SwitchDataCollector {
         initMemberVars(pollInterval);
 
         if (calAndShortFlowsThread != null) {
-            calAndShortFlowsThread.cancel(false);
+            calAndShortFlowsThread.cancel();
         }
         if (midFlowsThread != null) {
-            midFlowsThread.cancel(false);
+            midFlowsThread.cancel();
         }
         if (longFlowsThread != null) {
-            longFlowsThread.cancel(false);
+            longFlowsThread.cancel();
         }
 
         calAndShortFlowsTask = new CalAndShortFlowsTask();
-        calAndShortFlowsThread = adaptiveFlowStatsScheduler.scheduleWithFixedDelay(
+        calAndShortFlowsThread = scheduler.schedule(
+                sw.getStringId(),
                 calAndShortFlowsTask,
                 0,
                 calAndPollInterval,
                 TimeUnit.SECONDS);
 
         midFlowsTask = new MidFlowsTask();
-        midFlowsThread = adaptiveFlowStatsScheduler.scheduleWithFixedDelay(
+        midFlowsThread = scheduler.schedule(
+                sw.getStringId(),
                 midFlowsTask,
                 0,
                 midPollInterval,
                 TimeUnit.SECONDS);
 
         longFlowsTask = new LongFlowsTask();
-        longFlowsThread = adaptiveFlowStatsScheduler.scheduleWithFixedDelay(
+        longFlowsThread = scheduler.schedule(
+                sw.getStringId(),
                 longFlowsTask,
                 0,
                 longPollInterval,
@@ -221,19 +225,26 @@ public class NewAdaptiveFlowStatsCollector implements SwitchDataCollector {
         public void run() {
             if (sw.getRole() == RoleState.MASTER) {
                 log.trace("CalAndShortFlowsTask Collecting AdaptiveStats for {}", sw.getStringId());
+                checkFlowMissingTimeout();
 
                 if (isFirstTimeStart) {
                     // isFirstTimeStart, get entire flow stats from a given switch sw
                     log.trace("CalAndShortFlowsTask Collecting Entire AdaptiveStats at first time start for {}",
                             sw.getStringId());
-                    ofFlowStatsRequestAllSend();
+                    if (!ofFlowStatsRequestAllSend()) {
+                        // retry at the next cal and poll interval
+                        return;
+                    }
 
                     callCountCalAndShortFlowsTask += CAL_AND_POLL_TIMES;
                     isFirstTimeStart = false;
                 } else  if (callCountCalAndShortFlowsTask >= ENTIRE_POLL_TIMES) {
                     // entire_poll_times, get entire flow stats from a given switch sw
                     log.trace("CalAndShortFlowsTask Collecting Entire AdaptiveStats for {}", sw.getStringId());
-                    ofFlowStatsRequestAllSend();
+                    if (!ofFlowStatsRequestAllSend()) {
+                        // retry at the next cal and poll interval
+                        return;
+                    }
 
                     callCountCalAndShortFlowsTask = CAL_AND_POLL_TIMES;
                     //TODO: check flows deleted in switch, but exist in controller flow table, then remove them
@@ -246,8 +257,26 @@ public class NewAdaptiveFlowStatsCollector implements SwitchDataCollector {
         }
     }
 
-    // send openflow flow stats request message with getting all flow entries to a given switch sw
-    private synchronized void ofFlowStatsRequestAllSend() {
+    // give up on an entire flow stats reply that did not come back for a few intervals
+    private void checkFlowMissingTimeout() {
+        if (getFlowMissingXid() != NO_FLOW_MISSING_XID &&
+                System.currentTimeMillis() - flowMissingSince > MAX_WAIT_POLLS * calAndPollInterval * 1000L) {
+            log.debug("checkFlowMissingTimeout: no reply for xid={} after {} polls, for {}",
+                      getFlowMissingXid(), MAX_WAIT_POLLS, sw.getStringId());
+            setFlowMissingXid(NO_FLOW_MISSING_XID);
+        }
+    }
+
+    // send openflow flow stats request message with getting all flow entries to a given switch sw;
+    // returns false if too many entire flow stats requests are outstanding across switches
+    private synchronized boolean ofFlowStatsRequestAllSend() {
+        // Takes the slot of this switch, or renews it when re-sending a request
+        if (!scheduler.tryAcquire(sw.getStringId(), (long) MAX_WAIT_POLLS * calAndPollInterval, TimeUnit.SECONDS)) {
+            log.debug("ofFlowStatsRequestAllSend: {} requests outstanding, deferring for {}",
+                      scheduler.outstanding(), sw.getStringId());
+            return false;
+        }
+
         OFFlowStatsRequest request = sw.factory().buildFlowStatsRequest()
                 .setMatch(sw.factory().matchWildcardAll())
                 .setTableId(TableId.ALL)
@@ -258,10 +287,12 @@ public class NewAdaptiveFlowStatsCollector implements SwitchDataCollector {
         // After processing the reply of this request message,
         // this must be set to NO_FLOW_MISSING_XID(-1) by provider
         setFlowMissingXid(request.getXid());
+        flowMissingSince = System.currentTimeMillis();
         log.debug("ofFlowStatsRequestAllSend: request={}, dpid={}",
                     request.toString(), sw.getStringId());
 
         sw.sendMsg(request);
+        return true;
     }
 
     // send openflow flow stats request message with getting the specific flow entry(fe) to a given switch sw
@@ -396,21 +427,24 @@ public class NewAdaptiveFlowStatsCollector implements SwitchDataCollector {
 
         // Initially start polling quickly. Then drop down to configured value
         calAndShortFlowsTask = new CalAndShortFlowsTask();
-        calAndShortFlowsThread = adaptiveFlowStatsScheduler.scheduleWithFixedDelay(
+        calAndShortFlowsThread = scheduler.schedule(
+                sw.getStringId(),
                 calAndShortFlowsTask,
                 1,
                 calAndPollInterval,
                 TimeUnit.SECONDS);
 
         midFlowsTask = new MidFlowsTask();
-        midFlowsThread = adaptiveFlowStatsScheduler.scheduleWithFixedDelay(
+        midFlowsThread = scheduler.schedule(
+                sw.getStringId(),
                 midFlowsTask,
                 1,
                 midPollInterval,
                 TimeUnit.SECONDS);
 
         longFlowsTask = new LongFlowsTask();
-        longFlowsThread = adaptiveFlowStatsScheduler.scheduleWithFixedDelay(
+        longFlowsThread = scheduler.schedule(
+                sw.getStringId(),
                 longFlowsTask,
                 1,
                 longPollInterval,
@@ -425,16 +459,16 @@ public class NewAdaptiveFlowStatsCollector implements SwitchDataCollector {
     public synchronized void stop() {
         log.debug("Stopping AdaptiveStats collection thread for {}", sw.getStringId());
         if (calAndShortFlowsThread != null) {
-            calAndShortFlowsThread.cancel(true);
+            calAndShortFlowsThread.cancel();
         }
         if (midFlowsThread != null) {
-            midFlowsThread.cancel(true);
+            midFlowsThread.cancel();
         }
         if (longFlowsThread != null) {
-            longFlowsThread.cancel(true);
+            longFlowsThread.cancel();
         }
 
-        adaptiveFlowStatsScheduler.shutdownNow();
+        setFlowMissingXid(NO_FLOW_MISSING_XID);
 
         isFirstTimeStart = false;
 
@@ -455,8 +489,12 @@ public class NewAdaptiveFlowStatsCollector implements SwitchDataCollector {
      *
      * @param flowMissingXid the OFFlowStatsRequest message Id
      */
-    public void setFlowMissingXid(long flowMissingXid) {
+    public synchronized void setFlowMissingXid(long flowMissingXid) {
         this.flowMissingXid = flowMissingXid;
+        // Entire flow stats reply processed or given up; free the slot for other switches
+        if (flowMissingXid == NO_FLOW_MISSING_XID) {
+            scheduler.release(sw.getStringId());
+        }
     }
 
     /**
@@ -20,6 +20,7 @@ import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.RemovalCause;
 import com.google.common.cache.RemovalNotification;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
@@ -71,6 +72,7 @@ import org.projectfloodlight.openflow.protocol.OFFlowStatsReply;
 import org.projectfloodlight.openflow.protocol.OFMessage;
 import org.projectfloodlight.openflow.protocol.OFPortStatus;
 import org.projectfloodlight.openflow.protocol.OFStatsReply;
+import org.projectfloodlight.openflow.protocol.OFStatsReplyFlags;
 import org.projectfloodlight.openflow.protocol.OFStatsType;
 import org.projectfloodlight.openflow.protocol.OFTableStatsEntry;
 import org.projectfloodlight.openflow.protocol.OFTableStatsReply;
@@ -92,15 +94,17 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
-import java.util.Timer;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Strings.isNullOrEmpty;
 import static org.onlab.util.Tools.get;
+import static org.onlab.util.Tools.getIntegerProperty;
 import static org.onosproject.provider.of.flow.impl.OsgiPropertyConstants.ADAPTIVE_FLOW_SAMPLING;
 import static org.onosproject.provider.of.flow.impl.OsgiPropertyConstants.ADAPTIVE_FLOW_SAMPLING_DEFAULT;
+import static org.onosproject.provider.of.flow.impl.OsgiPropertyConstants.MAX_OUTSTANDING_STATS;
+import static org.onosproject.provider.of.flow.impl.OsgiPropertyConstants.MAX_OUTSTANDING_STATS_DEFAULT;
 import static org.onosproject.provider.of.flow.impl.OsgiPropertyConstants.POLL_FREQUENCY;
 import static org.onosproject.provider.of.flow.impl.OsgiPropertyConstants.POLL_FREQUENCY_DEFAULT;
 import static org.slf4j.LoggerFactory.getLogger;
@@ -113,6 +117,7 @@ import static org.slf4j.LoggerFactory.getLogger;
         property = {
                 POLL_FREQUENCY + ":Integer=" + POLL_FREQUENCY_DEFAULT,
                 ADAPTIVE_FLOW_SAMPLING + ":Boolean=" + ADAPTIVE_FLOW_SAMPLING_DEFAULT,
+                MAX_OUTSTANDING_STATS + ":Integer=" + MAX_OUTSTANDING_STATS_DEFAULT,
         })
 public class OpenFlowRuleProvider extends AbstractProvider
         implements FlowRuleProvider {
@@ -140,13 +145,16 @@ public class OpenFlowRuleProvider extends AbstractProvider
     /** Adaptive Flow Sampling is on or off. */
     private boolean adaptiveFlowSampling = ADAPTIVE_FLOW_SAMPLING_DEFAULT;
 
+    /** Maximum number of entire flow stats requests outstanding across all switches. */
+    private int flowStatsMaxOutstanding = MAX_OUTSTANDING_STATS_DEFAULT;
+
     private FlowRuleProviderService providerService;
 
     private final InternalFlowProvider listener = new InternalFlowProvider();
 
     private Cache<Long, InternalCacheEntry> pendingBatches;
 
-    private final Timer timer = new Timer("onos-openflow-collector");
+    private FlowStatsScheduler statsScheduler;
 
 
     // Old simple collector set
@@ -170,6 +178,7 @@ public class OpenFlowRuleProvider extends AbstractProvider
         controller.addListener(listener);
         controller.addEventListener(listener);
 
+        statsScheduler = new FlowStatsScheduler(flowStatsMaxOutstanding);
         modified(context);
 
         pendingBatches = createBatchCache();
@@ -184,6 +193,7 @@ public class OpenFlowRuleProvider extends AbstractProvider
     protected void deactivate(ComponentContext context) {
         cfgService.unregisterProperties(getClass(), false);
         stopCollectors();
+        statsScheduler.shutdown();
         providerRegistry.unregister(this);
         providerService = null;
 
@@ -222,6 +232,11 @@ public class OpenFlowRuleProvider extends AbstractProvider
         }
 
         log.info("Settings: adaptiveFlowSampling={}", adaptiveFlowSampling);
+
+        flowStatsMaxOutstanding = getIntegerProperty(properties, MAX_OUTSTANDING_STATS,
+                                                     flowStatsMaxOutstanding);
+        statsScheduler.setMaxOutstanding(flowStatsMaxOutstanding);
+        log.info("Settings: flowStatsMaxOutstanding={}", flowStatsMaxOutstanding);
     }
 
     private Cache<Long, InternalCacheEntry> createBatchCache() {
@@ -247,17 +262,17 @@ public class OpenFlowRuleProvider extends AbstractProvider
             if (adaptiveFlowSampling) {
                 // NewAdaptiveFlowStatsCollector Constructor
                 NewAdaptiveFlowStatsCollector fsc =
-                        new NewAdaptiveFlowStatsCollector(driverService, sw, flowPollFrequency);
+                        new NewAdaptiveFlowStatsCollector(driverService, statsScheduler, sw, flowPollFrequency);
                 stopCollectorIfNeeded(afsCollectors.put(new Dpid(sw.getId()), fsc));
                 fsc.start();
             } else {
-                FlowStatsCollector fsc = new FlowStatsCollector(timer, sw, flowPollFrequency);
+                FlowStatsCollector fsc = new FlowStatsCollector(statsScheduler, sw, flowPollFrequency);
                 stopCollectorIfNeeded(simpleCollectors.put(new Dpid(sw.getId()), fsc));
                 fsc.start();
             }
         }
         if (sw.features().getCapabilities().contains(OFCapabilities.TABLE_STATS)) {
-            TableStatisticsCollector tsc = new TableStatisticsCollector(timer, sw, flowPollFrequency);
+            TableStatisticsCollector tsc = new TableStatisticsCollector(statsScheduler, sw, flowPollFrequency);
             stopCollectorIfNeeded(tableStatsCollectors.put(new Dpid(sw.getId()), tsc));
             tsc.start();
         }
@@ -456,17 +471,19 @@ public class OpenFlowRuleProvider extends AbstractProvider
                     break;
                 case STATS_REPLY:
                     if (((OFStatsReply) msg).getStatsType() == OFStatsType.FLOW) {
-                        // Let's unblock first the collector
+                        OFFlowStatsReply reply = (OFFlowStatsReply) msg;
+                        boolean last = !reply.getFlags().contains(OFStatsReplyFlags.REPLY_MORE);
+                        // Let's unblock first the collector, once the whole reply is in
                         SwitchDataCollector collector;
                         if (adaptiveFlowSampling) {
                             collector = afsCollectors.get(dpid);
                         } else {
                             collector = simpleCollectors.get(dpid);
                         }
-                        if (collector != null) {
+                        if (collector != null && last) {
                             collector.received();
                         }
-                        pushFlowMetrics(dpid, (OFFlowStatsReply) msg, getDriver(deviceId));
+                        pushFlowMetrics(dpid, reply, last, getDriver(deviceId));
                     } else if (((OFStatsReply) msg).getStatsType() == OFStatsType.TABLE) {
                         pushTableStatistics(dpid, (OFTableStatsReply) msg);
                     } else if (((OFStatsReply) msg).getStatsType() == OFStatsType.FLOW_LIGHTWEIGHT) {
@@ -645,15 +662,19 @@ public class OpenFlowRuleProvider extends AbstractProvider
             return handler;
         }
 
-        private void pushFlowMetrics(Dpid dpid, OFFlowStatsReply replies, DriverHandler handler) {
+        /**
+         * Pushes one segment of a multipart flow stats reply. Entries are
+         * converted lazily while the core merges them; missing flows are
+         * reconciled after the last segment.
+         */
+        private void pushFlowMetrics(Dpid dpid, OFFlowStatsReply replies, boolean last, DriverHandler handler) {
 
             DeviceId did = DeviceId.deviceId(Dpid.uri(dpid));
             NewAdaptiveFlowStatsCollector afsc = afsCollectors.get(dpid);
 
             if (adaptiveFlowSampling && afsc != null)  {
-                List<FlowEntry> flowEntries = replies.getEntries().stream()
-                        .map(entry -> new FlowEntryBuilder(did, entry, handler).withSetAfsc(afsc).build())
-                        .collect(Collectors.toList());
+                Iterable<FlowEntry> flowEntries = Iterables.transform(replies.getEntries(),
+                        entry -> new FlowEntryBuilder(did, entry, handler).withSetAfsc(afsc).build());
 
                 // Check that OFFlowStatsReply Xid is same with the one of OFFlowStatsRequest?
                 if (afsc.getFlowMissingXid() != NewAdaptiveFlowStatsCollector.NO_FLOW_MISSING_XID) {
@@ -661,9 +682,12 @@ public class OpenFlowRuleProvider extends AbstractProvider
                                           + "OFFlowStatsReply Xid={}, for {}",
                                   afsc.getFlowMissingXid(), replies.getXid(), dpid);
                     if (afsc.getFlowMissingXid() == replies.getXid()) {
-                        // call entire flow stats update with flowMissing synchronization.
-                        // used existing pushFlowMetrics
-                        providerService.pushFlowMetrics(did, flowEntries);
+                        // entire flow stats update with flowMissing synchronization, segment by segment
+                        providerService.pushFlowMetricsSegment(did, replies.getXid(), flowEntries);
+                        if (!last) {
+                            return;
+                        }
+                        providerService.pushFlowMetricsComplete(did, replies.getXid());
                     }
                     // reset flowMissingXid to NO_FLOW_MISSING_XID
                     afsc.setFlowMissingXid(NewAdaptiveFlowStatsCollector.NO_FLOW_MISSING_XID);
@@ -672,12 +696,14 @@ public class OpenFlowRuleProvider extends AbstractProvider
                     providerService.pushFlowMetricsWithoutFlowMissing(did, flowEntries);
                 }
             } else {
-                List<FlowEntry> flowEntries = replies.getEntries().stream()
-                        .map(entry -> new FlowEntryBuilder(did, entry, handler).build())
-                        .collect(Collectors.toList());
+                Iterable<FlowEntry> flowEntries = Iterables.transform(replies.getEntries(),
+                        entry -> new FlowEntryBuilder(did, entry, handler).build());
 
-                // call existing entire flow stats update with flowMissing synchronization
-                providerService.pushFlowMetrics(did, flowEntries);
+                // entire flow stats update with flowMissing synchronization, segment by segment
+                providerService.pushFlowMetricsSegment(did, replies.getXid(), flowEntries);
+                if (last) {
+                    providerService.pushFlowMetricsComplete(did, replies.getXid());
+                }
             }
         }
 
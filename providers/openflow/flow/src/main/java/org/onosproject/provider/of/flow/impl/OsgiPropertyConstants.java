@@ -25,8 +25,10 @@ public final class OsgiPropertyConstants {
 
     public static final String POLL_FREQUENCY = "flowPollFrequency";
     public static final String ADAPTIVE_FLOW_SAMPLING = "adaptiveFlowSampling";
+    public static final String MAX_OUTSTANDING_STATS = "flowStatsMaxOutstanding";
 
     public static final int POLL_FREQUENCY_DEFAULT = 5;
     public static final boolean ADAPTIVE_FLOW_SAMPLING_DEFAULT = false;
+    public static final int MAX_OUTSTANDING_STATS_DEFAULT = 64;
 
 }
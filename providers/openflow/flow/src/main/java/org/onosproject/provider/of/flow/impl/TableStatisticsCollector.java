@@ -15,14 +15,12 @@
  */
 package org.onosproject.provider.of.flow.impl;
 
-import org.onlab.util.SharedExecutors;
 import org.onosproject.openflow.controller.OpenFlowSwitch;
 import org.onosproject.openflow.controller.RoleState;
 import org.projectfloodlight.openflow.protocol.OFTableStatsRequest;
 import org.slf4j.Logger;
 
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.concurrent.TimeUnit;
 
 import static org.slf4j.LoggerFactory.getLogger;
 
@@ -33,23 +31,21 @@ class TableStatisticsCollector implements SwitchDataCollector {
 
     private final Logger log = getLogger(getClass());
 
-    public static final long SECONDS = 1000L;
-
     private final OpenFlowSwitch sw;
-    private Timer timer;
-    private TimerTask task;
+    private final FlowStatsScheduler scheduler;
+    private FlowStatsScheduler.Task task;
 
     private int pollInterval;
 
     /**
      * Creates a new table statistics collector for the given switch and poll frequency.
      *
-     * @param timer        timer to use for scheduling
+     * @param scheduler    scheduler to use for polling
      * @param sw           switch to pull
      * @param pollInterval poll frequency in seconds
      */
-    TableStatisticsCollector(Timer timer, OpenFlowSwitch sw, int pollInterval) {
-        this.timer = timer;
+    TableStatisticsCollector(FlowStatsScheduler scheduler, OpenFlowSwitch sw, int pollInterval) {
+        this.scheduler = scheduler;
         this.sw = sw;
         this.pollInterval = pollInterval;
     }
@@ -62,11 +58,11 @@ class TableStatisticsCollector implements SwitchDataCollector {
     synchronized void adjustPollInterval(int pollInterval) {
         this.pollInterval = pollInterval;
         task.cancel();
-        task = new InternalTimerTask();
-        timer.scheduleAtFixedRate(task, pollInterval * SECONDS, pollInterval * 1000L);
+        task = scheduler.schedule(sw.getStringId(), new InternalTimerTask(),
+                                  pollInterval, pollInterval, TimeUnit.SECONDS);
     }
 
-    private class InternalTimerTask extends TimerTask {
+    private class InternalTimerTask implements Runnable {
         @Override
         public void run() {
             if (sw.getRole() == RoleState.MASTER) {
@@ -81,9 +77,8 @@ class TableStatisticsCollector implements SwitchDataCollector {
     public synchronized void start() {
         // Initially start polling quickly. Then drop down to configured value
         log.debug("Starting Table Stats collection thread for {}", sw.getStringId());
-        task = new InternalTimerTask();
-        SharedExecutors.getTimer().scheduleAtFixedRate(task, 1 * SECONDS,
-                                                       pollInterval * SECONDS);
+        task = scheduler.schedule(sw.getStringId(), new InternalTimerTask(),
+                                  1, pollInterval, TimeUnit.SECONDS);
     }
 
     public synchronized void stop() {
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2020-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.provider.of.flow.impl;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the outstanding request slots of the statistics scheduler.
+ */
+public class FlowStatsSchedulerTest {
+
+    private static final String SW1 = "of:0000000000000001";
+    private static final String SW2 = "of:0000000000000002";
+    private static final String SW3 = "of:0000000000000003";
+    private static final long TIMEOUT = 60;
+
+    private FlowStatsScheduler scheduler;
+
+    @Before
+    public void setUp() {
+        scheduler = new FlowStatsScheduler(2);
+    }
+
+    @After
+    public void tearDown() {
+        scheduler.shutdown();
+    }
+
+    /**
+     * Tests that the number of outstanding requests is bounded.
+     */
+    @Test
+    public void testSlotLimit() {
+        assertTrue(scheduler.tryAcquire(SW1, TIMEOUT, TimeUnit.SECONDS));
+        assertTrue(scheduler.tryAcquire(SW2, TIMEOUT, TimeUnit.SECONDS));
+        assertFalse(scheduler.tryAcquire(SW3, TIMEOUT, TimeUnit.SECONDS));
+        assertEquals(2, scheduler.outstanding());
+
+        assertTrue(scheduler.release(SW1));
+        assertTrue(scheduler.tryAcquire(SW3, TIMEOUT, TimeUnit.SECONDS));
+        assertEquals(2, scheduler.outstanding());
+    }
+
+    /**
+     * Tests that each switch holds at most one slot and releases it only once.
+     */
+    @Test
+    public void testSlotPerSwitch() {
+        assertTrue(scheduler.tryAcquire(SW1, TIMEOUT, TimeUnit.SECONDS));
+        assertTrue(scheduler.tryAcquire(SW1, TIMEOUT, TimeUnit.SECONDS));
+        assertEquals(1, scheduler.outstanding());
+
+        assertTrue(scheduler.release(SW1));
+        assertFalse(scheduler.release(SW1));
+        assertFalse(scheduler.release(SW2));
+        assertEquals(0, scheduler.outstanding());
+
+        // A stray release must not let more requests through than the limit
+        assertTrue(scheduler.tryAcquire(SW1, TIMEOUT, TimeUnit.SECONDS));
+        assertTrue(scheduler.tryAcquire(SW2, TIMEOUT, TimeUnit.SECONDS));
+        assertFalse(scheduler.tryAcquire(SW3, TIMEOUT, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Tests that a slot whose reply never comes is released after its timeout.
+     */
+    @Test
+    public void testTimeoutRelease() throws InterruptedException {
+        scheduler.setMaxOutstanding(1);
+        assertTrue(scheduler.tryAcquire(SW1, 50, TimeUnit.MILLISECONDS));
+        assertFalse(scheduler.tryAcquire(SW2, TIMEOUT, TimeUnit.SECONDS));
+
+        Thread.sleep(100);
+        assertEquals(0, scheduler.outstanding());
+        assertTrue(scheduler.tryAcquire(SW2, TIMEOUT, TimeUnit.SECONDS));
+        assertFalse(scheduler.release(SW1));
+    }
+
+    /**
+     * Tests that lowering the limit holds back new requests until enough slots are released.
+     */
+    @Test
+    public void testLowerLimit() {
+        assertTrue(scheduler.tryAcquire(SW1, TIMEOUT, TimeUnit.SECONDS));
+        assertTrue(scheduler.tryAcquire(SW2, TIMEOUT, TimeUnit.SECONDS));
+        scheduler.setMaxOutstanding(1);
+
+        assertTrue(scheduler.release(SW1));
+        assertFalse(scheduler.tryAcquire(SW3, TIMEOUT, TimeUnit.SECONDS));
+        assertTrue(scheduler.release(SW2));
+        assertTrue(scheduler.tryAcquire(SW3, TIMEOUT, TimeUnit.SECONDS));
+    }
+}
@@ -103,6 +103,11 @@ KRYO = [
     "@minlog//jar",
     "@objenesis//jar",
 ]
+JMH = [
+    "@jmh_core//jar",
+    "@jopt_simple//jar",
+    "@commons_math3//jar",
+]
 CLI = [
     "@org_apache_karaf_shell_core//jar",
     "//cli:onos-cli",
@@ -658,6 +663,24 @@ def generated_maven_jars():
             jar_sha256 = "f00d5cb29d70a98ef6bf2000edc89b415ae6f59d25e33caf5578b20d0d400932",
             licenses = ["notice"],
             jar_urls = ["https://repo1.maven.org/maven2/com/jcraft/jsch/0.1.53/jsch-0.1.53.jar"],        )
+    if "jmh_core" not in native.existing_rules():
+        java_import_external(
+            name = "jmh_core",
+            jar_sha256 = "5b202159b21555045affccdde23c57005b9efceaea32ca6e4406d4fe5811e743",
+            licenses = ["notice"],
+            jar_urls = ["https://repo1.maven.org/maven2/org/openjdk/jmh/jmh-core/1.23/jmh-core-1.23.jar"],        )
+    if "jmh_generator_annprocess" not in native.existing_rules():
+        java_import_external(
+            name = "jmh_generator_annprocess",
+            jar_sha256 = "218c80cd06b61097ccd59011480361d4dcbeabf0b280209e781365733d9e7121",
+            licenses = ["notice"],
+            jar_urls = ["https://repo1.maven.org/maven2/org/openjdk/jmh/jmh-generator-annprocess/1.23/jmh-generator-annprocess-1.23.jar"],        )
+    if "jopt_simple" not in native.existing_rules():
+        java_import_external(
+            name = "jopt_simple",
+            jar_sha256 = "3fcfbe3203c2ea521bf7640484fd35d6303186ea2e08e72f032d640ca067ffda",
+            licenses = ["notice"],
+            jar_urls = ["https://repo1.maven.org/maven2/net/sf/jopt-simple/jopt-simple/4.6/jopt-simple-4.6.jar"],        )
     if "com_google_code_findbugs_jsr305" not in native.existing_rules():
         java_import_external(
             name = "com_google_code_findbugs_jsr305",
@@ -1426,6 +1449,9 @@ artifact_map["@jetty_io//:jetty_io"] = "mvn:org.eclipse.jetty:jetty-io:jar:9.4.1
 artifact_map["@javax_servlet_api//:javax_servlet_api"] = "mvn:javax.servlet:javax.servlet-api:jar:3.1.0"
 artifact_map["@joda_time//:joda_time"] = "mvn:joda-time:joda-time:jar:2.9.3"
 artifact_map["@jsch//:jsch"] = "mvn:com.jcraft:jsch:jar:NON-OSGI:0.1.53"
+artifact_map["@jmh_core//:jmh_core"] = "mvn:org.openjdk.jmh:jmh-core:jar:1.23"
+artifact_map["@jmh_generator_annprocess//:jmh_generator_annprocess"] = "mvn:org.openjdk.jmh:jmh-generator-annprocess:jar:1.23"
+artifact_map["@jopt_simple//:jopt_simple"] = "mvn:net.sf.jopt-simple:jopt-simple:jar:4.6"
 artifact_map["@com_google_code_findbugs_jsr305//:com_google_code_findbugs_jsr305"] = "mvn:com.google.code.findbugs:jsr305:jar:3.0.2"
 artifact_map["@junit//:junit"] = "mvn:junit:junit:jar:NON-OSGI:4.12"
 artifact_map["@junit_dep//:junit_dep"] = "mvn:junit:junit:jar:NON-OSGI:4.10"
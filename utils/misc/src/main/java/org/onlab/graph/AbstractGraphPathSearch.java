@@ -280,6 +280,34 @@ public abstract class AbstractGraphPathSearch<V extends Vertex, E extends Edge<V
         }
     }
 
+    /**
+     * Builds the result of a search over the compact view of a graph from
+     * the vertex costs and parent edges accrued in the search state.
+     *
+     * @param graph    compact view of the searched graph
+     * @param state    search state
+     * @param src      source vertex
+     * @param dst      optional destination vertex
+     * @param maxPaths limit on the number of paths built;
+     *                 {@link GraphPathSearch#ALL_PATHS} if no limit
+     * @return search result
+     */
+    DefaultResult compactResult(CompactGraph<V, E> graph, CompactSearchState state,
+                                V src, V dst, int maxPaths) {
+        DefaultResult result = new DefaultResult(src, dst, maxPaths);
+        for (int i = 0; i < state.reachedCount(); i++) {
+            int v = state.reached(i);
+            V vertex = graph.vertex(v);
+            Weight cost = new ScalarWeight(state.cost(v));
+            result.updateVertex(vertex, null, cost, false);
+            for (int link = state.firstParent(v); link >= 0; link = state.nextParent(link)) {
+                result.updateVertex(vertex, graph.edge(state.parentEdge(link)), cost, false);
+            }
+        }
+        result.buildPaths();
+        return result;
+    }
+
     /**
      * Indicates whether or not the specified edge source is already visited
      * in the specified path.
@@ -39,6 +39,8 @@ public class AdjacencyListsGraph<V extends Vertex, E extends Edge<V>>
     private final ImmutableSetMultimap<V, E> sources;
     private final ImmutableSetMultimap<V, E> destinations;
 
+    private volatile CompactGraph<V, E> compact;
+
     /**
      * Creates a graph comprising of the specified vertexes and edges.
      *
@@ -93,6 +95,21 @@ public class AdjacencyListsGraph<V extends Vertex, E extends Edge<V>>
         return destinations.get(dst);
     }
 
+    /**
+     * Returns the compact, primitive-indexed view of this graph, building it
+     * on first use.
+     *
+     * @return compact view of the graph
+     */
+    public CompactGraph<V, E> compact() {
+        CompactGraph<V, E> view = compact;
+        if (view == null) {
+            view = new CompactGraph<>(this);
+            compact = view;
+        }
+        return view;
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (this == obj) {
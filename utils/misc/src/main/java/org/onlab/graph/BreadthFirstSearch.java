@@ -20,6 +20,9 @@ import java.util.Set;
 
 /**
  * Implementation of the BFS algorithm.
+ * <p>
+ * Graphs providing a {@link CompactGraph} view are searched over that view
+ * as long as the edge weigher yields {@link ScalarWeight scalar weights}.
  */
 public class BreadthFirstSearch<V extends Vertex, E extends Edge<V>>
         extends AbstractGraphPathSearch<V, E> {
@@ -28,6 +31,14 @@ public class BreadthFirstSearch<V extends Vertex, E extends Edge<V>>
     protected Result<V, E> internalSearch(Graph<V, E> graph, V src, V dst,
                                EdgeWeigher<V, E> weigher, int maxPaths) {
 
+        CompactGraph<V, E> compact = CompactGraph.of(graph);
+        if (compact != null) {
+            Result<V, E> result = compactSearch(compact, src, dst, weigher, maxPaths);
+            if (result != null) {
+                return result;
+            }
+        }
+
         // Prepare the graph result.
         DefaultResult result = new DefaultResult(src, dst, maxPaths);
 
@@ -75,4 +86,49 @@ public class BreadthFirstSearch<V extends Vertex, E extends Edge<V>>
         return result;
     }
 
+    // Searches the compact view of the graph; returns null if the weigher
+    // yields weights other than scalar ones.
+    private Result<V, E> compactSearch(CompactGraph<V, E> graph, V src, V dst,
+                                       EdgeWeigher<V, E> weigher, int maxPaths) {
+        Weight initialWeight = weigher.getInitialWeight();
+        if (!(initialWeight instanceof ScalarWeight)) {
+            return null;
+        }
+
+        int target = dst != null ? graph.index(dst) : -1;
+        CompactSearchState state = CompactSearchState.acquire(graph.vertexCount());
+        try {
+            int source = graph.index(src);
+            state.reach(source, ((ScalarWeight) initialWeight).value());
+            state.enqueue(source);
+
+            // Visit the vertexes in the order they were reached.
+            for (int i = 0; i < state.queueLength(); i++) {
+                int vertex = state.queued(i);
+                double cost = state.cost(vertex);
+
+                for (int j = graph.fromStart(vertex); j < graph.fromEnd(vertex); j++) {
+                    int edge = graph.edgeFrom(j);
+                    int next = graph.target(edge);
+                    if (!state.isReached(next)) {
+                        Weight hopCost = weigher.weight(graph.edge(edge));
+                        if (!(hopCost instanceof ScalarWeight)) {
+                            return null;
+                        }
+                        state.reach(next, cost + ((ScalarWeight) hopCost).value());
+                        state.addParent(next, edge, maxPaths);
+                        // If we have reached our intended destination, bail.
+                        if (next == target) {
+                            return compactResult(graph, state, src, dst, maxPaths);
+                        }
+                        state.enqueue(next);
+                    }
+                }
+            }
+
+            return compactResult(graph, state, src, dst, maxPaths);
+        } finally {
+            state.release();
+        }
+    }
 }
@@ -0,0 +1,263 @@
+/*
+ * Copyright 2020-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.graph;
+
+import com.google.common.collect.ImmutableMap;
+
+import java.util.Map;
+import java.util.Set;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Immutable, primitive-indexed view of a graph suitable for allocation-free
+ * searches.
+ * <p>
+ * Vertexes and edges are mapped to dense integer indices and the egress and
+ * ingress edges of each vertex are kept in compressed sparse row arrays.
+ *
+ * @param <V> vertex type
+ * @param <E> edge type
+ */
+public final class CompactGraph<V extends Vertex, E extends Edge<V>> {
+
+    private final Object[] vertexes;
+    private final Object[] edges;
+    private final Map<V, Integer> indexes;
+
+    private final int[] sources;
+    private final int[] targets;
+
+    // Edges from vertex v are edgesFrom[fromOffsets[v]..fromOffsets[v + 1])
+    private final int[] fromOffsets;
+    private final int[] edgesFrom;
+
+    // Edges to vertex v are edgesTo[toOffsets[v]..toOffsets[v + 1])
+    private final int[] toOffsets;
+    private final int[] edgesTo;
+
+    /**
+     * Creates a compact view of the specified graph.
+     *
+     * @param graph graph to index
+     */
+    public CompactGraph(Graph<V, E> graph) {
+        checkNotNull(graph, "Graph cannot be null");
+        Set<V> vertexSet = graph.getVertexes();
+        Set<E> edgeSet = graph.getEdges();
+        int vertexCount = vertexSet.size();
+        int edgeCount = edgeSet.size();
+
+        vertexes = new Object[vertexCount];
+        ImmutableMap.Builder<V, Integer> indexBuilder = ImmutableMap.builder();
+        int i = 0;
+        for (V vertex : vertexSet) {
+            vertexes[i] = vertex;
+            indexBuilder.put(vertex, i++);
+        }
+        indexes = indexBuilder.build();
+
+        edges = new Object[edgeCount];
+        sources = new int[edgeCount];
+        targets = new int[edgeCount];
+        fromOffsets = new int[vertexCount + 1];
+        toOffsets = new int[vertexCount + 1];
+        i = 0;
+        for (E edge : edgeSet) {
+            edges[i] = edge;
+            sources[i] = indexes.get(edge.src());
+            targets[i] = indexes.get(edge.dst());
+            fromOffsets[sources[i] + 1]++;
+            toOffsets[targets[i] + 1]++;
+            i++;
+        }
+
+        for (int v = 0; v < vertexCount; v++) {
+            fromOffsets[v + 1] += fromOffsets[v];
+            toOffsets[v + 1] += toOffsets[v];
+        }
+
+        // Fill the rows preserving the edge order of the graph
+        edgesFrom = new int[edgeCount];
+        edgesTo = new int[edgeCount];
+        int[] fromFill = new int[vertexCount];
+        int[] toFill = new int[vertexCount];
+        for (int e = 0; e < edgeCount; e++) {
+            edgesFrom[fromOffsets[sources[e]] + fromFill[sources[e]]++] = e;
+            edgesTo[toOffsets[targets[e]] + toFill[targets[e]]++] = e;
+        }
+    }
+
+    /**
+     * Returns the number of vertexes in the graph.
+     *
+     * @return vertex count
+     */
+    public int vertexCount() {
+        return vertexes.length;
+    }
+
+    /**
+     * Returns the number of edges in the graph.
+     *
+     * @return edge count
+     */
+    public int edgeCount() {
+        return edges.length;
+    }
+
+    /**
+     * Returns the index of the specified vertex.
+     *
+     * @param vertex graph vertex
+     * @return vertex index or -1 if the vertex is not in the graph
+     */
+    public int index(V vertex) {
+        Integer index = indexes.get(vertex);
+        return index != null ? index : -1;
+    }
+
+    /**
+     * Returns the vertex with the specified index.
+     *
+     * @param index vertex index
+     * @return graph vertex
+     */
+    @SuppressWarnings("unchecked")
+    public V vertex(int index) {
+        return (V) vertexes[index];
+    }
+
+    /**
+     * Returns the edge with the specified index.
+     *
+     * @param index edge index
+     * @return graph edge
+     */
+    @SuppressWarnings("unchecked")
+    public E edge(int index) {
+        return (E) edges[index];
+    }
+
+    /**
+     * Returns the index of the source vertex of the specified edge.
+     *
+     * @param edge edge index
+     * @return source vertex index
+     */
+    public int source(int edge) {
+        return sources[edge];
+    }
+
+    /**
+     * Returns the index of the destination vertex of the specified edge.
+     *
+     * @param edge edge index
+     * @return destination vertex index
+     */
+    public int target(int edge) {
+        return targets[edge];
+    }
+
+    /**
+     * Returns the position of the first egress edge of the specified vertex.
+     * Egress edges of a vertex are at positions up to, but excluding,
+     * {@code fromEnd(vertex)}.
+     *
+     * @param vertex vertex index
+     * @return position of the first egress edge
+     * @see #edgeFrom(int)
+     */
+    public int fromStart(int vertex) {
+        return fromOffsets[vertex];
+    }
+
+    /**
+     * Returns the position past the last egress edge of the specified vertex.
+     *
+     * @param vertex vertex index
+     * @return position past the last egress edge
+     */
+    public int fromEnd(int vertex) {
+        return fromOffsets[vertex + 1];
+    }
+
+    /**
+     * Returns the index of the egress edge at the specified position.
+     *
+     * @param position egress edge position
+     * @return edge index
+     */
+    public int edgeFrom(int position) {
+        return edgesFrom[position];
+    }
+
+    /**
+     * Returns the position of the first ingress edge of the specified vertex.
+     * Ingress edges of a vertex are at positions up to, but excluding,
+     * {@code toEnd(vertex)}.
+     *
+     * @param vertex vertex index
+     * @return position of the first ingress edge
+     * @see #edgeTo(int)
+     */
+    public int toStart(int vertex) {
+        return toOffsets[vertex];
+    }
+
+    /**
+     * Returns the position past the last ingress edge of the specified vertex.
+     *
+     * @param vertex vertex index
+     * @return position past the last ingress edge
+     */
+    public int toEnd(int vertex) {
+        return toOffsets[vertex + 1];
+    }
+
+    /**
+     * Returns the index of the ingress edge at the specified position.
+     *
+     * @param position ingress edge position
+     * @return edge index
+     */
+    public int edgeTo(int position) {
+        return edgesTo[position];
+    }
+
+    /**
+     * Returns the compact view of the specified graph, if it is readily
+     * available.
+     *
+     * @param graph graph
+     * @param <V>   vertex type
+     * @param <E>   edge type
+     * @return compact view or null if the graph does not provide one
+     */
+    static <V extends Vertex, E extends Edge<V>> CompactGraph<V, E> of(Graph<V, E> graph) {
+        return graph instanceof AdjacencyListsGraph ?
+                ((AdjacencyListsGraph<V, E>) graph).compact() : null;
+    }
+
+    @Override
+    public String toString() {
+        return toStringHelper(this)
+                .add("vertexes", vertexes.length)
+                .add("edges", edges.length)
+                .toString();
+    }
+}
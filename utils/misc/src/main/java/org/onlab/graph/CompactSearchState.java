@@ -0,0 +1,336 @@
+/*
+ * Copyright 2020-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.graph;
+
+import java.util.Arrays;
+
+/**
+ * Reusable scratch buffers for searches over a {@link CompactGraph}.
+ * <p>
+ * Each thread holds on to one instance which is sized to the largest graph
+ * searched so far; vertex state is invalidated between searches by bumping
+ * a generation stamp rather than by clearing the buffers.
+ */
+final class CompactSearchState {
+
+    private static final int NONE = -1;
+
+    private static final ThreadLocal<CompactSearchState> STATE =
+            ThreadLocal.withInitial(CompactSearchState::new);
+
+    private boolean inUse;
+    private int generation;
+
+    // Per-vertex state, valid only if the stamp matches the generation
+    private int[] stamps = new int[0];
+    private double[] costs = new double[0];
+    private int[] heapPositions = new int[0];
+    private int[] parentHeads = new int[0];
+    private int[] parentCounts = new int[0];
+
+    // Reached vertexes in the order they were first reached
+    private int[] reached = new int[0];
+    private int reachedCount;
+
+    // Binary min-heap of vertexes keyed by cost; also used as the BFS queue
+    private int[] heap = new int[0];
+    private int heapSize;
+
+    // Linked lists of parent edges
+    private int[] parentEdges = new int[16];
+    private int[] parentNext = new int[16];
+    private int parentCount;
+
+    /**
+     * Acquires the search state of the current thread for a graph with the
+     * specified number of vertexes. The state must be released once the
+     * search is done.
+     *
+     * @param vertexCount number of graph vertexes
+     * @return search state
+     */
+    static CompactSearchState acquire(int vertexCount) {
+        CompactSearchState state = STATE.get();
+        if (state.inUse) {
+            // Re-entrant search, e.g. from within an edge weigher
+            state = new CompactSearchState();
+        }
+        state.reset(vertexCount);
+        state.inUse = true;
+        return state;
+    }
+
+    /**
+     * Releases the search state.
+     */
+    void release() {
+        inUse = false;
+    }
+
+    private void reset(int vertexCount) {
+        if (stamps.length < vertexCount) {
+            int capacity = Math.max(vertexCount, stamps.length * 2);
+            stamps = new int[capacity];
+            costs = new double[capacity];
+            heapPositions = new int[capacity];
+            parentHeads = new int[capacity];
+            parentCounts = new int[capacity];
+            reached = new int[capacity];
+            heap = new int[capacity];
+            generation = 0;
+        }
+        if (++generation == 0) {
+            Arrays.fill(stamps, 0);
+            generation = 1;
+        }
+        reachedCount = 0;
+        heapSize = 0;
+        parentCount = 0;
+    }
+
+    /**
+     * Indicates whether the specified vertex has been reached.
+     *
+     * @param v vertex index
+     * @return true if the vertex has a cost
+     */
+    boolean isReached(int v) {
+        return stamps[v] == generation;
+    }
+
+    /**
+     * Marks the specified vertex as reached with the given cost.
+     *
+     * @param v    vertex index
+     * @param cost cost to reach the vertex
+     */
+    void reach(int v, double cost) {
+        stamps[v] = generation;
+        costs[v] = cost;
+        heapPositions[v] = NONE;
+        parentHeads[v] = NONE;
+        parentCounts[v] = 0;
+        reached[reachedCount++] = v;
+    }
+
+    /**
+     * Returns the cost to reach the specified vertex.
+     *
+     * @param v vertex index
+     * @return cost of a reached vertex
+     */
+    double cost(int v) {
+        return costs[v];
+    }
+
+    /**
+     * Lowers the cost of the specified reached vertex, restoring the heap
+     * order if the vertex is queued.
+     *
+     * @param v    vertex index
+     * @param cost new cost
+     */
+    void lowerCost(int v, double cost) {
+        costs[v] = cost;
+        if (heapPositions[v] != NONE) {
+            siftUp(heapPositions[v]);
+        }
+    }
+
+    /**
+     * Returns the number of reached vertexes.
+     *
+     * @return reached vertex count
+     */
+    int reachedCount() {
+        return reachedCount;
+    }
+
+    /**
+     * Returns the reached vertex at the specified position.
+     *
+     * @param i position in the order of reaching the vertexes
+     * @return vertex index
+     */
+    int reached(int i) {
+        return reached[i];
+    }
+
+    /**
+     * Adds a parent edge to the specified vertex unless it already has the
+     * maximum number of parents.
+     *
+     * @param v        vertex index
+     * @param edge     edge index
+     * @param maxPaths maximum number of parents;
+     *                 {@link GraphPathSearch#ALL_PATHS} if no limit
+     */
+    void addParent(int v, int edge, int maxPaths) {
+        if (maxPaths != GraphPathSearch.ALL_PATHS && parentCounts[v] >= maxPaths) {
+            return;
+        }
+        if (parentCount == parentEdges.length) {
+            parentEdges = Arrays.copyOf(parentEdges, parentCount * 2);
+            parentNext = Arrays.copyOf(parentNext, parentCount * 2);
+        }
+        parentEdges[parentCount] = edge;
+        parentNext[parentCount] = parentHeads[v];
+        parentHeads[v] = parentCount++;
+        parentCounts[v]++;
+    }
+
+    /**
+     * Clears the parent edges of the specified vertex.
+     *
+     * @param v vertex index
+     */
+    void clearParents(int v) {
+        parentHeads[v] = NONE;
+        parentCounts[v] = 0;
+    }
+
+    /**
+     * Returns the first parent link of the specified vertex.
+     *
+     * @param v vertex index
+     * @return parent link or -1 if the vertex has no parents
+     */
+    int firstParent(int v) {
+        return parentHeads[v];
+    }
+
+    /**
+     * Returns the parent link following the specified one.
+     *
+     * @param link parent link
+     * @return next parent link or -1 if there are no more parents
+     */
+    int nextParent(int link) {
+        return parentNext[link];
+    }
+
+    /**
+     * Returns the edge of the specified parent link.
+     *
+     * @param link parent link
+     * @return edge index
+     */
+    int parentEdge(int link) {
+        return parentEdges[link];
+    }
+
+    /**
+     * Indicates whether the heap or queue is empty.
+     *
+     * @return true if no vertexes are queued
+     */
+    boolean isQueueEmpty() {
+        return heapSize == 0;
+    }
+
+    /**
+     * Inserts the specified reached vertex in the heap.
+     *
+     * @param v vertex index
+     */
+    void push(int v) {
+        heap[heapSize] = v;
+        heapPositions[v] = heapSize;
+        siftUp(heapSize++);
+    }
+
+    /**
+     * Removes and returns the vertex with the lowest cost from the heap.
+     *
+     * @return vertex index
+     */
+    int pop() {
+        int v = heap[0];
+        heapPositions[v] = NONE;
+        if (--heapSize > 0) {
+            heap[0] = heap[heapSize];
+            heapPositions[heap[0]] = 0;
+            siftDown(0);
+        }
+        return v;
+    }
+
+    /**
+     * Appends the specified vertex to the FIFO queue. Must not be mixed with
+     * heap operations within one search.
+     *
+     * @param v vertex index
+     */
+    void enqueue(int v) {
+        heap[heapSize++] = v;
+    }
+
+    /**
+     * Returns the number of vertexes appended to the FIFO queue so far.
+     *
+     * @return queue length
+     */
+    int queueLength() {
+        return heapSize;
+    }
+
+    /**
+     * Returns the vertex at the specified position of the FIFO queue.
+     *
+     * @param i queue position
+     * @return vertex index
+     */
+    int queued(int i) {
+        return heap[i];
+    }
+
+    private void siftUp(int i) {
+        int v = heap[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            int p = heap[parent];
+            if (costs[p] <= costs[v]) {
+                break;
+            }
+            heap[i] = p;
+            heapPositions[p] = i;
+            i = parent;
+        }
+        heap[i] = v;
+        heapPositions[v] = i;
+    }
+
+    private void siftDown(int i) {
+        int v = heap[i];
+        int half = heapSize >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            int right = child + 1;
+            if (right < heapSize && costs[heap[right]] < costs[heap[child]]) {
+                child = right;
+            }
+            int c = heap[child];
+            if (costs[v] <= costs[c]) {
+                break;
+            }
+            heap[i] = c;
+            heapPositions[c] = i;
+            i = child;
+        }
+        heap[i] = v;
+        heapPositions[v] = i;
+    }
+}
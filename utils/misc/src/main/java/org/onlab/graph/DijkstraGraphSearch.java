@@ -22,6 +22,9 @@ import java.util.Set;
 /**
  * Dijkstra shortest-path graph search algorithm capable of finding not just
  * one, but all shortest paths between the source and destinations.
+ * <p>
+ * Graphs providing a {@link CompactGraph} view are searched over that view
+ * as long as the edge weigher yields {@link ScalarWeight scalar weights}.
  */
 public class DijkstraGraphSearch<V extends Vertex, E extends Edge<V>>
         extends AbstractGraphPathSearch<V, E> {
@@ -30,6 +33,14 @@ public class DijkstraGraphSearch<V extends Vertex, E extends Edge<V>>
     protected Result<V, E> internalSearch(Graph<V, E> graph, V src, V dst,
                                EdgeWeigher<V, E> weigher, int maxPaths) {
 
+        CompactGraph<V, E> compact = CompactGraph.of(graph);
+        if (compact != null) {
+            Result<V, E> result = compactSearch(compact, src, dst, weigher, maxPaths);
+            if (result != null) {
+                return result;
+            }
+        }
+
         // Use the default result to remember cumulative costs and parent
         // edges to each each respective vertex.
         DefaultResult result = new DefaultResult(src, dst, maxPaths);
@@ -73,6 +84,70 @@ public class DijkstraGraphSearch<V extends Vertex, E extends Edge<V>>
         return result;
     }
 
+    // Searches the compact view of the graph; returns null if the weigher
+    // yields weights other than scalar ones.
+    private Result<V, E> compactSearch(CompactGraph<V, E> graph, V src, V dst,
+                                       EdgeWeigher<V, E> weigher, int maxPaths) {
+        Weight initialWeight = weigher.getInitialWeight();
+        if (!(initialWeight instanceof ScalarWeight)) {
+            return null;
+        }
+
+        int target = dst != null ? graph.index(dst) : -1;
+        CompactSearchState state = CompactSearchState.acquire(graph.vertexCount());
+        try {
+            int source = graph.index(src);
+            state.reach(source, ((ScalarWeight) initialWeight).value());
+            state.push(source);
+
+            while (!state.isQueueEmpty()) {
+                // Get the nearest vertex
+                int nearest = state.pop();
+                if (nearest == target) {
+                    break;
+                }
+
+                // Relax all its egress edges.
+                double cost = state.cost(nearest);
+                for (int i = graph.fromStart(nearest); i < graph.fromEnd(nearest); i++) {
+                    int edge = graph.edgeFrom(i);
+                    Weight hopCost = weigher.weight(graph.edge(edge));
+                    if (!(hopCost instanceof ScalarWeight)) {
+                        return null;
+                    }
+                    if (hopCost.isViable() && !hopCost.isNegative()) {
+                        relaxEdge(state, edge, graph.target(edge),
+                                  cost + ((ScalarWeight) hopCost).value(), maxPaths);
+                    }
+                }
+            }
+
+            return compactResult(graph, state, src, dst, maxPaths);
+        } finally {
+            state.release();
+        }
+    }
+
+    // Relaxes the edge leading to the given vertex using the given new cost,
+    // accruing the edge as a parent if the cost is the same or lower.
+    private void relaxEdge(CompactSearchState state, int edge, int v, double newCost, int maxPaths) {
+        if (!state.isReached(v)) {
+            state.reach(v, newCost);
+            state.addParent(v, edge, maxPaths);
+            state.push(v);
+            return;
+        }
+
+        int compareResult = ScalarWeight.compare(newCost, state.cost(v));
+        if (compareResult < 0) {
+            state.lowerCost(v, newCost);
+            state.clearParents(v);
+        }
+        if (compareResult <= 0) {
+            state.addParent(v, edge, maxPaths);
+        }
+    }
+
     // Compares path weights using their accrued costs; used for sorting the
     // min priority queue.
     private final class PathCostComparator implements Comparator<V> {
@@ -79,6 +79,22 @@ public class ScalarWeight implements Weight {
         return Double.compare(value, ((ScalarWeight) otherWeight).value);
     }
 
+    /**
+     * Compares two scalar weight values the same way as
+     * {@link #compareTo(Weight)} compares the weights holding them.
+     *
+     * @param value1 first weight value
+     * @param value2 second weight value
+     * @return negative, zero or positive as the first value is less than,
+     * the same as, or greater than the second
+     */
+    static int compare(double value1, double value2) {
+        if (DoubleMath.fuzzyEquals(value1, value2, samenessThreshold)) {
+            return 0;
+        }
+        return Double.compare(value1, value2);
+    }
+
     @Override
     public boolean equals(Object obj) {
         return ((obj instanceof ScalarWeight) &&
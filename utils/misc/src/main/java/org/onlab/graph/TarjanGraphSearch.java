@@ -15,8 +15,10 @@
  */
 package org.onlab.graph;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -108,7 +110,7 @@ public class TarjanGraphSearch<V extends Vertex, E extends Edge<V>>
 
         private int index = 0;
         private final Map<V, VertexData<V>> vertexData = new HashMap<>();
-        private final List<VertexData<V>> visited = new ArrayList<>();
+        private final Deque<VertexData<V>> visited = new ArrayDeque<>();
 
         private SccResult(Graph<V, E> graph) {
             this.graph = graph;
@@ -150,14 +152,15 @@ public class TarjanGraphSearch<V extends Vertex, E extends Edge<V>>
         private VertexData<V> addData(V vertex) {
             VertexData<V> d = new VertexData<>(vertex, index);
             vertexData.put(vertex, d);
-            visited.add(0, d);
+            visited.push(d);
+            d.visited = true;
             index++;
             return d;
         }
 
         // Indicates whether the given vertex has been visited
         private boolean visited(VertexData data) {
-            return visited.contains(data);
+            return data.visited;
         }
 
         // Adds a new cluster for the specified vertex
@@ -171,7 +174,8 @@ public class TarjanGraphSearch<V extends Vertex, E extends Edge<V>>
             VertexData<V> nextVertexData;
             Set<V> vertexes = new HashSet<>();
             do {
-                nextVertexData = visited.remove(0);
+                nextVertexData = visited.pop();
+                nextVertexData.visited = false;
                 vertexes.add(nextVertexData.vertex);
             } while (data != nextVertexData);
             return Collections.unmodifiableSet(vertexes);
@@ -201,6 +205,8 @@ public class TarjanGraphSearch<V extends Vertex, E extends Edge<V>>
         final V vertex;
         int index;
         int lowLink;
+        // Whether the vertex is still on the stack of visited vertexes
+        boolean visited;
 
         private VertexData(V vertex, int index) {
             this.vertex = vertex;
@@ -484,19 +484,19 @@ public class ONOSLLDP extends LLDP {
         }
     }
 
-    private static byte[] createSig(String deviceId, int portNum, long timestamp, String secret) {
-        byte[] pnb = ByteBuffer.allocate(8).putLong(portNum).array();
-        byte[] tmb = ByteBuffer.allocate(8).putLong(timestamp).array();
-
+    /**
+     * Creates a MAC keyed with the given LLDP secret, suitable for signing
+     * any number of probes with {@link #createSig(Mac, String, int, long)}.
+     *
+     * @param secret LLDP secret
+     * @return keyed MAC or null if it cannot be created
+     */
+    public static Mac createMac(String secret) {
         try {
             SecretKeySpec signingKey = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256");
             Mac mac = Mac.getInstance("HmacSHA256");
             mac.init(signingKey);
-            mac.update(deviceId.getBytes());
-            mac.update(pnb);
-            mac.update(tmb);
-            byte[] sig = mac.doFinal();
-            return sig;
+            return mac;
         } catch (NoSuchAlgorithmException e) {
             return null;
         } catch (InvalidKeyException e) {
@@ -504,6 +504,34 @@ public class ONOSLLDP extends LLDP {
         }
     }
 
+    /**
+     * Creates the signature of a link probe using a MAC previously obtained
+     * from {@link #createMac(String)}. The MAC is not thread-safe.
+     *
+     * @param mac       keyed MAC
+     * @param deviceId  The device ID as a String
+     * @param portNum   Port number of port the probe is sent out of
+     * @param timestamp probe timestamp
+     * @return probe signature
+     */
+    public static byte[] createSig(Mac mac, String deviceId, int portNum, long timestamp) {
+        byte[] pnb = ByteBuffer.allocate(8).putLong(portNum).array();
+        byte[] tmb = ByteBuffer.allocate(8).putLong(timestamp).array();
+
+        mac.update(deviceId.getBytes());
+        mac.update(pnb);
+        mac.update(tmb);
+        return mac.doFinal();
+    }
+
+    private static byte[] createSig(String deviceId, int portNum, long timestamp, String secret) {
+        Mac mac = createMac(secret);
+        if (mac == null) {
+            return null;
+        }
+        return createSig(mac, deviceId, portNum, timestamp);
+    }
+
     private static boolean verifySig(byte[] sig, String deviceId, int portNum, long timestamp, String secret) {
         byte[] nsig = createSig(deviceId, portNum, timestamp, secret);
         if (nsig == null) {
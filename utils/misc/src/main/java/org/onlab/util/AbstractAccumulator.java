@@ -170,6 +170,17 @@ public abstract class AbstractAccumulator<T> implements Accumulator<T> {
         }
     }
 
+    /**
+     * Processes the items accumulated so far right away, regardless of the
+     * thresholds and of {@link #isReady()}.
+     */
+    public void flush() {
+        List<T> batch = finalizeCurrentBatch();
+        if (!batch.isEmpty()) {
+            processItems(batch);
+        }
+    }
+
     /**
      * Returns an immutable copy of the existing items and clear the list.
      *
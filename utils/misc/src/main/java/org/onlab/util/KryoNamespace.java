@@ -33,8 +33,6 @@ import org.apache.commons.lang3.tuple.Pair;
 import org.objenesis.strategy.StdInstantiatorStrategy;
 import org.slf4j.Logger;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
@@ -42,6 +40,9 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Function;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static org.slf4j.LoggerFactory.getLogger;
@@ -60,6 +61,14 @@ public final class KryoNamespace implements KryoFactory, KryoPool {
     public static final int DEFAULT_BUFFER_SIZE = 4096;
     public static final int MAX_BUFFER_SIZE = 100 * 1000 * 1000;
 
+    /**
+     * Largest output buffer retained in the pool for reuse; larger buffers
+     * are discarded once the serialization completes.
+     */
+    public static final int MAX_POOLED_BUFFER_SIZE = 1024 * 1024;
+
+    private static final int OUTPUT_POOL_SIZE = 64;
+
     /**
      * ID to use if this KryoNamespace does not define registration id.
      */
@@ -78,6 +87,9 @@ public final class KryoNamespace implements KryoFactory, KryoPool {
                                         .softReferences()
                                         .build();
 
+    // Reusable output buffers shared by all namespaces
+    private static final BlockingQueue<Output> OUTPUT_POOL = new ArrayBlockingQueue<>(OUTPUT_POOL_SIZE);
+
     private final ImmutableList<RegistrationBlock> registeredBlocks;
 
     private final boolean compatible;
@@ -305,13 +317,54 @@ public final class KryoNamespace implements KryoFactory, KryoPool {
      * @return serialized bytes
      */
     public byte[] serialize(final Object obj, final int bufferSize) {
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(bufferSize);
-        Output out = new Output(outputStream);
-        return pool.run(kryo -> {
-            kryo.writeClassAndObject(out, obj);
-            out.flush();
-            return outputStream.toByteArray();
-        });
+        return serialize(obj, bufferSize, Output::toBytes);
+    }
+
+    /**
+     * Serializes given object into a pooled output buffer and applies the
+     * given function to the serialized bytes without copying them.
+     * <p>
+     * The buffer passed to the function wraps the pooled output buffer and
+     * is only valid for the duration of the call; the function must not
+     * retain it.
+     *
+     * @param obj Object to serialize
+     * @param function function to apply to the serialized bytes
+     * @param <T> function result type
+     * @return function result
+     */
+    public <T> T serialize(final Object obj, final Function<ByteBuffer, T> function) {
+        return serialize(obj, DEFAULT_BUFFER_SIZE,
+                out -> function.apply(ByteBuffer.wrap(out.getBuffer(), 0, out.position())));
+    }
+
+    private <T> T serialize(final Object obj, final int bufferSize, final Function<Output, T> function) {
+        Output out = borrowOutput(bufferSize);
+        try {
+            return pool.run(kryo -> {
+                kryo.writeClassAndObject(out, obj);
+                return function.apply(out);
+            });
+        } finally {
+            releaseOutput(out);
+        }
+    }
+
+    // Returns a cleared output buffer from the pool, or a new one that grows without bound
+    private static Output borrowOutput(int bufferSize) {
+        Output out = OUTPUT_POOL.poll();
+        if (out == null || out.getBuffer().length < bufferSize) {
+            return new Output(bufferSize, -1);
+        }
+        return out;
+    }
+
+    // Returns the output buffer to the pool unless it has grown too large
+    private static void releaseOutput(Output out) {
+        if (out.getBuffer().length <= MAX_POOLED_BUFFER_SIZE) {
+            out.clear();
+            OUTPUT_POOL.offer(out);
+        }
     }
 
     /**
@@ -367,7 +420,21 @@ public final class KryoNamespace implements KryoFactory, KryoPool {
      * @return deserialized Object
      */
     public <T> T deserialize(final byte[] bytes) {
-        Input in = new Input(new ByteArrayInputStream(bytes));
+        return deserialize(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Deserializes a region of the given byte array to Object using Kryo
+     * instance in pool. The bytes are read in place without copying.
+     *
+     * @param bytes serialized bytes
+     * @param offset offset of the serialized object in the array
+     * @param length number of serialized bytes
+     * @param <T> deserialized Object type
+     * @return deserialized Object
+     */
+    public <T> T deserialize(final byte[] bytes, final int offset, final int length) {
+        Input in = new Input(bytes, offset, length);
         Kryo kryo = borrow();
         try {
             @SuppressWarnings("unchecked")
@@ -380,12 +447,29 @@ public final class KryoNamespace implements KryoFactory, KryoPool {
 
     /**
      * Deserializes given byte buffer to Object using Kryo instance in pool.
+     * <p>
+     * The object is read from the buffer's current position, which may be a
+     * slice of a larger buffer. Array-backed buffers are read in place.
      *
      * @param buffer input with serialized bytes
      * @param <T> deserialized Object type
      * @return deserialized Object
      */
     public <T> T deserialize(final ByteBuffer buffer) {
+        if (buffer.hasArray()) {
+            int offset = buffer.arrayOffset() + buffer.position();
+            Input in = new Input(buffer.array(), offset, buffer.remaining());
+            Kryo kryo = borrow();
+            try {
+                @SuppressWarnings("unchecked")
+                T obj = (T) kryo.readClassAndObject(in);
+                buffer.position(in.position() - buffer.arrayOffset());
+                return obj;
+            } finally {
+                release(kryo);
+            }
+        }
+
         ByteBufferInput in = new ByteBufferInput(buffer);
         Kryo kryo = borrow();
         try {
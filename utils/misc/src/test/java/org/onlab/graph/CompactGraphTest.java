@@ -0,0 +1,171 @@
+/*
+ * Copyright 2020-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.graph;
+
+import com.google.common.collect.ImmutableSet;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.onlab.graph.GraphPathSearch.ALL_PATHS;
+import org.onlab.graph.GraphPathSearch.Result;
+
+/**
+ * Test of the compact graph view and of the searches running over it.
+ */
+public class CompactGraphTest extends GraphTest {
+
+    private static final EdgeWeigher<TestVertex, TestEdge> SCALAR_WEIGHER =
+            new DefaultEdgeWeigher<TestVertex, TestEdge>() {
+                @Override
+                public Weight weight(TestEdge edge) {
+                    return edge.weight();
+                }
+            };
+
+    private static ScalarWeight sw(double value) {
+        return new ScalarWeight(value);
+    }
+
+    // Same topology as the default graph, but with scalar weights and
+    // several equal-cost paths
+    @Override
+    protected Set<TestEdge> edges() {
+        return ImmutableSet.of(new TestEdge(A, B, sw(1)),
+                               new TestEdge(A, C, sw(2)),
+                               new TestEdge(B, D, sw(2)),
+                               new TestEdge(B, C, sw(1)),
+                               new TestEdge(B, E, sw(4)),
+                               new TestEdge(C, E, sw(1)),
+                               new TestEdge(D, H, sw(2)),
+                               new TestEdge(D, E, sw(1)),
+                               new TestEdge(E, F, sw(1)),
+                               new TestEdge(F, D, sw(1)),
+                               new TestEdge(F, G, sw(1)),
+                               new TestEdge(F, H, sw(1)));
+    }
+
+    @Test
+    public void structure() {
+        AdjacencyListsGraph<TestVertex, TestEdge> graph =
+                new AdjacencyListsGraph<>(vertexes(), edges());
+        CompactGraph<TestVertex, TestEdge> compact = graph.compact();
+        assertSame("compact view should be reused", compact, graph.compact());
+        assertEquals("incorrect vertex count", 8, compact.vertexCount());
+        assertEquals("incorrect edge count", 12, compact.edgeCount());
+        assertEquals("unexpected vertex index", -1, compact.index(Z));
+
+        for (TestVertex vertex : vertexes()) {
+            int v = compact.index(vertex);
+            assertSame("incorrect vertex", vertex, compact.vertex(v));
+
+            Set<TestEdge> from = new HashSet<>();
+            for (int i = compact.fromStart(v); i < compact.fromEnd(v); i++) {
+                int e = compact.edgeFrom(i);
+                assertEquals("incorrect edge source", v, compact.source(e));
+                from.add(compact.edge(e));
+            }
+            assertEquals("incorrect egress edges", graph.getEdgesFrom(vertex), from);
+
+            Set<TestEdge> to = new HashSet<>();
+            for (int i = compact.toStart(v); i < compact.toEnd(v); i++) {
+                int e = compact.edgeTo(i);
+                assertEquals("incorrect edge destination", v, compact.target(e));
+                to.add(compact.edge(e));
+            }
+            assertEquals("incorrect ingress edges", graph.getEdgesTo(vertex), to);
+        }
+    }
+
+    @Test
+    public void dijkstra() {
+        for (TestVertex dst : vertexes()) {
+            compare(new DijkstraGraphSearch<>(), A, dst, ALL_PATHS);
+            compare(new DijkstraGraphSearch<>(), A, dst, 1);
+        }
+        compare(new DijkstraGraphSearch<>(), A, null, ALL_PATHS);
+        compare(new DijkstraGraphSearch<>(), H, A, ALL_PATHS);
+    }
+
+    @Test
+    public void breadthFirst() {
+        for (TestVertex dst : vertexes()) {
+            Result<TestVertex, TestEdge> reference = search(new BreadthFirstSearch<>(), false, A, dst, ALL_PATHS);
+            Result<TestVertex, TestEdge> compact = search(new BreadthFirstSearch<>(), true, A, dst, ALL_PATHS);
+            assertEquals("incorrect path count", reference.paths().size(), compact.paths().size());
+            assertEquals("incorrect path lengths", lengths(reference), lengths(compact));
+        }
+    }
+
+    @Test
+    public void suurballe() {
+        compare(new SuurballeGraphSearch<>(), A, H, ALL_PATHS);
+        compare(new SuurballeGraphSearch<>(), A, G, ALL_PATHS);
+    }
+
+    @Test
+    public void kShortest() {
+        compare(new KShortestPathsSearch<>(), A, H, 5);
+        assertEquals("incorrect paths",
+                     new LazyKShortestPathsSearch<TestVertex, TestEdge>()
+                             .lazyPathSearch(new MutableAdjacencyListsGraph<>(vertexes(), edges()),
+                                             A, H, SCALAR_WEIGHER)
+                             .limit(5).collect(Collectors.toList()),
+                     new LazyKShortestPathsSearch<TestVertex, TestEdge>()
+                             .lazyPathSearch(new AdjacencyListsGraph<>(vertexes(), edges()),
+                                             A, H, SCALAR_WEIGHER)
+                             .limit(5).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void nonScalarWeights() {
+        graph = new AdjacencyListsGraph<>(vertexes(), super.edges());
+        Set<Path<TestVertex, TestEdge>> paths =
+                new DijkstraGraphSearch<TestVertex, TestEdge>().search(graph, A, H, weigher, ALL_PATHS).paths();
+        assertEquals("incorrect path count", 1, paths.size());
+        assertEquals("incorrect path cost", new TestDoubleWeight(5), paths.iterator().next().cost());
+    }
+
+    // Compares results of the compact search with those of the object based one
+    private void compare(GraphPathSearch<TestVertex, TestEdge> search,
+                         TestVertex src, TestVertex dst, int maxPaths) {
+        Result<TestVertex, TestEdge> reference = search(search, false, src, dst, maxPaths);
+        Result<TestVertex, TestEdge> compact = search(search, true, src, dst, maxPaths);
+        if (maxPaths == ALL_PATHS) {
+            assertEquals("incorrect paths", reference.paths(), compact.paths());
+        } else {
+            assertEquals("incorrect path count", reference.paths().size(), compact.paths().size());
+        }
+        assertEquals("incorrect costs", reference.costs(), compact.costs());
+    }
+
+    // Searches either the compact or, through a mutable graph, the object based view
+    private Result<TestVertex, TestEdge> search(GraphPathSearch<TestVertex, TestEdge> search, boolean compact,
+                                                TestVertex src, TestVertex dst, int maxPaths) {
+        Graph<TestVertex, TestEdge> g = compact ?
+                new AdjacencyListsGraph<>(vertexes(), edges()) :
+                new MutableAdjacencyListsGraph<>(vertexes(), edges());
+        return search.search(g, src, dst, SCALAR_WEIGHER, maxPaths);
+    }
+
+    private static Set<Integer> lengths(Result<TestVertex, TestEdge> result) {
+        return result.paths().stream().map(p -> p.edges().size()).collect(Collectors.toSet());
+    }
+}
@@ -134,6 +134,19 @@ public class AbstractAccumulatorTest {
         assertEquals("incorrect batch", "abcdefg", accumulator.batch);
     }
 
+    @Test
+    public void flush() {
+        TestAccumulator accumulator = new TestAccumulator();
+        accumulator.ready = false;
+        accumulator.add(new TestItem("a"));
+        accumulator.add(new TestItem("b"));
+        accumulator.flush();
+        assertEquals("incorrect batch", "ab", accumulator.batch);
+        accumulator.ready = true;
+        timer.advanceTimeMillis(120, SHORT_REAL_TIME_DELAY);
+        assertEquals("should not have fired again", 1, accumulator.batchCount);
+    }
+
     @Test
     public void stormTest() {
         TestAccumulator accumulator = new TestAccumulator();
@@ -29,6 +29,7 @@ import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 
 import java.util.List;
+import java.util.Map;
 import static org.onosproject.net.packet.PacketProcessor.ADVISOR_MAX;
 import static org.onosproject.net.packet.PacketProcessor.DIRECTOR_MAX;
 
@@ -54,16 +55,36 @@ public class PacketProcessorsWebResource extends AbstractWebResource {
       List<PacketProcessorEntry> processors = service.getProcessors();
       ObjectMapper mapper = new ObjectMapper();
       for (PacketProcessorEntry p : processors) {
-            pktProcNode.add(mapper.createObjectNode()
+            ObjectNode node = mapper.createObjectNode()
                     .put("priority", priorityFormat(p.priority()))
                     .put("class", p.processor().getClass().getName())
                     .put("packets", p.invocations())
-                    .put("avgNanos", p.averageNanos()));
+                    .put("avgNanos", p.averageNanos());
+            ObjectNode histogram = node.putObject("latencyHistogram");
+            long lastBound = 0;
+            for (Map.Entry<Long, Long> bucket : p.latencyHistogram().entrySet()) {
+                if (bucket.getKey() == Long.MAX_VALUE) {
+                    histogram.put(">" + nanosFormat(lastBound), bucket.getValue());
+                } else {
+                    histogram.put("<=" + nanosFormat(bucket.getKey()), bucket.getValue());
+                    lastBound = bucket.getKey();
+                }
+            }
+            pktProcNode.add(node);
       }
 
       return ok(root).build();
    }
 
+   private String nanosFormat(long nanos) {
+        if (nanos >= 1_000_000 && nanos % 1_000_000 == 0) {
+            return nanos / 1_000_000 + "ms";
+        } else if (nanos >= 1_000 && nanos % 1_000 == 0) {
+            return nanos / 1_000 + "us";
+        }
+        return nanos + "ns";
+    }
+
    private String priorityFormat(int priority) {
         if (priority > DIRECTOR_MAX) {
             return "observer(" + (priority - DIRECTOR_MAX - 1) + ")";